@@ -0,0 +1,207 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.utils;
+
+import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.SimpleString;
+
+/**
+ * <p>A bounded pool of the SimpleStrings read from buffers, so the property names and addresses
+ * that come over and over again in the decoded messages are shared instead of allocated for each
+ * message.</p>
+ *
+ * <p>The pool is a table of a fixed number of entries indexed by the hash of the bytes, which are
+ * compared with the entry straight from the buffer. A string that is not in the pool replaces the
+ * one at its entry. The table is read and written without locking: a thread may miss a string
+ * another thread has just added, which only costs an allocation, and SimpleString is immutable so
+ * any instance it finds is fully built.</p>
+ *
+ * <p>Message decoding uses the pool set with {@link #setDecodePool(SimpleStringPool)}, created
+ * from the {@value #DECODE_POOL_SIZE_PROP_KEY} system property. There is no pool by default.</p>
+ */
+public final class SimpleStringPool
+{
+   // Constants -----------------------------------------------------
+
+   /**
+    * The system property setting the number of entries of the pool used to decode messages, 0 or
+    * less for none.
+    */
+   public static final String DECODE_POOL_SIZE_PROP_KEY = "hornetq.decode.pool.size";
+
+   // longer strings are unlikely to repeat, and would take too long to compare
+   public static final int DEFAULT_MAX_LENGTH = 512;
+
+   // Static --------------------------------------------------------
+
+   private static volatile SimpleStringPool decodePool = create(Integer.getInteger(DECODE_POOL_SIZE_PROP_KEY, 0));
+
+   /**
+    * Returns the pool used to decode messages, or {@code null} if there is none.
+    */
+   public static SimpleStringPool getDecodePool()
+   {
+      return decodePool;
+   }
+
+   /**
+    * Sets the pool used to decode messages, {@code null} for none.
+    */
+   public static void setDecodePool(final SimpleStringPool pool)
+   {
+      decodePool = pool;
+   }
+
+   /**
+    * Reads a SimpleString of {@code length} bytes from the buffer, from the decode pool if there
+    * is one.
+    */
+   public static SimpleString readSimpleString(final HornetQBuffer buffer, final int length)
+   {
+      SimpleStringPool pool = decodePool;
+
+      if (pool != null)
+      {
+         return pool.read(buffer, length);
+      }
+
+      byte[] data = new byte[length];
+      buffer.readBytes(data);
+      return new SimpleString(data);
+   }
+
+   /**
+    * Reads a SimpleString encoded by {@link HornetQBuffer#writeNullableSimpleString(SimpleString)},
+    * from the decode pool if there is one.
+    */
+   public static SimpleString readNullableSimpleString(final HornetQBuffer buffer)
+   {
+      if (buffer.readByte() == DataConstants.NULL)
+      {
+         return null;
+      }
+
+      return readSimpleString(buffer, buffer.readInt());
+   }
+
+   private static SimpleStringPool create(final int size)
+   {
+      return size > 0 ? new SimpleStringPool(size, DEFAULT_MAX_LENGTH) : null;
+   }
+
+   // Attributes ----------------------------------------------------
+
+   private final SimpleString[] entries;
+
+   private final int mask;
+
+   private final int maxLength;
+
+   // Constructors --------------------------------------------------
+
+   /**
+    * @param size the number of entries, rounded up to a power of two
+    * @param maxLength the length in bytes above which strings are never pooled
+    */
+   public SimpleStringPool(final int size, final int maxLength)
+   {
+      if (size <= 0)
+      {
+         throw new IllegalArgumentException("size must be positive, it was " + size);
+      }
+
+      int capacity = 1;
+      while (capacity < size)
+      {
+         capacity <<= 1;
+      }
+
+      entries = new SimpleString[capacity];
+      mask = capacity - 1;
+      this.maxLength = maxLength;
+   }
+
+   // Public --------------------------------------------------------
+
+   public int getSize()
+   {
+      return entries.length;
+   }
+
+   public int getMaxLength()
+   {
+      return maxLength;
+   }
+
+   /**
+    * Reads a SimpleString of {@code length} bytes from the buffer, returning the pooled instance
+    * if it has the same bytes.
+    */
+   public SimpleString read(final HornetQBuffer buffer, final int length)
+   {
+      if (length > maxLength)
+      {
+         byte[] data = new byte[length];
+         buffer.readBytes(data);
+         return new SimpleString(data);
+      }
+
+      int start = buffer.readerIndex();
+
+      int hash = 0;
+      for (int i = 0; i < length; i++)
+      {
+         hash = 31 * hash + buffer.getByte(start + i);
+      }
+
+      int index = (hash ^ hash >>> 16) & mask;
+
+      SimpleString pooled = entries[index];
+
+      if (pooled != null && matches(pooled.getData(), buffer, start, length))
+      {
+         buffer.skipBytes(length);
+         return pooled;
+      }
+
+      byte[] data = new byte[length];
+      buffer.readBytes(data);
+
+      SimpleString string = new SimpleString(data);
+
+      entries[index] = string;
+
+      return string;
+   }
+
+   // Private -------------------------------------------------------
+
+   private static boolean matches(final byte[] data, final HornetQBuffer buffer, final int start, final int length)
+   {
+      if (data.length != length)
+      {
+         return false;
+      }
+
+      for (int i = 0; i < length; i++)
+      {
+         if (data[i] != buffer.getByte(start + i))
+         {
+            return false;
+         }
+      }
+
+      return true;
+   }
+}
@@ -0,0 +1,424 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>A read write lock for data that is read all the time and written very rarely.</p>
+ *
+ * <p>Every thread counts its read locks on one of several counters (stripes), each one on its own
+ * cache line, so readers on different threads don't fight over the same word as they do on the
+ * single state of a ReentrantReadWriteLock. A writer stops new readers from coming in and waits
+ * for the counters to drain, which makes taking the write lock more expensive.</p>
+ *
+ * <p>As with a fair ReentrantReadWriteLock, a waiting writer blocks new readers but not readers
+ * already holding the read lock, read locks are reentrant, the write lock is reentrant and the
+ * holder of the write lock may also take the read lock. Upgrading a read lock to a write lock will
+ * deadlock.</p>
+ */
+public class StripedReadWriteLock implements ReadWriteLock
+{
+   // Constants -----------------------------------------------------
+
+   // 16 longs = 128 bytes between two stripes, so each one has its own cache line
+   private static final int PADDING = 16;
+
+   private static final int DEFAULT_STRIPES = nextPowerOfTwo(Runtime.getRuntime().availableProcessors() * 2);
+
+   // how many times a writer yields while the readers drain before it starts parking
+   private static final int WRITER_SPINS = 100;
+
+   private static final long WRITER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+   // Attributes ----------------------------------------------------
+
+   private final AtomicLongArray readers;
+
+   private final int stripeMask;
+
+   private final AtomicInteger nextStripe = new AtomicInteger();
+
+   private final ThreadLocal<Reader> reader = new ThreadLocal<Reader>()
+   {
+      @Override
+      protected Reader initialValue()
+      {
+         return new Reader((nextStripe.getAndIncrement() & stripeMask) * PADDING);
+      }
+   };
+
+   private final ReentrantLock writeLock = new ReentrantLock();
+
+   private final Object writerDone = new Object();
+
+   private volatile boolean writing;
+
+   private final Lock readLockView = new ReadLock();
+
+   private final Lock writeLockView = new WriteLock();
+
+   // Constructors --------------------------------------------------
+
+   public StripedReadWriteLock()
+   {
+      this(DEFAULT_STRIPES);
+   }
+
+   public StripedReadWriteLock(final int stripes)
+   {
+      if (stripes <= 0)
+      {
+         throw new IllegalArgumentException("stripes must be positive, it was " + stripes);
+      }
+      int size = nextPowerOfTwo(stripes);
+      stripeMask = size - 1;
+      readers = new AtomicLongArray(size * PADDING);
+   }
+
+   // Public --------------------------------------------------------
+
+   public Lock readLock()
+   {
+      return readLockView;
+   }
+
+   public Lock writeLock()
+   {
+      return writeLockView;
+   }
+
+   /**
+    * Returns the number of read locks held by all threads, counting reentrant acquisitions once.
+    */
+   public long getReadLockCount()
+   {
+      long count = 0;
+      for (int i = 0; i < readers.length(); i += PADDING)
+      {
+         count += readers.get(i);
+      }
+      return count;
+   }
+
+   public boolean isWriteLocked()
+   {
+      return writeLock.isLocked();
+   }
+
+   @Override
+   public String toString()
+   {
+      return super.toString() + "[readers=" + getReadLockCount() + ", writing=" + writing + "]";
+   }
+
+   // Private -------------------------------------------------------
+
+   private static int nextPowerOfTwo(final int value)
+   {
+      int power = 1;
+      while (power < value)
+      {
+         power <<= 1;
+      }
+      return power;
+   }
+
+   /**
+    * @param deadline the System.nanoTime() to give up at when timed
+    * @return false if the deadline was reached
+    */
+   private boolean lockRead(final boolean interruptibly, final boolean timed, final long deadline) throws InterruptedException
+   {
+      Reader current = reader.get();
+
+      if (current.holds > 0)
+      {
+         current.holds++;
+         return true;
+      }
+
+      if (writeLock.isHeldByCurrentThread())
+      {
+         // the writer doesn't count, or it would wait for itself
+         current.holds = 1;
+         current.counted = false;
+         return true;
+      }
+
+      for (;;)
+      {
+         readers.incrementAndGet(current.stripe);
+
+         // the writer sets writing before summing the counters, so either it sees this reader or
+         // this reader sees it
+         if (!writing)
+         {
+            current.holds = 1;
+            current.counted = true;
+            return true;
+         }
+
+         readers.decrementAndGet(current.stripe);
+
+         if (!awaitWriter(interruptibly, timed, deadline))
+         {
+            return false;
+         }
+      }
+   }
+
+   private boolean awaitWriter(final boolean interruptibly, final boolean timed, final long deadline) throws InterruptedException
+   {
+      boolean interrupted = false;
+
+      try
+      {
+         synchronized (writerDone)
+         {
+            while (writing)
+            {
+               long timeout = 0;
+
+               if (timed)
+               {
+                  long nanos = deadline - System.nanoTime();
+                  if (nanos <= 0)
+                  {
+                     return false;
+                  }
+                  timeout = Math.max(1, TimeUnit.NANOSECONDS.toMillis(nanos));
+               }
+
+               try
+               {
+                  writerDone.wait(timeout);
+               }
+               catch (InterruptedException e)
+               {
+                  if (interruptibly)
+                  {
+                     throw e;
+                  }
+                  interrupted = true;
+               }
+            }
+         }
+         return true;
+      }
+      finally
+      {
+         if (interrupted)
+         {
+            Thread.currentThread().interrupt();
+         }
+      }
+   }
+
+   private void unlockRead()
+   {
+      Reader current = reader.get();
+
+      if (current.holds <= 0)
+      {
+         throw new IllegalMonitorStateException("read lock not held by " + Thread.currentThread());
+      }
+
+      if (--current.holds == 0 && current.counted)
+      {
+         readers.decrementAndGet(current.stripe);
+      }
+   }
+
+   /**
+    * Called with the write lock held for the first time, waits for the readers to leave.
+    * @return false if the deadline was reached, the write lock is then released
+    */
+   private boolean drainReaders(final boolean timed, final long deadline)
+   {
+      writing = true;
+
+      int spins = 0;
+
+      while (getReadLockCount() != 0)
+      {
+         if (timed && deadline - System.nanoTime() <= 0)
+         {
+            unlockWrite();
+            return false;
+         }
+
+         if (spins++ < WRITER_SPINS)
+         {
+            Thread.yield();
+         }
+         else
+         {
+            LockSupport.parkNanos(WRITER_PARK_NANOS);
+         }
+      }
+
+      return true;
+   }
+
+   private void unlockWrite()
+   {
+      if (!writeLock.isHeldByCurrentThread())
+      {
+         throw new IllegalMonitorStateException("write lock not held by " + Thread.currentThread());
+      }
+
+      if (writeLock.getHoldCount() == 1)
+      {
+         Reader current = reader.get();
+
+         // a writer keeping its read lock after the write lock is now a reader like any other
+         if (current.holds > 0 && !current.counted)
+         {
+            readers.incrementAndGet(current.stripe);
+            current.counted = true;
+         }
+
+         synchronized (writerDone)
+         {
+            writing = false;
+            writerDone.notifyAll();
+         }
+      }
+
+      writeLock.unlock();
+   }
+
+   // Inner classes -------------------------------------------------
+
+   private static final class Reader
+   {
+      final int stripe;
+
+      int holds;
+
+      // false when the read lock was taken by the writer
+      boolean counted;
+
+      Reader(final int stripe)
+      {
+         this.stripe = stripe;
+      }
+   }
+
+   private final class ReadLock implements Lock
+   {
+      public void lock()
+      {
+         try
+         {
+            lockRead(false, false, 0);
+         }
+         catch (InterruptedException e)
+         {
+            // can't happen as the wait is not interruptible
+            throw new IllegalStateException(e);
+         }
+      }
+
+      public void lockInterruptibly() throws InterruptedException
+      {
+         if (Thread.interrupted())
+         {
+            throw new InterruptedException();
+         }
+         lockRead(true, false, 0);
+      }
+
+      public boolean tryLock()
+      {
+         try
+         {
+            return lockRead(false, true, System.nanoTime());
+         }
+         catch (InterruptedException e)
+         {
+            throw new IllegalStateException(e);
+         }
+      }
+
+      public boolean tryLock(final long time, final TimeUnit unit) throws InterruptedException
+      {
+         if (Thread.interrupted())
+         {
+            throw new InterruptedException();
+         }
+         return lockRead(true, true, System.nanoTime() + unit.toNanos(time));
+      }
+
+      public void unlock()
+      {
+         unlockRead();
+      }
+
+      public Condition newCondition()
+      {
+         throw new UnsupportedOperationException("read locks don't support conditions");
+      }
+   }
+
+   private final class WriteLock implements Lock
+   {
+      public void lock()
+      {
+         writeLock.lock();
+         if (writeLock.getHoldCount() == 1)
+         {
+            drainReaders(false, 0);
+         }
+      }
+
+      public void lockInterruptibly() throws InterruptedException
+      {
+         writeLock.lockInterruptibly();
+         if (writeLock.getHoldCount() == 1)
+         {
+            drainReaders(false, 0);
+         }
+      }
+
+      public boolean tryLock()
+      {
+         return writeLock.tryLock() && (writeLock.getHoldCount() > 1 || drainReaders(true, System.nanoTime()));
+      }
+
+      public boolean tryLock(final long time, final TimeUnit unit) throws InterruptedException
+      {
+         long deadline = System.nanoTime() + unit.toNanos(time);
+         return writeLock.tryLock(time, unit) && (writeLock.getHoldCount() > 1 || drainReaders(true, deadline));
+      }
+
+      public void unlock()
+      {
+         unlockWrite();
+      }
+
+      public Condition newCondition()
+      {
+         throw new UnsupportedOperationException("conditions are not supported");
+      }
+   }
+}
@@ -32,6 +32,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 
 import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.HornetQBuffers;
 import org.hornetq.api.core.HornetQPropertyConversionException;
 import org.hornetq.api.core.SimpleString;
 
@@ -43,6 +44,11 @@ import org.hornetq.api.core.SimpleString;
  * (Version 1.1 April 12, 2002).
  * <p>
  * TODO - should have typed property getters and do conversions herein
+ * <p>
+ * With {@link #setLazyDecode(boolean)} the decoded properties are kept in their encoded form,
+ * with the offset of each property, until they are modified or their names are asked for. A
+ * property read in the meantime is decoded on its own, and the properties are encoded again by
+ * copying the original bytes.
  * @author <a href="mailto:tim.fox@jboss.com">Tim Fox</a>
  * @author <a href="mailto:clebert.suconic@jboss.com">Clebert Suconic</a>
  */
@@ -57,23 +63,58 @@ public final class TypedProperties
 
    private boolean internalProperties;
 
+   private boolean lazyDecode;
+
+   // The properties as they were decoded, from the first property name on, while they are not decoded into the map
+   private byte[] encoded;
+
+   // The offset in encoded of each property
+   private int[] offsets;
+
    public TypedProperties()
    {
    }
 
-   public int getMemoryOffset()
+   public synchronized int getMemoryOffset()
    {
       // The estimate is basically the encode size + 2 object references for each entry in the map
       // Note we don't include the attributes or anything else since they already included in the memory estimate
       // of the ServerMessage
 
+      if (encoded != null)
+      {
+         return size + DataConstants.SIZE_INT * offsets.length;
+      }
+
       return properties == null ? 0 : size + 2 * DataConstants.SIZE_INT * properties.size();
    }
 
    public TypedProperties(final TypedProperties other)
    {
-      properties = other.properties == null ? null : new HashMap<SimpleString, PropertyValue>(other.properties);
-      size = other.size;
+      synchronized (other)
+      {
+         properties = other.properties == null ? null : new HashMap<SimpleString, PropertyValue>(other.properties);
+         size = other.size;
+         lazyDecode = other.lazyDecode;
+         // the encoded properties are never modified, they can be shared
+         encoded = other.encoded;
+         offsets = other.offsets;
+         internalProperties = other.internalProperties;
+      }
+   }
+
+   public boolean isLazyDecode()
+   {
+      return lazyDecode;
+   }
+
+   /**
+    * Sets whether {@link #decode(HornetQBuffer)} keeps the properties encoded until they are
+    * needed.
+    */
+   public void setLazyDecode(final boolean lazyDecode)
+   {
+      this.lazyDecode = lazyDecode;
    }
 
    public boolean hasInternalProperties()
@@ -149,7 +190,14 @@ public final class TypedProperties
 
    public void putTypedProperties(final TypedProperties otherProps)
    {
-      if (otherProps == null || otherProps.properties == null)
+      if (otherProps == null)
+      {
+         return;
+      }
+
+      otherProps.checkDecoded();
+
+      if (otherProps.properties == null)
       {
          return;
       }
@@ -425,20 +473,24 @@ public final class TypedProperties
       return doRemoveProperty(key);
    }
 
-   public boolean containsProperty(final SimpleString key)
+   public synchronized boolean containsProperty(final SimpleString key)
    {
       if (size == 0)
       {
          return false;
 
       }
+      else if (encoded != null)
+      {
+         return findEncoded(key) >= 0;
+      }
       else
       {
          return properties.containsKey(key);
       }
    }
 
-   public Set<SimpleString> getPropertyNames()
+   public synchronized Set<SimpleString> getPropertyNames()
    {
       if (size == 0)
       {
@@ -446,12 +498,17 @@ public final class TypedProperties
       }
       else
       {
+         checkDecoded();
+
          return properties.keySet();
       }
    }
 
    public synchronized void decode(final HornetQBuffer buffer)
    {
+      encoded = null;
+      offsets = null;
+
       byte b = buffer.readByte();
 
       if (b == DataConstants.NULL)
@@ -462,100 +519,28 @@ public final class TypedProperties
       {
          int numHeaders = buffer.readInt();
 
-         properties = new HashMap<SimpleString, PropertyValue>(numHeaders);
-         size = 0;
-
-         for (int i = 0; i < numHeaders; i++)
+         if (lazyDecode)
+         {
+            decodeOffsets(buffer, numHeaders);
+         }
+         else
          {
-            int len = buffer.readInt();
-            byte[] data = new byte[len];
-            buffer.readBytes(data);
-            SimpleString key = new SimpleString(data);
-
-            byte type = buffer.readByte();
-
-            PropertyValue val;
-
-            switch (type)
-            {
-               case NULL:
-               {
-                  val = new NullValue();
-                  doPutValue(key, val);
-                  break;
-               }
-               case CHAR:
-               {
-                  val = new CharValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case BOOLEAN:
-               {
-                  val = new BooleanValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case BYTE:
-               {
-                  val = new ByteValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case BYTES:
-               {
-                  val = new BytesValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case SHORT:
-               {
-                  val = new ShortValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case INT:
-               {
-                  val = new IntValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case LONG:
-               {
-                  val = new LongValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case FLOAT:
-               {
-                  val = new FloatValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case DOUBLE:
-               {
-                  val = new DoubleValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               case STRING:
-               {
-                  val = new StringValue(buffer);
-                  doPutValue(key, val);
-                  break;
-               }
-               default:
-               {
-                  throw HornetQUtilBundle.BUNDLE.invalidType(type);
-               }
-            }
+            decodeProperties(buffer, numHeaders);
          }
       }
    }
 
    public synchronized void encode(final HornetQBuffer buffer)
    {
-      if (properties == null)
+      if (encoded != null)
+      {
+         buffer.writeByte(DataConstants.NOT_NULL);
+
+         buffer.writeInt(offsets.length);
+
+         buffer.writeBytes(encoded);
+      }
+      else if (properties == null)
       {
          buffer.writeByte(DataConstants.NULL);
       }
@@ -579,7 +564,7 @@ public final class TypedProperties
 
    public int getEncodeSize()
    {
-      if (properties == null)
+      if (properties == null && encoded == null)
       {
          return DataConstants.SIZE_BYTE;
       }
@@ -589,30 +574,244 @@ public final class TypedProperties
       }
    }
 
-   public void clear()
+   public synchronized void clear()
    {
-      if (properties != null)
+      if (encoded != null)
+      {
+         encoded = null;
+         offsets = null;
+         properties = new HashMap<SimpleString, PropertyValue>();
+         size = 0;
+      }
+      else if (properties != null)
       {
          properties.clear();
       }
    }
 
    @Override
-   public String toString()
+   public synchronized String toString()
    {
+      checkDecoded();
+
       return "TypedProperties[" + properties + "]";
    }
 
    // Private ------------------------------------------------------------------------------------
 
-   private void checkCreateProperties()
+   private synchronized void checkCreateProperties()
    {
+      checkDecoded();
+
       if (properties == null)
       {
          properties = new HashMap<SimpleString, PropertyValue>();
       }
    }
 
+   /**
+    * Decodes the properties kept encoded into the map.
+    */
+   private synchronized void checkDecoded()
+   {
+      if (encoded != null)
+      {
+         HornetQBuffer buffer = HornetQBuffers.wrappedBuffer(encoded);
+
+         int numHeaders = offsets.length;
+
+         encoded = null;
+         offsets = null;
+
+         decodeProperties(buffer, numHeaders);
+      }
+   }
+
+   private void decodeProperties(final HornetQBuffer buffer, final int numHeaders)
+   {
+      properties = new HashMap<SimpleString, PropertyValue>(numHeaders);
+      size = 0;
+
+      for (int i = 0; i < numHeaders; i++)
+      {
+         int len = buffer.readInt();
+         SimpleString key = SimpleStringPool.readSimpleString(buffer, len);
+
+         doPutValue(key, readValue(buffer));
+      }
+   }
+
+   /**
+    * Copies the properties from the buffer, only reading their lengths to find where each one
+    * starts.
+    */
+   private void decodeOffsets(final HornetQBuffer buffer, final int numHeaders)
+   {
+      byte[] internalPrefix = HQ_PROPNAME.getData();
+
+      int start = buffer.readerIndex();
+
+      int[] offs = new int[numHeaders];
+
+      for (int i = 0; i < numHeaders; i++)
+      {
+         offs[i] = buffer.readerIndex() - start;
+
+         int len = buffer.readInt();
+
+         if (!internalProperties && len >= internalPrefix.length)
+         {
+            internalProperties = startsWith(buffer, buffer.readerIndex(), internalPrefix);
+         }
+
+         buffer.skipBytes(len);
+
+         skipValue(buffer);
+      }
+
+      byte[] data = new byte[buffer.readerIndex() - start];
+      buffer.getBytes(start, data);
+
+      properties = null;
+      encoded = data;
+      offsets = offs;
+      size = data.length;
+   }
+
+   /**
+    * Returns the offset in encoded of the value of the property, or -1 if there is no such
+    * property.
+    */
+   private int findEncoded(final Object key)
+   {
+      if (!(key instanceof SimpleString))
+      {
+         return -1;
+      }
+
+      byte[] keyData = ((SimpleString)key).getData();
+
+      for (int offset : offsets)
+      {
+         int len = readInt(encoded, offset);
+
+         if (len == keyData.length && regionMatches(encoded, offset + DataConstants.SIZE_INT, keyData))
+         {
+            return offset + DataConstants.SIZE_INT + len;
+         }
+      }
+
+      return -1;
+   }
+
+   private static boolean startsWith(final HornetQBuffer buffer, final int index, final byte[] prefix)
+   {
+      for (int i = 0; i < prefix.length; i++)
+      {
+         if (buffer.getByte(index + i) != prefix[i])
+         {
+            return false;
+         }
+      }
+
+      return true;
+   }
+
+   private static boolean regionMatches(final byte[] data, final int index, final byte[] other)
+   {
+      for (int i = 0; i < other.length; i++)
+      {
+         if (data[index + i] != other[i])
+         {
+            return false;
+         }
+      }
+
+      return true;
+   }
+
+   private static int readInt(final byte[] data, final int index)
+   {
+      return (data[index] & 0xff) << 24 |
+             (data[index + 1] & 0xff) << 16 |
+             (data[index + 2] & 0xff) << 8 |
+             data[index + 3] & 0xff;
+   }
+
+   private static PropertyValue readValue(final HornetQBuffer buffer)
+   {
+      byte type = buffer.readByte();
+
+      switch (type)
+      {
+         case NULL:
+            return new NullValue();
+         case CHAR:
+            return new CharValue(buffer);
+         case BOOLEAN:
+            return new BooleanValue(buffer);
+         case BYTE:
+            return new ByteValue(buffer);
+         case BYTES:
+            return new BytesValue(buffer);
+         case SHORT:
+            return new ShortValue(buffer);
+         case INT:
+            return new IntValue(buffer);
+         case LONG:
+            return new LongValue(buffer);
+         case FLOAT:
+            return new FloatValue(buffer);
+         case DOUBLE:
+            return new DoubleValue(buffer);
+         case STRING:
+            return new StringValue(buffer);
+         default:
+            throw HornetQUtilBundle.BUNDLE.invalidType(type);
+      }
+   }
+
+   private static void skipValue(final HornetQBuffer buffer)
+   {
+      byte type = buffer.readByte();
+
+      switch (type)
+      {
+         case NULL:
+            break;
+         case CHAR:
+            buffer.skipBytes(DataConstants.SIZE_CHAR);
+            break;
+         case BOOLEAN:
+            buffer.skipBytes(DataConstants.SIZE_BOOLEAN);
+            break;
+         case BYTE:
+            buffer.skipBytes(DataConstants.SIZE_BYTE);
+            break;
+         case SHORT:
+            buffer.skipBytes(DataConstants.SIZE_SHORT);
+            break;
+         case INT:
+            buffer.skipBytes(DataConstants.SIZE_INT);
+            break;
+         case LONG:
+            buffer.skipBytes(DataConstants.SIZE_LONG);
+            break;
+         case FLOAT:
+            buffer.skipBytes(DataConstants.SIZE_FLOAT);
+            break;
+         case DOUBLE:
+            buffer.skipBytes(DataConstants.SIZE_DOUBLE);
+            break;
+         case BYTES:
+         case STRING:
+            buffer.skipBytes(buffer.readInt());
+            break;
+         default:
+            throw HornetQUtilBundle.BUNDLE.invalidType(type);
+      }
+   }
+
    private synchronized void doPutValue(final SimpleString key, final PropertyValue value)
    {
       if (key.startsWith(HQ_PROPNAME))
@@ -633,6 +832,16 @@ public final class TypedProperties
 
    private synchronized Object doRemoveProperty(final SimpleString key)
    {
+      if (encoded != null)
+      {
+         if (findEncoded(key) < 0)
+         {
+            return null;
+         }
+
+         checkDecoded();
+      }
+
       if (properties == null)
       {
          return null;
@@ -659,6 +868,21 @@ public final class TypedProperties
          return null;
       }
 
+      if (encoded != null)
+      {
+         int offset = findEncoded(key);
+
+         if (offset < 0)
+         {
+            return null;
+         }
+
+         HornetQBuffer buffer = HornetQBuffers.wrappedBuffer(encoded);
+         buffer.readerIndex(offset);
+
+         return readValue(buffer).getValue();
+      }
+
       PropertyValue val = properties.get(key);
 
       if (val == null)
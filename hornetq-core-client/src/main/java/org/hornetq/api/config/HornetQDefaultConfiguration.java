@@ -105,6 +105,11 @@ public final class HornetQDefaultConfiguration
    public static final long DEFAULT_FAILBACK_DELAY = 5000; // in milliseconds
    public static final boolean DEFAULT_CHECK_FOR_LIVE_SERVER = false;
    public static final boolean DEFAULT_MASK_PASSWORD = false;
+   public static final boolean DEFAULT_FILTER_COMPILATION_ENABLED = false;
+   public static final boolean DEFAULT_ROUTING_FILTER_INDEX_ENABLED = false;
+   public static final boolean DEFAULT_JOURNAL_ADAPTIVE_BUFFER_TIMEOUT = false;
+   public static final int DEFAULT_JOURNAL_LOAD_THREADS = 1;
+   public static final int DEFAULT_JOURNAL_COMPACT_INCREMENTAL_FILES = 0;
 
    //properties passed to acceptor/connectors.
    public static final String PROP_MASK_PASSWORD = "hornetq.usemaskedpassword";
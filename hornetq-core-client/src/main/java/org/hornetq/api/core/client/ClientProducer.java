@@ -116,6 +116,15 @@ public interface ClientProducer
     */
    boolean isBlockOnNonDurableSend();
 
+   /**
+    * Returns how many <em>durable</em> messages the producer may have sent without having received
+    * the response of the server, when it blocks when sending them.
+    *
+    * @return the maximum number of durable sends waiting for their response
+    * @see ServerLocator#setMaxPendingDurableSends(int)
+    */
+   int getMaxPendingDurableSends();
+
    /**
     * Returns the maximum rate at which a ClientProducer can send messages per second.
     *
@@ -56,6 +56,8 @@ public final class HornetQClient
 
    public static final boolean DEFAULT_BLOCK_ON_DURABLE_SEND = true;
 
+   public static final int DEFAULT_MAX_PENDING_DURABLE_SENDS = 1;
+
    public static final boolean DEFAULT_BLOCK_ON_NON_DURABLE_SEND = false;
 
    public static final boolean DEFAULT_AUTO_GROUP = false;
@@ -345,6 +345,30 @@ public interface ServerLocator
     */
    void setBlockOnDurableSend(boolean blockOnDurableSend);
 
+   /**
+    * Returns how many <em>durable</em> messages a producer created through this factory may have
+    * sent without having received the response of the server, when it blocks while sending them.
+    * <br>
+    * With a value greater than 1 a send returns as soon as the message is on its way, unless that
+    * many messages are already waiting for their response. A message the server failed to handle
+    * is reported by an exception thrown from a later send or from closing the producer.
+    *
+    * Default value is {@link HornetQClient#DEFAULT_MAX_PENDING_DURABLE_SENDS}.
+    *
+    * @return the maximum number of durable sends waiting for their response
+    */
+   int getMaxPendingDurableSends();
+
+   /**
+    * Sets how many <em>durable</em> messages a producer created through this factory may have
+    * sent without having received the response of the server, when it blocks while sending them.
+    *
+    * Value must be greater than 0.
+    *
+    * @param maxPendingDurableSends maximum number of durable sends waiting for their response
+    */
+   void setMaxPendingDurableSends(int maxPendingDurableSends);
+
    /**
     * Returns whether producers created through this factory will block while sending <em>non-durable</em> messages or do it asynchronously.
     * <br>
@@ -62,6 +62,22 @@ public interface AddressControl
     */
    long getNumberOfBytesPerPage() throws Exception;
 
+   /**
+    * Returns the number of times a page of this address was found on the page cache.
+    */
+   long getPageCacheHits() throws Exception;
+
+   /**
+    * Returns the number of times a page of this address had to be read from its file.
+    */
+   long getPageCacheMisses() throws Exception;
+
+   /**
+    * Returns the number of pages of this address evicted from the page cache to keep it within
+    * its size in bytes.
+    */
+   long getPageCacheEvictions() throws Exception;
+
    /**
     * Returns the names of all bindings (both queues and diverts) bound to this address
     */
@@ -140,6 +140,30 @@ public interface HornetQServerControl
     */
    int getJournalBufferTimeout();
 
+   /**
+    * Returns whether the journal adapts the time it keeps records waiting for a sync in its
+    * internal buffer to the observed sync time and write rate.
+    */
+   boolean isJournalAdaptiveBufferTimeout();
+
+   /**
+    * Returns the time (in nanoseconds) records waiting for a sync are currently kept in the
+    * internal buffer of the journal.
+    */
+   long getJournalBufferCurrentTimeout();
+
+   /**
+    * Returns the average time (in nanoseconds) taken by the journal to sync its internal buffer.
+    * Only measured if the journal buffer timeout is adaptive.
+    */
+   long getJournalBufferAverageSyncTime();
+
+   /**
+    * Returns the average number of records written by a flush of the internal buffer of the
+    * journal.
+    */
+   double getJournalBufferAverageBatchSize();
+
    /**
     * do any clients failover on a server shutdown
     */
@@ -152,6 +152,32 @@ public interface QueueControl
    @Operation(desc = "List all the messages in the queue matching the given filter and returns them using JSON", impact = MBeanOperationInfo.INFO)
    String listMessagesAsJSON(@Parameter(name = "filter", desc = "A message filter (can be empty)") String filter) throws Exception;
 
+   /**
+    * Browses the messages in this queue matching the specified filter, including the paged messages,
+    * one page at a time.
+    * <br>
+    * The first {@code offset} matching messages are skipped and at most {@code limit} messages are returned,
+    * fewer messages than {@code limit} means there are no more messages to browse.
+    * The queue is not held for the whole browse, so messages sent, consumed or depaged meanwhile may be missed.
+    * <br>
+    * Using {@code null} or an empty filter will browse <em>all</em> messages from this queue.
+    */
+   @Operation(desc = "Browse a page of the messages in the queue matching the given filter, including the paged messages", impact = MBeanOperationInfo.INFO)
+   Map<String, Object>[] browseMessages(@Parameter(name = "filter", desc = "A message filter (can be empty)") String filter,
+                                        @Parameter(name = "offset", desc = "The number of matching messages to skip") int offset,
+                                        @Parameter(name = "limit", desc = "The maximum number of messages to return") int limit) throws Exception;
+
+   /**
+    * Browses the messages in this queue matching the specified filter, including the paged messages,
+    * one page at a time using JSON serialization.
+    *
+    * @see #browseMessages(String, int, int)
+    */
+   @Operation(desc = "Browse a page of the messages in the queue matching the given filter, including the paged messages, and returns them using JSON", impact = MBeanOperationInfo.INFO)
+   String browseMessagesAsJSON(@Parameter(name = "filter", desc = "A message filter (can be empty)") String filter,
+                               @Parameter(name = "offset", desc = "The number of matching messages to skip") int offset,
+                               @Parameter(name = "limit", desc = "The maximum number of messages to return") int limit) throws Exception;
+
    /**
     * Counts the number of messages in this queue matching the specified filter.
     * <br>
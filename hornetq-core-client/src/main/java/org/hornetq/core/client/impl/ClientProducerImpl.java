@@ -15,6 +15,8 @@ package org.hornetq.core.client.impl;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.LinkedList;
+import java.util.Queue;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.hornetq.api.core.HornetQBuffer;
@@ -26,6 +28,7 @@ import org.hornetq.api.core.SimpleString;
 import org.hornetq.core.message.BodyEncoder;
 import org.hornetq.core.message.impl.MessageInternal;
 import org.hornetq.core.protocol.core.Channel;
+import org.hornetq.core.protocol.core.ResponseFuture;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionSendContinuationMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionSendLargeMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.SessionSendMessage;
@@ -65,6 +68,11 @@ public class ClientProducerImpl implements ClientProducerInternal
 
    private final boolean blockOnDurableSend;
 
+   private final int maxPendingDurableSends;
+
+   // the durable sends waiting for their response, oldest first
+   private final Queue<PendingSend> pendingSends = new LinkedList<PendingSend>();
+
    private final SimpleString groupID;
 
    private final int minLargeMessageSize;
@@ -80,6 +88,7 @@ public class ClientProducerImpl implements ClientProducerInternal
                              final TokenBucketLimiter rateLimiter,
                              final boolean blockOnNonDurableSend,
                              final boolean blockOnDurableSend,
+                             final int maxPendingDurableSends,
                              final boolean autoGroup,
                              final SimpleString groupID,
                              final int minLargeMessageSize,
@@ -97,6 +106,8 @@ public class ClientProducerImpl implements ClientProducerInternal
 
       this.blockOnDurableSend = blockOnDurableSend;
 
+      this.maxPendingDurableSends = maxPendingDurableSends;
+
       if (autoGroup)
       {
          this.groupID = UUIDGenerator.getInstance().generateSimpleStringUUID();
@@ -151,7 +162,15 @@ public class ClientProducerImpl implements ClientProducerInternal
          return;
       }
 
-      doCleanup();
+      try
+      {
+         // a message the server failed to handle must not go unnoticed
+         checkPendingSends(0);
+      }
+      finally
+      {
+         doCleanup();
+      }
    }
 
    public void cleanUp()
@@ -179,6 +198,11 @@ public class ClientProducerImpl implements ClientProducerInternal
       return blockOnNonDurableSend;
    }
 
+   public int getMaxPendingDurableSends()
+   {
+      return maxPendingDurableSends;
+   }
+
    public int getMaxRate()
    {
       return rateLimiter == null ? -1 : rateLimiter.getRate();
@@ -207,6 +231,11 @@ public class ClientProducerImpl implements ClientProducerInternal
       session.removeProducer(this);
 
       closed = true;
+
+      synchronized (pendingSends)
+      {
+         pendingSends.clear();
+      }
    }
 
    private void doSend(final SimpleString address, final Message msg) throws HornetQException
@@ -301,7 +330,18 @@ public class ClientProducerImpl implements ClientProducerInternal
          {
             SessionSendMessage packet = new SessionSendMessage(msgI, sendBlocking);
 
-            if (sendBlocking)
+            if (sendBlocking && msgI.isDurable() && maxPendingDurableSends > 1)
+            {
+               checkPendingSends(maxPendingDurableSends - 1);
+
+               ResponseFuture response = channel.sendBlockingAsync(packet);
+
+               synchronized (pendingSends)
+               {
+                  pendingSends.add(new PendingSend(msgI, response));
+               }
+            }
+            else if (sendBlocking)
             {
                channel.sendBlocking(packet);
             }
@@ -317,6 +357,43 @@ public class ClientProducerImpl implements ClientProducerInternal
       }
    }
 
+   /**
+    * Waits until no more than {@code maxPending} sends are waiting for their response, throwing
+    * the failure of the first one that failed.
+    */
+   private void checkPendingSends(final int maxPending) throws HornetQException
+   {
+      for (;;)
+      {
+         PendingSend pending;
+
+         synchronized (pendingSends)
+         {
+            pending = pendingSends.peek();
+
+            if (pending == null || (pendingSends.size() <= maxPending && !pending.response.isDone()))
+            {
+               return;
+            }
+
+            pendingSends.poll();
+         }
+
+         try
+         {
+            pending.response.getResponse();
+         }
+         catch (HornetQException e)
+         {
+            HornetQException failure = new HornetQException(e.getType(), "Failed to send " + pending.message +
+                                                                          ": " +
+                                                                          e.getMessage(), e);
+
+            throw failure;
+         }
+      }
+   }
+
    private void checkClosed() throws HornetQException
    {
       if (closed)
@@ -573,4 +650,17 @@ public class ClientProducerImpl implements ClientProducerInternal
       }
    }
    // Inner Classes --------------------------------------------------------------------------------
+
+   private static final class PendingSend
+   {
+      final Message message;
+
+      final ResponseFuture response;
+
+      PendingSend(final Message message, final ResponseFuture response)
+      {
+         this.message = message;
+         this.response = response;
+      }
+   }
 }
@@ -890,6 +890,7 @@ public class ClientSessionFactoryImpl implements ClientSessionFactoryInternal, C
                                                                      serverLocator.getProducerMaxRate(),
                                                                      serverLocator.isBlockOnNonDurableSend(),
                                                                      serverLocator.isBlockOnDurableSend(),
+                                                                     serverLocator.getMaxPendingDurableSends(),
                                                                      serverLocator.isCacheLargeMessagesClient(),
                                                                      serverLocator.getMinLargeMessageSize(),
                                                                      serverLocator.isCompressLargeMessage(),
@@ -163,6 +163,8 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
 
    private final boolean blockOnDurableSend;
 
+   private final int maxPendingDurableSends;
+
    private final int minLargeMessageSize;
 
    private final boolean compressLargeMessages;
@@ -220,6 +222,7 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
                             final int producerMaxRate,
                             final boolean blockOnNonDurableSend,
                             final boolean blockOnDurableSend,
+                            final int maxPendingDurableSends,
                             final boolean cacheLargeMessageClient,
                             final int minLargeMessageSize,
                             final boolean compressLargeMessages,
@@ -275,6 +278,8 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
 
       this.blockOnDurableSend = blockOnDurableSend;
 
+      this.maxPendingDurableSends = maxPendingDurableSends;
+
       this.cacheLargeMessageClient = cacheLargeMessageClient;
 
       this.minLargeMessageSize = minLargeMessageSize;
@@ -1932,6 +1937,7 @@ final class ClientSessionImpl implements ClientSessionInternal, FailureListener,
                                                                             : new TokenBucketLimiterImpl(maxRate, false),
                                                                autoCommitSends && blockOnNonDurableSend,
                                                                autoCommitSends && blockOnDurableSend,
+                                                               maxPendingDurableSends,
                                                                autoGroup,
                                                                groupID == null ? null : new SimpleString(groupID),
                                                                minLargeMessageSize,
@@ -149,6 +149,8 @@ public final class ServerLocatorImpl implements ServerLocatorInternal, Discovery
 
    private boolean blockOnDurableSend;
 
+   private int maxPendingDurableSends;
+
    private boolean blockOnNonDurableSend;
 
    private boolean autoGroup;
@@ -443,6 +445,8 @@ public final class ServerLocatorImpl implements ServerLocatorInternal, Discovery
 
       blockOnDurableSend = HornetQClient.DEFAULT_BLOCK_ON_DURABLE_SEND;
 
+      maxPendingDurableSends = HornetQClient.DEFAULT_MAX_PENDING_DURABLE_SENDS;
+
       blockOnNonDurableSend = HornetQClient.DEFAULT_BLOCK_ON_NON_DURABLE_SEND;
 
       autoGroup = HornetQClient.DEFAULT_AUTO_GROUP;
@@ -1038,6 +1042,17 @@ public final class ServerLocatorImpl implements ServerLocatorInternal, Discovery
       this.blockOnDurableSend = blockOnDurableSend;
    }
 
+   public int getMaxPendingDurableSends()
+   {
+      return maxPendingDurableSends;
+   }
+
+   public void setMaxPendingDurableSends(final int maxPendingDurableSends)
+   {
+      checkWrite();
+      this.maxPendingDurableSends = maxPendingDurableSends;
+   }
+
    public boolean isBlockOnNonDurableSend()
    {
       return blockOnNonDurableSend;
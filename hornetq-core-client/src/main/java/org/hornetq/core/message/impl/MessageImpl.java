@@ -27,6 +27,7 @@ import org.hornetq.core.buffers.impl.ResetLimitWrappedHornetQBuffer;
 import org.hornetq.core.message.BodyEncoder;
 import org.hornetq.core.protocol.core.impl.PacketImpl;
 import org.hornetq.utils.DataConstants;
+import org.hornetq.utils.SimpleStringPool;
 import org.hornetq.utils.TypedProperties;
 import org.hornetq.utils.UUID;
 
@@ -224,7 +225,7 @@ public abstract class MessageImpl implements MessageInternal
    public void decodeHeadersAndProperties(final HornetQBuffer buffer)
    {
       messageID = buffer.readLong();
-      address = buffer.readNullableSimpleString();
+      address = SimpleStringPool.readNullableSimpleString(buffer);
       if (buffer.readByte() == DataConstants.NOT_NULL)
       {
          byte[] bytes = new byte[16];
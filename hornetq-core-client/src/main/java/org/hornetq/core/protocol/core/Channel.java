@@ -73,6 +73,20 @@ public interface Channel
     */
    Packet sendBlocking(Packet packet) throws HornetQException;
 
+   /**
+    * sends a packet on this channel without waiting for its response.
+    * <p/>
+    * The server answers the requests of a channel in the order they were sent, so any number of
+    * them may be in flight at once and each response is matched to the oldest request still
+    * waiting for one. A request that times out fails every request still waiting, as the response
+    * it misses would otherwise shift the responses of the others.
+    *
+    * @param packet the packet to send
+    * @return the future response
+    * @throws HornetQException if the packet could not be sent
+    */
+   ResponseFuture sendBlockingAsync(Packet packet) throws HornetQException;
+
    /**
     * Sets the {@link org.hornetq.core.protocol.core.ChannelHandler} that this channel should
     * forward received packets to.
@@ -125,7 +139,8 @@ public interface Channel
    void unlock();
 
    /**
-    * forces any {@link org.hornetq.core.protocol.core.Channel#sendBlocking(Packet)} request to return with an exception.
+    * forces any {@link org.hornetq.core.protocol.core.Channel#sendBlocking(Packet)} request, and any
+    * response still expected by {@link #sendBlockingAsync(Packet)}, to return with an exception.
     */
    void returnBlocking();
 
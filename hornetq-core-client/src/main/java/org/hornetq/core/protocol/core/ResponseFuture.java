@@ -0,0 +1,47 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.protocol.core;
+
+import org.hornetq.api.core.HornetQException;
+
+/**
+ * The response to a request sent by {@link Channel#sendBlockingAsync(Packet)}.
+ */
+public interface ResponseFuture
+{
+   /**
+    * Returns the id of the request, the requests of a channel have increasing ids in the order
+    * they were sent.
+    */
+   long getCorrelationID();
+
+   /**
+    * Returns the request.
+    */
+   Packet getRequest();
+
+   /**
+    * Returns whether the response was received or the request failed.
+    */
+   boolean isDone();
+
+   /**
+    * Waits for the response for as long as the blocking call timeout of the connection.
+    *
+    * @return the response
+    * @throws HornetQException if the server returned an exception, the connection failed or the
+    *            wait timed out
+    */
+   Packet getResponse() throws HornetQException;
+}
@@ -14,6 +14,7 @@
 package org.hornetq.core.protocol.core.impl;
 
 import java.util.EnumSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
@@ -33,6 +34,7 @@ import org.hornetq.core.protocol.core.ChannelHandler;
 import org.hornetq.core.protocol.core.CommandConfirmationHandler;
 import org.hornetq.core.protocol.core.CoreRemotingConnection;
 import org.hornetq.core.protocol.core.Packet;
+import org.hornetq.core.protocol.core.ResponseFuture;
 import org.hornetq.core.protocol.core.impl.wireformat.HornetQExceptionMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.PacketsConfirmedMessage;
 import org.hornetq.spi.core.protocol.RemotingConnection;
@@ -82,7 +84,10 @@ public final class ChannelImpl implements Channel
 
    private ChannelHandler handler;
 
-   private Packet response;
+   // the requests waiting for their response, in the order they were sent, guarded by lock
+   private final java.util.Queue<BlockingCall> pendingCalls = new LinkedList<BlockingCall>();
+
+   private long nextCorrelationID;
 
    private final java.util.Queue<Packet> resendCache;
 
@@ -175,9 +180,16 @@ public final class ChannelImpl implements Channel
 
       try
       {
-         response = new HornetQExceptionMessage(HornetQClientMessageBundle.BUNDLE.unblockingACall());
+         final Packet response = new HornetQExceptionMessage(HornetQClientMessageBundle.BUNDLE.unblockingACall());
+
+         BlockingCall call;
+
+         while ((call = pendingCalls.poll()) != null)
+         {
+            call.response = response;
+         }
 
-         sendCondition.signal();
+         sendCondition.signalAll();
       }
       finally
       {
@@ -272,6 +284,16 @@ public final class ChannelImpl implements Channel
    }
 
    public Packet sendBlocking(final Packet packet) throws HornetQException
+   {
+      // Synchronized since can't be called concurrently by more than one thread and this can occur
+      // E.g. blocking acknowledge() from inside a message handler at some time as other operation on main thread
+      synchronized (sendBlockingLock)
+      {
+         return sendBlockingAsync(packet).getResponse();
+      }
+   }
+
+   public ResponseFuture sendBlockingAsync(final Packet packet) throws HornetQException
    {
       String interceptionResult = invokeInterceptors(packet, interceptors, connection);
 
@@ -291,8 +313,7 @@ public final class ChannelImpl implements Channel
          throw new IllegalStateException("Cannot do a blocking call timeout on a server side connection");
       }
 
-      // Synchronized since can't be called concurrently by more than one thread and this can occur
-      // E.g. blocking acknowledge() from inside a message handler at some time as other operation on main thread
+      // the requests must be written in the order they are added to pendingCalls
       synchronized (sendBlockingLock)
       {
          packet.setChannelID(id);
@@ -328,7 +349,9 @@ public final class ChannelImpl implements Channel
                }
             }
 
-            response = null;
+            BlockingCall call = new BlockingCall(nextCorrelationID++, packet);
+
+            pendingCalls.add(call);
 
             if (resendCache != null && packet.isRequiresConfirmations())
             {
@@ -337,55 +360,12 @@ public final class ChannelImpl implements Channel
 
             connection.getTransportConnection().write(buffer, false, false);
 
-            long toWait = connection.getBlockingCallTimeout();
-
-            long start = System.currentTimeMillis();
-
-            while (!closed && response == null && toWait > 0)
-            {
-               try
-               {
-                  sendCondition.await(toWait, TimeUnit.MILLISECONDS);
-               }
-               catch (InterruptedException e)
-               {
-                  throw new HornetQInterruptedException(e);
-               }
-
-               if (closed)
-               {
-                  break;
-               }
-
-               final long now = System.currentTimeMillis();
-
-               toWait -= now - start;
-
-               start = now;
-            }
-
-            if (response == null)
-            {
-               throw HornetQClientMessageBundle.BUNDLE.timedOutSendingPacket(packet.getType());
-            }
-
-            if (response.getType() == PacketImpl.EXCEPTION)
-            {
-               final HornetQExceptionMessage mem = (HornetQExceptionMessage)response;
-
-               HornetQException e = mem.getException();
-
-               e.fillInStackTrace();
-
-               throw e;
-            }
+            return call;
          }
          finally
          {
             lock.unlock();
          }
-
-         return response;
       }
    }
 
@@ -603,8 +583,19 @@ public final class ChannelImpl implements Channel
 
             try
             {
-               response = packet;
-               sendCondition.signal();
+               // the server answers in order, a call that times out fails the calls still waiting
+               BlockingCall call = pendingCalls.poll();
+
+               if (call != null)
+               {
+                  call.response = packet;
+               }
+               else if (isTrace)
+               {
+                  HornetQClientLogger.LOGGER.trace("No blocking call waiting for response " + packet + " on channelID=" + id);
+               }
+
+               sendCondition.signalAll();
             }
             finally
             {
@@ -666,4 +657,130 @@ public final class ChannelImpl implements Channel
    {
       return "Channel[id=" + CHANNEL_ID.idToString(id) + ", handler=" + handler + "]";
    }
+
+   private final class BlockingCall implements ResponseFuture
+   {
+      private final long correlationID;
+
+      private final Packet request;
+
+      // guarded by the channel lock
+      private Packet response;
+
+      BlockingCall(final long correlationID, final Packet request)
+      {
+         this.correlationID = correlationID;
+         this.request = request;
+      }
+
+      public long getCorrelationID()
+      {
+         return correlationID;
+      }
+
+      public Packet getRequest()
+      {
+         return request;
+      }
+
+      public boolean isDone()
+      {
+         lock.lock();
+
+         try
+         {
+            return response != null;
+         }
+         finally
+         {
+            lock.unlock();
+         }
+      }
+
+      public Packet getResponse() throws HornetQException
+      {
+         lock.lock();
+
+         try
+         {
+            long toWait = connection.getBlockingCallTimeout();
+
+            long start = System.currentTimeMillis();
+
+            while (!closed && response == null && toWait > 0)
+            {
+               try
+               {
+                  sendCondition.await(toWait, TimeUnit.MILLISECONDS);
+               }
+               catch (InterruptedException e)
+               {
+                  throw new HornetQInterruptedException(e);
+               }
+
+               if (closed)
+               {
+                  break;
+               }
+
+               final long now = System.currentTimeMillis();
+
+               toWait -= now - start;
+
+               start = now;
+            }
+
+            if (response == null)
+            {
+               // the response may never come, the responses to the calls still waiting could then
+               // only be matched to the wrong calls
+               failPendingCalls();
+
+               throw HornetQClientMessageBundle.BUNDLE.timedOutSendingPacket(request.getType());
+            }
+
+            if (response.getType() == PacketImpl.EXCEPTION)
+            {
+               final HornetQExceptionMessage mem = (HornetQExceptionMessage)response;
+
+               HornetQException e = mem.getException();
+
+               e.fillInStackTrace();
+
+               throw e;
+            }
+
+            return response;
+         }
+         finally
+         {
+            lock.unlock();
+         }
+      }
+
+      /**
+       * Removes every call from the queue, those sent with this one fail as timed out. Must be
+       * called holding the lock.
+       */
+      private void failPendingCalls()
+      {
+         BlockingCall call;
+
+         while ((call = pendingCalls.poll()) != null)
+         {
+            if (call != this)
+            {
+               call.response = new HornetQExceptionMessage(HornetQClientMessageBundle.BUNDLE.timedOutSendingPacket(call.request.getType()));
+            }
+         }
+
+         sendCondition.signalAll();
+      }
+
+      @Override
+      public String toString()
+      {
+         return "BlockingCall[correlationID=" + correlationID + ", request=" + request + "]";
+      }
+   }
 }
@@ -50,6 +50,21 @@ public class LinkedListImpl<E> implements LinkedList<E>
    }
 
    public void addHead(E e)
+   {
+      addHeadNode(e);
+   }
+
+   public void addTail(E e)
+   {
+      addTailNode(e);
+   }
+
+   /**
+    * Adds the element at the head of the list.
+    *
+    * @return the node holding the element, it can be given to {@link #removeNode(Node)}
+    */
+   public Node<E> addHeadNode(E e)
    {
       Node<E> node = new Node<E>(e);
 
@@ -70,13 +85,20 @@ public class LinkedListImpl<E> implements LinkedList<E>
       }
 
       size++;
+
+      return node;
    }
 
-   public void addTail(E e)
+   /**
+    * Adds the element at the tail of the list.
+    *
+    * @return the node holding the element, it can be given to {@link #removeNode(Node)}
+    */
+   public Node<E> addTailNode(E e)
    {
       if (size == 0)
       {
-         addHead(e);
+         return addHeadNode(e);
       }
       else
       {
@@ -89,9 +111,37 @@ public class LinkedListImpl<E> implements LinkedList<E>
          tail = node;
 
          size++;
+
+         return node;
       }
    }
 
+   /**
+    * Removes a node without iterating the list. Iterators positioned on the node are moved as if
+    * it had been removed through them.
+    *
+    * @return false if the node was already removed
+    */
+   public boolean removeNode(Node<E> node)
+   {
+      if (!node.isLinked())
+      {
+         return false;
+      }
+
+      removeAfter(node.prev);
+
+      return true;
+   }
+
+   /**
+    * @return the node at the head of the list or null if the list is empty
+    */
+   public Node<E> getFirstNode()
+   {
+      return head.next;
+   }
+
    public E poll()
    {
       Node<E> ret = head.next;
@@ -248,7 +298,10 @@ public class LinkedListImpl<E> implements LinkedList<E>
       throw new IllegalStateException("Cannot find iter to remove");
    }
 
-   private static final class Node<E>
+   /**
+    * The node holding an element of the list.
+    */
+   public static final class Node<E>
    {
       Node<E> next;
 
@@ -263,6 +316,29 @@ public class LinkedListImpl<E> implements LinkedList<E>
          val = e;
       }
 
+      public E getValue()
+      {
+         return val;
+      }
+
+      /**
+       * @return the next node of the list or null if this is the tail or was removed
+       */
+      public Node<E> getNext()
+      {
+         return next;
+      }
+
+      /**
+       * @return false once the node has been removed from its list, a list which is cleared
+       *         doesn't unlink its nodes
+       */
+      public boolean isLinked()
+      {
+         // only the head has no previous node and it's never given out
+         return prev != null;
+      }
+
       public String toString()
       {
          return "Node, value = " + val;
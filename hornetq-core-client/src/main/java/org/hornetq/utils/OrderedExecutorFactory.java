@@ -17,6 +17,8 @@ import org.hornetq.core.client.HornetQClientLogger;
 
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -56,13 +58,22 @@ public final class OrderedExecutorFactory implements ExecutorFactory
     * <p/>
     * More specifically, any call B to the {@link #execute(Runnable)} method that happens-after another call A to the
     * same method, will result in B's task running after A's.
+    * <p/>
+    * Submitting a task doesn't take any lock: the task is queued and the runner is only given to the parent executor
+    * by the call which moves the executor from idle to running. The runner runs at most {@link #MAX_TASKS_PER_RUN}
+    * tasks before giving the thread back to the parent executor, so a busy executor doesn't starve the others.
     */
    private static final class OrderedExecutor implements Executor
    {
+      private static final int MAX_TASKS_PER_RUN = 1000;
+
+      private static final int IDLE = 0;
+
+      private static final int RUNNING = 1;
+
       private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
 
-      // @protected by tasks
-      private boolean running;
+      private final AtomicInteger state = new AtomicInteger(IDLE);
 
       private final Executor parent;
 
@@ -80,61 +91,88 @@ public final class OrderedExecutorFactory implements ExecutorFactory
          {
             public void run()
             {
-               for (;;)
-               {
-                   // Optimization, first try without any locks
-                   Runnable task = tasks.poll();
-                   if (task == null)
-                   {
-                      synchronized (tasks)
-                      {
-                         // if it's null we need to retry now holding the lock on tasks
-                         // this is because running=false and tasks.empty must be an atomic operation
-                         // so we have to retry before setting the tasks to false
-                         // this is a different approach to the anti-pattern on synchronize-retry,
-                         // as this is just guaranteeing the running=false and tasks.empty being an atomic operation
-                         task = tasks.poll();
-                         if (task == null)
-                         {
-                            running = false;
-                            return;
-                         }
-                      }
-                   }
-                  try
-                  {
-                     task.run();
-                  }
-                  catch (Throwable t)
-                  {
-                     HornetQClientLogger.LOGGER.caughtunexpectedThrowable(t);
-                  }
-               }
+               runTasks();
             }
          };
       }
 
       /**
        * Run a task.
+       * <p>
+       * If the parent executor rejects the runner, the task is taken back and the exception is thrown to the caller.
+       * A task submitted concurrently by a call that saw the executor running returns normally and stays queued
+       * until a later call gets the runner accepted by the parent.
        *
        * @param command the task to run.
        */
       public void execute(final Runnable command)
       {
-         synchronized (tasks)
+         tasks.add(command);
+
+         if (state.get() == IDLE && state.compareAndSet(IDLE, RUNNING))
          {
-            tasks.add(command);
-            if (!running)
+            try
             {
-               running = true;
                parent.execute(runner);
             }
+            catch (RuntimeException e)
+            {
+               tasks.remove(command);
+               state.set(IDLE);
+               throw e;
+            }
          }
       }
 
       public String toString()
       {
-         return "OrderedExecutor(running=" + running + ", tasks=" + tasks + ")";
+         return "OrderedExecutor(running=" + (state.get() == RUNNING) + ", tasks=" + tasks + ")";
+      }
+
+      private void runTasks()
+      {
+         int count = 0;
+
+         for (;;)
+         {
+            Runnable task;
+
+            while ((task = tasks.poll()) != null)
+            {
+               try
+               {
+                  task.run();
+               }
+               catch (Throwable t)
+               {
+                  HornetQClientLogger.LOGGER.caughtunexpectedThrowable(t);
+               }
+
+               if (++count >= MAX_TASKS_PER_RUN && !tasks.isEmpty())
+               {
+                  // still running, the rest is executed by another run of the parent executor
+                  try
+                  {
+                     parent.execute(runner);
+                     return;
+                  }
+                  catch (RejectedExecutionException e)
+                  {
+                     // the parent is shutting down, we keep the thread
+                     count = 0;
+                  }
+               }
+            }
+
+            state.set(IDLE);
+
+            // A task queued after the last poll may have seen the executor running and not scheduled it: if there is
+            // one and no other call took over, this run goes on
+            if (tasks.isEmpty() || !state.compareAndSet(IDLE, RUNNING))
+            {
+               return;
+            }
+         }
       }
    }
 }
@@ -71,21 +71,81 @@ public class PriorityLinkedListImpl<T> implements PriorityLinkedList<T>
    }
 
    public void addHead(final T t, final int priority)
+   {
+      addHeadNode(t, priority);
+   }
+
+   public void addTail(final T t, final int priority)
+   {
+      addTailNode(t, priority);
+   }
+
+   /**
+    * Adds the element at the head of its priority.
+    *
+    * @return the node holding the element, it can be given to {@link #removeNode(LinkedListImpl.Node, int)}
+    */
+   public LinkedListImpl.Node<T> addHeadNode(final T t, final int priority)
    {
       checkHighest(priority);
 
-      levels[priority].addHead(t);
+      LinkedListImpl.Node<T> node = levels[priority].addHeadNode(t);
 
       size++;
+
+      return node;
    }
 
-   public void addTail(final T t, final int priority)
+   /**
+    * Adds the element at the tail of its priority.
+    *
+    * @return the node holding the element, it can be given to {@link #removeNode(LinkedListImpl.Node, int)}
+    */
+   public LinkedListImpl.Node<T> addTailNode(final T t, final int priority)
    {
       checkHighest(priority);
 
-      levels[priority].addTail(t);
+      LinkedListImpl.Node<T> node = levels[priority].addTailNode(t);
 
       size++;
+
+      return node;
+   }
+
+   /**
+    * Removes a node returned when its element was added with the given priority, without
+    * iterating the list.
+    *
+    * @return false if the node was already removed
+    */
+   public boolean removeNode(final LinkedListImpl.Node<T> node, final int priority)
+   {
+      if (!levels[priority].removeNode(node))
+      {
+         return false;
+      }
+
+      size--;
+
+      while (highestPriority >= 0 && levels[highestPriority].size() == 0)
+      {
+         highestPriority--;
+      }
+
+      return true;
+   }
+
+   /**
+    * @return the node at the head of a priority or null if there is no element with that priority
+    */
+   public LinkedListImpl.Node<T> getFirstNode(final int priority)
+   {
+      return levels[priority].getFirstNode();
+   }
+
+   public int getNumberOfPriorities()
+   {
+      return levels.length;
    }
 
    public T poll()
@@ -395,6 +395,17 @@ public class HornetQConnectionFactory implements Serializable, Referenceable
       serverLocator.setBlockOnDurableSend(blockOnDurableSend);
    }
 
+   public synchronized int getMaxPendingDurableSends()
+   {
+      return serverLocator.getMaxPendingDurableSends();
+   }
+
+   public synchronized void setMaxPendingDurableSends(final int maxPendingDurableSends)
+   {
+      checkWrite();
+      serverLocator.setMaxPendingDurableSends(maxPendingDurableSends);
+   }
+
    public synchronized boolean isAutoGroup()
    {
       return serverLocator.isAutoGroup();
@@ -44,6 +44,14 @@ public interface AsynchronousFile
    /** Any error will be reported on the callback interface */
    void write(long position, long size, ByteBuffer directByteBuffer, AIOCallback aioCallback);
 
+   /**
+    * Writes many buffers, submitting them together instead of one by one. The arrays hold the
+    * position, the size, the buffer and the callback of every write, they may be read after this
+    * method returns and must not be changed.
+    * Any error will be reported on the callback of the write that failed.
+    */
+   void write(long[] positions, long[] sizes, ByteBuffer[] directByteBuffers, AIOCallback[] aioCallbacks);
+
    /**
     * Performs an internal direct write.
     * @throws HornetQException
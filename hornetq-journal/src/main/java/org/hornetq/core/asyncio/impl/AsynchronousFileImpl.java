@@ -52,7 +52,7 @@ public class AsynchronousFileImpl implements AsynchronousFile
 
    /** This definition needs to match Version.h on the native sources.
        Or else the native module won't be loaded because of version mismatches */
-   private static final int EXPECTED_NATIVE_VERSION = 51;
+   private static final int EXPECTED_NATIVE_VERSION = 52;
 
    /** Used to determine the next writing sequence */
    private final AtomicLong nextWritingSequence = new AtomicLong(0);
@@ -370,6 +370,63 @@ public class AsynchronousFileImpl implements AsynchronousFile
 
    }
 
+   public void write(final long[] positions,
+                     final long[] sizes,
+                     final ByteBuffer[] directByteBuffers,
+                     final AIOCallback[] aioCallbacks)
+   {
+      final int count = positions.length;
+
+      if (sizes.length != count || directByteBuffers.length != count || aioCallbacks.length != count)
+      {
+         throw new IllegalArgumentException("One position, size, buffer and callback are needed for every write");
+      }
+
+      for (AIOCallback aioCallback : aioCallbacks)
+      {
+         if (aioCallback == null)
+         {
+            throw new NullPointerException("Null Callback");
+         }
+      }
+
+      checkOpened();
+      if (poller == null)
+      {
+         startPoller();
+      }
+
+      // A batch can't hold more writes than the libaio queue
+      for (int offset = 0; offset < count; offset += maxIO)
+      {
+         final int batchOffset = offset;
+
+         final int batchSize = Math.min(maxIO, count - offset);
+
+         for (int i = 0; i < batchSize; i++)
+         {
+            pendingWrites.countUp();
+         }
+
+         maxIOSemaphore.acquireUninterruptibly(batchSize);
+
+         if (writeExecutor != null)
+         {
+            writeExecutor.execute(new Runnable()
+            {
+               public void run()
+               {
+                  writeBatch(positions, sizes, directByteBuffers, aioCallbacks, batchOffset, batchSize);
+               }
+            });
+         }
+         else
+         {
+            writeBatch(positions, sizes, directByteBuffers, aioCallbacks, batchOffset, batchSize);
+         }
+      }
+   }
+
    public void read(final long position,
                     final long size,
                     final ByteBuffer directByteBuffer,
@@ -510,6 +567,47 @@ public class AsynchronousFileImpl implements AsynchronousFile
       }
    }
 
+   private void writeBatch(final long[] positions,
+                           final long[] sizes,
+                           final ByteBuffer[] directByteBuffers,
+                           final AIOCallback[] aioCallbacks,
+                           final int offset,
+                           final int count)
+   {
+      long firstSequence = nextWritingSequence.getAndAdd(count);
+
+      int errorCode;
+
+      String errorMessage;
+
+      try
+      {
+         // The native layer reports on their callbacks the writes it couldn't submit
+         writeBatch(handler, firstSequence, positions, sizes, directByteBuffers, aioCallbacks, offset, count);
+
+         return;
+      }
+      catch (HornetQException e)
+      {
+         errorCode = e.getType().getCode();
+         errorMessage = e.getMessage();
+      }
+      catch (RuntimeException e)
+      {
+         errorCode = HornetQExceptionType.INTERNAL_ERROR.getCode();
+         errorMessage = e.getMessage();
+      }
+
+      for (int i = 0; i < count; i++)
+      {
+         callbackError(aioCallbacks[offset + i],
+                       firstSequence + i,
+                       directByteBuffers[offset + i],
+                       errorCode,
+                       errorMessage);
+      }
+   }
+
    private void flushCallbacks()
    {
       while (!pendingCallbacks.isEmpty() && pendingCallbacks.peek().sequence == nextReadSequence)
@@ -693,6 +791,19 @@ public class AsynchronousFileImpl implements AsynchronousFile
                              ByteBuffer buffer,
                              AIOCallback aioPackage) throws HornetQException;
 
+   /**
+    * Submits count writes, starting at offset on the arrays, with a single call to libaio's submit.
+    * An exception means none of them was submitted.
+    */
+   private native void writeBatch(ByteBuffer handle,
+                                  long firstSequence,
+                                  long[] positions,
+                                  long[] sizes,
+                                  ByteBuffer[] buffers,
+                                  AIOCallback[] aioPackages,
+                                  int offset,
+                                  int count) throws HornetQException;
+
    /** a direct write to the file without the use of libaio's submit. */
    private native void writeInternal(ByteBuffer handle, long positionToWrite, long size, ByteBuffer bytes) throws HornetQException;
 
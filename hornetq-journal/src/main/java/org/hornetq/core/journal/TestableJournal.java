@@ -53,6 +53,14 @@ public interface TestableJournal extends Journal
 
    boolean isAutoReclaim();
 
+   void setLoadThreads(int loadThreads);
+
+   int getLoadThreads();
+
+   void setIncrementalCompactFiles(int incrementalCompactFiles);
+
+   int getIncrementalCompactFiles();
+
    void testCompact() throws Exception;
 
    JournalFile getCurrentFile();
@@ -296,6 +296,41 @@ public class AIOSequentialFile extends AbstractSequentialFile implements IOExcep
       aioFile.write(positionToWrite, bytesToWrite, bytes, callback);
    }
 
+   /**
+    * Writes the buffers one after the other, submitting them to the kernel together.
+    * <p>
+    * The journal does not use it: its writes go through the {@link TimedBuffer}, which already
+    * joins them into a single buffer on every flush.
+    *
+    * @param buffers the buffers, the array must not be changed once passed here
+    * @param callbacks the callback of every buffer, the array must not be changed once passed here
+    */
+   public void writeDirect(final ByteBuffer[] buffers, final IOAsyncTask[] callbacks)
+   {
+      long[] positions = new long[buffers.length];
+
+      long[] sizes = new long[buffers.length];
+
+      long bytesToWrite = 0;
+
+      for (int i = 0; i < buffers.length; i++)
+      {
+         sizes[i] = factory.calculateBlockSize(buffers[i].limit());
+         bytesToWrite += sizes[i];
+      }
+
+      // the buffers take a single region of the file, even with concurrent writers
+      long positionToWrite = position.getAndAdd(bytesToWrite);
+
+      for (int i = 0; i < buffers.length; i++)
+      {
+         positions[i] = positionToWrite;
+         positionToWrite += sizes[i];
+      }
+
+      aioFile.write(positions, sizes, buffers, callbacks);
+   }
+
    public void writeInternal(final ByteBuffer bytes) throws HornetQException
    {
       final int bytesToWrite = factory.calculateBlockSize(bytes.limit());
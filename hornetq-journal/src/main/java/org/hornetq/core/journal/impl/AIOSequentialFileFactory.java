@@ -84,7 +84,17 @@ public class AIOSequentialFileFactory extends AbstractSequentialFileFactory
                                    final boolean logRates,
                                    final IOCriticalErrorListener listener)
    {
-      super(journalDir, true, bufferSize, bufferTimeout, logRates, listener);
+      this(journalDir, bufferSize, bufferTimeout, logRates, false, listener);
+   }
+
+   public AIOSequentialFileFactory(final String journalDir,
+                                   final int bufferSize,
+                                   final int bufferTimeout,
+                                   final boolean logRates,
+                                   final boolean adaptiveBufferTimeout,
+                                   final IOCriticalErrorListener listener)
+   {
+      super(journalDir, true, bufferSize, bufferTimeout, logRates, adaptiveBufferTimeout, listener);
    }
 
    public SequentialFile createSequentialFile(final String fileName, final int maxIO)
@@ -69,12 +69,23 @@ abstract class AbstractSequentialFileFactory implements SequentialFileFactory
                                         final int bufferTimeout,
                                         final boolean logRates,
                                         final IOCriticalErrorListener criticalErrorListener)
+   {
+      this(journalDir, buffered, bufferSize, bufferTimeout, logRates, false, criticalErrorListener);
+   }
+
+   AbstractSequentialFileFactory(final String journalDir,
+                                        final boolean buffered,
+                                        final int bufferSize,
+                                        final int bufferTimeout,
+                                        final boolean logRates,
+                                        final boolean adaptiveBufferTimeout,
+                                        final IOCriticalErrorListener criticalErrorListener)
    {
       this.journalDir = journalDir;
 
       if (buffered)
       {
-         timedBuffer = new TimedBuffer(bufferSize, bufferTimeout, logRates);
+         timedBuffer = new TimedBuffer(bufferSize, bufferTimeout, logRates, adaptiveBufferTimeout);
       }
       else
       {
@@ -153,6 +164,14 @@ abstract class AbstractSequentialFileFactory implements SequentialFileFactory
       }
    }
 
+   /**
+    * @return the buffer shared by the files of this factory or {@code null} if they are not buffered
+    */
+   public TimedBuffer getTimedBuffer()
+   {
+      return timedBuffer;
+   }
+
    public void flush()
    {
       if (timedBuffer != null)
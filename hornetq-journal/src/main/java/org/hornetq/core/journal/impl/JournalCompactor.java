@@ -63,6 +63,9 @@ public class JournalCompactor extends AbstractJournalUpdateTask implements Journ
     *  we cache those updates. As soon as we are done we take the right account. */
    private final LinkedList<CompactCommand> pendingCommands = new LinkedList<CompactCommand>();
 
+   /** The new files can't take the ID of a file which is not being compacted */
+   private long lastOrderingID = Long.MAX_VALUE;
+
    public static SequentialFile readControlFile(final SequentialFileFactory fileFactory,
                                                 final List<String> dataFiles,
                                                 final List<String> newFiles,
@@ -149,6 +152,15 @@ public class JournalCompactor extends AbstractJournalUpdateTask implements Journ
       super(fileFactory, journal, filesRepository, recordsSnapshot, firstFileID);
    }
 
+   /**
+    * Limits the IDs of the new files when only some of the data files are compacted, so the new
+    * files keep their order with the files that are not compacted.
+    */
+   public void setLastOrderingID(final long lastOrderingID)
+   {
+      this.lastOrderingID = lastOrderingID;
+   }
+
    /** This methods informs the Compactor about the existence of a pending (non committed) transaction */
    public void addPendingTransaction(final long transactionID, final long ids[])
    {
@@ -272,6 +284,20 @@ public class JournalCompactor extends AbstractJournalUpdateTask implements Journ
       }
    }
 
+   @Override
+   protected void openFile() throws Exception
+   {
+      flush();
+
+      if (nextOrderingID > lastOrderingID)
+      {
+         throw new IllegalStateException("There are no file IDs left to compact the files before " +
+                                         (lastOrderingID + 1));
+      }
+
+      super.openFile();
+   }
+
    /**
     * Replay pending counts that happened during compacting
     */
@@ -166,6 +166,12 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
 
    private volatile boolean autoReclaim = true;
 
+   // The number of threads reading the files during the load, 1 means the files are read by the loading thread
+   private int loadThreads = 1;
+
+   // When larger than 0, compacting processes at most this number of data files at a time
+   private int incrementalCompactFiles = 0;
+
    private final int userVersion;
 
    private final int minFiles;
@@ -1460,6 +1466,11 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
          throw new IllegalStateException("There is pending compacting operation");
       }
 
+      if (incrementalCompactFiles > 0 && compactIncrementally())
+      {
+         return;
+      }
+
       compactorLock.writeLock().lock();
       try
       {
@@ -1655,6 +1666,414 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
 
    }
 
+   /**
+    * Compacts the oldest data files, a few at a time, instead of the whole journal.
+    * <p>
+    * Only the oldest files can be compacted on their own: a delete or an update always comes after
+    * the record it refers to, so the deletes on these files never refer to a record kept on the other
+    * files. The journal is only locked to move the records of these files, which blocks the writers
+    * for a time proportional to the number of files compacted rather than to the size of the journal.
+    *
+    * @return false if the oldest files had no space to reclaim, the whole journal must be compacted
+    */
+   private boolean compactIncrementally() throws Exception
+   {
+      boolean compacted = false;
+
+      // the files written while compacting are left to the next compacting, or it would never end on a busy journal
+      JournalFile lastFile = currentFile;
+
+      while (state == JournalState.LOADED && lastFile != null && compactOldestFiles(lastFile.getFileID()))
+      {
+         compacted = true;
+      }
+
+      return compacted;
+   }
+
+   /**
+    * @return true if the compacted files were replaced by fewer files
+    */
+   private boolean compactOldestFiles(final long lastFileID) throws Exception
+   {
+      compactorLock.writeLock().lock();
+      try
+      {
+         boolean previousReclaimValue = isAutoReclaim();
+
+         try
+         {
+            onCompactStart();
+
+            List<JournalFile> dataFilesToProcess;
+
+            JournalFile[] dataFiles;
+
+            JournalFile lastFile;
+
+            journalLock.writeLock().lock();
+            try
+            {
+               if (state != JournalState.LOADED)
+               {
+                  return false;
+               }
+
+               onCompactLockingTheJournal();
+
+               setAutoReclaim(false);
+
+               dataFiles = getDataFiles();
+
+               lastFile = currentFile;
+
+               int numberOfFiles = selectFilesToCompact(dataFiles, lastFileID);
+
+               dataFilesToProcess = new ArrayList<JournalFile>(numberOfFiles);
+
+               for (int i = 0; i < numberOfFiles; i++)
+               {
+                  dataFilesToProcess.add(dataFiles[i]);
+               }
+            }
+            finally
+            {
+               journalLock.writeLock().unlock();
+            }
+
+            // A transaction completed on a file which is not compacted would keep its records on the
+            // new files while its commit could be reclaimed with the file holding it
+            int numberOfFiles = countFilesCompletingTransactions(dataFilesToProcess);
+
+            dataFilesToProcess = dataFilesToProcess.subList(0, numberOfFiles);
+
+            if (dataFilesToProcess.isEmpty() || !isReclaimingFiles(dataFilesToProcess))
+            {
+               trace("Finishing compacting, nothing to process");
+               return false;
+            }
+
+            // the new files take the IDs of the compacted files
+            long lastOrderingID = (numberOfFiles < dataFiles.length ? dataFiles[numberOfFiles] : lastFile).getFileID() - 1;
+
+            Set<JournalFile> compactedFiles = new HashSet<JournalFile>(dataFilesToProcess);
+
+            // The records added on the compacted files are looked up without locking the journal. A record
+            // deleted meanwhile is not compacted, and no record can be added to these files any longer
+            List<Long> compactedIDs = new ArrayList<Long>();
+
+            for (Map.Entry<Long, JournalRecord> entry : records.entrySet())
+            {
+               if (compactedFiles.contains(entry.getValue().getAddFile()))
+               {
+                  compactedIDs.add(entry.getKey());
+               }
+            }
+
+            Map<Long, JournalRecord> replacedRecords = new HashMap<Long, JournalRecord>(compactedIDs.size());
+
+            JournalCompactor localCompactor;
+
+            journalLock.writeLock().lock();
+            try
+            {
+               if (state != JournalState.LOADED)
+               {
+                  return false;
+               }
+
+               onCompactLockingTheJournal();
+
+               for (Long id : compactedIDs)
+               {
+                  JournalRecord record = records.remove(id);
+
+                  if (record != null)
+                  {
+                     replacedRecords.put(id, record);
+                  }
+               }
+
+               localCompactor = new JournalCompactor(fileFactory,
+                                                     this,
+                                                     filesRepository,
+                                                     replacedRecords.keySet(),
+                                                     dataFilesToProcess.get(0).getFileID());
+
+               localCompactor.setLastOrderingID(lastOrderingID);
+
+               for (JournalFile file : dataFilesToProcess)
+               {
+                  filesRepository.removeDataFile(file);
+               }
+
+               compactor = localCompactor;
+            }
+            finally
+            {
+               journalLock.writeLock().unlock();
+            }
+
+            SequentialFile controlFile;
+
+            try
+            {
+               for (final JournalFile file : dataFilesToProcess)
+               {
+                  try
+                  {
+                     JournalImpl.readJournalFile(fileFactory, file, localCompactor);
+                  }
+                  catch (Throwable e)
+                  {
+                     HornetQJournalLogger.LOGGER.compactReadError(file);
+                     throw new Exception("Error on reading compacting for " + file, e);
+                  }
+               }
+
+               if (!localCompactor.getNewTransactions().isEmpty())
+               {
+                  throw new IllegalStateException("Transactions " + localCompactor.getNewTransactions().keySet() +
+                                                  " were not completed on the compacted files");
+               }
+
+               localCompactor.flush();
+
+               onCompactDone();
+
+               controlFile = createControlFile(dataFilesToProcess, localCompactor.getNewDataFiles(), null);
+            }
+            catch (Exception e)
+            {
+               cancelCompacting(localCompactor, dataFilesToProcess, replacedRecords);
+
+               throw e;
+            }
+
+            List<JournalFile> newDatafiles = localCompactor.getNewDataFiles();
+
+            journalLock.writeLock().lock();
+            try
+            {
+               // Need to clear the compactor here, or the replay commands will send commands back (infinite loop)
+               compactor = null;
+
+               onCompactLockingTheJournal();
+
+               for (Map.Entry<Long, JournalRecord> newRecordEntry : localCompactor.getNewRecords().entrySet())
+               {
+                  JournalRecord replacedRecord = replacedRecords.get(newRecordEntry.getKey());
+
+                  if (replacedRecord != null)
+                  {
+                     newRecordEntry.getValue().takeUpdateFiles(replacedRecord, compactedFiles);
+                  }
+
+                  records.put(newRecordEntry.getKey(), newRecordEntry.getValue());
+               }
+
+               for (int i = newDatafiles.size() - 1; i >= 0; i--)
+               {
+                  filesRepository.addDataFileOnTop(newDatafiles.get(i));
+               }
+
+               localCompactor.replayPendingCommands();
+            }
+            finally
+            {
+               journalLock.writeLock().unlock();
+            }
+
+            renameFiles(dataFilesToProcess, newDatafiles);
+            deleteControlFile(controlFile);
+
+            HornetQJournalLogger.LOGGER.debug("Compacted " + dataFilesToProcess.size() +
+                                              " files into " +
+                                              newDatafiles.size() +
+                                              " files");
+
+            return newDatafiles.size() < dataFilesToProcess.size();
+         }
+         finally
+         {
+            setAutoReclaim(previousReclaimValue);
+         }
+      }
+      finally
+      {
+         compactorLock.writeLock().unlock();
+      }
+   }
+
+   /**
+    * Chooses how many of the oldest data files to compact, so that as many files as possible are
+    * reclaimed from their live size. Only the files before {@code lastFileID} are considered.
+    *
+    * @return 0 if compacting the oldest files would not reclaim any file
+    */
+   private int selectFilesToCompact(final JournalFile[] dataFiles, final long lastFileID)
+   {
+      // The files written by a pending transaction are only compacted with the whole journal
+      Set<JournalFile> pendingFiles = new HashSet<JournalFile>();
+
+      for (JournalTransaction transaction : transactions.values())
+      {
+         if (transaction.getPendingFiles() != null)
+         {
+            pendingFiles.addAll(transaction.getPendingFiles());
+         }
+      }
+
+      long usableSize = fileSize - JournalImpl.SIZE_HEADER;
+
+      long liveSize = 0;
+
+      int numberOfFiles = 0;
+
+      long reclaimedFiles = 0;
+
+      for (int i = 0; i < Math.min(incrementalCompactFiles, dataFiles.length); i++)
+      {
+         if (dataFiles[i].getFileID() >= lastFileID || pendingFiles.contains(dataFiles[i]))
+         {
+            break;
+         }
+
+         liveSize += dataFiles[i].getLiveSize();
+
+         // one more file as the records don't fill the end of the files
+         long newFiles = liveSize == 0 ? 0 : liveSize / usableSize + 1;
+
+         if (i + 1 - newFiles > reclaimedFiles)
+         {
+            reclaimedFiles = i + 1 - newFiles;
+            numberOfFiles = i + 1;
+         }
+      }
+
+      return numberOfFiles;
+   }
+
+   /**
+    * Reads the files selected for an incremental compacting, which must not be written any longer,
+    * and counts the first files after which no transaction is left open.
+    */
+   private int countFilesCompletingTransactions(final List<JournalFile> files) throws Exception
+   {
+      final Set<Long> openTransactions = new HashSet<Long>();
+
+      JournalReaderCallback reader = new JournalReaderCallbackAbstract()
+      {
+         @Override
+         public void onReadAddRecordTX(final long transactionID, final RecordInfo recordInfo) throws Exception
+         {
+            openTransactions.add(transactionID);
+         }
+
+         @Override
+         public void onReadUpdateRecordTX(final long transactionID, final RecordInfo recordInfo) throws Exception
+         {
+            openTransactions.add(transactionID);
+         }
+
+         @Override
+         public void onReadDeleteRecordTX(final long transactionID, final RecordInfo recordInfo) throws Exception
+         {
+            openTransactions.add(transactionID);
+         }
+
+         @Override
+         public void onReadPrepareRecord(final long transactionID, final byte[] extraData, final int numberOfRecords) throws Exception
+         {
+            openTransactions.add(transactionID);
+         }
+
+         @Override
+         public void onReadCommitRecord(final long transactionID, final int numberOfRecords) throws Exception
+         {
+            openTransactions.remove(transactionID);
+         }
+
+         @Override
+         public void onReadRollbackRecord(final long transactionID) throws Exception
+         {
+            openTransactions.remove(transactionID);
+         }
+      };
+
+      int numberOfFiles = 0;
+
+      for (int i = 0; i < files.size(); i++)
+      {
+         JournalImpl.readJournalFile(fileFactory, files.get(i), reader);
+
+         if (openTransactions.isEmpty())
+         {
+            numberOfFiles = i + 1;
+         }
+      }
+
+      return numberOfFiles;
+   }
+
+   /**
+    * @return true if the live records of the files fit on fewer files
+    */
+   private boolean isReclaimingFiles(final List<JournalFile> files)
+   {
+      long liveSize = 0;
+
+      for (JournalFile file : files)
+      {
+         liveSize += file.getLiveSize();
+      }
+
+      // one more file as the records don't fill the end of the files
+      long newFiles = liveSize == 0 ? 0 : liveSize / (fileSize - JournalImpl.SIZE_HEADER) + 1;
+
+      return files.size() > newFiles;
+   }
+
+   /**
+    * Puts the compacted files and their records back after a failed incremental compacting.
+    */
+   private void cancelCompacting(final JournalCompactor localCompactor,
+                                 final List<JournalFile> dataFilesToProcess,
+                                 final Map<Long, JournalRecord> replacedRecords) throws Exception
+   {
+      try
+      {
+         localCompactor.flush();
+      }
+      catch (Throwable ignored)
+      {
+      }
+
+      journalLock.writeLock().lock();
+      try
+      {
+         compactor = null;
+
+         records.putAll(replacedRecords);
+
+         for (int i = dataFilesToProcess.size() - 1; i >= 0; i--)
+         {
+            filesRepository.addDataFileOnTop(dataFilesToProcess.get(i));
+         }
+
+         localCompactor.replayPendingCommands();
+      }
+      finally
+      {
+         journalLock.writeLock().unlock();
+      }
+
+      for (JournalFile file : localCompactor.getNewDataFiles())
+      {
+         file.getFile().delete();
+      }
+   }
+
    /**
     * <p>Load data accordingly to the record layouts</p>
     *
@@ -1737,274 +2156,297 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
       // AtomicLong is used only as a reference, not as an Atomic value
       final AtomicLong maxID = new AtomicLong(-1);
 
-      for (final JournalFile file : orderedFiles)
-      {
-         JournalImpl.trace("Loading file " + file.getFile().getFileName());
+      // The files are read ahead by other threads but their records are still replayed here, in order
+      ParallelJournalReader parallelReader = null;
 
-         final AtomicBoolean hasData = new AtomicBoolean(false);
+      if (loadThreads > 1 && orderedFiles.size() > 1)
+      {
+         parallelReader = new ParallelJournalReader(fileFactory, orderedFiles, loadThreads);
+      }
 
-         int resultLastPost = JournalImpl.readJournalFile(fileFactory, file, new JournalReaderCallback()
+      try
+      {
+         for (int fileIndex = 0; fileIndex < orderedFiles.size(); fileIndex++)
          {
+            final JournalFile file = orderedFiles.get(fileIndex);
 
-            private void checkID(final long id)
-            {
-               if (id > maxID.longValue())
-               {
-                  maxID.set(id);
-               }
-            }
-
-            public void onReadAddRecord(final RecordInfo info) throws Exception
-            {
-               checkID(info.id);
+            JournalImpl.trace("Loading file " + file.getFile().getFileName());
 
-               hasData.set(true);
+            final AtomicBoolean hasData = new AtomicBoolean(false);
 
-               loadManager.addRecord(info);
+            JournalReaderCallback fileReader = new JournalReaderCallback()
+            {
 
-               records.put(info.id, new JournalRecord(file, info.data.length + JournalImpl.SIZE_ADD_RECORD + 1));
-            }
+               private void checkID(final long id)
+               {
+                  if (id > maxID.longValue())
+                  {
+                     maxID.set(id);
+                  }
+               }
 
-            public void onReadUpdateRecord(final RecordInfo info) throws Exception
-            {
-               checkID(info.id);
+               public void onReadAddRecord(final RecordInfo info) throws Exception
+               {
+                  checkID(info.id);
 
-               hasData.set(true);
+                  hasData.set(true);
 
-               loadManager.updateRecord(info);
+                  loadManager.addRecord(info);
 
-               JournalRecord posFiles = records.get(info.id);
+                  records.put(info.id, new JournalRecord(file, info.data.length + JournalImpl.SIZE_ADD_RECORD + 1));
+               }
 
-               if (posFiles != null)
+               public void onReadUpdateRecord(final RecordInfo info) throws Exception
                {
-                  // It's legal for this to be null. The file(s) with the may
-                  // have been deleted
-                  // just leaving some updates in this file
+                  checkID(info.id);
 
-                  posFiles.addUpdateFile(file, info.data.length + JournalImpl.SIZE_ADD_RECORD + 1); // +1 = compact
-                  // count
-               }
-            }
+                  hasData.set(true);
 
-            public void onReadDeleteRecord(final long recordID) throws Exception
-            {
-               hasData.set(true);
+                  loadManager.updateRecord(info);
 
-               loadManager.deleteRecord(recordID);
+                  JournalRecord posFiles = records.get(info.id);
 
-               JournalRecord posFiles = records.remove(recordID);
+                  if (posFiles != null)
+                  {
+                     // It's legal for this to be null. The file(s) with the may
+                     // have been deleted
+                     // just leaving some updates in this file
 
-               if (posFiles != null)
-               {
-                  posFiles.delete(file);
+                     posFiles.addUpdateFile(file, info.data.length + JournalImpl.SIZE_ADD_RECORD + 1); // +1 = compact
+                     // count
+                  }
                }
-            }
 
-            public void onReadUpdateRecordTX(final long transactionID, final RecordInfo info) throws Exception
-            {
-               onReadAddRecordTX(transactionID, info);
-            }
-
-            public void onReadAddRecordTX(final long transactionID, final RecordInfo info) throws Exception
-            {
+               public void onReadDeleteRecord(final long recordID) throws Exception
+               {
+                  hasData.set(true);
 
-               checkID(info.id);
+                  loadManager.deleteRecord(recordID);
 
-               hasData.set(true);
+                  JournalRecord posFiles = records.remove(recordID);
 
-               TransactionHolder tx = loadTransactions.get(transactionID);
+                  if (posFiles != null)
+                  {
+                     posFiles.delete(file);
+                  }
+               }
 
-               if (tx == null)
+               public void onReadUpdateRecordTX(final long transactionID, final RecordInfo info) throws Exception
                {
-                  tx = new TransactionHolder(transactionID);
-
-                  loadTransactions.put(transactionID, tx);
+                  onReadAddRecordTX(transactionID, info);
                }
 
-               tx.recordInfos.add(info);
-
-               JournalTransaction tnp = transactions.get(transactionID);
-
-               if (tnp == null)
+               public void onReadAddRecordTX(final long transactionID, final RecordInfo info) throws Exception
                {
-                  tnp = new JournalTransaction(transactionID, JournalImpl.this);
 
-                  transactions.put(transactionID, tnp);
-               }
+                  checkID(info.id);
 
-               tnp.addPositive(file, info.id, info.data.length + JournalImpl.SIZE_ADD_RECORD_TX + 1); // +1 = compact
-               // count
-            }
+                  hasData.set(true);
 
-            public void onReadDeleteRecordTX(final long transactionID, final RecordInfo info) throws Exception
-            {
-               hasData.set(true);
+                  TransactionHolder tx = loadTransactions.get(transactionID);
 
-               TransactionHolder tx = loadTransactions.get(transactionID);
+                  if (tx == null)
+                  {
+                     tx = new TransactionHolder(transactionID);
 
-               if (tx == null)
-               {
-                  tx = new TransactionHolder(transactionID);
+                     loadTransactions.put(transactionID, tx);
+                  }
 
-                  loadTransactions.put(transactionID, tx);
-               }
+                  tx.recordInfos.add(info);
 
-               tx.recordsToDelete.add(info);
+                  JournalTransaction tnp = transactions.get(transactionID);
 
-               JournalTransaction tnp = transactions.get(transactionID);
+                  if (tnp == null)
+                  {
+                     tnp = new JournalTransaction(transactionID, JournalImpl.this);
 
-               if (tnp == null)
-               {
-                  tnp = new JournalTransaction(transactionID, JournalImpl.this);
+                     transactions.put(transactionID, tnp);
+                  }
 
-                  transactions.put(transactionID, tnp);
+                  tnp.addPositive(file, info.id, info.data.length + JournalImpl.SIZE_ADD_RECORD_TX + 1); // +1 = compact
+                  // count
                }
 
-               tnp.addNegative(file, info.id);
+               public void onReadDeleteRecordTX(final long transactionID, final RecordInfo info) throws Exception
+               {
+                  hasData.set(true);
 
-            }
+                  TransactionHolder tx = loadTransactions.get(transactionID);
 
-            public void onReadPrepareRecord(final long transactionID, final byte[] extraData, final int numberOfRecords) throws Exception
-            {
-               hasData.set(true);
+                  if (tx == null)
+                  {
+                     tx = new TransactionHolder(transactionID);
 
-               TransactionHolder tx = loadTransactions.get(transactionID);
+                     loadTransactions.put(transactionID, tx);
+                  }
 
-               if (tx == null)
-               {
-                  // The user could choose to prepare empty transactions
-                  tx = new TransactionHolder(transactionID);
+                  tx.recordsToDelete.add(info);
 
-                  loadTransactions.put(transactionID, tx);
-               }
+                  JournalTransaction tnp = transactions.get(transactionID);
 
-               tx.prepared = true;
+                  if (tnp == null)
+                  {
+                     tnp = new JournalTransaction(transactionID, JournalImpl.this);
+
+                     transactions.put(transactionID, tnp);
+                  }
 
-               tx.extraData = extraData;
+                  tnp.addNegative(file, info.id);
 
-               JournalTransaction journalTransaction = transactions.get(transactionID);
+               }
 
-               if (journalTransaction == null)
+               public void onReadPrepareRecord(final long transactionID, final byte[] extraData, final int numberOfRecords) throws Exception
                {
-                  journalTransaction = new JournalTransaction(transactionID, JournalImpl.this);
+                  hasData.set(true);
 
-                  transactions.put(transactionID, journalTransaction);
-               }
+                  TransactionHolder tx = loadTransactions.get(transactionID);
 
-               boolean healthy = checkTransactionHealth(file, journalTransaction, orderedFiles, numberOfRecords);
+                  if (tx == null)
+                  {
+                     // The user could choose to prepare empty transactions
+                     tx = new TransactionHolder(transactionID);
 
-               if (healthy)
-               {
-                  journalTransaction.prepare(file);
-               }
-               else
-               {
-                  HornetQJournalLogger.LOGGER.preparedTXIncomplete(transactionID);
-                  tx.invalid = true;
-               }
-            }
+                     loadTransactions.put(transactionID, tx);
+                  }
 
-            public void onReadCommitRecord(final long transactionID, final int numberOfRecords) throws Exception
-            {
-               TransactionHolder tx = loadTransactions.remove(transactionID);
+                  tx.prepared = true;
 
-               // The commit could be alone on its own journal-file and the
-               // whole transaction body was reclaimed but not the
-               // commit-record
-               // So it is completely legal to not find a transaction at this
-               // point
-               // If we can't find it, we assume the TX was reclaimed and we
-               // ignore this
-               if (tx != null)
-               {
-                  JournalTransaction journalTransaction = transactions.remove(transactionID);
+                  tx.extraData = extraData;
+
+                  JournalTransaction journalTransaction = transactions.get(transactionID);
 
                   if (journalTransaction == null)
                   {
-                     throw new IllegalStateException("Cannot find tx " + transactionID);
+                     journalTransaction = new JournalTransaction(transactionID, JournalImpl.this);
+
+                     transactions.put(transactionID, journalTransaction);
                   }
 
                   boolean healthy = checkTransactionHealth(file, journalTransaction, orderedFiles, numberOfRecords);
 
                   if (healthy)
                   {
-                     for (RecordInfo txRecord : tx.recordInfos)
+                     journalTransaction.prepare(file);
+                  }
+                  else
+                  {
+                     HornetQJournalLogger.LOGGER.preparedTXIncomplete(transactionID);
+                     tx.invalid = true;
+                  }
+               }
+
+               public void onReadCommitRecord(final long transactionID, final int numberOfRecords) throws Exception
+               {
+                  TransactionHolder tx = loadTransactions.remove(transactionID);
+
+                  // The commit could be alone on its own journal-file and the
+                  // whole transaction body was reclaimed but not the
+                  // commit-record
+                  // So it is completely legal to not find a transaction at this
+                  // point
+                  // If we can't find it, we assume the TX was reclaimed and we
+                  // ignore this
+                  if (tx != null)
+                  {
+                     JournalTransaction journalTransaction = transactions.remove(transactionID);
+
+                     if (journalTransaction == null)
+                     {
+                        throw new IllegalStateException("Cannot find tx " + transactionID);
+                     }
+
+                     boolean healthy = checkTransactionHealth(file, journalTransaction, orderedFiles, numberOfRecords);
+
+                     if (healthy)
                      {
-                        if (txRecord.isUpdate)
+                        for (RecordInfo txRecord : tx.recordInfos)
                         {
-                           loadManager.updateRecord(txRecord);
+                           if (txRecord.isUpdate)
+                           {
+                              loadManager.updateRecord(txRecord);
+                           }
+                           else
+                           {
+                              loadManager.addRecord(txRecord);
+                           }
                         }
-                        else
+
+                        for (RecordInfo deleteValue : tx.recordsToDelete)
                         {
-                           loadManager.addRecord(txRecord);
+                           loadManager.deleteRecord(deleteValue.id);
                         }
-                     }
 
-                     for (RecordInfo deleteValue : tx.recordsToDelete)
-                     {
-                        loadManager.deleteRecord(deleteValue.id);
+                        journalTransaction.commit(file);
                      }
+                     else
+                     {
+                        HornetQJournalLogger.LOGGER.txMissingElements(transactionID);
 
-                     journalTransaction.commit(file);
-                  }
-                  else
-                  {
-                     HornetQJournalLogger.LOGGER.txMissingElements(transactionID);
+                        journalTransaction.forget();
+                     }
 
-                     journalTransaction.forget();
+                     hasData.set(true);
                   }
 
-                  hasData.set(true);
                }
 
-            }
-
-            public void onReadRollbackRecord(final long transactionID) throws Exception
-            {
-               TransactionHolder tx = loadTransactions.remove(transactionID);
-
-               // The rollback could be alone on its own journal-file and the
-               // whole transaction body was reclaimed but the commit-record
-               // So it is completely legal to not find a transaction at this
-               // point
-               if (tx != null)
+               public void onReadRollbackRecord(final long transactionID) throws Exception
                {
-                  JournalTransaction tnp = transactions.remove(transactionID);
+                  TransactionHolder tx = loadTransactions.remove(transactionID);
 
-                  if (tnp == null)
+                  // The rollback could be alone on its own journal-file and the
+                  // whole transaction body was reclaimed but the commit-record
+                  // So it is completely legal to not find a transaction at this
+                  // point
+                  if (tx != null)
                   {
-                     throw new IllegalStateException("Cannot find tx " + transactionID);
-                  }
+                     JournalTransaction tnp = transactions.remove(transactionID);
+
+                     if (tnp == null)
+                     {
+                        throw new IllegalStateException("Cannot find tx " + transactionID);
+                     }
+
+                     // There is no need to validate summaries/holes on
+                     // Rollbacks.. We will ignore the data anyway.
+                     tnp.rollback(file);
 
-                  // There is no need to validate summaries/holes on
-                  // Rollbacks.. We will ignore the data anyway.
-                  tnp.rollback(file);
+                     hasData.set(true);
+                  }
+               }
 
+               public void markAsDataFile(final JournalFile file)
+               {
                   hasData.set(true);
                }
-            }
 
-            public void markAsDataFile(final JournalFile file)
-            {
-               hasData.set(true);
-            }
+            };
 
-         });
+            int resultLastPost = parallelReader == null ? JournalImpl.readJournalFile(fileFactory, file, fileReader)
+                                                        : parallelReader.read(fileIndex, fileReader);
 
-         if (hasData.get())
-         {
-            lastDataPos = resultLastPost;
-            filesRepository.addDataFileOnBottom(file);
-         }
-         else
-         {
-            if (changeData)
+            if (hasData.get())
+            {
+               lastDataPos = resultLastPost;
+               filesRepository.addDataFileOnBottom(file);
+            }
+            else
             {
-               // Empty dataFiles with no data
-               filesRepository.addFreeFile(file, false, false);
+               if (changeData)
+               {
+                  // Empty dataFiles with no data
+                  filesRepository.addFreeFile(file, false, false);
+               }
             }
          }
       }
+      finally
+      {
+         if (parallelReader != null)
+         {
+            parallelReader.stop();
+         }
+      }
 
       if (replicationSync == JournalState.SYNCING)
       {
@@ -2190,6 +2632,34 @@ public class JournalImpl extends JournalBase implements TestableJournal, Journal
       return autoReclaim;
    }
 
+   /**
+    * Sets the number of threads reading and decoding the journal files during the load. The
+    * records are still replayed in the order of the files.
+    */
+   public final void setLoadThreads(final int loadThreads)
+   {
+      this.loadThreads = loadThreads;
+   }
+
+   public final int getLoadThreads()
+   {
+      return loadThreads;
+   }
+
+   /**
+    * Sets the maximum number of data files compacted at a time, 0 compacts the whole journal at
+    * once.
+    */
+   public final void setIncrementalCompactFiles(final int incrementalCompactFiles)
+   {
+      this.incrementalCompactFiles = incrementalCompactFiles;
+   }
+
+   public final int getIncrementalCompactFiles()
+   {
+      return incrementalCompactFiles;
+   }
+
    /* Only meant to be used in tests. */
    @Override
    public String debug() throws Exception
@@ -14,6 +14,7 @@
 package org.hornetq.core.journal.impl;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.hornetq.api.core.Pair;
@@ -59,6 +60,37 @@ public class JournalRecord
       updateFile.addSize(size);
    }
 
+   JournalFile getAddFile()
+   {
+      return addFile;
+   }
+
+   /**
+    * Moves the update files of a record replaced by incremental compacting, except the compacted
+    * files, whose updates were rewritten on the new files. The counters of those files were already
+    * incremented by the replaced record.
+    */
+   void takeUpdateFiles(final JournalRecord replaced, final Collection<JournalFile> compactedFiles)
+   {
+      if (replaced.updateFiles == null)
+      {
+         return;
+      }
+
+      for (Pair<JournalFile, Integer> updFile : replaced.updateFiles)
+      {
+         if (!compactedFiles.contains(updFile.getA()))
+         {
+            if (updateFiles == null)
+            {
+               updateFiles = new ArrayList<Pair<JournalFile, Integer>>();
+            }
+
+            updateFiles.add(updFile);
+         }
+      }
+   }
+
    void delete(final JournalFile file)
    {
       file.incNegCount(addFile);
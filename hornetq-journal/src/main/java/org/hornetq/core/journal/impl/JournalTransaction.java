@@ -103,6 +103,11 @@ public class JournalTransaction
       }
    }
 
+   Set<JournalFile> getPendingFiles()
+   {
+      return pendingFiles;
+   }
+
    public void setCompacting()
    {
       compacting = true;
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.journal.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Executor;
+
+import org.hornetq.core.journal.IOAsyncTask;
+import org.hornetq.core.journal.SequentialFile;
+import org.hornetq.core.journal.SequentialFileFactory;
+
+/**
+ * A {@link NIOSequentialFile} writing through a memory mapping of the file.
+ * <p>
+ * The journal fills its files before using them, so every record is copied into the mapping and
+ * a sync is a {@link MappedByteBuffer#force()} of the dirty pages. Writes past the end of the file,
+ * like the appends on page and large message files, go through the channel as with NIO so the size
+ * of the file is never changed by the mapping.
+ */
+public class MappedSequentialFile extends NIOSequentialFile
+{
+   // Attributes ----------------------------------------------------
+
+   /** Guards the mapping against being unmapped while it is written or forced */
+   private final Object mappingLock = new Object();
+
+   private MappedByteBuffer mapping;
+
+   /** Whether something was written through the channel since the last sync */
+   private volatile boolean channelDirty;
+
+   // Constructors --------------------------------------------------
+
+   public MappedSequentialFile(final SequentialFileFactory factory,
+                               final String directory,
+                               final String fileName,
+                               final int maxIO,
+                               final Executor writerExecutor)
+   {
+      super(factory, directory, fileName, maxIO, writerExecutor);
+   }
+
+   public MappedSequentialFile(final SequentialFileFactory factory,
+                               final File file,
+                               final int maxIO,
+                               final Executor writerExecutor)
+   {
+      super(factory, file, maxIO, writerExecutor);
+   }
+
+   // SequentialFile implementation ---------------------------------
+
+   @Override
+   public void fill(final int position, final int size, final byte fillCharacter) throws Exception
+   {
+      super.fill(position, size, fillCharacter);
+
+      // the file has a new size, it's mapped again by the next write
+      unmap();
+   }
+
+   @Override
+   public synchronized void close() throws Exception
+   {
+      super.close();
+
+      unmap();
+   }
+
+   @Override
+   public void sync() throws IOException
+   {
+      synchronized (mappingLock)
+      {
+         if (mapping != null)
+         {
+            mapping.force();
+         }
+      }
+
+      if (channelDirty)
+      {
+         channelDirty = false;
+
+         super.sync();
+      }
+   }
+
+   @Override
+   public String toString()
+   {
+      return "MappedSequentialFile " + getFile();
+   }
+
+   @Override
+   public SequentialFile cloneFile()
+   {
+      return new MappedSequentialFile(factory, getFile(), maxIO, writerExecutor);
+   }
+
+   // Protected -----------------------------------------------------
+
+   @Override
+   protected void doInternalWrite(final ByteBuffer bytes, final boolean sync, final IOAsyncTask callback) throws IOException
+   {
+      // the channel keeps the position, as reads and writes share it on NIO
+      long position = channel.position();
+
+      int size = bytes.remaining();
+
+      boolean mapped;
+
+      synchronized (mappingLock)
+      {
+         MappedByteBuffer buffer = getMapping(position + size);
+
+         mapped = buffer != null;
+
+         if (mapped)
+         {
+            ByteBuffer target = buffer.duplicate();
+            target.position((int)position);
+            target.put(bytes);
+         }
+      }
+
+      if (mapped)
+      {
+         channel.position(position + size);
+      }
+      else
+      {
+         channel.write(bytes);
+
+         channelDirty = true;
+      }
+
+      if (sync)
+      {
+         sync();
+      }
+
+      if (callback != null)
+      {
+         callback.done();
+      }
+   }
+
+   // Private -------------------------------------------------------
+
+   /**
+    * Returns a mapping of the whole file that can hold the bytes up to {@code end}, or null if they
+    * are past the end of the file. Must be called holding the mappingLock.
+    */
+   private MappedByteBuffer getMapping(final long end) throws IOException
+   {
+      if (mapping != null && end <= mapping.capacity())
+      {
+         return mapping;
+      }
+
+      long size = channel.size();
+
+      if (end > size || size > Integer.MAX_VALUE)
+      {
+         return null;
+      }
+
+      unmapInternal();
+
+      mapping = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+      return mapping;
+   }
+
+   private void unmap()
+   {
+      synchronized (mappingLock)
+      {
+         unmapInternal();
+      }
+   }
+
+   private void unmapInternal()
+   {
+      if (mapping == null)
+      {
+         return;
+      }
+
+      MappedByteBuffer buffer = mapping;
+
+      mapping = null;
+
+      // The JDK only releases a mapping when it's garbage collected, which would keep the space of
+      // deleted files and the address space of closed ones. This is the same cleaner the JDK uses.
+      try
+      {
+         Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+         cleanerMethod.setAccessible(true);
+         Object cleaner = cleanerMethod.invoke(buffer);
+         if (cleaner != null)
+         {
+            cleaner.getClass().getMethod("clean").invoke(cleaner);
+         }
+      }
+      catch (Throwable e)
+      {
+         // not available on this JDK, the mapping is released by the GC
+      }
+   }
+}
@@ -17,6 +17,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Semaphore;
@@ -40,7 +41,7 @@ import org.hornetq.journal.HornetQJournalLogger;
  */
 public class NIOSequentialFile extends AbstractSequentialFile
 {
-   private FileChannel channel;
+   protected FileChannel channel;
 
    private RandomAccessFile rfile;
 
@@ -49,7 +50,7 @@ public class NIOSequentialFile extends AbstractSequentialFile
 
    private final int defaultMaxIO;
 
-   private int maxIO;
+   protected int maxIO;
 
    public NIOSequentialFile(final SequentialFileFactory factory,
                             final String directory,
@@ -219,6 +220,29 @@ public class NIOSequentialFile extends AbstractSequentialFile
 
    }
 
+   /**
+    * Maps a region of the file into memory, to be read without copying it. The mapping stays valid
+    * after the file is closed.
+    */
+   public synchronized MappedByteBuffer map(final long position, final long size) throws Exception
+   {
+      if (channel == null)
+      {
+         throw new Exception("File " + this.getFileName() + " has a null channel");
+      }
+
+      try
+      {
+         return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+      }
+      catch (IOException e)
+      {
+         factory.onIOError(new HornetQIOErrorException(e.getMessage(), e), e.getMessage(), this);
+
+         throw e;
+      }
+   }
+
    public void sync() throws IOException
    {
       if (channel != null)
@@ -366,7 +390,7 @@ public class NIOSequentialFile extends AbstractSequentialFile
     * @throws IOException
     * @throws Exception
     */
-   private void doInternalWrite(final ByteBuffer bytes, final boolean sync, final IOAsyncTask callback) throws IOException
+   protected void doInternalWrite(final ByteBuffer bytes, final boolean sync, final IOAsyncTask callback) throws IOException
    {
       channel.write(bytes);
 
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.journal.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.hornetq.core.journal.RecordInfo;
+import org.hornetq.core.journal.SequentialFileFactory;
+
+/**
+ * Reads and decodes the files of a journal on several threads while they are being replayed in
+ * order.
+ * <p>
+ * The records of each file are kept in memory until {@link #read(int, JournalReaderCallback)}
+ * replays them, so the final state of the records only depends on the order of the files. At most
+ * two files per thread are read ahead of the file being replayed, which bounds the memory used by
+ * the loading.
+ *
+ * @see JournalImpl#setLoadThreads(int)
+ */
+final class ParallelJournalReader
+{
+   // Attributes ----------------------------------------------------
+
+   private final SequentialFileFactory fileFactory;
+
+   private final List<JournalFile> files;
+
+   private final int readAhead;
+
+   private final ExecutorService executor;
+
+   private final List<Future<ReadFile>> futures;
+
+   // Constructors --------------------------------------------------
+
+   ParallelJournalReader(final SequentialFileFactory fileFactory, final List<JournalFile> files, final int threads)
+   {
+      this.fileFactory = fileFactory;
+
+      this.files = files;
+
+      readAhead = threads * 2;
+
+      futures = new ArrayList<Future<ReadFile>>(files.size());
+
+      executor = Executors.newFixedThreadPool(threads, new ThreadFactory()
+      {
+         public Thread newThread(final Runnable r)
+         {
+            return new Thread(r, "JournalImpl::LoadExecutor");
+         }
+      });
+
+      for (int i = 0; i < Math.min(readAhead, files.size()); i++)
+      {
+         submit(i);
+      }
+   }
+
+   // Public --------------------------------------------------------
+
+   /**
+    * Replays the records of a file into the callback, as {@link JournalImpl#readJournalFile} would.
+    * Files must be read in order.
+    *
+    * @return the position after the last valid record of the file
+    */
+   int read(final int index, final JournalReaderCallback callback) throws Exception
+   {
+      if (index + readAhead < files.size())
+      {
+         submit(index + readAhead);
+      }
+
+      ReadFile readFile;
+
+      try
+      {
+         readFile = futures.get(index).get();
+      }
+      catch (ExecutionException e)
+      {
+         if (e.getCause() instanceof Exception)
+         {
+            throw (Exception)e.getCause();
+         }
+         throw e;
+      }
+
+      // the records are not needed any longer once replayed
+      futures.set(index, null);
+
+      readFile.replay(callback);
+
+      return readFile.lastDataPos;
+   }
+
+   void stop()
+   {
+      executor.shutdownNow();
+   }
+
+   // Private -------------------------------------------------------
+
+   private void submit(final int index)
+   {
+      final JournalFile file = files.get(index);
+
+      futures.add(executor.submit(new Callable<ReadFile>()
+      {
+         public ReadFile call() throws Exception
+         {
+            ReadFile readFile = new ReadFile(file);
+
+            readFile.lastDataPos = JournalImpl.readJournalFile(fileFactory, file, readFile);
+
+            return readFile;
+         }
+      }));
+   }
+
+   // Inner classes -------------------------------------------------
+
+   /**
+    * Keeps the records read from a file, in order.
+    */
+   private static final class ReadFile implements JournalReaderCallback
+   {
+      private final JournalFile file;
+
+      private final List<ReadRecord> records = new ArrayList<ReadRecord>();
+
+      private int lastDataPos;
+
+      ReadFile(final JournalFile file)
+      {
+         this.file = file;
+      }
+
+      void replay(final JournalReaderCallback callback) throws Exception
+      {
+         for (ReadRecord record : records)
+         {
+            switch (record.recordType)
+            {
+               case JournalImpl.ADD_RECORD:
+                  callback.onReadAddRecord(record.info);
+                  break;
+               case JournalImpl.UPDATE_RECORD:
+                  callback.onReadUpdateRecord(record.info);
+                  break;
+               case JournalImpl.DELETE_RECORD:
+                  callback.onReadDeleteRecord(record.id);
+                  break;
+               case JournalImpl.ADD_RECORD_TX:
+                  callback.onReadAddRecordTX(record.id, record.info);
+                  break;
+               case JournalImpl.UPDATE_RECORD_TX:
+                  callback.onReadUpdateRecordTX(record.id, record.info);
+                  break;
+               case JournalImpl.DELETE_RECORD_TX:
+                  callback.onReadDeleteRecordTX(record.id, record.info);
+                  break;
+               case JournalImpl.PREPARE_RECORD:
+                  callback.onReadPrepareRecord(record.id, record.extraData, record.numberOfRecords);
+                  break;
+               case JournalImpl.COMMIT_RECORD:
+                  callback.onReadCommitRecord(record.id, record.numberOfRecords);
+                  break;
+               case JournalImpl.ROLLBACK_RECORD:
+                  callback.onReadRollbackRecord(record.id);
+                  break;
+               default:
+                  callback.markAsDataFile(file);
+            }
+         }
+      }
+
+      private void add(final byte recordType, final long id, final RecordInfo info)
+      {
+         records.add(new ReadRecord(recordType, id, info, null, 0));
+      }
+
+      public void onReadAddRecord(final RecordInfo info)
+      {
+         add(JournalImpl.ADD_RECORD, info.id, info);
+      }
+
+      public void onReadUpdateRecord(final RecordInfo info)
+      {
+         add(JournalImpl.UPDATE_RECORD, info.id, info);
+      }
+
+      public void onReadDeleteRecord(final long recordID)
+      {
+         add(JournalImpl.DELETE_RECORD, recordID, null);
+      }
+
+      public void onReadAddRecordTX(final long transactionID, final RecordInfo info)
+      {
+         add(JournalImpl.ADD_RECORD_TX, transactionID, info);
+      }
+
+      public void onReadUpdateRecordTX(final long transactionID, final RecordInfo info)
+      {
+         add(JournalImpl.UPDATE_RECORD_TX, transactionID, info);
+      }
+
+      public void onReadDeleteRecordTX(final long transactionID, final RecordInfo info)
+      {
+         add(JournalImpl.DELETE_RECORD_TX, transactionID, info);
+      }
+
+      public void onReadPrepareRecord(final long transactionID, final byte[] extraData, final int numberOfRecords)
+      {
+         records.add(new ReadRecord(JournalImpl.PREPARE_RECORD, transactionID, null, extraData, numberOfRecords));
+      }
+
+      public void onReadCommitRecord(final long transactionID, final int numberOfRecords)
+      {
+         records.add(new ReadRecord(JournalImpl.COMMIT_RECORD, transactionID, null, null, numberOfRecords));
+      }
+
+      public void onReadRollbackRecord(final long transactionID)
+      {
+         add(JournalImpl.ROLLBACK_RECORD, transactionID, null);
+      }
+
+      public void markAsDataFile(final JournalFile journalFile)
+      {
+         // any type which is not a record type
+         add((byte)0, 0, null);
+      }
+   }
+
+   private static final class ReadRecord
+   {
+      final byte recordType;
+
+      // the record ID or the transaction ID
+      final long id;
+
+      final RecordInfo info;
+
+      final byte[] extraData;
+
+      final int numberOfRecords;
+
+      ReadRecord(final byte recordType,
+                 final long id,
+                 final RecordInfo info,
+                 final byte[] extraData,
+                 final int numberOfRecords)
+      {
+         this.recordType = recordType;
+         this.id = id;
+         this.info = info;
+         this.extraData = extraData;
+         this.numberOfRecords = numberOfRecords;
+      }
+   }
+}
@@ -21,6 +21,7 @@ import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 import org.hornetq.api.core.HornetQBuffer;
 import org.hornetq.api.core.HornetQBuffers;
@@ -43,6 +44,9 @@ public class TimedBuffer
    // The number of tries on sleep before switching to spin
    public static final int MAX_CHECKS_ON_SLEEP = 20;
 
+   // The weight of a new sample on the moving averages used by the adaptive timeout is 1 / 2^AVERAGE_SHIFT
+   private static final int AVERAGE_SHIFT = 3;
+
    // Attributes ----------------------------------------------------
 
    private TimedBufferObserver bufferObserver;
@@ -93,6 +97,31 @@ public class TimedBuffer
    // no need to be volatile as every access is synchronized
    private boolean spinning = false;
 
+   // for the adaptive timeout
+
+   // If true the timeout is only an upper bound: a sync is flushed right away unless more sync requests are
+   // expected while the device is syncing, in which case they are grouped for at most one sync time
+   private final boolean adaptiveTimeout;
+
+   // The time (System.nanoTime()) the oldest record waiting for a sync was added
+   private volatile long pendingSyncTime;
+
+   // The flush window (in nanoseconds) of the records waiting for a sync
+   private volatile long currentTimeout;
+
+   // Moving average of the time (in nanoseconds) between a flush and its completion, set by the sync callbacks
+   private volatile long averageSyncTime;
+
+   // Moving average of the time (in nanoseconds) between two sync requests, no need to be volatile as every
+   // access is synchronized
+   private long averageSyncInterval;
+
+   private long lastSyncRequest;
+
+   private volatile double averageBatchSize;
+
+   private final AtomicLong recordsFlushed = new AtomicLong(0);
+
    // Static --------------------------------------------------------
 
    // Constructors --------------------------------------------------
@@ -100,11 +129,18 @@ public class TimedBuffer
    // Public --------------------------------------------------------
 
    public TimedBuffer(final int size, final int timeout, final boolean logRates)
+   {
+      this(size, timeout, logRates, false);
+   }
+
+   public TimedBuffer(final int size, final int timeout, final boolean logRates, final boolean adaptiveTimeout)
    {
       bufferSize = size;
 
       this.logRates = logRates;
 
+      this.adaptiveTimeout = adaptiveTimeout;
+
       if (logRates)
       {
          logRatesTimer = new Timer(true);
@@ -120,6 +156,8 @@ public class TimedBuffer
       callbacks = new ArrayList<IOAsyncTask>();
 
       this.timeout = timeout;
+
+      currentTimeout = timeout;
    }
 
    // for Debug purposes
@@ -133,6 +171,36 @@ public class TimedBuffer
       this.useSleep = useSleep;
    }
 
+   public boolean isAdaptiveTimeout()
+   {
+      return adaptiveTimeout;
+   }
+
+   /**
+    * @return the time (in nanoseconds) records waiting for a sync are currently kept in the buffer
+    */
+   public long getCurrentTimeout()
+   {
+      return adaptiveTimeout ? currentTimeout : timeout;
+   }
+
+   /**
+    * @return the average time (in nanoseconds) the device takes to complete a flush with sync, only measured
+    *         when the timeout is adaptive
+    */
+   public long getAverageSyncTime()
+   {
+      return averageSyncTime;
+   }
+
+   /**
+    * @return the average number of records written by a flush
+    */
+   public double getAverageBatchSize()
+   {
+      return averageBatchSize;
+   }
+
    public synchronized void start()
    {
       if (started)
@@ -283,6 +351,11 @@ public class TimedBuffer
 
       if (sync)
       {
+         if (adaptiveTimeout)
+         {
+            adaptTimeout();
+         }
+
          pendingSync = true;
 
          startSpin();
@@ -317,6 +390,20 @@ public class TimedBuffer
                bytesFlushed.addAndGet(pos);
             }
 
+            int records = callbacks.size();
+
+            recordsFlushed.addAndGet(records);
+
+            averageBatchSize = averageBatchSize == 0 ? records
+                                                     : averageBatchSize + (records - averageBatchSize) /
+                                                       (1 << AVERAGE_SHIFT);
+
+            if (adaptiveTimeout && pendingSync)
+            {
+               // completed after all the records of the batch
+               callbacks.add(new SyncTimeCallback(System.nanoTime()));
+            }
+
             ByteBuffer bufferToFlush = bufferObserver.newBuffer(bufferSize, pos);
 
             // Putting a byteArray on a native buffer is much faster, since it will do in a single native call.
@@ -349,8 +436,76 @@ public class TimedBuffer
 
    // Private -------------------------------------------------------
 
+   /**
+    * Group commit: holding a sync only pays off if other sync requests arrive while the device would be
+    * syncing, so the records are flushed right away unless sync requests are closer to each other than the
+    * time a sync takes, in which case they wait for at most one sync time (and never more than the timeout).
+    * <p>
+    * Must be called holding the lock, before pendingSync is set.
+    */
+   private void adaptTimeout()
+   {
+      long now = System.nanoTime();
+
+      if (lastSyncRequest != 0)
+      {
+         averageSyncInterval = average(averageSyncInterval, now - lastSyncRequest);
+      }
+
+      lastSyncRequest = now;
+
+      if (!pendingSync)
+      {
+         long syncTime = averageSyncTime;
+
+         if (syncTime == 0 || averageSyncInterval == 0 || averageSyncInterval >= syncTime)
+         {
+            currentTimeout = 0;
+         }
+         else
+         {
+            currentTimeout = Math.min(timeout, syncTime);
+         }
+
+         pendingSyncTime = now;
+      }
+   }
+
+   private static long average(final long average, final long sample)
+   {
+      if (average == 0)
+      {
+         return sample;
+      }
+
+      return average + ((sample - average) >> AVERAGE_SHIFT);
+   }
+
    // Inner classes -------------------------------------------------
 
+   /**
+    * Measures the time the device takes to complete a flush with sync.
+    */
+   private final class SyncTimeCallback implements IOAsyncTask
+   {
+      private final long flushTime;
+
+      SyncTimeCallback(final long flushTime)
+      {
+         this.flushTime = flushTime;
+      }
+
+      public void done()
+      {
+         // callbacks are completed in order by a single thread, there is no concurrent update
+         averageSyncTime = average(averageSyncTime, Math.max(1, System.nanoTime() - flushTime));
+      }
+
+      public void onError(final int errorCode, final String errorMessage)
+      {
+      }
+   }
+
    private class LogRatesTimerTask extends TimerTask
    {
       private boolean closed;
@@ -361,6 +516,8 @@ public class TimedBuffer
 
       private long lastFlushesDone;
 
+      private long lastRecordsFlushed;
+
       @Override
       public synchronized void run()
       {
@@ -370,6 +527,7 @@ public class TimedBuffer
 
             long bytesF = bytesFlushed.get();
             long flushesD = flushesDone.get();
+            long recordsF = recordsFlushed.get();
 
             if (lastExecution != 0)
             {
@@ -377,6 +535,13 @@ public class TimedBuffer
                HornetQJournalLogger.LOGGER.writeRate(rate, (long) (rate / (1024 * 1024)));
                double flushRate = 1000 * (double) (flushesD - lastFlushesDone) / (now - lastExecution);
                HornetQJournalLogger.LOGGER.flushRate(flushRate);
+               if (adaptiveTimeout)
+               {
+                  double batchSize = flushesD == lastFlushesDone ? 0
+                                                                 : (double) (recordsF - lastRecordsFlushed) /
+                                                                   (flushesD - lastFlushesDone);
+                  HornetQJournalLogger.LOGGER.adaptiveBufferTimeout(currentTimeout, averageSyncTime, batchSize);
+               }
             }
 
             lastExecution = now;
@@ -384,6 +549,8 @@ public class TimedBuffer
             lastBytesFlushed = bytesF;
 
             lastFlushesDone = flushesD;
+
+            lastRecordsFlushed = recordsF;
          }
       }
 
@@ -419,7 +586,14 @@ public class TimedBuffer
             // Effectively flushing "resets" the timer
             // On the timeout verification, notice that we ignore the timeout check if we are using sleep
 
-            if (pendingSync)
+            if (adaptiveTimeout)
+            {
+               if (pendingSync)
+               {
+                  waitAdaptiveTimeout();
+               }
+            }
+            else if (pendingSync)
             {
                if (isUseSleep())
                {
@@ -437,7 +611,10 @@ public class TimedBuffer
 
             }
 
-            sleepIfPossible();
+            if (!adaptiveTimeout)
+            {
+               sleepIfPossible();
+            }
 
             try
             {
@@ -504,6 +681,24 @@ public class TimedBuffer
          }
       }
 
+      /**
+       * Flushes once the records waiting for a sync have been in the buffer for the current timeout, parking
+       * until then (Thread.sleep has a millisecond granularity).
+       */
+      private void waitAdaptiveTimeout()
+      {
+         long remaining = pendingSyncTime + currentTimeout - System.nanoTime();
+
+         if (remaining <= 0)
+         {
+            flush();
+         }
+         else if (isUseSleep())
+         {
+            LockSupport.parkNanos(remaining);
+         }
+      }
+
       public void close()
       {
          closed = true;
@@ -97,6 +97,10 @@ public interface HornetQJournalLogger extends BasicLogger
    @Message(id = 141010, value = "A Free File is less than the maximum data", format = Message.Format.MESSAGE_FORMAT)
    void fileTooSmall();
 
+   @LogMessage(level = Logger.Level.INFO)
+   @Message(id = 141011, value = "Adaptive buffer timeout = {0} nanoseconds, average sync time = {1} nanoseconds, average batch size = {2} records", format = Message.Format.MESSAGE_FORMAT)
+   void adaptiveBufferTimeout(Long timeout, Long syncTime, Double batchSize);
+
    @LogMessage(level = Logger.Level.WARN)
    @Message(id = 142001, value = "You have a native library with a different version than expected", format = Message.Format.MESSAGE_FORMAT)
    void incompatibleNativeLibrary();
@@ -7,6 +7,8 @@ import org.hornetq.api.core.client.ClientSession;
 import org.hornetq.api.core.client.ClientSessionFactory;
 import org.hornetq.rest.util.Constants;
 import org.hornetq.rest.util.LinkStrategy;
+import org.jboss.resteasy.annotations.Suspend;
+import org.jboss.resteasy.spi.AsynchronousResponse;
 
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.FormParam;
@@ -15,10 +17,12 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.ext.Providers;
 import java.net.URI;
 
 /**
@@ -45,9 +49,10 @@ public class AcknowledgedQueueConsumer extends QueueConsumer
 
    @Path("acknowledge-next{index}")
    @POST
-   public synchronized Response poll(@HeaderParam(Constants.WAIT_HEADER) @DefaultValue("0") long wait,
-                                     @PathParam("index") long index,
-                                     @Context UriInfo info)
+   public synchronized void poll(@HeaderParam(Constants.WAIT_HEADER) @DefaultValue("0") long wait,
+                                 @PathParam("index") long index,
+                                 @Context UriInfo info,
+                                 @Suspend(SUSPEND_TIMEOUT) AsynchronousResponse response)
    {
       if (closed)
       {
@@ -59,9 +64,21 @@ public class AcknowledgedQueueConsumer extends QueueConsumer
 
          // redirect to another acknowledge-next
 
-         return Response.status(307).location(URI.create(uri)).build();
+         response.setResponse(Response.status(307).location(URI.create(uri)).build());
+         return;
       }
-      return checkIndexAndPoll(wait, info, info.getMatchedURIs().get(1), index);
+      checkIndexAndPoll(wait, new Poll(info, info.getMatchedURIs().get(1), index, response));
+   }
+
+   /**
+    * Each message needs its own acknowledgement, they can't be consumed in batches.
+    */
+   @Override
+   public void pollBatch(long wait, long index, int max, UriInfo info, HttpHeaders headers, Providers providers, AsynchronousResponse response)
+   {
+      response.setResponse(Response.status(405)
+              .entity("Messages can only be consumed in batches by auto-acknowledged consumers")
+              .type("text/plain").build());
    }
 
 
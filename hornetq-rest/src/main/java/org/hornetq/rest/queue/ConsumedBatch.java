@@ -0,0 +1,156 @@
+package org.hornetq.rest.queue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Providers;
+
+import org.jboss.resteasy.specimpl.MultivaluedMapImpl;
+
+/**
+ * Messages consumed by a single consume-batch pull.  They are sent back as the parts of a
+ * multipart/mixed entity, each part carrying the headers and the body the message would have been
+ * sent back with had it been consumed on its own.
+ */
+public class ConsumedBatch
+{
+   public static final String MESSAGE_COUNT_HEADER = "msg-count";
+
+   private static final byte[] CRLF = {'\r', '\n'};
+
+   private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+   protected List<ConsumedMessage> messages = new ArrayList<ConsumedMessage>();
+
+   public void add(ConsumedMessage message)
+   {
+      messages.add(message);
+   }
+
+   public int size()
+   {
+      return messages.size();
+   }
+
+   public ConsumedMessage getLast()
+   {
+      return messages.get(messages.size() - 1);
+   }
+
+   /**
+    * @param acceptable the media types the client accepts, used to write the messages that were not
+    *                   posted with a content type
+    */
+   public void build(Response.ResponseBuilder builder, Providers providers, List<MediaType> acceptable)
+   {
+      String boundary = UUID.randomUUID().toString();
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      try
+      {
+         for (ConsumedMessage message : messages)
+         {
+            writeLine(out, "--" + boundary);
+            writePart(out, message, providers, acceptable);
+            out.write(CRLF);
+         }
+         writeLine(out, "--" + boundary + "--");
+      }
+      catch (IOException e)
+      {
+         throw new RuntimeException(e);
+      }
+      builder.header(MESSAGE_COUNT_HEADER, Integer.toString(messages.size()));
+      builder.entity(out.toByteArray());
+      builder.type("multipart/mixed; boundary=" + boundary);
+   }
+
+   @SuppressWarnings({"unchecked", "rawtypes"})
+   protected void writePart(OutputStream out, ConsumedMessage message, Providers providers, List<MediaType> acceptable) throws IOException
+   {
+      Response.ResponseBuilder part = Response.ok();
+      message.build(part);
+      Response response = part.build();
+      Object entity = response.getEntity();
+
+      MultivaluedMap<String, Object> headers = new MultivaluedMapImpl<String, Object>();
+      MediaType type = null;
+      for (Map.Entry<String, List<Object>> header : response.getMetadata().entrySet())
+      {
+         if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(header.getKey()))
+         {
+            type = MediaType.valueOf(header.getValue().get(0).toString());
+         }
+         else
+         {
+            headers.put(header.getKey(), header.getValue());
+         }
+      }
+
+      if (entity instanceof byte[])
+      {
+         if (type == null) type = MediaType.APPLICATION_OCTET_STREAM_TYPE;
+         writeHeaders(out, headers, type);
+         out.write((byte[]) entity);
+         return;
+      }
+
+      MessageBodyWriter writer = null;
+      if (type != null)
+      {
+         writer = providers.getMessageBodyWriter(entity.getClass(), entity.getClass(), NO_ANNOTATIONS, type);
+      }
+      else
+      {
+         for (MediaType accept : acceptable)
+         {
+            if (accept.isWildcardType() || accept.isWildcardSubtype()) continue;
+            writer = providers.getMessageBodyWriter(entity.getClass(), entity.getClass(), NO_ANNOTATIONS, accept);
+            if (writer != null)
+            {
+               type = accept;
+               break;
+            }
+         }
+      }
+      if (writer == null)
+      {
+         throw new WebApplicationException(Response.status(Response.Status.NOT_ACCEPTABLE)
+                 .entity("No way to write a " + entity.getClass().getName() + " message as any of " + acceptable)
+                 .type("text/plain").build());
+      }
+
+      writeHeaders(out, headers, type);
+      writer.writeTo(entity, entity.getClass(), entity.getClass(), NO_ANNOTATIONS, type, headers, out);
+   }
+
+   protected void writeHeaders(OutputStream out, MultivaluedMap<String, Object> headers, MediaType type) throws IOException
+   {
+      writeLine(out, HttpHeaders.CONTENT_TYPE + ": " + type);
+      for (Map.Entry<String, List<Object>> header : headers.entrySet())
+      {
+         for (Object value : header.getValue())
+         {
+            writeLine(out, header.getKey() + ": " + value);
+         }
+      }
+      out.write(CRLF);
+   }
+
+   protected static void writeLine(OutputStream out, String line) throws IOException
+   {
+      out.write(line.getBytes("UTF-8"));
+      out.write(CRLF);
+   }
+}
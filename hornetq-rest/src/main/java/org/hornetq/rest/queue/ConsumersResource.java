@@ -135,6 +135,7 @@ public class ConsumersResource implements TimeoutTask.Callback
          if (autoAck)
          {
             QueueConsumer.setConsumeNextLink(serviceManager.getLinkStrategy(), builder, uriInfo, uriInfo.getMatchedURIs().get(1) + "/" + attributesSegment + "/" + consumer.getId(), "-1");
+            QueueConsumer.setConsumeBatchLink(serviceManager.getLinkStrategy(), builder, uriInfo, uriInfo.getMatchedURIs().get(1) + "/" + attributesSegment + "/" + consumer.getId(), "-1", QueueConsumer.DEFAULT_BATCH_SIZE);
          }
          else
          {
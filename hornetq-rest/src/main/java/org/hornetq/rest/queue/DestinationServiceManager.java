@@ -1,5 +1,8 @@
 package org.hornetq.rest.queue;
 
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
 import org.hornetq.api.core.TransportConfiguration;
 import org.hornetq.api.core.client.ClientSessionFactory;
 import org.hornetq.api.core.client.HornetQClient;
@@ -8,6 +11,7 @@ import org.hornetq.core.remoting.impl.invm.InVMConnectorFactory;
 import org.hornetq.rest.util.LinkStrategy;
 import org.hornetq.rest.util.TimeoutTask;
 import org.hornetq.spi.core.naming.BindingRegistry;
+import org.hornetq.utils.HornetQThreadFactory;
 
 /**
  * @author <a href="mailto:bill@burkecentral.com">Bill Burke</a>
@@ -23,6 +27,7 @@ public abstract class DestinationServiceManager
    protected String pushStoreFile;
    protected DestinationSettings defaultSettings = DestinationSettings.defaultSettings;
    protected TimeoutTask timeoutTask;
+   protected ScheduledExecutorService pollTimer;
    protected int producerPoolSize;
    protected long producerTimeToLive;
    protected LinkStrategy linkStrategy;
@@ -102,6 +107,19 @@ public abstract class DestinationServiceManager
       this.timeoutTask = timeoutTask;
    }
 
+   /**
+    * Times out the pulls of the consumers waiting for a message.
+    */
+   public ScheduledExecutorService getPollTimer()
+   {
+      return pollTimer;
+   }
+
+   public void setPollTimer(ScheduledExecutorService pollTimer)
+   {
+      this.pollTimer = pollTimer;
+   }
+
    public DestinationSettings getDefaultSettings()
    {
       return defaultSettings;
@@ -163,6 +181,13 @@ public abstract class DestinationServiceManager
       if (consumerSessionFactory == null) consumerSessionFactory = sessionFactory;
 
       if (timeoutTask == null) throw new RuntimeException("TimeoutTask is not set");
+
+      if (pollTimer == null)
+      {
+         pollTimer = Executors.newSingleThreadScheduledExecutor(new HornetQThreadFactory("hornetq-rest-poll-timer",
+                                                                                         true,
+                                                                                         getClass().getClassLoader()));
+      }
    }
 
    public abstract void start() throws Exception;
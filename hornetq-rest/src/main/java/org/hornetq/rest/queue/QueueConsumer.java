@@ -1,34 +1,60 @@
 package org.hornetq.rest.queue;
 
 import java.net.URI;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.ext.Providers;
 
 import org.hornetq.api.core.HornetQException;
 import org.hornetq.api.core.client.ClientConsumer;
 import org.hornetq.api.core.client.ClientMessage;
 import org.hornetq.api.core.client.ClientSession;
 import org.hornetq.api.core.client.ClientSessionFactory;
+import org.hornetq.api.core.client.MessageHandler;
 import org.hornetq.jms.client.SelectorTranslator;
+import org.hornetq.rest.HornetQRestLogger;
 import org.hornetq.rest.util.Constants;
 import org.hornetq.rest.util.LinkStrategy;
+import org.jboss.resteasy.annotations.Suspend;
+import org.jboss.resteasy.spi.AsynchronousResponse;
 
 /**
  * Auto-acknowleged consumer
+ * <p/>
+ * Pulls don't hold a container thread while they wait for a message: the response is suspended and
+ * completed by a {@link MessageHandler} set on the consumer until a message arrives, or by the poll
+ * timer of the service manager once Accept-Wait is over.
  *
  * @author <a href="mailto:bill@burkecentral.com">Bill Burke</a>
  */
 public class QueueConsumer
 {
+   /**
+    * longest Accept-Wait honoured, suspended responses are given a minute more before the container
+    * times them out
+    */
+   public static final long MAX_WAIT_SECONDS = 3600;
+   public static final long SUSPEND_TIMEOUT = (MAX_WAIT_SECONDS + 60) * 1000;
+   /**
+    * max of the consume-batch links handed to new consumers, also the default of pollBatch
+    */
+   public static final int DEFAULT_BATCH_SIZE = 10;
+
    protected ClientSessionFactory factory;
    protected ClientSession session;
    protected ClientConsumer consumer;
@@ -45,6 +71,17 @@ public class QueueConsumer
     */
    protected long previousIndex = -1;
    protected ConsumedMessage lastConsumed;
+   protected ConsumedBatch lastBatch;
+
+   /**
+    * pull waiting for a message, a consumer has at most one
+    */
+   protected Poll pendingPoll;
+   /**
+    * message delivered to the handler after the pull it was meant for timed out
+    */
+   protected ClientMessage received;
+   protected boolean listening;
 
    public long getConsumeIndex()
    {
@@ -62,8 +99,10 @@ public class QueueConsumer
       this.serviceManager = serviceManager;
    }
 
-   public long getLastPingTime()
+   public synchronized long getLastPingTime()
    {
+      // a consumer waiting on behalf of its client is not idle
+      if (pendingPoll != null) return System.currentTimeMillis();
       return lastPing;
    }
 
@@ -98,9 +137,22 @@ public class QueueConsumer
       if (closed) return;
       closed = true;
       lastConsumed = null;
+      lastBatch = null;
       previousIndex = -2;
+      received = null;
+      if (pendingPoll != null)
+      {
+         pendingPoll.cancel();
+         pendingPoll.respond(Response.status(Response.Status.PRECONDITION_FAILED)
+                 .entity("Consumer was closed while waiting for a message")
+                 .type("text/plain").build());
+         pendingPoll = null;
+      }
       try
       {
+         // unset first so that closing doesn't wait for a handler stuck on this consumer's lock
+         if (listening) consumer.setMessageHandler(null);
+         listening = false;
          consumer.close();
       }
       catch (Exception e)
@@ -121,9 +173,10 @@ public class QueueConsumer
 
    @Path("consume-next{index}")
    @POST
-   public synchronized Response poll(@HeaderParam(Constants.WAIT_HEADER) @DefaultValue("0") long wait,
-                                     @PathParam("index") long index,
-                                     @Context UriInfo info)
+   public synchronized void poll(@HeaderParam(Constants.WAIT_HEADER) @DefaultValue("0") long wait,
+                                 @PathParam("index") long index,
+                                 @Context UriInfo info,
+                                 @Suspend(SUSPEND_TIMEOUT) AsynchronousResponse response)
    {
       if (closed)
       {
@@ -134,70 +187,231 @@ public class QueueConsumer
 
          // redirect to another consume-next
 
-         return Response.status(307).location(URI.create(uri)).build();
+         response.setResponse(Response.status(307).location(URI.create(uri)).build());
+         return;
+      }
+      checkIndexAndPoll(wait, new Poll(info, info.getMatchedURIs().get(1), index, response));
+   }
+
+   /**
+    * Consumes up to max messages in one response, waiting only for the first one.
+    */
+   @Path("consume-batch{index}")
+   @POST
+   public synchronized void pollBatch(@HeaderParam(Constants.WAIT_HEADER) @DefaultValue("0") long wait,
+                                      @PathParam("index") long index,
+                                      @QueryParam("max") @DefaultValue("10") int max,
+                                      @Context UriInfo info,
+                                      @Context HttpHeaders headers,
+                                      @Context Providers providers,
+                                      @Suspend(SUSPEND_TIMEOUT) AsynchronousResponse response)
+   {
+      if (closed)
+      {
+         UriBuilder builder = info.getBaseUriBuilder();
+         builder.path(info.getMatchedURIs().get(1))
+                 .path("consume-batch");
+         String uri = builder.build().toString();
+
+         // redirect to another consume-batch
+
+         response.setResponse(Response.status(307).location(URI.create(uri)).build());
+         return;
       }
-      return checkIndexAndPoll(wait, info, info.getMatchedURIs().get(1), index);
+      if (max < 1)
+      {
+         response.setResponse(Response.status(400).entity("max must be positive").type("text/plain").build());
+         return;
+      }
+      Poll poll = new Poll(info, info.getMatchedURIs().get(1), index, response);
+      poll.max = max;
+      poll.acceptable = headers.getAcceptableMediaTypes();
+      poll.providers = providers;
+      checkIndexAndPoll(wait, poll);
    }
 
-   protected Response checkIndexAndPoll(long wait, UriInfo info, String basePath, long index)
+   protected void checkIndexAndPoll(long wait, Poll poll)
    {
       ping();
 
-      if (lastConsumed == null && index > 0)
+      if (lastConsumed == null && poll.index > 0)
       {
-         return Response.status(412).entity("You are using an old consume-next link and are out of sync with the JMS session on the server").type("text/plain").build();
+         poll.respond(Response.status(412).entity("You are using an old consume-next link and are out of sync with the JMS session on the server").type("text/plain").build());
+         return;
       }
       if (lastConsumed != null)
       {
-         if (index == previousIndex)
+         if (poll.index == previousIndex)
          {
-            String token = Long.toString(lastConsumed.getMessageID());
-            return getMessageResponse(lastConsumed, info, basePath, token).build();
+            // the client didn't get the previous response, send it again
+            if (poll.isBatch())
+            {
+               ConsumedBatch batch = lastBatch;
+               if (batch == null)
+               {
+                  batch = new ConsumedBatch();
+                  batch.add(lastConsumed);
+               }
+               poll.respond(getBatchResponse(batch, poll).build());
+            }
+            else
+            {
+               String token = Long.toString(lastConsumed.getMessageID());
+               poll.respond(getMessageResponse(lastConsumed, poll.info, poll.basePath, token).build());
+            }
+            return;
          }
-         if (index != lastConsumed.getMessageID())
+         if (poll.index != lastConsumed.getMessageID())
          {
-            return Response.status(412).entity("You are using an old consume-next link and are out of sync with the JMS session on the server").type("text/plain").build();
+            poll.respond(Response.status(412).entity("You are using an old consume-next link and are out of sync with the JMS session on the server").type("text/plain").build());
+            return;
          }
       }
 
+      pollWithIndex(wait, poll);
+   }
+
+   protected void pollWithIndex(long wait, Poll poll)
+   {
+      if (pendingPoll != null)
+      {
+         // the client gave up on the pull still waiting and is pulling again
+         pendingPoll.cancel();
+         pendingPoll.timeout();
+         pendingPoll = null;
+      }
 
       try
       {
-         return pollWithIndex(wait, info, basePath, index);
+         // the consumer can't be received from while the handler is set, nothing arrived through it
+         // yet if it still is
+         ClientMessage message = listening ? null : receive(0);
+         if (message != null)
+         {
+            consume(message, poll);
+         }
+         else if (wait <= 0)
+         {
+            poll.timeout();
+         }
+         else
+         {
+            pendingPoll = poll;
+            poll.schedule(Math.min(wait, MAX_WAIT_SECONDS));
+            listen();
+         }
       }
-      finally
+      catch (Exception e)
       {
-         ping(); // ping again as we don't want wait time included in timeout.
+         throw new RuntimeException(e);
       }
    }
 
-   protected Response pollWithIndex(long wait, UriInfo info, String basePath, long index)
+   /**
+    * Sets a handler on the consumer until the next message arrives.
+    */
+   protected void listen() throws HornetQException
+   {
+      if (listening) return;
+
+      final ClientConsumer listened = consumer;
+      listened.setMessageHandler(new MessageHandler()
+      {
+         public void onMessage(ClientMessage message)
+         {
+            onReceive(listened, message);
+         }
+      });
+      listening = true;
+   }
+
+   protected synchronized void onReceive(ClientConsumer from, ClientMessage message)
    {
+      // a closed or replaced consumer will have the message redelivered
+      if (closed || from != consumer) return;
+
       try
       {
-         ClientMessage message = receive(wait);
-         if (message == null)
+         // one message at a time, the following ones stay buffered in the consumer
+         consumer.setMessageHandler(null);
+         listening = false;
+         received = message;
+
+         if (pendingPoll != null)
          {
-            Response.ResponseBuilder builder = Response.status(503).entity("Timed out waiting for message receive.").type("text/plain");
-            setPollTimeoutLinks(info, basePath, builder, Long.toString(index));
-            return builder.build();
+            Poll poll = pendingPoll;
+            pendingPoll = null;
+            poll.cancel();
+            try
+            {
+               consume(receive(0), poll);
+            }
+            catch (WebApplicationException e)
+            {
+               poll.respond(e.getResponse());
+            }
+            catch (Exception e)
+            {
+               HornetQRestLogger.LOGGER.debug("Failed to consume message", e);
+               poll.respond(Response.serverError().entity(e.toString()).type("text/plain").build());
+            }
+            ping(); // ping again as we don't want wait time included in timeout.
          }
-         previousIndex = index;
-         lastConsumed = ConsumedMessage.createConsumedMessage(message);
+      }
+      catch (HornetQException e)
+      {
+         HornetQRestLogger.LOGGER.debug("Failed to unset the message handler", e);
+      }
+   }
+
+   protected synchronized void onTimeout(Poll poll)
+   {
+      if (pendingPoll != poll) return;
+
+      pendingPoll = null;
+      // the handler stays, a message arriving before the next pull is kept for it
+      poll.timeout();
+      ping();
+   }
+
+   protected void consume(ClientMessage message, Poll poll) throws Exception
+   {
+      previousIndex = poll.index;
+      lastConsumed = ConsumedMessage.createConsumedMessage(message);
+
+      if (!poll.isBatch())
+      {
+         lastBatch = null;
          String token = Long.toString(lastConsumed.getMessageID());
-         Response response = getMessageResponse(lastConsumed, info, basePath, token).build();
+         Response response = getMessageResponse(lastConsumed, poll.info, poll.basePath, token).build();
          if (autoAck) message.acknowledge();
-         return response;
+         poll.respond(response);
+         return;
       }
-      catch (Exception e)
+
+      ConsumedBatch batch = new ConsumedBatch();
+      batch.add(lastConsumed);
+      ClientMessage last = message;
+      while (batch.size() < poll.max)
       {
-         throw new RuntimeException(e);
+         ClientMessage next = consumer.receiveImmediate();
+         if (next == null) break;
+         last = next;
+         batch.add(ConsumedMessage.createConsumedMessage(next));
       }
+      lastBatch = batch;
+      lastConsumed = batch.getLast();
+
+      Response response = getBatchResponse(batch, poll).build();
+      // acknowledging the last message acknowledges the whole batch
+      if (autoAck) last.acknowledge();
+      poll.respond(response);
    }
 
    protected void createSession()
            throws HornetQException
    {
+      listening = false;
       session = factory.createSession(true, true, 0);
       if (selector == null)
       {
@@ -208,10 +422,21 @@ public class QueueConsumer
          consumer = session.createConsumer(destination, SelectorTranslator.convertToHornetQFilterString(selector));
       }
       session.start();
+      if (pendingPoll != null)
+      {
+         // the pull waiting on the replaced consumer waits on this one
+         listen();
+      }
    }
 
    protected ClientMessage receiveFromConsumer(long timeoutSecs) throws Exception
    {
+      if (received != null)
+      {
+         ClientMessage message = received;
+         received = null;
+         return message;
+      }
       if (timeoutSecs <= 0)
       {
          return consumer.receive(1);
@@ -234,6 +459,12 @@ public class QueueConsumer
       setConsumeNextLink(serviceManager.getLinkStrategy(), builder, info, basePath, index);
    }
 
+   protected void setBatchTimeoutLinks(UriInfo info, String basePath, Response.ResponseBuilder builder, String index, int max)
+   {
+      setSessionLink(builder, info, basePath);
+      setConsumeBatchLink(serviceManager.getLinkStrategy(), builder, info, basePath, index, max);
+   }
+
    protected Response.ResponseBuilder getMessageResponse(ConsumedMessage msg, UriInfo info, String basePath, String index)
    {
       Response.ResponseBuilder responseBuilder = Response.ok();
@@ -242,6 +473,16 @@ public class QueueConsumer
       return responseBuilder;
    }
 
+   protected Response.ResponseBuilder getBatchResponse(ConsumedBatch batch, Poll poll)
+   {
+      Response.ResponseBuilder responseBuilder = Response.ok();
+      String token = Long.toString(batch.getLast().getMessageID());
+      setConsumeBatchLink(serviceManager.getLinkStrategy(), responseBuilder, poll.info, poll.basePath, token, poll.max);
+      setSessionLink(responseBuilder, poll.info, poll.basePath);
+      batch.build(responseBuilder, poll.providers, poll.acceptable);
+      return responseBuilder;
+   }
+
    protected void setMessageResponseLinks(UriInfo info, String basePath, Response.ResponseBuilder responseBuilder, String index)
    {
       setConsumeNextLink(serviceManager.getLinkStrategy(), responseBuilder, info, basePath, index);
@@ -258,6 +499,17 @@ public class QueueConsumer
       linkStrategy.setLinkHeader(response, "consume-next", "consume-next", uri, MediaType.APPLICATION_FORM_URLENCODED);
    }
 
+   public static void setConsumeBatchLink(LinkStrategy linkStrategy, Response.ResponseBuilder response, UriInfo info, String basePath, String index, int max)
+   {
+      if (index == null) throw new IllegalArgumentException("index cannot be null");
+      UriBuilder builder = info.getBaseUriBuilder();
+      builder.path(basePath)
+              .path("consume-batch" + index)
+              .queryParam("max", max);
+      String uri = builder.build().toString();
+      linkStrategy.setLinkHeader(response, "consume-batch", "consume-batch", uri, MediaType.APPLICATION_FORM_URLENCODED);
+   }
+
    public void setSessionLink(Response.ResponseBuilder response, UriInfo info, String basePath)
    {
       UriBuilder builder = info.getBaseUriBuilder();
@@ -265,4 +517,69 @@ public class QueueConsumer
       String uri = builder.build().toString();
       serviceManager.getLinkStrategy().setLinkHeader(response, "consumer", "consumer", uri, MediaType.APPLICATION_XML);
    }
-}
\ No newline at end of file
+
+   /**
+    * A pull and its suspended response.
+    */
+   protected class Poll implements Runnable
+   {
+      protected final UriInfo info;
+      protected final String basePath;
+      protected final long index;
+      protected final AsynchronousResponse response;
+      /**
+       * 0 for a consume-next pull, the batch size of a consume-batch one
+       */
+      protected int max;
+      protected List<MediaType> acceptable;
+      protected Providers providers;
+      protected ScheduledFuture<?> timer;
+
+      public Poll(UriInfo info, String basePath, long index, AsynchronousResponse response)
+      {
+         this.info = info;
+         this.basePath = basePath;
+         this.index = index;
+         this.response = response;
+      }
+
+      public boolean isBatch()
+      {
+         return max > 0;
+      }
+
+      public void schedule(long waitSecs)
+      {
+         timer = serviceManager.getPollTimer().schedule(this, waitSecs, TimeUnit.SECONDS);
+      }
+
+      public void cancel()
+      {
+         if (timer != null) timer.cancel(false);
+      }
+
+      public void run()
+      {
+         onTimeout(this);
+      }
+
+      public void timeout()
+      {
+         Response.ResponseBuilder builder = Response.status(503).entity("Timed out waiting for message receive.").type("text/plain");
+         if (isBatch())
+         {
+            setBatchTimeoutLinks(info, basePath, builder, Long.toString(index), max);
+         }
+         else
+         {
+            setPollTimeoutLinks(info, basePath, builder, Long.toString(index));
+         }
+         respond(builder.build());
+      }
+
+      public void respond(Response result)
+      {
+         response.setResponse(result);
+      }
+   }
+}
@@ -99,6 +99,7 @@ public class QueueServiceManager extends DestinationServiceManager
       try
       {
          timeoutTask.stop();
+         pollTimer.shutdownNow();
          sessionFactory.close();
       }
       catch (Exception e)
@@ -204,6 +204,7 @@ public class SubscriptionsResource implements TimeoutTask.Callback
          if (autoAck)
          {
             QueueConsumer.setConsumeNextLink(serviceManager.getLinkStrategy(), builder, uriInfo, uriInfo.getMatchedURIs().get(1) + "/auto-ack/" + consumer.getId(), "-1");
+            QueueConsumer.setConsumeBatchLink(serviceManager.getLinkStrategy(), builder, uriInfo, uriInfo.getMatchedURIs().get(1) + "/auto-ack/" + consumer.getId(), "-1", QueueConsumer.DEFAULT_BATCH_SIZE);
          }
          else
          {
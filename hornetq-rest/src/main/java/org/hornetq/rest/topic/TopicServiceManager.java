@@ -102,6 +102,7 @@ public class TopicServiceManager extends DestinationServiceManager
       }
       try
       {
+         pollTimer.shutdownNow();
          sessionFactory.close();
       }
       catch (Exception e)
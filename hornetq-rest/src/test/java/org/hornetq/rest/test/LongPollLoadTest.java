@@ -0,0 +1,193 @@
+package org.hornetq.rest.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hornetq.rest.integration.EmbeddedRestHornetQ;
+import org.hornetq.rest.queue.ConsumedBatch;
+import org.hornetq.rest.queue.QueueDeployment;
+import org.hornetq.rest.util.Constants;
+import org.hornetq.rest.util.LinkStrategy;
+import org.jboss.resteasy.client.ClientRequest;
+import org.jboss.resteasy.client.ClientResponse;
+import org.jboss.resteasy.spi.Link;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.jboss.resteasy.test.TestPortProvider.*;
+
+/**
+ * Many consumers long-polling the same queue while messages trickle in, and a backlog consumed one
+ * message and a batch of messages per pull.
+ */
+public class LongPollLoadTest
+{
+   private static final int CONSUMERS = 20;
+   private static final int MESSAGES = 1000;
+   private static final int BATCH_SIZE = 100;
+
+   private static EmbeddedRestHornetQ server;
+   private static LinkStrategy linkStrategy;
+
+   @BeforeClass
+   public static void startEmbedded() throws Exception
+   {
+      server = new EmbeddedRestHornetQ();
+      server.start();
+      linkStrategy = server.getManager().getQueueManager().getLinkStrategy();
+   }
+
+   @AfterClass
+   public static void stopEmbedded() throws Exception
+   {
+      server.stop();
+      server = null;
+   }
+
+   @Test
+   public void testLongPolls() throws Exception
+   {
+      Link sender = deploy("testLongPolls");
+
+      final CountDownLatch done = new CountDownLatch(MESSAGES);
+      final AtomicInteger timeouts = new AtomicInteger();
+      final AtomicInteger errors = new AtomicInteger();
+      List<Thread> threads = new ArrayList<Thread>();
+
+      for (int i = 0; i < CONSUMERS; i++)
+      {
+         final Link consumeNext = createConsumer("testLongPolls", "consume-next");
+         Thread thread = new Thread()
+         {
+            public void run()
+            {
+               Link next = consumeNext;
+               try
+               {
+                  while (done.getCount() > 0)
+                  {
+                     ClientResponse<?> res = next.request().header(Constants.WAIT_HEADER, "2").post(String.class);
+                     if (res.getStatus() == 200)
+                     {
+                        res.getEntity(String.class);
+                        done.countDown();
+                     }
+                     else if (res.getStatus() == 503)
+                     {
+                        timeouts.incrementAndGet();
+                     }
+                     else
+                     {
+                        errors.incrementAndGet();
+                        return;
+                     }
+                     next = MessageTestBase.getLinkByTitle(linkStrategy, res, "consume-next");
+                     res.releaseConnection();
+                  }
+               }
+               catch (Exception e)
+               {
+                  e.printStackTrace();
+                  errors.incrementAndGet();
+               }
+            }
+         };
+         threads.add(thread);
+         thread.start();
+      }
+
+      long start = System.currentTimeMillis();
+      for (int i = 0; i < MESSAGES; i++)
+      {
+         ClientResponse<?> res = sender.request().body("text/plain", Integer.toString(i)).post();
+         res.releaseConnection();
+         Assert.assertEquals(201, res.getStatus());
+         sender = MessageTestBase.getLinkByTitle(linkStrategy, res, "create-next");
+      }
+
+      Assert.assertTrue(done.await(60, TimeUnit.SECONDS));
+      long elapsed = System.currentTimeMillis() - start;
+      for (Thread thread : threads)
+      {
+         thread.join(10000);
+      }
+      Assert.assertEquals(0, errors.get());
+
+      System.out.println(CONSUMERS + " consumers long-polled " + MESSAGES + " messages in " + elapsed + "ms with " +
+                         timeouts.get() + " timeouts");
+   }
+
+   @Test
+   public void testConsumeBatches() throws Exception
+   {
+      Link sender = deploy("testConsumeBatches");
+
+      for (int i = 0; i < MESSAGES; i++)
+      {
+         ClientResponse<?> res = sender.request().body("text/plain", Integer.toString(i)).post();
+         res.releaseConnection();
+         Assert.assertEquals(201, res.getStatus());
+         sender = MessageTestBase.getLinkByTitle(linkStrategy, res, "create-next");
+      }
+
+      Link consumeBatch = createConsumer("testConsumeBatches", "consume-batch");
+      String href = consumeBatch.getHref();
+      ClientRequest request = new ClientRequest(href.substring(0, href.indexOf('?')) + "?max=" + BATCH_SIZE);
+
+      long start = System.currentTimeMillis();
+      int consumed = 0;
+      int pulls = 0;
+      while (consumed < MESSAGES)
+      {
+         ClientResponse<?> res = request.header(Constants.WAIT_HEADER, "2").post(String.class);
+         Assert.assertEquals(200, res.getStatus());
+         Assert.assertTrue(res.getHeaders().getFirst("Content-Type").toString().startsWith("multipart/mixed"));
+         String body = res.getEntity(String.class);
+         int count = Integer.parseInt(res.getHeaders().getFirst(ConsumedBatch.MESSAGE_COUNT_HEADER).toString());
+         Assert.assertTrue(count <= BATCH_SIZE);
+         // the parts hold the messages in order
+         Assert.assertTrue(body.contains("\r\n\r\n" + (consumed + count - 1) + "\r\n"));
+         consumed += count;
+         pulls++;
+         request = MessageTestBase.getLinkByTitle(linkStrategy, res, "consume-batch").request();
+         res.releaseConnection();
+      }
+      long elapsed = System.currentTimeMillis() - start;
+      Assert.assertEquals(MESSAGES, consumed);
+
+      ClientResponse<?> res = request.post(String.class);
+      res.releaseConnection();
+      Assert.assertEquals(503, res.getStatus());
+
+      System.out.println(MESSAGES + " messages consumed in " + pulls + " pulls of up to " + BATCH_SIZE + " in " +
+                         elapsed + "ms");
+   }
+
+   private Link deploy(String name) throws Exception
+   {
+      QueueDeployment deployment = new QueueDeployment();
+      deployment.setDuplicatesAllowed(true);
+      deployment.setDurableSend(false);
+      deployment.setName(name);
+      server.getManager().getQueueManager().deploy(deployment);
+
+      ClientResponse<?> response = new ClientRequest(generateURL("/queues/" + name)).head();
+      response.releaseConnection();
+      Assert.assertEquals(200, response.getStatus());
+      return MessageTestBase.getLinkByTitle(linkStrategy, response, "create");
+   }
+
+   private Link createConsumer(String name, String title) throws Exception
+   {
+      ClientResponse<?> response = new ClientRequest(generateURL("/queues/" + name)).head();
+      response.releaseConnection();
+      Link consumers = MessageTestBase.getLinkByTitle(linkStrategy, response, "pull-consumers");
+      response = Util.setAutoAck(consumers, true);
+      return MessageTestBase.getLinkByTitle(linkStrategy, response, title);
+   }
+}
@@ -953,4 +953,70 @@ public interface Configuration extends Serializable
     * @return name of the cluster configuration to use
     */
    String getReplicationClustername();
+
+   /**
+    * Returns whether queue and consumer filters are compiled into lock free expression trees
+    * instead of being interpreted.
+    * <br>
+    * Default value is {@value org.hornetq.api.config.HornetQDefaultConfiguration#DEFAULT_FILTER_COMPILATION_ENABLED}.
+    */
+   boolean isFilterCompilationEnabled();
+
+   /**
+    * Sets whether queue and consumer filters are compiled into lock free expression trees.
+    */
+   void setFilterCompilationEnabled(boolean filterCompilationEnabled);
+
+   /**
+    * Returns whether bindings whose filter is a simple equality on a message property are indexed by
+    * property value when routing.
+    * <br>
+    * Default value is {@value org.hornetq.api.config.HornetQDefaultConfiguration#DEFAULT_ROUTING_FILTER_INDEX_ENABLED}.
+    */
+   boolean isRoutingFilterIndexEnabled();
+
+   /**
+    * Sets whether bindings whose filter is a simple equality on a message property are indexed by
+    * property value when routing.
+    */
+   void setRoutingFilterIndexEnabled(boolean routingFilterIndexEnabled);
+
+   /**
+    * Returns whether the journal buffer sizes its flush window from the observed sync latency and
+    * arrival rate instead of always waiting for the journal buffer timeout.
+    * <br>
+    * Default value is {@value org.hornetq.api.config.HornetQDefaultConfiguration#DEFAULT_JOURNAL_ADAPTIVE_BUFFER_TIMEOUT}.
+    */
+   boolean isJournalAdaptiveBufferTimeout();
+
+   /**
+    * Sets whether the journal buffer sizes its flush window from the observed sync latency and arrival rate.
+    */
+   void setJournalAdaptiveBufferTimeout(boolean journalAdaptiveBufferTimeout);
+
+   /**
+    * Returns the number of threads used to read the journal files and to reload the queues on startup.
+    * 1 means the journal is loaded by the starting thread only.
+    * <br>
+    * Default value is {@value org.hornetq.api.config.HornetQDefaultConfiguration#DEFAULT_JOURNAL_LOAD_THREADS}.
+    */
+   int getJournalLoadThreads();
+
+   /**
+    * Sets the number of threads used to read the journal files and to reload the queues on startup.
+    */
+   void setJournalLoadThreads(int journalLoadThreads);
+
+   /**
+    * Returns the maximum number of data files compacted at a time.
+    * 0 means the whole journal is compacted at once.
+    * <br>
+    * Default value is {@value org.hornetq.api.config.HornetQDefaultConfiguration#DEFAULT_JOURNAL_COMPACT_INCREMENTAL_FILES}.
+    */
+   int getJournalCompactIncrementalFiles();
+
+   /**
+    * Sets the maximum number of data files compacted at a time.
+    */
+   void setJournalCompactIncrementalFiles(int journalCompactIncrementalFiles);
 }
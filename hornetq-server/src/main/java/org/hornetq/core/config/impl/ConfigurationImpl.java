@@ -213,6 +213,16 @@ public class ConfigurationImpl implements Configuration
 
    private String replicationClusterName;
 
+   private int journalCompactIncrementalFiles = HornetQDefaultConfiguration.DEFAULT_JOURNAL_COMPACT_INCREMENTAL_FILES;
+
+   private int journalLoadThreads = HornetQDefaultConfiguration.DEFAULT_JOURNAL_LOAD_THREADS;
+
+   private boolean journalAdaptiveBufferTimeout = HornetQDefaultConfiguration.DEFAULT_JOURNAL_ADAPTIVE_BUFFER_TIMEOUT;
+
+   private boolean routingFilterIndexEnabled = HornetQDefaultConfiguration.DEFAULT_ROUTING_FILTER_INDEX_ENABLED;
+
+   private boolean filterCompilationEnabled = HornetQDefaultConfiguration.DEFAULT_FILTER_COMPILATION_ENABLED;
+
    // Public -------------------------------------------------------------------------
 
    public boolean isClustered()
@@ -1335,4 +1345,53 @@ public class ConfigurationImpl implements Configuration
       return replicationClusterName;
    }
 
+   public boolean isFilterCompilationEnabled()
+   {
+      return filterCompilationEnabled;
+   }
+
+   public void setFilterCompilationEnabled(final boolean filterCompilationEnabled)
+   {
+      this.filterCompilationEnabled = filterCompilationEnabled;
+   }
+
+   public boolean isRoutingFilterIndexEnabled()
+   {
+      return routingFilterIndexEnabled;
+   }
+
+   public void setRoutingFilterIndexEnabled(final boolean routingFilterIndexEnabled)
+   {
+      this.routingFilterIndexEnabled = routingFilterIndexEnabled;
+   }
+
+   public boolean isJournalAdaptiveBufferTimeout()
+   {
+      return journalAdaptiveBufferTimeout;
+   }
+
+   public void setJournalAdaptiveBufferTimeout(final boolean journalAdaptiveBufferTimeout)
+   {
+      this.journalAdaptiveBufferTimeout = journalAdaptiveBufferTimeout;
+   }
+
+   public int getJournalLoadThreads()
+   {
+      return journalLoadThreads;
+   }
+
+   public void setJournalLoadThreads(final int journalLoadThreads)
+   {
+      this.journalLoadThreads = journalLoadThreads;
+   }
+
+   public int getJournalCompactIncrementalFiles()
+   {
+      return journalCompactIncrementalFiles;
+   }
+
+   public void setJournalCompactIncrementalFiles(final int journalCompactIncrementalFiles)
+   {
+      this.journalCompactIncrementalFiles = journalCompactIncrementalFiles;
+   }
 }
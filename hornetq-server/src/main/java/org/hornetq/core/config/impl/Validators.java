@@ -16,6 +16,7 @@ package org.hornetq.core.config.impl;
 import org.hornetq.core.server.HornetQMessageBundle;
 import org.hornetq.core.server.JournalType;
 import org.hornetq.core.settings.impl.AddressFullMessagePolicy;
+import org.hornetq.core.settings.impl.DuplicateIDCacheType;
 
 /**
  * A Validators.
@@ -146,7 +147,9 @@ public final class Validators
       public void validate(final String name, final Object value)
       {
          String val = (String) value;
-         if (val == null || !val.equals(JournalType.NIO.toString()) && !val.equals(JournalType.ASYNCIO.toString()))
+         if (val == null || !val.equals(JournalType.NIO.toString()) &&
+               !val.equals(JournalType.ASYNCIO.toString()) &&
+               !val.equals(JournalType.MAPPED.toString()))
          {
             throw HornetQMessageBundle.BUNDLE.invalidJournalType(val);
          }
@@ -167,4 +170,18 @@ public final class Validators
          }
       }
    };
+
+   public static final Validator DUPLICATE_ID_CACHE_TYPE = new Validator()
+   {
+      public void validate(final String name, final Object value)
+      {
+         String val = (String) value;
+         if (val == null || !val.equals(DuplicateIDCacheType.HASH_MAP.toString()) &&
+               !val.equals(DuplicateIDCacheType.BUFFER.toString()) &&
+               !val.equals(DuplicateIDCacheType.DIRECT_BUFFER.toString()))
+         {
+            throw HornetQMessageBundle.BUNDLE.invalidDuplicateIDCacheType(val);
+         }
+      }
+   };
 }
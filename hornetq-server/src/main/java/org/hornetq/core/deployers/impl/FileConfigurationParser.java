@@ -49,6 +49,7 @@ import org.hornetq.core.server.JournalType;
 import org.hornetq.core.server.group.impl.GroupingHandlerConfiguration;
 import org.hornetq.core.settings.impl.AddressFullMessagePolicy;
 import org.hornetq.core.settings.impl.AddressSettings;
+import org.hornetq.core.settings.impl.DuplicateIDCacheType;
 import org.hornetq.utils.DefaultSensitiveStringCodec;
 import org.hornetq.api.core.Pair;
 import org.hornetq.utils.PasswordMaskingUtil;
@@ -128,14 +129,24 @@ public final class FileConfigurationParser
 
    private static final String PAGE_MAX_CACHE_SIZE_NODE_NAME = "page-max-cache-size";
 
+   private static final String PAGE_MAX_CACHE_BYTES_NODE_NAME = "page-max-cache-bytes";
+
+   private static final String PAGE_READ_MAPPED_NODE_NAME = "page-read-mapped";
+
    private static final String MESSAGE_COUNTER_HISTORY_DAY_LIMIT_NODE_NAME = "message-counter-history-day-limit";
 
    private static final String LVQ_NODE_NAME = "last-value-queue";
 
    private static final String REDISTRIBUTION_DELAY_NODE_NAME = "redistribution-delay";
 
+   private static final String REDISTRIBUTION_BATCH_SIZE_NODE_NAME = "redistribution-batch-size";
+
    private static final String SEND_TO_DLA_ON_NO_ROUTE = "send-to-dla-on-no-route";
 
+   private static final String DUPLICATE_ID_CACHE_TYPE_NODE_NAME = "duplicate-id-cache-type";
+
+   private static final String BATCHED_INTAKE_NODE_NAME = "batched-intake";
+
    // Attributes ----------------------------------------------------
 
    private boolean validateAIO = false;
@@ -516,6 +527,10 @@ public final class FileConfigurationParser
       {
          config.setJournalType(JournalType.NIO);
       }
+      else if (s.equals(JournalType.MAPPED.toString()))
+      {
+         config.setJournalType(JournalType.MAPPED);
+      }
       else if (s.equals(JournalType.ASYNCIO.toString()))
       {
          // https://jira.jboss.org/jira/browse/HORNETQ-295
@@ -583,6 +598,10 @@ public final class FileConfigurationParser
          config.setJournalMaxIO_NIO(journalMaxIO);
       }
 
+      config.setJournalAdaptiveBufferTimeout(XMLConfigurationUtil.getBoolean(e,
+                                                                             "journal-adaptive-buffer-timeout",
+                                                                             config.isJournalAdaptiveBufferTimeout()));
+
       config.setJournalMinFiles(XMLConfigurationUtil.getInteger(e,
                                                                 "journal-min-files",
                                                                 config.getJournalMinFiles(),
@@ -598,6 +617,16 @@ public final class FileConfigurationParser
                                                                          config.getJournalCompactPercentage(),
                                                                          Validators.PERCENTAGE));
 
+      config.setJournalCompactIncrementalFiles(XMLConfigurationUtil.getInteger(e,
+                                                                               "journal-compact-incremental-files",
+                                                                               config.getJournalCompactIncrementalFiles(),
+                                                                               Validators.GE_ZERO));
+
+      config.setJournalLoadThreads(XMLConfigurationUtil.getInteger(e,
+                                                                   "journal-load-threads",
+                                                                   config.getJournalLoadThreads(),
+                                                                   Validators.GT_ZERO));
+
       config.setLogJournalWriteRate(XMLConfigurationUtil.getBoolean(e,
                                                                     "log-journal-write-rate",
                                                                     HornetQDefaultConfiguration.DEFAULT_JOURNAL_LOG_WRITE_RATE));
@@ -613,6 +642,14 @@ public final class FileConfigurationParser
                                                                        "wild-card-routing-enabled",
                                                                        config.isWildcardRoutingEnabled()));
 
+      config.setFilterCompilationEnabled(XMLConfigurationUtil.getBoolean(e,
+                                                                         "filter-compilation-enabled",
+                                                                         config.isFilterCompilationEnabled()));
+
+      config.setRoutingFilterIndexEnabled(XMLConfigurationUtil.getBoolean(e,
+                                                                          "routing-filter-index-enabled",
+                                                                          config.isRoutingFilterIndexEnabled()));
+
       config.setMessageCounterEnabled(XMLConfigurationUtil.getBoolean(e,
                                                                       "message-counter-enabled",
                                                                       config.isMessageCounterEnabled()));
@@ -873,6 +910,14 @@ public final class FileConfigurationParser
          {
             addressSettings.setPageCacheMaxSize(Integer.valueOf(child.getTextContent()));
          }
+         else if (FileConfigurationParser.PAGE_MAX_CACHE_BYTES_NODE_NAME.equalsIgnoreCase(child.getNodeName()))
+         {
+            addressSettings.setPageCacheMaxBytes(Long.valueOf(child.getTextContent().trim()));
+         }
+         else if (FileConfigurationParser.PAGE_READ_MAPPED_NODE_NAME.equalsIgnoreCase(child.getNodeName()))
+         {
+            addressSettings.setPageReadMapped(Boolean.valueOf(child.getTextContent().trim()));
+         }
          else if (FileConfigurationParser.MESSAGE_COUNTER_HISTORY_DAY_LIMIT_NODE_NAME.equalsIgnoreCase(child.getNodeName()))
          {
             addressSettings.setMessageCounterHistoryDayLimit(Integer.valueOf(child.getTextContent()));
@@ -913,10 +958,24 @@ public final class FileConfigurationParser
          {
             addressSettings.setRedistributionDelay(Long.valueOf(child.getTextContent().trim()));
          }
+         else if (FileConfigurationParser.REDISTRIBUTION_BATCH_SIZE_NODE_NAME.equalsIgnoreCase(child.getNodeName()))
+         {
+            addressSettings.setRedistributionBatchSize(Integer.valueOf(child.getTextContent().trim()));
+         }
          else if (FileConfigurationParser.SEND_TO_DLA_ON_NO_ROUTE.equalsIgnoreCase(child.getNodeName()))
          {
             addressSettings.setSendToDLAOnNoRoute(Boolean.valueOf(child.getTextContent().trim()));
          }
+         else if (FileConfigurationParser.DUPLICATE_ID_CACHE_TYPE_NODE_NAME.equalsIgnoreCase(child.getNodeName()))
+         {
+            String value = child.getTextContent().trim();
+            Validators.DUPLICATE_ID_CACHE_TYPE.validate(FileConfigurationParser.DUPLICATE_ID_CACHE_TYPE_NODE_NAME, value);
+            addressSettings.setDuplicateIDCacheType(DuplicateIDCacheType.valueOf(value));
+         }
+         else if (FileConfigurationParser.BATCHED_INTAKE_NODE_NAME.equalsIgnoreCase(child.getNodeName()))
+         {
+            addressSettings.setBatchedIntake(Boolean.valueOf(child.getTextContent().trim()));
+         }
       }
       return setting;
    }
@@ -0,0 +1,925 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.filter.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.hornetq.api.core.FilterConstants;
+import org.hornetq.api.core.HornetQException;
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.filter.Filter;
+import org.hornetq.core.server.HornetQMessageBundle;
+import org.hornetq.core.server.HornetQServerLogger;
+import org.hornetq.core.server.ServerMessage;
+
+/**
+ * A Filter whose expression has been compiled into a tree of immutable evaluation nodes.
+ * <p>
+ * The expression is parsed once by {@link FilterParser} exactly as for {@link FilterImpl}, but
+ * instead of keeping the {@link Operator} tree (which stores its operands and intermediate results
+ * in fields and therefore requires {@link FilterImpl#match(ServerMessage)} to be synchronized) the
+ * parsed tree is translated into nodes that keep every intermediate value on the stack.
+ * <p>
+ * As a result {@link #match(ServerMessage)} holds no lock, identifiers are only resolved when the
+ * evaluation actually reaches them, literal values are normalized and LIKE patterns are compiled
+ * once when the filter is created.
+ *
+ * @see FilterImpl#createFilter(SimpleString, boolean)
+ */
+public final class CompiledFilter implements Filter
+{
+
+   // Constants -----------------------------------------------------
+
+   private static final int CLASS_NULL = 0;
+
+   private static final int CLASS_DOUBLE = Operator.DOUBLE;
+
+   private static final int CLASS_LONG = Operator.LONG;
+
+   private static final int CLASS_BOOLEAN = Operator.BOOLEAN;
+
+   private static final int CLASS_SIMPLE_STRING = Operator.SIMPLE_STRING;
+
+   // Attributes ----------------------------------------------------
+
+   private final SimpleString sfilterString;
+
+   private final Expression expression;
+
+   // Static --------------------------------------------------------
+
+   static Filter compile(final SimpleString filterStr) throws HornetQException
+   {
+      try
+      {
+         Map<SimpleString, Identifier> identifiers = new HashMap<SimpleString, Identifier>();
+
+         Object result = new FilterParser().parse(filterStr, identifiers);
+
+         return new CompiledFilter(filterStr, CompiledFilter.compileNode(result));
+      }
+      catch (Throwable e)
+      {
+         HornetQServerLogger.LOGGER.invalidFilter(e, filterStr);
+
+         throw HornetQMessageBundle.BUNDLE.invalidFilter(e, filterStr);
+      }
+   }
+
+   // Constructors --------------------------------------------------
+
+   private CompiledFilter(final SimpleString filterString, final Expression expression)
+   {
+      sfilterString = filterString;
+      this.expression = expression;
+   }
+
+   // Filter implementation -----------------------------------------
+
+   public SimpleString getFilterString()
+   {
+      return sfilterString;
+   }
+
+   public boolean match(final ServerMessage message)
+   {
+      try
+      {
+         Object result = expression.evaluate(message);
+
+         if (result == null)
+         {
+            // UNKNOWN is not a match
+            return false;
+         }
+
+         return (Boolean)result;
+      }
+      catch (Exception e)
+      {
+         HornetQServerLogger.LOGGER.invalidFilter(e, sfilterString);
+
+         return false;
+      }
+   }
+
+   @Override
+   public int hashCode()
+   {
+      return sfilterString.hashCode();
+   }
+
+   @Override
+   public boolean equals(final Object obj)
+   {
+      if (this == obj)
+      {
+         return true;
+      }
+      if (obj == null || getClass() != obj.getClass())
+      {
+         return false;
+      }
+      return sfilterString.equals(((CompiledFilter)obj).sfilterString);
+   }
+
+   @Override
+   public String toString()
+   {
+      return "CompiledFilter [sfilterString=" + sfilterString + "]";
+   }
+
+   // Private -------------------------------------------------------
+
+   private static Expression compileNode(final Object node) throws Exception
+   {
+      if (node == null)
+      {
+         return new Literal(null);
+      }
+      if (node instanceof Identifier)
+      {
+         return new Property(((Identifier)node).getName());
+      }
+      if (node instanceof Operator)
+      {
+         return CompiledFilter.compileOperator((Operator)node);
+      }
+      return new Literal(CompiledFilter.normalize(node));
+   }
+
+   private static Expression compileOperator(final Operator op) throws Exception
+   {
+      switch (op.operation)
+      {
+         case Operator.EQUAL:
+            return new Equal(compileNode(op.oper1), compileNode(op.oper2));
+         case Operator.DIFFERENT:
+            return new Different(compileNode(op.oper1), compileNode(op.oper2));
+         case Operator.NOT:
+            return new Not(compileNode(op.oper1));
+         case Operator.AND:
+            return new And(compileNode(op.oper1), compileNode(op.oper2));
+         case Operator.OR:
+            return new Or(compileNode(op.oper1), compileNode(op.oper2));
+         case Operator.GT:
+         case Operator.GE:
+         case Operator.LT:
+         case Operator.LE:
+            return new Comparison(op.operation, compileNode(op.oper1), compileNode(op.oper2));
+         case Operator.ADD:
+         case Operator.SUB:
+         case Operator.MUL:
+         case Operator.DIV:
+            return new Arithmetic(op.operation, compileNode(op.oper1), compileNode(op.oper2));
+         case Operator.NEG:
+            return new Negate(compileNode(op.oper1));
+         case Operator.BETWEEN:
+            return new Between(false, compileNode(op.oper1), compileNode(op.oper2), compileNode(op.oper3));
+         case Operator.NOT_BETWEEN:
+            return new Between(true, compileNode(op.oper1), compileNode(op.oper2), compileNode(op.oper3));
+         case Operator.LIKE:
+         case Operator.NOT_LIKE:
+         case Operator.LIKE_ESCAPE:
+         case Operator.NOT_LIKE_ESCAPE:
+            return CompiledFilter.compileLike(op);
+         case Operator.IS_NULL:
+            return new IsNull(false, compileNode(op.oper1));
+         case Operator.IS_NOT_NULL:
+            return new IsNull(true, compileNode(op.oper1));
+         case Operator.IN:
+            return new In(false, compileNode(op.oper1), (Set<?>)op.oper2);
+         case Operator.NOT_IN:
+            return new In(true, compileNode(op.oper1), (Set<?>)op.oper2);
+         default:
+            throw new Exception("Unknown operation " + op.operation + " for " + op);
+      }
+   }
+
+   private static Expression compileLike(final Operator op) throws Exception
+   {
+      boolean not = op.operation == Operator.NOT_LIKE || op.operation == Operator.NOT_LIKE_ESCAPE;
+
+      Character escapeChar = null;
+
+      if (op.operation == Operator.LIKE_ESCAPE || op.operation == Operator.NOT_LIKE_ESCAPE)
+      {
+         SimpleString escapeString = (SimpleString)op.oper3;
+         if (escapeString.length() != 1)
+         {
+            throw new Exception("LIKE ESCAPE: Bad escape character " + escapeString.toString());
+         }
+         escapeChar = Character.valueOf(escapeString.charAt(0));
+      }
+
+      // the grammar only accepts string literals as LIKE patterns
+      RegExp re = new RegExp(op.oper2.toString(), escapeChar);
+
+      return new Like(not, compileNode(op.oper1), re);
+   }
+
+   /**
+    * Converts a value into one of the types used during evaluation (Long, Double, Boolean or
+    * SimpleString) following the same promotion rules as {@link Operator}.
+    */
+   static Object normalize(final Object value) throws Exception
+   {
+      if (value == null)
+      {
+         return null;
+      }
+
+      Class<?> className = value.getClass();
+
+      if (className == SimpleString.class || className == Long.class ||
+          className == Double.class ||
+          className == Boolean.class)
+      {
+         return value;
+      }
+      else if (className == Integer.class)
+      {
+         return Long.valueOf(((Integer)value).longValue());
+      }
+      else if (className == Short.class)
+      {
+         return Long.valueOf(((Short)value).longValue());
+      }
+      else if (className == Byte.class)
+      {
+         return Long.valueOf(((Byte)value).longValue());
+      }
+      else if (className == Float.class)
+      {
+         return Double.valueOf(((Float)value).doubleValue());
+      }
+      else
+      {
+         throw new Exception("Bad Object: '" + className.getName() + "'");
+      }
+   }
+
+   static int classOf(final Object value)
+   {
+      if (value == null)
+      {
+         return CLASS_NULL;
+      }
+
+      Class<?> className = value.getClass();
+
+      if (className == Long.class)
+      {
+         return CLASS_LONG;
+      }
+      else if (className == SimpleString.class)
+      {
+         return CLASS_SIMPLE_STRING;
+      }
+      else if (className == Double.class)
+      {
+         return CLASS_DOUBLE;
+      }
+      else
+      {
+         return CLASS_BOOLEAN;
+      }
+   }
+
+   private static boolean isNumeric(final int clazz)
+   {
+      return clazz == CLASS_LONG || clazz == CLASS_DOUBLE;
+   }
+
+   private static Boolean checkBoolean(final Object value) throws Exception
+   {
+      if (value != null && value.getClass() != Boolean.class)
+      {
+         throw new Exception("Bad Object: '" + Operator.getClassName(classOf(value)) + "' expected Boolean");
+      }
+      return (Boolean)value;
+   }
+
+   /**
+    * @return a negative number, zero or a positive number, comparing numerically
+    */
+   private static int compareNumbers(final Object arg1, final int class1, final Object arg2, final int class2)
+   {
+      if (class1 == CLASS_LONG && class2 == CLASS_LONG)
+      {
+         long l1 = ((Long)arg1).longValue();
+         long l2 = ((Long)arg2).longValue();
+         return l1 < l2 ? -1 : (l1 == l2 ? 0 : 1);
+      }
+      double d1 = ((Number)arg1).doubleValue();
+      double d2 = ((Number)arg2).doubleValue();
+      return d1 < d2 ? -1 : (d1 == d2 ? 0 : 1);
+   }
+
+   // Inner classes -------------------------------------------------
+
+   /**
+    * A node of the compiled expression. Implementations must be immutable so that a filter can be
+    * evaluated concurrently by any number of threads.
+    */
+   abstract static class Expression
+   {
+      /**
+       * @return the evaluated value (Long, Double, Boolean, SimpleString) or {@code null} for UNKNOWN
+       */
+      abstract Object evaluate(ServerMessage message) throws Exception;
+   }
+
+   private static final class Literal extends Expression
+   {
+      private final Object value;
+
+      Literal(final Object value)
+      {
+         this.value = value;
+      }
+
+      @Override
+      Object evaluate(final ServerMessage message)
+      {
+         return value;
+      }
+   }
+
+   private static final class Property extends Expression
+   {
+      private static final int NO_HEADER = -1;
+
+      private static final int USERID = 0;
+
+      private static final int PRIORITY = 1;
+
+      private static final int TIMESTAMP = 2;
+
+      private static final int DURABLE = 3;
+
+      private static final int EXPIRATION = 4;
+
+      private static final int SIZE = 5;
+
+      private final SimpleString name;
+
+      private final int header;
+
+      Property(final SimpleString name)
+      {
+         this.name = name;
+         header = headerOf(name);
+      }
+
+      private static int headerOf(final SimpleString name)
+      {
+         if (!name.startsWith(FilterConstants.HORNETQ_PREFIX))
+         {
+            return NO_HEADER;
+         }
+         else if (FilterConstants.HORNETQ_USERID.equals(name))
+         {
+            return USERID;
+         }
+         else if (FilterConstants.HORNETQ_PRIORITY.equals(name))
+         {
+            return PRIORITY;
+         }
+         else if (FilterConstants.HORNETQ_TIMESTAMP.equals(name))
+         {
+            return TIMESTAMP;
+         }
+         else if (FilterConstants.HORNETQ_DURABLE.equals(name))
+         {
+            return DURABLE;
+         }
+         else if (FilterConstants.HORNETQ_EXPIRATION.equals(name))
+         {
+            return EXPIRATION;
+         }
+         else if (FilterConstants.HORNETQ_SIZE.equals(name))
+         {
+            return SIZE;
+         }
+         else
+         {
+            return NO_HEADER;
+         }
+      }
+
+      @Override
+      Object evaluate(final ServerMessage message) throws Exception
+      {
+         switch (header)
+         {
+            case USERID:
+               return new SimpleString("ID:" + message.getUserID());
+            case PRIORITY:
+               return Long.valueOf(message.getPriority());
+            case TIMESTAMP:
+               return Long.valueOf(message.getTimestamp());
+            case DURABLE:
+               return message.isDurable() ? FilterConstants.DURABLE : FilterConstants.NON_DURABLE;
+            case EXPIRATION:
+               return Long.valueOf(message.getExpiration());
+            case SIZE:
+               return Long.valueOf(message.getEncodeSize());
+            default:
+               return normalize(message.getObjectProperty(name));
+         }
+      }
+   }
+
+   private static final class Equal extends Expression
+   {
+      private final Expression left;
+
+      private final Expression right;
+
+      Equal(final Expression left, final Expression right)
+      {
+         this.left = left;
+         this.right = right;
+      }
+
+      @Override
+      Object evaluate(final ServerMessage message) throws Exception
+      {
+         Object arg1 = left.evaluate(message);
+         if (arg1 == null)
+         {
+            return Boolean.FALSE;
+         }
+         int class1 = classOf(arg1);
+
+         Object arg2 = right.evaluate(message);
+         int class2 = classOf(arg2);
+
+         if (isNumeric(class1))
+         {
+            if (arg2 == null)
+            {
+               return null;
+            }
+            if (isNumeric(class2))
+            {
+               return Boolean.valueOf(compareNumbers(arg1, class1, arg2, class2) == 0);
+            }
+            return Boolean.FALSE;
+         }
+
+         if (arg2 == null)
+         {
+            return Boolean.FALSE;
+         }
+         if (class1 != class2)
+         {
+            throw new Exception("Bad Object: expected '" + Operator.getClassName(class1) +
+                                "' got '" +
+                                Operator.getClassName(class2) +
+                                "' for operation: EQUAL");
+         }
+         return Boolean.valueOf(arg1.equals(arg2));
+      }
+   }
+
+   private static final class Different extends Expression
+   {
+      private final Expression left;
+
+      private final Expression right;
+
+      Different(final Expression left, final Expression right)
+      {
+         this.left = left;
+         this.right = right;
+      }
+
+      @Override
+      Object evaluate(final ServerMessage message) throws Exception
+      {
+         Object arg1 = left.evaluate(message);
+         Object arg2 = right.evaluate(message);
+
+         if (arg1 == null)
+         {
+            return Boolean.valueOf(arg2 != null);
+         }
+         if (arg2 == null)
+         {
+            return null;
+         }
+
+         int class1 = classOf(arg1);
+         int class2 = classOf(arg2);
+
+         if (isNumeric(class1))
+         {
+            if (isNumeric(class2))
+            {
+               return Boolean.valueOf(compareNumbers(arg1, class1, arg2, class2) != 0);
+            }
+            return Boolean.FALSE;
+         }
+         if (class1 != class2)
+         {
+            throw new Exception("Bad Object: expected '" + Operator.getClassName(class1) +
+                                "' got '" +
+                                Operator.getClassName(class2) +
+                                "' for operation: DIFFERENT");
+         }
+         return Boolean.valueOf(!arg1.equals(arg2));
+      }
+   }
+
+   private static final class Not extends Expression
+   {
+      private final Expression operand;
+
+      Not(final Expression operand)
+      {
+         this.operand = operand;
+      }
+
+      @Override
+      Object evaluate(final ServerMessage message) throws Exception
+      {
+         Boolean value = checkBoolean(operand.evaluate(message));
+         if (value == null)
+         {
+            return null;
+         }
+         return value.booleanValue() ? Boolean.FALSE : Boolean.TRUE;
+      }
+   }
+
+   private static final class And extends Expression
+   {
+      private final Expression left;
+
+      private final Expression right;
+
+      And(final Expression left, final Expression right)
+      {
+         this.left = left;
+         this.right = right;
+      }
+
+      @Override
+      Object evaluate(final ServerMessage message) throws Exception
+      {
+         Boolean arg1 = checkBoolean(left.evaluate(message));
+         if (arg1 != null && !arg1.booleanValue())
+         {
+            return Boolean.FALSE;
+         }
+         Boolean arg2 = checkBoolean(right.evaluate(message));
+         if (arg2 == null)
+         {
+            return null;
+         }
+         if (!arg2.booleanValue())
+         {
+            return Boolean.FALSE;
+         }
+         return arg1 == null ? null : Boolean.TRUE;
+      }
+   }
+
+   private static final class Or extends Expression
+   {
+      private final Expression left;
+
+      private final Expression right;
+
+      Or(final Expression left, final Expression right)
+      {
+         this.left = left;
+         this.right = right;
+      }
+
+      @Override
+      Object evaluate(final ServerMessage message) throws Exception
+      {
+         Boolean arg1 = checkBoolean(left.evaluate(message));
+         if (arg1 != null && arg1.booleanValue())
+         {
+            return Boolean.TRUE;
+         }
+         Boolean arg2 = checkBoolean(right.evaluate(message));
+         if (arg2 == null)
+         {
+            return null;
+         }
+         if (arg2.booleanValue())
+         {
+            return Boolean.TRUE;
+         }
+         return arg1 == null ? null : Boolean.FALSE;
+      }
+   }
+
+   private static final class Comparison extends Expression
+   {
+      private final int operation;
+
+      private final Expression left;
+
+      private final Expression right;
+
+      Comparison(final int operation, final Expression left, final Expression right)
+      {
+         this.operation = operation;
+         this.left = left;
+         this.right = right;
+      }
+
+      @Override
+      Object evaluate(final ServerMessage message) throws Exception
+      {
+         return compare(operation, left.evaluate(message), right, message);
+      }
+
+      static Object compare(final int operation,
+                            final Object arg1,
+                            final Expression right,
+                            final ServerMessage message) throws Exception
+      {
+         if (arg1 == null)
+         {
+            return null;
+         }
+         int class1 = classOf(arg1);
+         if (!isNumeric(class1))
+         {
+            return Boolean.FALSE;
+         }
+         Object arg2 = right.evaluate(message);
+         if (arg2 == null)
+         {
+            return null;
+         }
+         int class2 = classOf(arg2);
+         if (!isNumeric(class2))
+         {
+            return Boolean.FALSE;
+         }
+
+         int cmp = compareNumbers(arg1, class1, arg2, class2);
+
+         switch (operation)
+         {
+            case Operator.GT:
+               return Boolean.valueOf(cmp > 0);
+            case Operator.GE:
+               return Boolean.valueOf(cmp >= 0);
+            case Operator.LT:
+               return Boolean.valueOf(cmp < 0);
+            default:
+               return Boolean.valueOf(cmp <= 0);
+         }
+      }
+   }
+
+   private static final class Between extends Expression
+   {
+      private final boolean not;
+
+      private final Expression value;
+
+      private final Expression lower;
+
+      private final Expression upper;
+
+      Between(final boolean not, final Expression value, final Expression lower, final Expression upper)
+      {
+         this.not = not;
+         this.value = value;
+         this.lower = lower;
+         this.upper = upper;
+      }
+
+      @Override
+      Object evaluate(final ServerMessage message) throws Exception
+      {
+         Object arg1 = value.evaluate(message);
+
+         if (not)
+         {
+            Object res = Comparison.compare(Operator.LT, arg1, lower, message);
+            if (res == null || ((Boolean)res).booleanValue())
+            {
+               return res;
+            }
+            return Comparison.compare(Operator.GT, arg1, upper, message);
+         }
+         else
+         {
+            Object res = Comparison.compare(Operator.GE, arg1, lower, message);
+            if (res == null || !((Boolean)res).booleanValue())
+            {
+               return res;
+            }
+            return Comparison.compare(Operator.LE, arg1, upper, message);
+         }
+      }
+   }
+
+   private static final class Arithmetic extends Expression
+   {
+      private final int operation;
+
+      private final Expression left;
+
+      private final Expression right;
+
+      Arithmetic(final int operation, final Expression left, final Expression right)
+      {
+         this.operation = operation;
+         this.left = left;
+         this.right = right;
+      }
+
+      @Override
+      Object evaluate(final ServerMessage message) throws Exception
+      {
+         Object arg1 = left.evaluate(message);
+         Object arg2 = right.evaluate(message);
+
+         if (arg1 == null || arg2 == null)
+         {
+            return null;
+         }
+
+         int class1 = classOf(arg1);
+         int class2 = classOf(arg2);
+
+         if (!isNumeric(class1))
+         {
+            throw new Exception("Bad Object: '" + Operator.getClassName(class1) +
+                                "' for operation: " +
+                                Operator.operationString(operation));
+         }
+         if (!isNumeric(class2))
+         {
+            throw new Exception("Bad Object: '" + Operator.getClassName(class2) +
+                                "' for operation: " +
+                                Operator.operationString(operation));
+         }
+
+         if (class1 == CLASS_LONG && class2 == CLASS_LONG)
+         {
+            long l1 = ((Long)arg1).longValue();
+            long l2 = ((Long)arg2).longValue();
+            switch (operation)
+            {
+               case Operator.ADD:
+                  return Long.valueOf(l1 + l2);
+               case Operator.SUB:
+                  return Long.valueOf(l1 - l2);
+               case Operator.MUL:
+                  return Long.valueOf(l1 * l2);
+               default:
+                  return Long.valueOf(l1 / l2);
+            }
+         }
+
+         double d1 = ((Number)arg1).doubleValue();
+         double d2 = ((Number)arg2).doubleValue();
+         switch (operation)
+         {
+            case Operator.ADD:
+               return Double.valueOf(d1 + d2);
+            case Operator.SUB:
+               return Double.valueOf(d1 - d2);
+            case Operator.MUL:
+               return Double.valueOf(d1 * d2);
+            default:
+               return Double.valueOf(d1 / d2);
+         }
+      }
+   }
+
+   private static final class Negate extends Expression
+   {
+      private final Expression operand;
+
+      Negate(final Expression operand)
+      {
+         this.operand = operand;
+      }
+
+      @Override
+      Object evaluate(final ServerMessage message) throws Exception
+      {
+         Object arg1 = operand.evaluate(message);
+         switch (classOf(arg1))
+         {
+            case CLASS_NULL:
+               return null;
+            case CLASS_LONG:
+               return Long.valueOf(-((Long)arg1).longValue());
+            case CLASS_DOUBLE:
+               return Double.valueOf(-((Double)arg1).doubleValue());
+            default:
+               throw new Exception("Bad Object: '" + Operator.getClassName(classOf(arg1)) + "' for operation: NEG");
+         }
+      }
+   }
+
+   private static final class Like extends Expression
+   {
+      private final boolean not;
+
+      private final Expression operand;
+
+      private final RegExp re;
+
+      Like(final boolean not, final Expression operand, final RegExp re)
+      {
+         this.not = not;
+         this.operand = operand;
+         this.re = re;
+      }
+
+      @Override
+      Object evaluate(final ServerMessage message) throws Exception
+      {
+         Object arg1 = operand.evaluate(message);
+         if (arg1 == null)
+         {
+            return null;
+         }
+         if (arg1.getClass() != SimpleString.class)
+         {
+            throw new Exception("Bad Object: '" + Operator.getClassName(classOf(arg1)) + "' for operation: LIKE");
+         }
+         return Boolean.valueOf(re.isMatch(arg1) != not);
+      }
+   }
+
+   private static final class IsNull extends Expression
+   {
+      private final boolean not;
+
+      private final Expression operand;
+
+      IsNull(final boolean not, final Expression operand)
+      {
+         this.not = not;
+         this.operand = operand;
+      }
+
+      @Override
+      Object evaluate(final ServerMessage message) throws Exception
+      {
+         return Boolean.valueOf((operand.evaluate(message) == null) != not);
+      }
+   }
+
+   private static final class In extends Expression
+   {
+      private final boolean not;
+
+      private final Expression operand;
+
+      private final Set<?> values;
+
+      In(final boolean not, final Expression operand, final Set<?> values)
+      {
+         this.not = not;
+         this.operand = operand;
+         this.values = values;
+      }
+
+      @Override
+      Object evaluate(final ServerMessage message) throws Exception
+      {
+         Object arg1 = operand.evaluate(message);
+         if (arg1 == null)
+         {
+            return not ? null : Boolean.FALSE;
+         }
+         if (arg1.getClass() != SimpleString.class)
+         {
+            throw new Exception("Bad Object: '" + Operator.getClassName(classOf(arg1)) + "' for operation: IN");
+         }
+         return Boolean.valueOf(values.contains(arg1) != not);
+      }
+   }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.filter.impl;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.hornetq.api.core.FilterConstants;
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.filter.Filter;
+
+/**
+ * A filter reduced to "property equals one of a set of string values".
+ * <p>
+ * Filters of the form {@code prop = 'a'}, {@code prop IN ('a', 'b')} and disjunctions of those on
+ * the same property match a message if and only if the message has a {@link SimpleString}
+ * property {@code prop} whose value is one of {@link #getValues()}. Such filters can be indexed by
+ * value instead of being evaluated one by one.
+ */
+public final class EqualityPredicate
+{
+   private final SimpleString property;
+
+   private final Set<SimpleString> values;
+
+   private EqualityPredicate(final SimpleString property, final Set<SimpleString> values)
+   {
+      this.property = property;
+      this.values = Collections.unmodifiableSet(values);
+   }
+
+   /**
+    * @return the equality predicate equivalent to the filter or {@code null} if the filter is
+    *         {@code null} or is not a simple equality on a message property
+    */
+   public static EqualityPredicate analyze(final Filter filter)
+   {
+      if (filter == null || filter.getFilterString() == null)
+      {
+         return null;
+      }
+
+      Object result;
+
+      try
+      {
+         result = new FilterParser().parse(filter.getFilterString(), new HashMap<SimpleString, Identifier>());
+      }
+      catch (Throwable e)
+      {
+         // the filter has already been validated when it was created, it simply can't be indexed
+         return null;
+      }
+
+      SimpleString[] property = new SimpleString[1];
+
+      Set<SimpleString> values = new HashSet<SimpleString>();
+
+      if (collect(result, property, values))
+      {
+         return new EqualityPredicate(property[0], values);
+      }
+
+      return null;
+   }
+
+   public SimpleString getProperty()
+   {
+      return property;
+   }
+
+   public Set<SimpleString> getValues()
+   {
+      return values;
+   }
+
+   @Override
+   public String toString()
+   {
+      return "EqualityPredicate [property=" + property + ", values=" + values + "]";
+   }
+
+   private static boolean collect(final Object node, final SimpleString[] property, final Set<SimpleString> values)
+   {
+      if (!(node instanceof Operator))
+      {
+         return false;
+      }
+
+      Operator op = (Operator)node;
+
+      switch (op.operation)
+      {
+         case Operator.OR:
+            return collect(op.oper1, property, values) && collect(op.oper2, property, values);
+         case Operator.EQUAL:
+            if (op.oper1 instanceof Identifier && op.oper2 instanceof SimpleString)
+            {
+               return addValue((Identifier)op.oper1, (SimpleString)op.oper2, property, values);
+            }
+            if (op.oper2 instanceof Identifier && op.oper1 instanceof SimpleString)
+            {
+               return addValue((Identifier)op.oper2, (SimpleString)op.oper1, property, values);
+            }
+            return false;
+         case Operator.IN:
+            if (op.oper1 instanceof Identifier && checkProperty((Identifier)op.oper1, property))
+            {
+               for (Object value : (Set<?>)op.oper2)
+               {
+                  values.add((SimpleString)value);
+               }
+               return true;
+            }
+            return false;
+         default:
+            return false;
+      }
+   }
+
+   private static boolean addValue(final Identifier identifier,
+                                   final SimpleString value,
+                                   final SimpleString[] property,
+                                   final Set<SimpleString> values)
+   {
+      if (checkProperty(identifier, property))
+      {
+         values.add(value);
+         return true;
+      }
+      return false;
+   }
+
+   private static boolean checkProperty(final Identifier identifier, final SimpleString[] property)
+   {
+      SimpleString name = identifier.getName();
+
+      // header fields are not message properties
+      if (name.startsWith(FilterConstants.HORNETQ_PREFIX))
+      {
+         return false;
+      }
+
+      if (property[0] == null)
+      {
+         property[0] = name;
+         return true;
+      }
+
+      return property[0].equals(name);
+   }
+}
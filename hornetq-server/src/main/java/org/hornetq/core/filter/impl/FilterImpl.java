@@ -84,11 +84,38 @@ public class FilterImpl implements Filter
     * @throws HornetQException if the string does not correspond to a valid filter
     */
    public static Filter createFilter(final SimpleString filterStr) throws HornetQException
+   {
+      return FilterImpl.createFilter(filterStr, false);
+   }
+
+   /**
+    * @param compiled if true the filter is compiled into a lock free {@link CompiledFilter}
+    *           instead of being interpreted by a {@link FilterImpl}
+    * @return null if <code>filterStr</code> is null or an empty String and a valid filter else
+    * @throws HornetQException if the string does not correspond to a valid filter
+    */
+   public static Filter createFilter(final String filterStr, final boolean compiled) throws HornetQException
+   {
+      return FilterImpl.createFilter(SimpleString.toSimpleString(filterStr == null ? null : filterStr.trim()),
+                                     compiled);
+   }
+
+   /**
+    * @param compiled if true the filter is compiled into a lock free {@link CompiledFilter}
+    *           instead of being interpreted by a {@link FilterImpl}
+    * @return null if <code>filterStr</code> is null or an empty String and a valid filter else
+    * @throws HornetQException if the string does not correspond to a valid filter
+    */
+   public static Filter createFilter(final SimpleString filterStr, final boolean compiled) throws HornetQException
    {
       if (filterStr == null || filterStr.length() == 0)
       {
          return null;
       }
+      else if (compiled)
+      {
+         return CompiledFilter.compile(filterStr);
+      }
       else
       {
          return new FilterImpl(filterStr);
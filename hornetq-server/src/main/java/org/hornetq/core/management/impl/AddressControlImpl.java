@@ -227,6 +227,45 @@ public class AddressControlImpl extends AbstractControl implements AddressContro
       }
    }
 
+   public long getPageCacheHits() throws Exception
+   {
+      clearIO();
+      try
+      {
+         return pagingManager.getPageStore(address).getCursorProvider().getCacheHits();
+      }
+      finally
+      {
+         blockOnIO();
+      }
+   }
+
+   public long getPageCacheMisses() throws Exception
+   {
+      clearIO();
+      try
+      {
+         return pagingManager.getPageStore(address).getCursorProvider().getCacheMisses();
+      }
+      finally
+      {
+         blockOnIO();
+      }
+   }
+
+   public long getPageCacheEvictions() throws Exception
+   {
+      clearIO();
+      try
+      {
+         return pagingManager.getPageStore(address).getCursorProvider().getCacheEvictions();
+      }
+      finally
+      {
+         blockOnIO();
+      }
+   }
+
    @Override
    protected MBeanOperationInfo[] fillMBeanOperationInfo()
    {
@@ -282,6 +282,66 @@ public class HornetQServerControlImpl extends AbstractControl implements HornetQ
       }
    }
 
+   public boolean isJournalAdaptiveBufferTimeout()
+   {
+      checkStarted();
+
+      clearIO();
+      try
+      {
+         return configuration.isJournalAdaptiveBufferTimeout();
+      }
+      finally
+      {
+         blockOnIO();
+      }
+   }
+
+   public long getJournalBufferCurrentTimeout()
+   {
+      checkStarted();
+
+      clearIO();
+      try
+      {
+         return server.getStorageManager().getJournalBufferCurrentTimeout();
+      }
+      finally
+      {
+         blockOnIO();
+      }
+   }
+
+   public long getJournalBufferAverageSyncTime()
+   {
+      checkStarted();
+
+      clearIO();
+      try
+      {
+         return server.getStorageManager().getJournalBufferAverageSyncTime();
+      }
+      finally
+      {
+         blockOnIO();
+      }
+   }
+
+   public double getJournalBufferAverageBatchSize()
+   {
+      checkStarted();
+
+      clearIO();
+      try
+      {
+         return server.getStorageManager().getJournalBufferAverageBatchSize();
+      }
+      finally
+      {
+         blockOnIO();
+      }
+   }
+
    public void setFailoverOnServerShutdown(boolean failoverOnServerShutdown)
    {
       checkStarted();
@@ -1503,12 +1563,15 @@ public class HornetQServerControlImpl extends AbstractControl implements HornetQ
       settings.put("expiryDelay", addressSettings.getExpiryDelay());
       settings.put("maxDeliveryAttempts", addressSettings.getMaxDeliveryAttempts());
       settings.put("pageCacheMaxSize", addressSettings.getPageCacheMaxSize());
+      settings.put("pageCacheMaxBytes", addressSettings.getPageCacheMaxBytes());
+      settings.put("pageReadMapped", addressSettings.isPageReadMapped());
       settings.put("maxSizeBytes", addressSettings.getMaxSizeBytes());
       settings.put("pageSizeBytes", addressSettings.getPageSizeBytes());
       settings.put("redeliveryDelay", addressSettings.getRedeliveryDelay());
       settings.put("redeliveryMultiplier", addressSettings.getRedeliveryMultiplier());
       settings.put("maxRedeliveryDelay", addressSettings.getMaxRedeliveryDelay());
       settings.put("redistributionDelay", addressSettings.getRedistributionDelay());
+      settings.put("redistributionBatchSize", addressSettings.getRedistributionBatchSize());
       settings.put("lastValueQueue", addressSettings.isLastValueQueue());
       settings.put("sendToDLAOnNoRoute", addressSettings.isSendToDLAOnNoRoute());
       String policy = addressSettings.getAddressFullMessagePolicy() == AddressFullMessagePolicy.PAGE ? "PAGE"
@@ -1516,6 +1579,8 @@ public class HornetQServerControlImpl extends AbstractControl implements HornetQ
             : addressSettings.getAddressFullMessagePolicy() == AddressFullMessagePolicy.DROP ? "DROP"
             : "FAIL";
       settings.put("addressFullMessagePolicy", policy);
+      settings.put("duplicateIDCacheType", addressSettings.getDuplicateIDCacheType().toString());
+      settings.put("batchedIntake", addressSettings.isBatchedIntake());
 
       JSONObject jsonObject = new JSONObject(settings);
       return jsonObject.toString();
@@ -471,26 +471,8 @@ public class QueueControlImpl extends AbstractControl implements QueueControl
       try
       {
          Filter filter = FilterImpl.createFilter(filterStr);
-         List<Map<String, Object>> messages = new ArrayList<Map<String, Object>>();
          queue.flushExecutor();
-         LinkedListIterator<MessageReference> iterator = queue.iterator();
-         try
-         {
-            while (iterator.hasNext())
-            {
-               MessageReference ref = iterator.next();
-               if (filter == null || filter.match(ref.getMessage()))
-               {
-                  Message message = ref.getMessage();
-                  messages.add(message.toMap());
-               }
-            }
-            return messages.toArray(new Map[messages.size()]);
-         }
-         finally
-         {
-            iterator.close();
-         }
+         return toMaps(queue.iterator(), filter, 0, Integer.MAX_VALUE);
       }
       catch (HornetQException e)
       {
@@ -502,14 +484,64 @@ public class QueueControlImpl extends AbstractControl implements QueueControl
       }
    }
 
-   public String listMessagesAsJSON(final String filter) throws Exception
+   public String listMessagesAsJSON(final String filterStr) throws Exception
    {
       checkStarted();
 
       clearIO();
       try
       {
-         return QueueControlImpl.toJSON(listMessages(filter));
+         Filter filter = FilterImpl.createFilter(filterStr);
+         queue.flushExecutor();
+         return toJSON(queue.iterator(), filter, 0, Integer.MAX_VALUE);
+      }
+      catch (HornetQException e)
+      {
+         throw new IllegalStateException(e.getMessage());
+      }
+      finally
+      {
+         blockOnIO();
+      }
+   }
+
+   public Map<String, Object>[] browseMessages(final String filterStr, final int offset, final int limit) throws Exception
+   {
+      checkStarted();
+      checkPage(offset, limit);
+
+      clearIO();
+      try
+      {
+         Filter filter = FilterImpl.createFilter(filterStr);
+         queue.flushExecutor();
+         return toMaps(queue.browserIterator(), filter, offset, limit);
+      }
+      catch (HornetQException e)
+      {
+         throw new IllegalStateException(e.getMessage());
+      }
+      finally
+      {
+         blockOnIO();
+      }
+   }
+
+   public String browseMessagesAsJSON(final String filterStr, final int offset, final int limit) throws Exception
+   {
+      checkStarted();
+      checkPage(offset, limit);
+
+      clearIO();
+      try
+      {
+         Filter filter = FilterImpl.createFilter(filterStr);
+         queue.flushExecutor();
+         return toJSON(queue.browserIterator(), filter, offset, limit);
+      }
+      catch (HornetQException e)
+      {
+         throw new IllegalStateException(e.getMessage());
       }
       finally
       {
@@ -937,6 +969,95 @@ public class QueueControlImpl extends AbstractControl implements QueueControl
 
    // Private -------------------------------------------------------
 
+   private static void checkPage(final int offset, final int limit)
+   {
+      if (offset < 0 || limit < 0)
+      {
+         throw new IllegalArgumentException("offset and limit can not be negative: offset=" + offset + ", limit=" + limit);
+      }
+   }
+
+   private static Map<String, Object>[] toMaps(final LinkedListIterator<MessageReference> iterator,
+                                               final Filter filter,
+                                               final int offset,
+                                               final int limit)
+   {
+      final List<Map<String, Object>> messages = new ArrayList<Map<String, Object>>();
+
+      visit(iterator, filter, offset, limit, new MessageVisitor()
+      {
+         public void visit(final Message message)
+         {
+            messages.add(message.toMap());
+         }
+      });
+
+      return messages.toArray(new Map[messages.size()]);
+   }
+
+   /**
+    * Writes the messages one at a time, only the JSON text is kept and not all the messages as maps.
+    */
+   private static String toJSON(final LinkedListIterator<MessageReference> iterator,
+                                final Filter filter,
+                                final int offset,
+                                final int limit)
+   {
+      final StringBuilder json = new StringBuilder("[");
+
+      visit(iterator, filter, offset, limit, new MessageVisitor()
+      {
+         public void visit(final Message message)
+         {
+            if (json.length() > 1)
+            {
+               json.append(',');
+            }
+            json.append(new JSONObject(message.toMap()));
+         }
+      });
+
+      return json.append(']').toString();
+   }
+
+   /**
+    * Hands over to the visitor the messages matching the filter, skipping the first {@code offset}
+    * ones and stopping after {@code limit} ones.
+    */
+   private static void visit(final LinkedListIterator<MessageReference> iterator,
+                             final Filter filter,
+                             final int offset,
+                             final int limit,
+                             final MessageVisitor visitor)
+   {
+      try
+      {
+         int skipped = 0;
+         int visited = 0;
+
+         while (visited < limit && iterator.hasNext())
+         {
+            MessageReference ref = iterator.next();
+            if (filter == null || filter.match(ref.getMessage()))
+            {
+               if (skipped < offset)
+               {
+                  skipped++;
+               }
+               else
+               {
+                  visitor.visit(ref.getMessage());
+                  visited++;
+               }
+            }
+         }
+      }
+      finally
+      {
+         iterator.close();
+      }
+   }
+
    private void checkStarted()
    {
       if (!postOffice.isStarted())
@@ -946,4 +1067,9 @@ public class QueueControlImpl extends AbstractControl implements QueueControl
    }
 
    // Inner classes -------------------------------------------------
+
+   private interface MessageVisitor
+   {
+      void visit(Message message);
+   }
 }
@@ -14,7 +14,7 @@
 package org.hornetq.core.paging;
 
 import java.util.Collection;
-import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
+import java.util.concurrent.locks.Lock;
 
 import org.hornetq.api.core.SimpleString;
 import org.hornetq.core.journal.SequentialFile;
@@ -82,7 +82,7 @@ public interface PagingStore extends HornetQComponent
     *         needs to be sent to the journal
     * @throws NullPointerException if {@code readLock} is null
     */
-   boolean page(ServerMessage message, Transaction tx, RouteContextList listCtx, ReadLock readLock) throws Exception;
+   boolean page(ServerMessage message, Transaction tx, RouteContextList listCtx, Lock readLock) throws Exception;
 
    Page createPage(final int page) throws Exception;
 
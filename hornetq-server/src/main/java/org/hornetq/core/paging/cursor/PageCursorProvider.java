@@ -67,6 +67,37 @@ public interface PageCursorProvider
 
    void setCacheMaxSize(int size);
 
+   long getCacheMaxBytes();
+
+   /**
+    * @param maxBytes the maximum number of bytes used by the cached pages, -1 to keep up to
+    *           {@link #getCacheMaxSize()} pages with soft references
+    */
+   void setCacheMaxBytes(long maxBytes);
+
+   boolean isReadMapped();
+
+   /**
+    * @param readMapped whether to map the page files into memory and decode their messages as
+    *           they are needed, instead of reading and decoding the whole page files
+    */
+   void setReadMapped(boolean readMapped);
+
+   /**
+    * Returns the number of times a page was found on the cache.
+    */
+   long getCacheHits();
+
+   /**
+    * Returns the number of times a page had to be read as it was not on the cache.
+    */
+   long getCacheMisses();
+
+   /**
+    * Returns the number of pages removed from the cache to keep it within {@link #getCacheMaxBytes()}.
+    */
+   long getCacheEvictions();
+
    /**
     * @param pageCursorImpl
     */
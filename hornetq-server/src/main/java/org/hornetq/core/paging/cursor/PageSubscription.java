@@ -57,6 +57,12 @@ public interface PageSubscription
 
    public LinkedListIterator<PagedReference> iterator();
 
+   /**
+    * @return an iterator over the messages of this subscription still in the pages which leaves the
+    *         subscription untouched, to browse the messages without delivering them
+    */
+   LinkedListIterator<PagedReference> browserIterator();
+
    // To be called when the cursor is closed for good. Most likely when the queue is deleted
    void destroy() throws Exception;
 
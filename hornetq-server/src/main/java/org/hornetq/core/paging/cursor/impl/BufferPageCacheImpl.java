@@ -0,0 +1,218 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.paging.cursor.impl;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.hornetq.core.paging.PagedMessage;
+import org.hornetq.core.paging.cursor.PageCache;
+import org.hornetq.core.paging.impl.EncodedPage;
+import org.hornetq.core.paging.impl.Page;
+import org.hornetq.core.persistence.StorageManager;
+
+/**
+ * A page cache keeping the encoded messages of the page off the heap, copied into a direct buffer
+ * or mapped from the page file.
+ * <p>
+ * Messages are only decoded when they are asked for. A decoded message is shared for as long as
+ * anybody references it, after that it is decoded again from the buffer instead of being read
+ * from the page file.
+ *
+ * @see PageCursorProviderImpl#setCacheMaxBytes(long)
+ * @see PageCursorProviderImpl#setReadMapped(boolean)
+ */
+class BufferPageCacheImpl implements PageCache
+{
+
+   // Attributes ----------------------------------------------------
+
+   private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+   private final Page page;
+
+   private final StorageManager storageManager;
+
+   private EncodedPage encodedPage;
+
+   private volatile int memorySize;
+
+   private AtomicReferenceArray<WeakReference<PagedMessage>> decodedMessages;
+
+   // Constructors --------------------------------------------------
+
+   public BufferPageCacheImpl(final Page page, final StorageManager storageManager)
+   {
+      this.page = page;
+      this.storageManager = storageManager;
+   }
+
+   // Public --------------------------------------------------------
+
+   @Override
+   public Page getPage()
+   {
+      return page;
+   }
+
+   public long getPageId()
+   {
+      return page.getPageId();
+   }
+
+   public void setEncodedPage(final EncodedPage encodedPage)
+   {
+      this.encodedPage = encodedPage;
+      memorySize = encodedPage.getBufferSize();
+      decodedMessages = new AtomicReferenceArray<WeakReference<PagedMessage>>(encodedPage.getNumberOfMessages());
+   }
+
+   /**
+    * Returns the number of bytes kept by this cache, 0 while the page is being read.
+    */
+   public int getMemorySize()
+   {
+      return memorySize;
+   }
+
+   @Override
+   public PagedMessage getMessage(final int messageNumber)
+   {
+      lock.readLock().lock();
+      try
+      {
+         if (messageNumber >= encodedPage.getNumberOfMessages())
+         {
+            return null;
+         }
+
+         WeakReference<PagedMessage> ref = decodedMessages.get(messageNumber);
+
+         PagedMessage message = ref == null ? null : ref.get();
+
+         if (message == null)
+         {
+            message = encodedPage.decode(messageNumber, storageManager);
+
+            if (!decodedMessages.compareAndSet(messageNumber, ref, new WeakReference<PagedMessage>(message)))
+            {
+               // another thread decoded it at the same time, use the same instance if it still can
+               ref = decodedMessages.get(messageNumber);
+               PagedMessage other = ref == null ? null : ref.get();
+               if (other != null)
+               {
+                  message = other;
+               }
+            }
+         }
+
+         return message;
+      }
+      finally
+      {
+         lock.readLock().unlock();
+      }
+   }
+
+   public void lock()
+   {
+      lock.writeLock().lock();
+   }
+
+   public void unlock()
+   {
+      lock.writeLock().unlock();
+   }
+
+   /**
+    * Encodes the messages into the buffer of this cache. The instances are kept for as long as
+    * anybody references them.
+    */
+   public void setMessages(final PagedMessage[] messages)
+   {
+      setEncodedPage(EncodedPage.encode(page.getPageId(), messages));
+
+      for (int i = 0; i < messages.length; i++)
+      {
+         decodedMessages.set(i, new WeakReference<PagedMessage>(messages[i]));
+      }
+   }
+
+   public int getNumberOfMessages()
+   {
+      lock.readLock().lock();
+      try
+      {
+         return encodedPage.getNumberOfMessages();
+      }
+      finally
+      {
+         lock.readLock().unlock();
+      }
+   }
+
+   public void close()
+   {
+   }
+
+   @Override
+   public boolean isLive()
+   {
+      return false;
+   }
+
+   @Override
+   public String toString()
+   {
+      return "BufferPageCacheImpl::page=" + page.getPageId() + " encodedPage = " + encodedPage;
+   }
+
+   /**
+    * Returns the large messages of the page only, as needed to delete it.
+    */
+   public PagedMessage[] getLargeMessages()
+   {
+      int numberOfMessages = getNumberOfMessages();
+
+      ArrayList<PagedMessage> largeMessages = new ArrayList<PagedMessage>();
+
+      for (int i = 0; i < numberOfMessages; i++)
+      {
+         if (encodedPage.isLargeMessage(i))
+         {
+            largeMessages.add(getMessage(i));
+         }
+      }
+
+      return largeMessages.toArray(new PagedMessage[largeMessages.size()]);
+   }
+
+   @Override
+   public PagedMessage[] getMessages()
+   {
+      int numberOfMessages = getNumberOfMessages();
+
+      PagedMessage[] messages = new PagedMessage[numberOfMessages];
+
+      for (int i = 0; i < numberOfMessages; i++)
+      {
+         messages[i] = getMessage(i);
+      }
+
+      return messages;
+   }
+}
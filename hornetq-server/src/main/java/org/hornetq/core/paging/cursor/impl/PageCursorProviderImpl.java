@@ -15,7 +15,11 @@ package org.hornetq.core.paging.cursor.impl;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
@@ -37,6 +41,7 @@ import org.hornetq.core.server.HornetQServerLogger;
 import org.hornetq.utils.FutureLatch;
 import org.hornetq.utils.SoftValueHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 /**
  * A PageProviderIMpl
  *
@@ -69,6 +74,22 @@ public class PageCursorProviderImpl implements PageCursorProvider
 
    private final SoftValueHashMap<Long, PageCache> softCache;
 
+   /**
+    * Used instead of the softCache when the cache is bounded by size, in least recently used order.
+    * Guarded by the softCache, as any cache access.
+    */
+   private LinkedHashMap<Long, PageCache> boundedCache;
+
+   private long maxCacheBytes = -1;
+
+   private volatile boolean readMapped;
+
+   private final AtomicLong cacheHits = new AtomicLong(0);
+
+   private final AtomicLong cacheMisses = new AtomicLong(0);
+
+   private final AtomicLong cacheEvictions = new AtomicLong(0);
+
    private final ConcurrentMap<Long, PageSubscription> activeCursors = new ConcurrentHashMap<Long, PageSubscription>();
 
    // Static --------------------------------------------------------
@@ -152,7 +173,7 @@ public class PageCursorProviderImpl implements PageCursorProvider
                return null;
             }
 
-            cache = softCache.get(pageId);
+            cache = getCaches().get(pageId);
             if (cache == null)
             {
                if (!pagingStore.checkPageFileExists((int)pageId))
@@ -160,7 +181,9 @@ public class PageCursorProviderImpl implements PageCursorProvider
                   return null;
                }
 
-               cache = createPageCache(pageId);
+               cacheMisses.incrementAndGet();
+
+               cache = boundedCache != null || readMapped ? createBufferPageCache(pageId) : createPageCache(pageId);
                needToRead = true;
                // anyone reading from this cache will have to wait reading to finish first
                // we also want only one thread reading this cache
@@ -169,7 +192,11 @@ public class PageCursorProviderImpl implements PageCursorProvider
                {
                   HornetQServerLogger.LOGGER.trace("adding " + pageId +  " into cursor = " + this.pagingStore.getAddress());
                }
-               softCache.put(pageId, cache);
+               getCaches().put(pageId, cache);
+            }
+            else
+            {
+               cacheHits.incrementAndGet();
             }
          }
 
@@ -185,8 +212,15 @@ public class PageCursorProviderImpl implements PageCursorProvider
                storageManager.beforePageRead();
                page.open();
 
-               List<PagedMessage> pgdMessages = page.read(storageManager);
-               cache.setMessages(pgdMessages.toArray(new PagedMessage[pgdMessages.size()]));
+               if (cache instanceof BufferPageCacheImpl)
+               {
+                  ((BufferPageCacheImpl)cache).setEncodedPage(page.readEncoded(storageManager, readMapped));
+               }
+               else
+               {
+                  List<PagedMessage> pgdMessages = page.read(storageManager);
+                  cache.setMessages(pgdMessages.toArray(new PagedMessage[pgdMessages.size()]));
+               }
             }
             finally
             {
@@ -203,6 +237,12 @@ public class PageCursorProviderImpl implements PageCursorProvider
                storageManager.afterPageRead();
                cache.unlock();
             }
+
+            // the size of the cache is only known once it was read
+            synchronized (softCache)
+            {
+               checkCacheBytes();
+            }
          }
 
          return cache;
@@ -217,7 +257,8 @@ public class PageCursorProviderImpl implements PageCursorProvider
    {
       synchronized (softCache)
       {
-         softCache.put(cache.getPageId(), cache);
+         getCaches().put(cache.getPageId(), cache);
+         checkCacheBytes();
       }
    }
 
@@ -231,11 +272,84 @@ public class PageCursorProviderImpl implements PageCursorProvider
       softCache.setMaxElements(size);
    }
 
+   /**
+    * Bounds the cache by the memory used by the pages instead of by their number.
+    * <p>
+    * The pages read into a cache bounded by size keep their encoded messages off the heap, and
+    * the least recently used pages are evicted when the cache grows beyond the size. Pages that
+    * are still being written are not evicted.
+    *
+    * @param maxBytes the maximum size of the cache, -1 to let the GC decide with soft references
+    *           up to {@link #getCacheMaxSize()} pages
+    */
+   public void setCacheMaxBytes(final long maxBytes)
+   {
+      synchronized (softCache)
+      {
+         if (maxBytes > 0 && boundedCache == null)
+         {
+            boundedCache = new LinkedHashMap<Long, PageCache>(16, 0.75f, true);
+            // the use of the pages is not known, older pages are considered the least recently used
+            boundedCache.putAll(new TreeMap<Long, PageCache>(softCache));
+            softCache.clear();
+         }
+         else if (maxBytes <= 0 && boundedCache != null)
+         {
+            for (PageCache cache : boundedCache.values())
+            {
+               softCache.put(cache.getPageId(), cache);
+            }
+            boundedCache = null;
+         }
+
+         maxCacheBytes = maxBytes;
+
+         checkCacheBytes();
+      }
+   }
+
+   public long getCacheMaxBytes()
+   {
+      synchronized (softCache)
+      {
+         return maxCacheBytes;
+      }
+   }
+
+   /**
+    * Maps the page files into memory instead of reading them, their messages are then decoded as
+    * they are iterated.
+    */
+   public void setReadMapped(final boolean readMapped)
+   {
+      this.readMapped = readMapped;
+   }
+
+   public boolean isReadMapped()
+   {
+      return readMapped;
+   }
+
+   public long getCacheHits()
+   {
+      return cacheHits.get();
+   }
+
+   public long getCacheMisses()
+   {
+      return cacheMisses.get();
+   }
+
+   public long getCacheEvictions()
+   {
+      return cacheEvictions.get();
+   }
+
    public int getCacheSize()
    {
       synchronized (softCache)
       {
-         return softCache.size();
+         return getCaches().size();
       }
    }
 
@@ -507,7 +621,7 @@ public class PageCursorProviderImpl implements PageCursorProvider
             PagedMessage[] pgdMessages;
             synchronized (softCache)
             {
-               cache = softCache.get((long)depagedPage.getPageId());
+               cache = getCaches().get((long)depagedPage.getPageId());
             }
 
             if (isTrace)
@@ -520,13 +634,13 @@ public class PageCursorProviderImpl implements PageCursorProvider
                // The page is not on cache any more
                // We need to read the page-file before deleting it
                // to make sure we remove any large-messages pending
+               // only the large messages are decoded as the others are not needed for that
                storageManager.beforePageRead();
 
-               List<PagedMessage> pgdMessagesList = null;
                try
                {
                   depagedPage.open();
-                  pgdMessagesList = depagedPage.read(storageManager);
+                  pgdMessages = depagedPage.readLargeMessages(storageManager);
                }
                finally
                {
@@ -541,7 +655,10 @@ public class PageCursorProviderImpl implements PageCursorProvider
                   storageManager.afterPageRead();
                }
                depagedPage.close();
-               pgdMessages = pgdMessagesList.toArray(new PagedMessage[pgdMessagesList.size()]);
+            }
+            else if (cache instanceof BufferPageCacheImpl)
+            {
+               pgdMessages = ((BufferPageCacheImpl)cache).getLargeMessages();
             }
             else
             {
@@ -553,7 +670,7 @@ public class PageCursorProviderImpl implements PageCursorProvider
 
             synchronized (softCache)
             {
-               softCache.remove((long)depagedPage.getPageId());
+               getCaches().remove((long)depagedPage.getPageId());
             }
          }
       }
@@ -616,7 +733,12 @@ public class PageCursorProviderImpl implements PageCursorProvider
    public void printDebug()
    {
       System.out.println("Debug information for PageCursorProviderImpl:");
-      for (PageCache cache : softCache.values())
+      Collection<PageCache> caches;
+      synchronized (softCache)
+      {
+         caches = new ArrayList<PageCache>(getCaches().values());
+      }
+      for (PageCache cache : caches)
       {
          System.out.println("Cache " + cache);
       }
@@ -632,8 +754,81 @@ public class PageCursorProviderImpl implements PageCursorProvider
       return new PageCacheImpl(pagingStore.createPage((int)pageId));
    }
 
+   /* Protected as we may let test cases to instrument the test */
+   protected BufferPageCacheImpl createBufferPageCache(final long pageId) throws Exception
+   {
+      return new BufferPageCacheImpl(pagingStore.createPage((int)pageId), storageManager);
+   }
+
    // Private -------------------------------------------------------
 
+   /**
+    * Must be called while holding the softCache
+    */
+   private Map<Long, PageCache> getCaches()
+   {
+      return boundedCache != null ? boundedCache : softCache;
+   }
+
+   /**
+    * Evicts the least recently used pages until the cache fits in {@link #maxCacheBytes}, keeping
+    * at least the most recently used one. Must be called while holding the softCache.
+    */
+   private void checkCacheBytes()
+   {
+      if (boundedCache == null)
+      {
+         return;
+      }
+
+      long cacheBytes = 0;
+
+      for (PageCache cache : boundedCache.values())
+      {
+         cacheBytes += getMemorySize(cache);
+      }
+
+      Iterator<PageCache> iter = boundedCache.values().iterator();
+
+      // the last one is the most recently used
+      int evictable = boundedCache.size() - 1;
+
+      for (int i = 0; i < evictable && cacheBytes > maxCacheBytes; i++)
+      {
+         PageCache cache = iter.next();
+
+         if (cache.isLive())
+         {
+            continue;
+         }
+
+         if (isTrace)
+         {
+            HornetQServerLogger.LOGGER.trace("Evicting page " + cache.getPageId() + " from page-cache on address = " +
+                                             pagingStore.getAddress());
+         }
+
+         cacheBytes -= getMemorySize(cache);
+
+         iter.remove();
+
+         cacheEvictions.incrementAndGet();
+      }
+   }
+
+   private static long getMemorySize(final PageCache cache)
+   {
+      if (cache instanceof BufferPageCacheImpl)
+      {
+         return ((BufferPageCacheImpl)cache).getMemorySize();
+      }
+      else
+      {
+         // the messages of the other caches are on the heap, their size is estimated by the page file
+         return cache.getPage().getSize();
+      }
+   }
+
    /**
     * This method is synchronized because we want it to be atomic with the cursors being used
     */
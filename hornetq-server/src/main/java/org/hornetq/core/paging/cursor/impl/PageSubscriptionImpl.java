@@ -22,6 +22,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
@@ -385,6 +386,11 @@ class PageSubscriptionImpl implements PageSubscription
       return new CursorIterator();
    }
 
+   public LinkedListIterator<PagedReference> browserIterator()
+   {
+      return new BrowserIterator();
+   }
+
    private PagedReference internalGetNext(final PagePosition pos)
    {
       PagePosition retPos = pos.nextMessage();
@@ -1464,4 +1470,138 @@ class PageSubscriptionImpl implements PageSubscription
       }
    }
 
+   /**
+    * Iterates over the messages of the subscription still in the pages without changing the
+    * subscription: the redeliveries are left to the queue, nothing is acknowledged or ignored and
+    * the messages of pending transactions are skipped instead of being scheduled for delivery.
+    * <p>
+    * The messages taken into the queue or acknowledged are removed from the pages, so they are
+    * not returned again.
+    */
+   private class BrowserIterator implements LinkedListIterator<PagedReference>
+   {
+      private PagePosition position = null;
+
+      private PagePosition lastPosition = null;
+
+      private PagedReference cachedNext;
+
+      public synchronized void repeat()
+      {
+         position = lastPosition;
+      }
+
+      public synchronized boolean hasNext()
+      {
+         if (cachedNext != null)
+         {
+            return true;
+         }
+
+         cachedNext = fetchNext();
+
+         return cachedNext != null;
+      }
+
+      public synchronized PagedReference next()
+      {
+         if (cachedNext != null)
+         {
+            PagedReference next = cachedNext;
+            cachedNext = null;
+            return next;
+         }
+
+         PagedReference next = fetchNext();
+
+         if (next == null)
+         {
+            throw new NoSuchElementException();
+         }
+
+         return next;
+      }
+
+      /**
+       * The subscription is only held while reading one message at a time, so its consumers are
+       * not blocked for as long as many pages are browsed.
+       *
+       * @return the next message to browse or null if there is none
+       */
+      private PagedReference fetchNext()
+      {
+         if (!pageStore.isPaging())
+         {
+            return null;
+         }
+
+         for (;;)
+         {
+            synchronized (PageSubscriptionImpl.this)
+            {
+               if (position == null)
+               {
+                  position = getStartPosition();
+               }
+
+               PagedReference message = internalGetNext(position);
+
+               if (message == null)
+               {
+                  return null;
+               }
+
+               PagePosition previous = position;
+
+               position = message.getPosition();
+
+               if (isBrowsable(message))
+               {
+                  lastPosition = previous;
+
+                  return message;
+               }
+            }
+         }
+      }
+
+      private boolean isBrowsable(final PagedReference message)
+      {
+         if (!routed(message.getPagedMessage()))
+         {
+            return false;
+         }
+
+         PageCursorInfo info = getPageInfo(message.getPosition().getPageNr(), false);
+
+         if (info != null && (info.isPendingDelete() || info.isRemoved(message.getPosition())))
+         {
+            return false;
+         }
+
+         long txID = message.getPagedMessage().getTransactionID();
+
+         if (txID >= 0)
+         {
+            PageTransactionInfo tx = pageStore.getPagingManager().getTransaction(txID);
+
+            if (tx == null || !tx.isCommit())
+            {
+               return false;
+            }
+         }
+
+         return match(message.getMessage());
+      }
+
+      public void remove()
+      {
+         throw new UnsupportedOperationException("a browser can't remove messages");
+      }
+
+      public void close()
+      {
+      }
+   }
+
 }
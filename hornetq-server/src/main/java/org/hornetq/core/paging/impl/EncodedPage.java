@@ -0,0 +1,148 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.paging.impl;
+
+import java.nio.ByteBuffer;
+
+import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.HornetQBuffers;
+import org.hornetq.core.paging.PagedMessage;
+import org.hornetq.core.persistence.StorageManager;
+import org.hornetq.utils.DataConstants;
+
+/**
+ * The messages of a page as they were encoded on the page file.
+ * <p>
+ * The records of the page are kept on a buffer, which may be the page file mapped into memory,
+ * with the position of each message, so any message can be decoded without decoding the ones
+ * before it. Decoding does not change the buffer and may be done by several threads at once.
+ *
+ * @see Page#readEncoded(StorageManager, boolean)
+ */
+public final class EncodedPage
+{
+   // Attributes ----------------------------------------------------
+
+   private final int pageId;
+
+   private final ByteBuffer buffer;
+
+   // the size of each message is written just before it, as on the page file
+   private final int[] positions;
+
+   private final boolean mapped;
+
+   // Constructors --------------------------------------------------
+
+   public EncodedPage(final int pageId, final ByteBuffer buffer, final int[] positions, final boolean mapped)
+   {
+      this.pageId = pageId;
+      this.buffer = buffer;
+      this.positions = positions;
+      this.mapped = mapped;
+   }
+
+   /**
+    * Encodes messages as they would be read from a page file, on a buffer off the heap.
+    */
+   public static EncodedPage encode(final int pageId, final PagedMessage[] messages)
+   {
+      int size = 0;
+
+      for (PagedMessage message : messages)
+      {
+         size += DataConstants.SIZE_INT + message.getEncodeSize();
+      }
+
+      ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+
+      HornetQBuffer wrap = HornetQBuffers.wrappedBuffer(buffer);
+      wrap.clear();
+
+      int[] positions = new int[messages.length];
+
+      for (int i = 0; i < messages.length; i++)
+      {
+         wrap.writeInt(messages[i].getEncodeSize());
+         positions[i] = wrap.writerIndex();
+         messages[i].encode(wrap);
+      }
+
+      return new EncodedPage(pageId, buffer, positions, false);
+   }
+
+   // Public --------------------------------------------------------
+
+   public int getPageId()
+   {
+      return pageId;
+   }
+
+   public int getNumberOfMessages()
+   {
+      return positions.length;
+   }
+
+   /**
+    * Returns the number of bytes of the buffer holding the messages.
+    */
+   public int getBufferSize()
+   {
+      return buffer.capacity();
+   }
+
+   /**
+    * Returns whether the buffer is the page file mapped into memory.
+    */
+   public boolean isMapped()
+   {
+      return mapped;
+   }
+
+   /**
+    * Returns whether a message is a large message without decoding it.
+    */
+   public boolean isLargeMessage(final int messageNumber)
+   {
+      // as encoded by PagedMessageImpl, after the transaction ID
+      return buffer.get(positions[messageNumber] + DataConstants.SIZE_LONG) != 0;
+   }
+
+   /**
+    * Decodes a message of the page. Every call returns a new instance.
+    */
+   public PagedMessage decode(final int messageNumber, final StorageManager storage)
+   {
+      int position = positions[messageNumber];
+
+      ByteBuffer messageBuffer = buffer.duplicate();
+      messageBuffer.limit(position + buffer.getInt(position - DataConstants.SIZE_INT));
+      messageBuffer.position(position);
+
+      HornetQBuffer wrapped = HornetQBuffers.wrappedBuffer(messageBuffer.slice());
+      wrapped.writerIndex(wrapped.capacity());
+
+      PagedMessage msg = new PagedMessageImpl();
+      msg.decode(wrapped);
+      msg.initMessage(storage);
+
+      return msg;
+   }
+
+   @Override
+   public String toString()
+   {
+      return "EncodedPage::pageID=" + pageId + ", numberOfMessages=" + getNumberOfMessages() + ", mapped=" + isMapped();
+   }
+}
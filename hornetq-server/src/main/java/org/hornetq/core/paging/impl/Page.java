@@ -15,6 +15,7 @@ package org.hornetq.core.paging.impl;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -23,6 +24,7 @@ import org.hornetq.api.core.HornetQBuffers;
 import org.hornetq.api.core.SimpleString;
 import org.hornetq.core.journal.SequentialFile;
 import org.hornetq.core.journal.SequentialFileFactory;
+import org.hornetq.core.journal.impl.NIOSequentialFile;
 import org.hornetq.core.paging.PagedMessage;
 import org.hornetq.core.paging.cursor.LivePageCache;
 import org.hornetq.core.persistence.StorageManager;
@@ -122,59 +124,28 @@ public class Page implements Comparable<Page>
 
       try
       {
+         HornetQBuffer fileBuffer = readFile(directBuffer);
 
-         file.position(0);
-         file.read(directBuffer);
-
-         directBuffer.rewind();
-
-         HornetQBuffer fileBuffer = HornetQBuffers.wrappedBuffer(directBuffer);
-         fileBuffer.writerIndex(fileBuffer.capacity());
-
-         while (fileBuffer.readable())
+         for (int position : scanMessages(fileBuffer))
          {
-            final int position = fileBuffer.readerIndex();
+            fileBuffer.readerIndex(position);
 
-            byte byteRead = fileBuffer.readByte();
-
-            if (byteRead == Page.START_BYTE)
+            PagedMessage msg = new PagedMessageImpl();
+            msg.decode(fileBuffer);
+            byte b = fileBuffer.readByte();
+            if (b != Page.END_BYTE)
             {
-               if (fileBuffer.readerIndex() + DataConstants.SIZE_INT < fileBuffer.capacity())
-               {
-                  int messageSize = fileBuffer.readInt();
-                  int oldPos = fileBuffer.readerIndex();
-                  if (fileBuffer.readerIndex() + messageSize < fileBuffer.capacity() &&
-                           fileBuffer.getByte(oldPos + messageSize) == Page.END_BYTE)
-                  {
-                     PagedMessage msg = new PagedMessageImpl();
-                     msg.decode(fileBuffer);
-                     byte b = fileBuffer.readByte();
-                     if (b != Page.END_BYTE)
-                     {
-                        // Sanity Check: This would only happen if there is a bug on decode or any internal code, as
-                        // this
-                        // constraint was already checked
-                        throw new IllegalStateException("Internal error, it wasn't possible to locate END_BYTE " + b);
-                     }
-                     msg.initMessage(storage);
-                     if (isTrace)
-                     {
-                        HornetQServerLogger.LOGGER.trace("Reading message " + msg + " on pageId=" + this.pageId + " for address=" + storeName);
-                     }
-                     messages.add(msg);
-                  }
-                  else
-                  {
-                     markFileAsSuspect(file.getFileName(), position, messages.size());
-                     break;
-                  }
-               }
+               // Sanity Check: This would only happen if there is a bug on decode or any internal code, as
+               // this
+               // constraint was already checked
+               throw new IllegalStateException("Internal error, it wasn't possible to locate END_BYTE " + b);
             }
-            else
+            msg.initMessage(storage);
+            if (isTrace)
             {
-               markFileAsSuspect(file.getFileName(), position, messages.size());
-               break;
+               HornetQServerLogger.LOGGER.trace("Reading message " + msg + " on pageId=" + this.pageId + " for address=" + storeName);
             }
+            messages.add(msg);
          }
       }
       finally
@@ -187,6 +158,120 @@ public class Page implements Comparable<Page>
       return messages;
    }
 
+   /**
+    * Reads the messages of this page without decoding them, so they can be decoded one by one when
+    * needed.
+    * <p>
+    * When the page is mapped its file is not copied and is only loaded as the messages are
+    * decoded, otherwise the valid records of the page are copied into a direct buffer sized to
+    * them.
+    *
+    * @param mapped whether to map the page file into memory, only possible when it is a NIO file
+    */
+   public synchronized EncodedPage readEncoded(StorageManager storage, boolean mapped) throws Exception
+   {
+      if (isDebug)
+      {
+         HornetQServerLogger.LOGGER.debug("reading encoded page " + this.pageId + " on address = " + storeName);
+      }
+
+      if (!file.isOpen())
+      {
+         throw HornetQMessageBundle.BUNDLE.invalidPageIO();
+      }
+
+      size.set((int)file.size());
+
+      if (mapped && file instanceof NIOSequentialFile)
+      {
+         ByteBuffer mappedBuffer = ((NIOSequentialFile)file).map(0, file.size());
+
+         HornetQBuffer fileBuffer = HornetQBuffers.wrappedBuffer(mappedBuffer);
+         fileBuffer.writerIndex(fileBuffer.capacity());
+
+         int[] positions = scanMessages(fileBuffer);
+
+         numberOfMessages.set(positions.length);
+
+         return new EncodedPage(pageId, mappedBuffer, positions, true);
+      }
+
+      ByteBuffer directBuffer = storage.allocateDirectBuffer((int)file.size());
+
+      try
+      {
+         HornetQBuffer fileBuffer = readFile(directBuffer);
+
+         int[] positions = scanMessages(fileBuffer);
+
+         int validSize = 0;
+
+         if (positions.length > 0)
+         {
+            int last = positions[positions.length - 1];
+
+            validSize = last + fileBuffer.getInt(last - DataConstants.SIZE_INT) + DataConstants.SIZE_BYTE;
+         }
+
+         ByteBuffer validRecords = directBuffer.duplicate();
+         validRecords.position(0);
+         validRecords.limit(validSize);
+
+         ByteBuffer encoded = ByteBuffer.allocateDirect(validSize);
+         encoded.put(validRecords);
+         encoded.clear();
+
+         numberOfMessages.set(positions.length);
+
+         return new EncodedPage(pageId, encoded, positions, false);
+      }
+      finally
+      {
+         storage.freeDirectBuffer(directBuffer);
+      }
+   }
+
+   /**
+    * Reads the large messages of this page only, as needed to delete it. The other messages are
+    * not decoded and nothing of the page is kept after reading it.
+    */
+   public synchronized PagedMessage[] readLargeMessages(StorageManager storage) throws Exception
+   {
+      if (!file.isOpen())
+      {
+         throw HornetQMessageBundle.BUNDLE.invalidPageIO();
+      }
+
+      ArrayList<PagedMessage> largeMessages = new ArrayList<PagedMessage>();
+
+      ByteBuffer directBuffer = storage.allocateDirectBuffer((int)file.size());
+
+      try
+      {
+         HornetQBuffer fileBuffer = readFile(directBuffer);
+
+         for (int position : scanMessages(fileBuffer))
+         {
+            // as encoded by PagedMessageImpl, after the transaction ID
+            if (fileBuffer.getByte(position + DataConstants.SIZE_LONG) != 0)
+            {
+               fileBuffer.readerIndex(position);
+
+               PagedMessage msg = new PagedMessageImpl();
+               msg.decode(fileBuffer);
+               msg.initMessage(storage);
+               largeMessages.add(msg);
+            }
+         }
+      }
+      finally
+      {
+         storage.freeDirectBuffer(directBuffer);
+      }
+
+      return largeMessages.toArray(new PagedMessage[largeMessages.size()]);
+   }
+
    public synchronized void write(final PagedMessage message) throws Exception
    {
       if (!file.isOpen())
@@ -369,6 +454,69 @@ public class Page implements Comparable<Page>
       return true;
    }
 
+   private HornetQBuffer readFile(final ByteBuffer directBuffer) throws Exception
+   {
+      file.position(0);
+      file.read(directBuffer);
+
+      directBuffer.rewind();
+
+      HornetQBuffer fileBuffer = HornetQBuffers.wrappedBuffer(directBuffer);
+      fileBuffer.writerIndex(fileBuffer.capacity());
+
+      return fileBuffer;
+   }
+
+   /**
+    * Checks the records of the page file up to the first invalid one.
+    *
+    * @return the position of the encoded message of each valid record
+    */
+   private int[] scanMessages(final HornetQBuffer fileBuffer)
+   {
+      int[] positions = new int[16];
+
+      int count = 0;
+
+      while (fileBuffer.readable())
+      {
+         final int position = fileBuffer.readerIndex();
+
+         byte byteRead = fileBuffer.readByte();
+
+         if (byteRead == Page.START_BYTE)
+         {
+            if (fileBuffer.readerIndex() + DataConstants.SIZE_INT < fileBuffer.capacity())
+            {
+               int messageSize = fileBuffer.readInt();
+               int oldPos = fileBuffer.readerIndex();
+               if (fileBuffer.readerIndex() + messageSize < fileBuffer.capacity() &&
+                        fileBuffer.getByte(oldPos + messageSize) == Page.END_BYTE)
+               {
+                  if (count == positions.length)
+                  {
+                     positions = Arrays.copyOf(positions, count * 2);
+                  }
+                  positions[count++] = oldPos;
+                  fileBuffer.readerIndex(oldPos + messageSize + DataConstants.SIZE_BYTE);
+               }
+               else
+               {
+                  markFileAsSuspect(file.getFileName(), position, count);
+                  break;
+               }
+            }
+         }
+         else
+         {
+            markFileAsSuspect(file.getFileName(), position, count);
+            break;
+         }
+      }
+
+      return Arrays.copyOf(positions, count);
+   }
+
    /**
     * @param position
     * @param msgNumber
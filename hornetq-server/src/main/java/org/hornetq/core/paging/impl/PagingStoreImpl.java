@@ -53,9 +53,9 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
 
 /**
  * @author <a href="mailto:clebert.suconic@jboss.com">Clebert Suconic</a>
@@ -184,6 +184,10 @@ public class PagingStoreImpl implements PagingStore
          executor,
          addressSettings.getPageCacheMaxSize());
 
+      cursorProvider.setCacheMaxBytes(addressSettings.getPageCacheMaxBytes());
+
+      cursorProvider.setReadMapped(addressSettings.isPageReadMapped());
+
    }
 
    /**
@@ -200,6 +204,10 @@ public class PagingStoreImpl implements PagingStore
       if (cursorProvider != null)
       {
          cursorProvider.setCacheMaxSize(addressSettings.getPageCacheMaxSize());
+
+         cursorProvider.setCacheMaxBytes(addressSettings.getPageCacheMaxBytes());
+
+         cursorProvider.setReadMapped(addressSettings.isPageReadMapped());
       }
    }
 
@@ -820,7 +828,7 @@ public class PagingStoreImpl implements PagingStore
 
    @Override
    public boolean
-   page(ServerMessage message, final Transaction tx, RouteContextList listCtx, final ReadLock managerLock)
+   page(ServerMessage message, final Transaction tx, RouteContextList listCtx, final Lock managerLock)
       throws Exception
    {
 
@@ -286,6 +286,24 @@ public interface StorageManager extends HornetQComponent
     */
    Journal getMessageJournal();
 
+   /**
+    * @return the time in nanoseconds the buffer of the message journal currently waits before a
+    *         sync, or 0 if the message journal is not buffered
+    */
+   long getJournalBufferCurrentTimeout();
+
+   /**
+    * @return the average time in nanoseconds a sync of the message journal takes, or 0 if the
+    *         message journal is not buffered
+    */
+   long getJournalBufferAverageSyncTime();
+
+   /**
+    * @return the average number of bytes written by a flush of the buffer of the message journal,
+    *         or 0 if the message journal is not buffered
+    */
+   double getJournalBufferAverageBatchSize();
+
    /**
     * @see JournalStorageManager#startReplication(ReplicationManager, PagingManager, String,
     *      boolean)
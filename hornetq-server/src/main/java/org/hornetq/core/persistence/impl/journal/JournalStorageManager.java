@@ -23,18 +23,21 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.transaction.xa.Xid;
 
@@ -62,7 +65,9 @@ import org.hornetq.core.journal.impl.AIOSequentialFileFactory;
 import org.hornetq.core.journal.impl.JournalFile;
 import org.hornetq.core.journal.impl.JournalImpl;
 import org.hornetq.core.journal.impl.JournalReaderCallback;
+import org.hornetq.core.journal.impl.MappedSequentialFileFactory;
 import org.hornetq.core.journal.impl.NIOSequentialFileFactory;
+import org.hornetq.core.journal.impl.TimedBuffer;
 import org.hornetq.core.message.impl.MessageInternal;
 import org.hornetq.core.paging.PageTransactionInfo;
 import org.hornetq.core.paging.PagedMessage;
@@ -106,6 +111,7 @@ import org.hornetq.utils.Base64;
 import org.hornetq.utils.DataConstants;
 import org.hornetq.utils.ExecutorFactory;
 import org.hornetq.utils.HornetQThreadFactory;
+import org.hornetq.utils.StripedReadWriteLock;
 import org.hornetq.utils.XidCodecSupport;
 
 /**
@@ -181,7 +187,12 @@ public class JournalStorageManager implements StorageManager
 
    private final BatchingIDGenerator idGenerator;
 
-   private final ReentrantReadWriteLock storageManagerLock = new ReentrantReadWriteLock(true);
+   /**
+    * Taken for reading by every store and for writing only to start and stop the replication, so
+    * the readers use a lock striped among the threads instead of sharing the state of a
+    * ReentrantReadWriteLock.
+    */
+   private final StripedReadWriteLock storageManagerLock = new StripedReadWriteLock();
 
    private ReplicationManager replicator;
 
@@ -207,6 +218,10 @@ public class JournalStorageManager implements StorageManager
 
    private final SequentialFileFactory journalFF;
 
+   private final TimedBuffer messageJournalBuffer;
+
+   private final int journalLoadThreads;
+
    private Journal messageJournal;
 
    private Journal bindingsJournal;
@@ -263,7 +278,8 @@ public class JournalStorageManager implements StorageManager
 
       executor = executorFactory.getExecutor();
 
-      if (config.getJournalType() != JournalType.NIO && config.getJournalType() != JournalType.ASYNCIO)
+      if (config.getJournalType() != JournalType.NIO && config.getJournalType() != JournalType.ASYNCIO &&
+          config.getJournalType() != JournalType.MAPPED)
       {
          throw HornetQMessageBundle.BUNDLE.invalidJournal();
       }
@@ -278,7 +294,15 @@ public class JournalStorageManager implements StorageManager
 
       journalDir = config.getJournalDirectory();
 
-      SequentialFileFactory bindingsFF = new NIOSequentialFileFactory(bindingsDir, criticalErrorListener);
+      SequentialFileFactory bindingsFF;
+      if (config.getJournalType() == JournalType.MAPPED)
+      {
+         bindingsFF = new MappedSequentialFileFactory(bindingsDir, criticalErrorListener);
+      }
+      else
+      {
+         bindingsFF = new NIOSequentialFileFactory(bindingsDir, criticalErrorListener);
+      }
 
       Journal localBindings = new JournalImpl(1024 * 1024,
          2,
@@ -307,21 +331,40 @@ public class JournalStorageManager implements StorageManager
       {
          HornetQServerLogger.LOGGER.journalUseAIO();
 
-         journalFF = new AIOSequentialFileFactory(journalDir,
+         AIOSequentialFileFactory aioFF = new AIOSequentialFileFactory(journalDir,
             config.getJournalBufferSize_AIO(),
             config.getJournalBufferTimeout_AIO(),
             config.isLogJournalWriteRate(),
+            config.isJournalAdaptiveBufferTimeout(),
             criticalErrorListener);
+         messageJournalBuffer = aioFF.getTimedBuffer();
+         journalFF = aioFF;
       }
       else if (config.getJournalType() == JournalType.NIO)
       {
          HornetQServerLogger.LOGGER.journalUseNIO();
-         journalFF = new NIOSequentialFileFactory(journalDir,
+         NIOSequentialFileFactory nioFF = new NIOSequentialFileFactory(journalDir,
             true,
             config.getJournalBufferSize_NIO(),
             config.getJournalBufferTimeout_NIO(),
             config.isLogJournalWriteRate(),
+            config.isJournalAdaptiveBufferTimeout(),
             criticalErrorListener);
+         messageJournalBuffer = nioFF.getTimedBuffer();
+         journalFF = nioFF;
+      }
+      else if (config.getJournalType() == JournalType.MAPPED)
+      {
+         HornetQServerLogger.LOGGER.journalUseMapped();
+         MappedSequentialFileFactory mappedFF = new MappedSequentialFileFactory(journalDir,
+            true,
+            config.getJournalBufferSize_NIO(),
+            config.getJournalBufferTimeout_NIO(),
+            config.isLogJournalWriteRate(),
+            config.isJournalAdaptiveBufferTimeout(),
+            criticalErrorListener);
+         messageJournalBuffer = mappedFF.getTimedBuffer();
+         journalFF = mappedFF;
       }
       else
       {
@@ -330,7 +373,7 @@ public class JournalStorageManager implements StorageManager
 
       idGenerator = new BatchingIDGenerator(0, JournalStorageManager.CHECKPOINT_BATCH_SIZE, this);
 
-      Journal localMessage = new JournalImpl(config.getJournalFileSize(),
+      JournalImpl localMessage = new JournalImpl(config.getJournalFileSize(),
          config.getJournalMinFiles(),
          config.getJournalCompactMinFiles(),
          config.getJournalCompactPercentage(),
@@ -340,6 +383,12 @@ public class JournalStorageManager implements StorageManager
          config.getJournalType() == JournalType.ASYNCIO ? config.getJournalMaxIO_AIO()
             : config.getJournalMaxIO_NIO());
 
+      journalLoadThreads = config.getJournalLoadThreads();
+
+      localMessage.setLoadThreads(journalLoadThreads);
+
+      localMessage.setIncrementalCompactFiles(config.getJournalCompactIncrementalFiles());
+
       messageJournal = localMessage;
       originalMessageJournal = localMessage;
 
@@ -1802,58 +1851,7 @@ public class JournalStorageManager implements StorageManager
          records.clear();
          records = null;
 
-         for (Map.Entry<Long, Map<Long, AddMessageRecord>> entry : queueMap.entrySet())
-         {
-            long queueID = entry.getKey();
-
-            Map<Long, AddMessageRecord> queueRecords = entry.getValue();
-
-            Queue queue = queues.get(queueID);
-
-            if (queue == null)
-            {
-               if (queueRecords.values().size() != 0)
-               {
-                  HornetQServerLogger.LOGGER.journalCannotFindQueueForMessage(queueID);
-               }
-
-               continue;
-            }
-
-            // Redistribution could install a Redistributor while we are still loading records, what will be an issue with
-            // prepared ACKs
-            // We make sure te Queue is paused before we reroute values.
-            queue.pause();
-
-            Collection<AddMessageRecord> valueRecords = queueRecords.values();
-
-            long currentTime = System.currentTimeMillis();
-
-            for (AddMessageRecord record : valueRecords)
-            {
-               long scheduledDeliveryTime = record.scheduledDeliveryTime;
-
-               if (scheduledDeliveryTime != 0 && scheduledDeliveryTime <= currentTime)
-               {
-                  scheduledDeliveryTime = 0;
-                  record.message.removeProperty(Message.HDR_SCHEDULED_DELIVERY_TIME);
-               }
-
-               if (scheduledDeliveryTime != 0)
-               {
-                  record.message.putLongProperty(Message.HDR_SCHEDULED_DELIVERY_TIME, scheduledDeliveryTime);
-               }
-
-               MessageReference ref = postOffice.reroute(record.message, queue, null);
-
-               ref.setDeliveryCount(record.deliveryCount);
-
-               if (scheduledDeliveryTime != 0)
-               {
-                  record.message.removeProperty(Message.HDR_SCHEDULED_DELIVERY_TIME);
-               }
-            }
-         }
+         reloadQueues(postOffice, pagingManager, queues, queueMap);
 
          loadPreparedTransactions(postOffice,
             pagingManager,
@@ -2332,6 +2330,21 @@ public class JournalStorageManager implements StorageManager
       return messageJournal;
    }
 
+   public long getJournalBufferCurrentTimeout()
+   {
+      return messageJournalBuffer == null ? 0 : messageJournalBuffer.getCurrentTimeout();
+   }
+
+   public long getJournalBufferAverageSyncTime()
+   {
+      return messageJournalBuffer == null ? 0 : messageJournalBuffer.getAverageSyncTime();
+   }
+
+   public double getJournalBufferAverageBatchSize()
+   {
+      return messageJournalBuffer == null ? 0 : messageJournalBuffer.getAverageBatchSize();
+   }
+
    public Journal getBindingsJournal()
    {
       return bindingsJournal;
@@ -2426,6 +2439,176 @@ public class JournalStorageManager implements StorageManager
       }
    }
 
+   private void reloadQueues(final PostOffice postOffice,
+                             final PagingManager pagingManager,
+                             final Map<Long, Queue> queues,
+                             final Map<Long, Map<Long, AddMessageRecord>> queueMap) throws Exception
+   {
+      Map<Queue, Collection<AddMessageRecord>> queueRecords = new LinkedHashMap<Queue, Collection<AddMessageRecord>>();
+
+      for (Map.Entry<Long, Map<Long, AddMessageRecord>> entry : queueMap.entrySet())
+      {
+         long queueID = entry.getKey();
+
+         Collection<AddMessageRecord> valueRecords = entry.getValue().values();
+
+         Queue queue = queues.get(queueID);
+
+         if (queue == null)
+         {
+            if (valueRecords.size() != 0)
+            {
+               HornetQServerLogger.LOGGER.journalCannotFindQueueForMessage(queueID);
+            }
+
+            continue;
+         }
+
+         // Redistribution could install a Redistributor while we are still loading records, what will be an issue with
+         // prepared ACKs
+         // We make sure te Queue is paused before we reroute values.
+         queue.pause();
+
+         queueRecords.put(queue, valueRecords);
+      }
+
+      if (journalLoadThreads == 1 || queueRecords.size() < 2)
+      {
+         long currentTime = System.currentTimeMillis();
+
+         for (Map.Entry<Queue, Collection<AddMessageRecord>> entry : queueRecords.entrySet())
+         {
+            for (AddMessageRecord record : entry.getValue())
+            {
+               reloadRecord(postOffice, entry.getKey(), record, currentTime);
+            }
+         }
+      }
+      else
+      {
+         reloadQueuesInParallel(postOffice, pagingManager, queueRecords);
+      }
+   }
+
+   /**
+    * Reroutes the records of each queue on its own thread.
+    * <p>
+    * A message may be referenced by several queues, so nothing may modify it while the queues are
+    * reloaded: the paging stores are created up front and the scheduled records, which need the
+    * scheduled delivery time as a property of the message, are rerouted afterwards on this thread.
+    */
+   private void reloadQueuesInParallel(final PostOffice postOffice,
+                                       final PagingManager pagingManager,
+                                       final Map<Queue, Collection<AddMessageRecord>> queueRecords) throws Exception
+   {
+      final List<Pair<Queue, AddMessageRecord>> scheduledRecords = new ArrayList<Pair<Queue, AddMessageRecord>>();
+
+      Set<SimpleString> addresses = new HashSet<SimpleString>();
+
+      for (Map.Entry<Queue, Collection<AddMessageRecord>> entry : queueRecords.entrySet())
+      {
+         for (AddMessageRecord record : entry.getValue())
+         {
+            if (addresses.add(record.message.getAddress()))
+            {
+               pagingManager.getPageStore(record.message.getAddress());
+            }
+
+            if (record.scheduledDeliveryTime != 0)
+            {
+               scheduledRecords.add(new Pair<Queue, AddMessageRecord>(entry.getKey(), record));
+            }
+         }
+      }
+
+      ExecutorService loadExecutor = Executors.newFixedThreadPool(journalLoadThreads,
+                                                                  new HornetQThreadFactory("HornetQ-journal-load",
+                                                                                           true,
+                                                                                           getThisClassLoader()));
+
+      try
+      {
+         List<Future<?>> futures = new ArrayList<Future<?>>(queueRecords.size());
+
+         for (Map.Entry<Queue, Collection<AddMessageRecord>> entry : queueRecords.entrySet())
+         {
+            final Queue queue = entry.getKey();
+
+            final Collection<AddMessageRecord> records = entry.getValue();
+
+            futures.add(loadExecutor.submit(new Callable<Void>()
+            {
+               public Void call() throws Exception
+               {
+                  for (AddMessageRecord record : records)
+                  {
+                     if (record.scheduledDeliveryTime == 0)
+                     {
+                        reloadRecord(postOffice, queue, record, 0);
+                     }
+                  }
+                  return null;
+               }
+            }));
+         }
+
+         for (Future<?> future : futures)
+         {
+            try
+            {
+               future.get();
+            }
+            catch (ExecutionException e)
+            {
+               if (e.getCause() instanceof Exception)
+               {
+                  throw (Exception)e.getCause();
+               }
+               throw e;
+            }
+         }
+      }
+      finally
+      {
+         loadExecutor.shutdownNow();
+      }
+
+      long currentTime = System.currentTimeMillis();
+
+      for (Pair<Queue, AddMessageRecord> scheduled : scheduledRecords)
+      {
+         reloadRecord(postOffice, scheduled.getA(), scheduled.getB(), currentTime);
+      }
+   }
+
+   private void reloadRecord(final PostOffice postOffice,
+                             final Queue queue,
+                             final AddMessageRecord record,
+                             final long currentTime) throws Exception
+   {
+      long scheduledDeliveryTime = record.scheduledDeliveryTime;
+
+      if (scheduledDeliveryTime != 0 && scheduledDeliveryTime <= currentTime)
+      {
+         scheduledDeliveryTime = 0;
+         record.message.removeProperty(Message.HDR_SCHEDULED_DELIVERY_TIME);
+      }
+
+      if (scheduledDeliveryTime != 0)
+      {
+         record.message.putLongProperty(Message.HDR_SCHEDULED_DELIVERY_TIME, scheduledDeliveryTime);
+      }
+
+      MessageReference ref = postOffice.reroute(record.message, queue, null);
+
+      ref.setDeliveryCount(record.deliveryCount);
+
+      if (scheduledDeliveryTime != 0)
+      {
+         record.message.removeProperty(Message.HDR_SCHEDULED_DELIVERY_TIME);
+      }
+   }
+
    /**
     * @param messages
     * @param buff
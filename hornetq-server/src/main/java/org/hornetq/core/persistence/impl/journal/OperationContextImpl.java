@@ -16,6 +16,8 @@ package org.hornetq.core.persistence.impl.journal;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -37,10 +39,16 @@ import org.hornetq.utils.ExecutorFactory;
  *
  * So, if you are doing operations that are not dependent on IO (e.g NonPersistentMessages) you wouldn't have any context switch.
  *
+ * The tasks completed by the same sync (a group commit on the journal) are executed by a single run on the executor, instead
+ * of being handed to the executor one by one.
+ *
  * @author <mailto:clebert.suconic@jboss.org">Clebert Suconic</a>
  */
 public class OperationContextImpl implements OperationContext
 {
+   /** How many times a run on the executor executes the tasks made ready while it was running */
+   private static final int MAX_DRAINS_PER_RUN = 4;
+
    private static final ThreadLocal<OperationContext> threadLocalContext = new ThreadLocal<OperationContext>();
 
    public static void clearContext()
@@ -102,6 +110,20 @@ public class OperationContextImpl implements OperationContext
 
    private final AtomicInteger executorsPending = new AtomicInteger(0);
 
+   /** Completed tasks waiting for the executor, in order */
+   private final Queue<IOAsyncTask> readyTasks = new ConcurrentLinkedQueue<IOAsyncTask>();
+
+   /** The number of ready tasks, the run on the executor is scheduled when it goes from 0 to 1 */
+   private final AtomicInteger readyCount = new AtomicInteger(0);
+
+   private final Runnable drainer = new Runnable()
+   {
+      public void run()
+      {
+         drainReadyTasks();
+      }
+   };
+
    public OperationContextImpl(final Executor executor)
    {
       super();
@@ -218,39 +240,89 @@ public class OperationContextImpl implements OperationContext
    }
 
    /**
+    * Queues the task to be executed on the executor, after the tasks already queued. Only the first
+    * task queued while there is no run pending schedules a run on the executor.
     * @param task
     */
    private void execute(final IOAsyncTask task)
    {
       executorsPending.incrementAndGet();
+
+      readyTasks.offer(task);
+
+      if (readyCount.getAndIncrement() == 0)
+      {
+         scheduleDrain();
+      }
+   }
+
+   private void scheduleDrain()
+   {
       try
       {
-         executor.execute(new Runnable()
-         {
-            public void run()
-            {
-               try
-               {
-                  // If any IO is done inside the callback, it needs to be done on a new context
-                  OperationContextImpl.clearContext();
-                  task.done();
-               }
-               finally
-               {
-                  executorsPending.decrementAndGet();
-               }
-            }
-         });
+         executor.execute(drainer);
       }
       catch (Throwable e)
       {
          HornetQServerLogger.LOGGER.errorExecutingIOAsyncTask(e);
-         executorsPending.decrementAndGet();
-         task.onError(HornetQExceptionType.INTERNAL_ERROR.getCode(),
-                      "It wasn't possible to complete IO operation - " + e.getMessage());
+
+         int failed = 0;
+
+         IOAsyncTask task;
+
+         while ((task = readyTasks.poll()) != null)
+         {
+            failed++;
+            executorsPending.decrementAndGet();
+            task.onError(HornetQExceptionType.INTERNAL_ERROR.getCode(),
+                         "It wasn't possible to complete IO operation - " + e.getMessage());
+         }
+
+         readyCount.addAndGet(-failed);
       }
    }
 
+   /**
+    * Executes the ready tasks until there are none left, a bounded number of times so that other
+    * users of the executor don't wait behind a continuous flow of completions.
+    */
+   private void drainReadyTasks()
+   {
+      int ready = readyCount.get();
+
+      for (int i = 0; i < MAX_DRAINS_PER_RUN; i++)
+      {
+         for (int j = 0; j < ready; j++)
+         {
+            IOAsyncTask task = readyTasks.poll();
+
+            try
+            {
+               // If any IO is done inside the callback, it needs to be done on a new context
+               OperationContextImpl.clearContext();
+               task.done();
+            }
+            catch (Throwable e)
+            {
+               HornetQServerLogger.LOGGER.errorExecutingIOAsyncTask(e);
+            }
+            finally
+            {
+               executorsPending.decrementAndGet();
+            }
+         }
+
+         ready = readyCount.addAndGet(-ready);
+
+         if (ready == 0)
+         {
+            return;
+         }
+      }
+
+      scheduleDrain();
+   }
+
    /*
     * (non-Javadoc)
     * @see org.hornetq.core.replication.ReplicationToken#complete()
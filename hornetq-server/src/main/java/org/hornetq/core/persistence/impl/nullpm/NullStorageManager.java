@@ -544,6 +544,21 @@ public class NullStorageManager implements StorageManager
       return null;
    }
 
+   public long getJournalBufferCurrentTimeout()
+   {
+      return 0;
+   }
+
+   public long getJournalBufferAverageSyncTime()
+   {
+      return 0;
+   }
+
+   public double getJournalBufferAverageBatchSize()
+   {
+      return 0;
+   }
+
    @Override
    public void startReplication(final ReplicationManager replicationManager, final PagingManager pagingManager,
                                 final String nodeID, final boolean autoFailBack) throws Exception
@@ -68,11 +68,27 @@ public class BindingsImpl implements Bindings
 
    private final SimpleString name;
 
+   /** null unless routing through the filter index is enabled */
+   private final FilterRoutingIndex filterIndex;
+
    public BindingsImpl(final SimpleString name, final GroupingHandler groupingHandler, final PagingStore pageStore)
+   {
+      this(name, groupingHandler, pageStore, false);
+   }
+
+   /**
+    * @param indexFilters if true, routing names whose only binding has a simple equality filter are
+    *           routed through a {@link FilterRoutingIndex} instead of evaluating each filter
+    */
+   public BindingsImpl(final SimpleString name,
+                       final GroupingHandler groupingHandler,
+                       final PagingStore pageStore,
+                       final boolean indexFilters)
    {
       this.groupingHandler = groupingHandler;
       this.pageStore = pageStore;
       this.name = name;
+      filterIndex = indexFilters ? new FilterRoutingIndex() : null;
    }
 
    public void setRouteWhenNoConsumers(final boolean routeWhenNoConsumers)
@@ -114,6 +130,11 @@ public class BindingsImpl implements Bindings
          }
 
          bindings.add(binding);
+
+         if (filterIndex != null)
+         {
+            filterIndex.update(routingName, bindings);
+         }
       }
 
       bindingsMap.put(binding.getID(), binding);
@@ -145,6 +166,11 @@ public class BindingsImpl implements Bindings
             {
                routingNameBindingMap.remove(routingName);
             }
+
+            if (filterIndex != null)
+            {
+               filterIndex.update(routingName, bindings);
+            }
          }
       }
 
@@ -288,25 +314,15 @@ public class BindingsImpl implements Bindings
             {
                HornetQServerLogger.LOGGER.trace("Routing message " + message + " on binding=" + this);
             }
-            for (Map.Entry<SimpleString, List<Binding>> entry : routingNameBindingMap.entrySet())
+            if (filterIndex != null)
             {
-               SimpleString routingName = entry.getKey();
-
-               List<Binding> bindings = entry.getValue();
-
-               if (bindings == null)
-               {
-                  // The value can become null if it's concurrently removed while we're iterating - this is expected
-                  // ConcurrentHashMap behaviour!
-                  continue;
-               }
+               filterIndex.route(message, context);
 
-               Binding theBinding = getNextBinding(message, routingName, bindings);
-
-               if (theBinding != null)
-               {
-                  theBinding.route(message, context);
-               }
+               routeToNextBindings(message, context, filterIndex.getUnindexedBindings());
+            }
+            else
+            {
+               routeToNextBindings(message, context, routingNameBindingMap);
             }
          }
       }
@@ -318,6 +334,32 @@ public class BindingsImpl implements Bindings
       return "BindingsImpl [name=" + name + "]";
    }
 
+   private void routeToNextBindings(final ServerMessage message,
+                                    final RoutingContext context,
+                                    final Map<SimpleString, List<Binding>> routingBindings) throws Exception
+   {
+      for (Map.Entry<SimpleString, List<Binding>> entry : routingBindings.entrySet())
+      {
+         SimpleString routingName = entry.getKey();
+
+         List<Binding> bindings = entry.getValue();
+
+         if (bindings == null)
+         {
+            // The value can become null if it's concurrently removed while we're iterating - this is expected
+            // ConcurrentHashMap behaviour!
+            continue;
+         }
+
+         Binding theBinding = getNextBinding(message, routingName, bindings);
+
+         if (theBinding != null)
+         {
+            theBinding.route(message, context);
+         }
+      }
+   }
+
    /**
     * This code has a race on the assigned value to routing names.
     * <p>
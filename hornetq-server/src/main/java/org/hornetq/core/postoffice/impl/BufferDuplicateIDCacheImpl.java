@@ -0,0 +1,577 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.postoffice.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+
+import org.hornetq.api.core.Pair;
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.persistence.StorageManager;
+import org.hornetq.core.postoffice.DuplicateIDCache;
+import org.hornetq.core.server.HornetQServerLogger;
+import org.hornetq.core.server.MessageReference;
+import org.hornetq.core.transaction.Transaction;
+import org.hornetq.core.transaction.TransactionOperation;
+import org.hornetq.utils.StripedReadWriteLock;
+
+/**
+ * A fixed size rotating cache of last X duplicate ids which does not create any object per cached
+ * id.
+ * <p>
+ * The ids are stored in a ring of fixed size slots and indexed by an open addressing hash table
+ * (linear probing, at most half full), both kept in a single {@link ByteBuffer} which can be
+ * allocated off-heap. Each slot holds the length and hash of the id, its record ID and the id
+ * bytes; ids longer than {@link #SLOT_ID_CAPACITY} keep their bytes on the heap.
+ * <p>
+ * Updates are serialized on this and change the buffer under the write lock, while
+ * {@link #contains(byte[])} only takes the read lock of a {@link StripedReadWriteLock}, so that
+ * lookups on different threads neither wait for nor contend with each other.
+ *
+ * @see DuplicateIDCacheImpl
+ */
+public class BufferDuplicateIDCacheImpl implements DuplicateIDCache
+{
+   // Constants -----------------------------------------------------
+
+   /** length of the id, or {@link #EMPTY} */
+   private static final int LENGTH_OFFSET = 0;
+
+   private static final int HASH_OFFSET = 4;
+
+   /** the record ID of the id, -1 if the id is not persisted */
+   private static final int RECORD_ID_OFFSET = 8;
+
+   private static final int ID_OFFSET = 16;
+
+   /** ids up to this size are stored in their slot; a JMS UUID stored as a String takes 72 bytes */
+   public static final int SLOT_ID_CAPACITY = 80;
+
+   private static final int SLOT_SIZE = ID_OFFSET + SLOT_ID_CAPACITY;
+
+   /**
+    * the largest cache size which can be held by a single buffer, knowing that the table has up to
+    * 4 entries of 4 bytes per slot
+    */
+   public static final int MAX_CACHE_SIZE = Integer.MAX_VALUE / (SLOT_SIZE + 16);
+
+   private static final int EMPTY = -1;
+
+   // Attributes ----------------------------------------------------
+
+   private final SimpleString address;
+
+   private final int cacheSize;
+
+   private final StorageManager storageManager;
+
+   private final boolean persist;
+
+   // cacheSize slots followed by the table
+   private final ByteBuffer buffer;
+
+   private final int tableOffset;
+
+   /** each entry of the table is the index of a slot + 1, 0 meaning an empty entry */
+   private final int tableMask;
+
+   /** the ids which do not fit in their slot, allocated on the first one */
+   private byte[][] largeIDs;
+
+   /** guards the buffer and largeIDs, the write lock is only taken by updates which hold this */
+   private final ReadWriteLock lock = new StripedReadWriteLock();
+
+   // The fields below are guarded by this
+
+   private int pos;
+
+   /** number of slots which have been used at least once */
+   private int used;
+
+   // Constructors --------------------------------------------------
+
+   public BufferDuplicateIDCacheImpl(final SimpleString address,
+                                     final int size,
+                                     final StorageManager storageManager,
+                                     final boolean persist,
+                                     final boolean direct)
+   {
+      if (size > MAX_CACHE_SIZE)
+      {
+         throw new IllegalArgumentException("Cache size " + size + " is larger than " + MAX_CACHE_SIZE);
+      }
+
+      this.address = address;
+
+      cacheSize = Math.max(1, size);
+
+      this.storageManager = storageManager;
+
+      this.persist = persist;
+
+      int tableSize = Integer.highestOneBit(cacheSize) << 2;
+
+      tableMask = tableSize - 1;
+
+      tableOffset = cacheSize * SLOT_SIZE;
+
+      int capacity = tableOffset + tableSize * 4;
+
+      buffer = (direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity)).order(ByteOrder.nativeOrder());
+
+      for (int i = 0; i < cacheSize; i++)
+      {
+         buffer.putInt(i * SLOT_SIZE + LENGTH_OFFSET, EMPTY);
+      }
+   }
+
+   // DuplicateIDCache implementation -------------------------------
+
+   public void load(final List<Pair<byte[], Long>> theIds) throws Exception
+   {
+      int count = 0;
+
+      long txID = -1;
+
+      for (Pair<byte[], Long> id : theIds)
+      {
+         if (count < cacheSize)
+         {
+            addToCacheInMemory(id.getA(), id.getB());
+         }
+         else
+         {
+            // cache size has been reduced in config - delete the extra records
+            if (txID == -1)
+            {
+               txID = storageManager.generateUniqueID();
+            }
+
+            storageManager.deleteDuplicateIDTransactional(txID, id.getB());
+         }
+
+         count++;
+      }
+
+      if (txID != -1)
+      {
+         storageManager.commit(txID);
+      }
+   }
+
+   public void deleteFromCache(final byte[] duplicateID) throws Exception
+   {
+      long recordID;
+
+      synchronized (this)
+      {
+         int entry = find(duplicateID, hash(duplicateID));
+
+         if (entry < 0)
+         {
+            return;
+         }
+
+         beginUpdate();
+         try
+         {
+            recordID = clearSlot(buffer.getInt(tableOffset + (entry << 2)) - 1, entry);
+         }
+         finally
+         {
+            endUpdate();
+         }
+      }
+
+      if (recordID >= 0)
+      {
+         storageManager.deleteDuplicateID(recordID);
+      }
+   }
+
+   public boolean contains(final byte[] duplID)
+   {
+      int hash = hash(duplID);
+
+      lock.readLock().lock();
+      try
+      {
+         return find(duplID, hash) >= 0;
+      }
+      finally
+      {
+         lock.readLock().unlock();
+      }
+   }
+
+   public synchronized void addToCache(final byte[] duplID, final Transaction tx) throws Exception
+   {
+      long recordID = -1;
+
+      if (tx == null)
+      {
+         if (persist)
+         {
+            recordID = storageManager.generateUniqueID();
+            storageManager.storeDuplicateID(address, duplID, recordID);
+         }
+
+         addToCacheInMemory(duplID, recordID);
+      }
+      else
+      {
+         if (persist)
+         {
+            recordID = storageManager.generateUniqueID();
+            storageManager.storeDuplicateIDTransactional(tx.getID(), address, duplID, recordID);
+
+            tx.setContainsPersistent();
+         }
+
+         // For a tx, it's important that the entry is not added to the cache until commit
+         // since if the client fails then resends them tx we don't want it to get rejected
+         tx.addOperation(new AddDuplicateIDOperation(duplID, recordID));
+      }
+   }
+
+   public void load(final Transaction tx, final byte[] duplID)
+   {
+      tx.addOperation(new AddDuplicateIDOperation(duplID, tx.getID()));
+   }
+
+   // Private -------------------------------------------------------
+
+   private void addToCacheInMemory(final byte[] duplID, final long recordID)
+   {
+      long evictedRecordID = -1;
+
+      long replacedRecordID = -1;
+
+      synchronized (this)
+      {
+         int hash = hash(duplID);
+
+         beginUpdate();
+         try
+         {
+            int existing = find(duplID, hash);
+
+            if (existing >= 0)
+            {
+               // the id is stored again in a new slot
+               replacedRecordID = clearSlot(buffer.getInt(tableOffset + (existing << 2)) - 1, existing);
+            }
+
+            int slot = pos;
+
+            if (slot < used)
+            {
+               int base = slot * SLOT_SIZE;
+
+               // The slot might be empty if its id was explicitly deleted
+               if (buffer.getInt(base + LENGTH_OFFSET) != EMPTY)
+               {
+                  // Record already exists - we delete the old one and add the new one
+                  // Note we can't use update since journal update doesn't let older records get
+                  // reclaimed
+                  evictedRecordID = clearSlot(slot, findEntry(slot));
+               }
+            }
+            else
+            {
+               used++;
+            }
+
+            writeSlot(slot, duplID, hash, recordID);
+
+            int entry = hash & tableMask;
+
+            while (buffer.getInt(tableOffset + (entry << 2)) != 0)
+            {
+               entry = (entry + 1) & tableMask;
+            }
+
+            buffer.putInt(tableOffset + (entry << 2), slot + 1);
+
+            if (pos++ == cacheSize - 1)
+            {
+               pos = 0;
+            }
+         }
+         finally
+         {
+            endUpdate();
+         }
+      }
+
+      deleteRecord(replacedRecordID);
+
+      deleteRecord(evictedRecordID);
+   }
+
+   private void deleteRecord(final long recordID)
+   {
+      // The recordID is negative if the duplicateCache is configured to not persist
+      if (recordID >= 0)
+      {
+         try
+         {
+            storageManager.deleteDuplicateID(recordID);
+         }
+         catch (Exception e)
+         {
+            HornetQServerLogger.LOGGER.errorDeletingDuplicateCache(e);
+         }
+      }
+   }
+
+   // must be called with this locked
+   private void beginUpdate()
+   {
+      lock.writeLock().lock();
+   }
+
+   private void endUpdate()
+   {
+      lock.writeLock().unlock();
+   }
+
+   private static int hash(final byte[] bytes)
+   {
+      int hash = 0;
+
+      for (byte b : bytes)
+      {
+         hash = 31 * hash + b;
+      }
+
+      hash ^= hash >>> 16;
+
+      return hash * 0x9E3779B9;
+   }
+
+   /**
+    * @return the table entry of the id, or -1
+    */
+   // must be called with the read lock or this locked
+   private int find(final byte[] duplID, final int hash)
+   {
+      int entry = hash & tableMask;
+
+      for (int probes = 0; probes <= tableMask; probes++)
+      {
+         int slot = buffer.getInt(tableOffset + (entry << 2)) - 1;
+
+         if (slot == -1)
+         {
+            return -1;
+         }
+
+         if (matches(slot, duplID, hash))
+         {
+            return entry;
+         }
+
+         entry = (entry + 1) & tableMask;
+      }
+
+      return -1;
+   }
+
+   private boolean matches(final int slot, final byte[] duplID, final int hash)
+   {
+      int base = slot * SLOT_SIZE;
+
+      if (buffer.getInt(base + HASH_OFFSET) != hash || buffer.getInt(base + LENGTH_OFFSET) != duplID.length)
+      {
+         return false;
+      }
+
+      if (duplID.length > SLOT_ID_CAPACITY)
+      {
+         // the lengths match, so a large id was stored in the slot
+         return Arrays.equals(duplID, largeIDs[slot]);
+      }
+
+      for (int i = 0; i < duplID.length; i++)
+      {
+         if (buffer.get(base + ID_OFFSET + i) != duplID[i])
+         {
+            return false;
+         }
+      }
+
+      return true;
+   }
+
+   // must be called during an update
+   private int findEntry(final int slot)
+   {
+      int entry = buffer.getInt(slot * SLOT_SIZE + HASH_OFFSET) & tableMask;
+
+      while (buffer.getInt(tableOffset + (entry << 2)) != slot + 1)
+      {
+         entry = (entry + 1) & tableMask;
+      }
+
+      return entry;
+   }
+
+   // must be called during an update
+   private void writeSlot(final int slot, final byte[] duplID, final int hash, final long recordID)
+   {
+      int base = slot * SLOT_SIZE;
+
+      buffer.putInt(base + LENGTH_OFFSET, duplID.length);
+      buffer.putInt(base + HASH_OFFSET, hash);
+      buffer.putLong(base + RECORD_ID_OFFSET, recordID);
+
+      if (duplID.length > SLOT_ID_CAPACITY)
+      {
+         if (largeIDs == null)
+         {
+            largeIDs = new byte[cacheSize][];
+         }
+
+         largeIDs[slot] = duplID;
+      }
+      else
+      {
+         for (int i = 0; i < duplID.length; i++)
+         {
+            buffer.put(base + ID_OFFSET + i, duplID[i]);
+         }
+      }
+   }
+
+   /**
+    * Empties a slot and removes its table entry.
+    *
+    * @return the record ID of the id which was in the slot
+    */
+   // must be called during an update
+   private long clearSlot(final int slot, final int entry)
+   {
+      int base = slot * SLOT_SIZE;
+
+      long recordID = buffer.getLong(base + RECORD_ID_OFFSET);
+
+      buffer.putInt(base + LENGTH_OFFSET, EMPTY);
+
+      if (largeIDs != null)
+      {
+         largeIDs[slot] = null;
+      }
+
+      removeEntry(entry);
+
+      return recordID;
+   }
+
+   /**
+    * Removes an entry from the table, moving back the entries which follow it so that no lookup
+    * has to go through a deleted entry.
+    */
+   // must be called during an update
+   private void removeEntry(int entry)
+   {
+      int next = entry;
+
+      while (true)
+      {
+         next = (next + 1) & tableMask;
+
+         int value = buffer.getInt(tableOffset + (next << 2));
+
+         if (value == 0)
+         {
+            break;
+         }
+
+         int home = buffer.getInt((value - 1) * SLOT_SIZE + HASH_OFFSET) & tableMask;
+
+         // the entry can be moved back unless its home is cyclically in (entry, next]
+         boolean stays = entry <= next ? entry < home && home <= next : entry < home || home <= next;
+
+         if (!stays)
+         {
+            buffer.putInt(tableOffset + (entry << 2), value);
+            entry = next;
+         }
+      }
+
+      buffer.putInt(tableOffset + (entry << 2), 0);
+   }
+
+   // Inner classes -------------------------------------------------
+
+   private class AddDuplicateIDOperation implements TransactionOperation
+   {
+      final byte[] duplID;
+
+      final long recordID;
+
+      volatile boolean done;
+
+      AddDuplicateIDOperation(final byte[] duplID, final long recordID)
+      {
+         this.duplID = duplID;
+
+         this.recordID = recordID;
+      }
+
+      private void process()
+      {
+         if (!done)
+         {
+            addToCacheInMemory(duplID, recordID);
+
+            done = true;
+         }
+      }
+
+      public void beforeCommit(final Transaction tx) throws Exception
+      {
+      }
+
+      public void beforePrepare(final Transaction tx) throws Exception
+      {
+      }
+
+      public void beforeRollback(final Transaction tx) throws Exception
+      {
+      }
+
+      public void afterCommit(final Transaction tx)
+      {
+         process();
+      }
+
+      public void afterPrepare(final Transaction tx)
+      {
+      }
+
+      public void afterRollback(final Transaction tx)
+      {
+      }
+
+      public List<MessageReference> getRelatedMessageReferences()
+      {
+         return null;
+      }
+   }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.postoffice.impl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.filter.impl.EqualityPredicate;
+import org.hornetq.core.postoffice.Binding;
+import org.hornetq.core.server.RoutingContext;
+import org.hornetq.core.server.ServerMessage;
+
+/**
+ * An index of the routing names of an address by the value of the message property their filter
+ * tests for equality.
+ * <p>
+ * Only routing names with a single binding whose filter is an {@link EqualityPredicate} are
+ * indexed: for those {@link BindingsImpl} would always route to that binding when its filter
+ * matches. Every other routing name is kept in {@link #getUnindexedBindings()} and must still be
+ * routed by evaluating its filters.
+ * <p>
+ * Reads are lock free; updates are serialized by {@link BindingsImpl}.
+ *
+ * @see BindingsImpl#route(ServerMessage, RoutingContext)
+ */
+final class FilterRoutingIndex
+{
+   // property name -> property value -> bindings
+   private final ConcurrentMap<SimpleString, ConcurrentMap<SimpleString, List<Binding>>> index = new ConcurrentHashMap<SimpleString, ConcurrentMap<SimpleString, List<Binding>>>();
+
+   private final Map<SimpleString, IndexedBinding> indexedRoutingNames = new ConcurrentHashMap<SimpleString, IndexedBinding>();
+
+   private final ConcurrentMap<SimpleString, List<Binding>> unindexedBindings = new ConcurrentHashMap<SimpleString, List<Binding>>();
+
+   /**
+    * Re-evaluates where a routing name belongs after its bindings changed.
+    * <p>
+    * The routing name is removed from its previous place before it is added to the new one, so a
+    * concurrent route may miss it (as it would miss a binding being added) but will never route to
+    * it twice.
+    */
+   synchronized void update(final SimpleString routingName, final List<Binding> bindings)
+   {
+      removeFromIndex(routingName);
+
+      if (bindings == null || bindings.isEmpty())
+      {
+         unindexedBindings.remove(routingName);
+
+         return;
+      }
+
+      EqualityPredicate predicate = bindings.size() == 1 ? EqualityPredicate.analyze(bindings.get(0).getFilter())
+                                                        : null;
+
+      if (predicate == null)
+      {
+         unindexedBindings.put(routingName, bindings);
+      }
+      else
+      {
+         unindexedBindings.remove(routingName);
+
+         addToIndex(routingName, new IndexedBinding(bindings.get(0), predicate));
+      }
+   }
+
+   /**
+    * @return the routing names which are not indexed and their bindings
+    */
+   Map<SimpleString, List<Binding>> getUnindexedBindings()
+   {
+      return unindexedBindings;
+   }
+
+   boolean isIndexed(final SimpleString routingName)
+   {
+      return indexedRoutingNames.containsKey(routingName);
+   }
+
+   /**
+    * Routes the message to all the indexed bindings whose filter matches it.
+    */
+   void route(final ServerMessage message, final RoutingContext context) throws Exception
+   {
+      for (Map.Entry<SimpleString, ConcurrentMap<SimpleString, List<Binding>>> entry : index.entrySet())
+      {
+         Object value = message.getObjectProperty(entry.getKey());
+
+         if (!(value instanceof SimpleString))
+         {
+            // a missing property or a property of another type never matches a string equality
+            continue;
+         }
+
+         List<Binding> bindings = entry.getValue().get(value);
+
+         if (bindings != null)
+         {
+            for (Binding binding : bindings)
+            {
+               binding.route(message, context);
+            }
+         }
+      }
+   }
+
+   private void addToIndex(final SimpleString routingName, final IndexedBinding indexed)
+   {
+      SimpleString property = indexed.predicate.getProperty();
+
+      ConcurrentMap<SimpleString, List<Binding>> valueMap = index.get(property);
+
+      if (valueMap == null)
+      {
+         valueMap = new ConcurrentHashMap<SimpleString, List<Binding>>();
+         index.put(property, valueMap);
+      }
+
+      for (SimpleString value : indexed.predicate.getValues())
+      {
+         List<Binding> bindings = valueMap.get(value);
+
+         if (bindings == null)
+         {
+            bindings = new CopyOnWriteArrayList<Binding>();
+            valueMap.put(value, bindings);
+         }
+
+         bindings.add(indexed.binding);
+      }
+
+      indexedRoutingNames.put(routingName, indexed);
+   }
+
+   private void removeFromIndex(final SimpleString routingName)
+   {
+      IndexedBinding indexed = indexedRoutingNames.remove(routingName);
+
+      if (indexed == null)
+      {
+         return;
+      }
+
+      SimpleString property = indexed.predicate.getProperty();
+
+      Map<SimpleString, List<Binding>> valueMap = index.get(property);
+
+      if (valueMap == null)
+      {
+         return;
+      }
+
+      for (SimpleString value : indexed.predicate.getValues())
+      {
+         List<Binding> bindings = valueMap.get(value);
+
+         if (bindings != null)
+         {
+            bindings.remove(indexed.binding);
+
+            if (bindings.isEmpty())
+            {
+               valueMap.remove(value);
+            }
+         }
+      }
+
+      if (valueMap.isEmpty())
+      {
+         index.remove(property);
+      }
+   }
+
+   private static final class IndexedBinding
+   {
+      final Binding binding;
+
+      final EqualityPredicate predicate;
+
+      IndexedBinding(final Binding binding, final EqualityPredicate predicate)
+      {
+         this.binding = binding;
+         this.predicate = predicate;
+      }
+   }
+}
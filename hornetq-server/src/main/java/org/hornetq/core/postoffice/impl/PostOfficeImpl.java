@@ -67,6 +67,7 @@ import org.hornetq.core.server.management.Notification;
 import org.hornetq.core.server.management.NotificationListener;
 import org.hornetq.core.settings.HierarchicalRepository;
 import org.hornetq.core.settings.impl.AddressSettings;
+import org.hornetq.core.settings.impl.DuplicateIDCacheType;
 import org.hornetq.core.transaction.Transaction;
 import org.hornetq.core.transaction.TransactionOperation;
 import org.hornetq.core.transaction.TransactionOperationAbstract;
@@ -780,7 +781,7 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
 
       if (cache == null)
       {
-         cache = new DuplicateIDCacheImpl(address, idCacheSize, storageManager, persistIDCache);
+         cache = createDuplicateIDCache(address);
 
          DuplicateIDCache oldCache = duplicateIDCaches.putIfAbsent(address, cache);
 
@@ -893,6 +894,22 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
 
    // Private -----------------------------------------------------------------
 
+   private DuplicateIDCache createDuplicateIDCache(final SimpleString address)
+   {
+      DuplicateIDCacheType type = addressSettingsRepository.getMatch(address.toString()).getDuplicateIDCacheType();
+
+      if (type != DuplicateIDCacheType.HASH_MAP && idCacheSize <= BufferDuplicateIDCacheImpl.MAX_CACHE_SIZE)
+      {
+         return new BufferDuplicateIDCacheImpl(address,
+                                               idCacheSize,
+                                               storageManager,
+                                               persistIDCache,
+                                               type == DuplicateIDCacheType.DIRECT_BUFFER);
+      }
+
+      return new DuplicateIDCacheImpl(address, idCacheSize, storageManager, persistIDCache);
+   }
+
    /**
     * @param message
     */
@@ -1422,6 +1439,9 @@ public class PostOfficeImpl implements PostOffice, NotificationListener, Binding
 
    public Bindings createBindings(final SimpleString address) throws Exception
    {
-      return new BindingsImpl(address, server.getGroupingHandler(), pagingManager.getPageStore(address));
+      return new BindingsImpl(address,
+                              server.getGroupingHandler(),
+                              pagingManager.getPageStore(address),
+                              server.getConfiguration().isRoutingFilterIndexEnabled());
    }
 }
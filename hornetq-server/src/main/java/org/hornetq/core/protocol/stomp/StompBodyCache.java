@@ -0,0 +1,191 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.protocol.stomp;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.Message;
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.message.impl.MessageImpl;
+import org.hornetq.core.server.ServerMessage;
+import org.hornetq.utils.DataConstants;
+
+/**
+ * The bodies of the last messages sent to STOMP subscribers, as they are written in MESSAGE frames.
+ * A message delivered to many subscribers is read from the server message once and every frame
+ * wraps the same bytes.
+ * <p>
+ * Like {@link org.hornetq.utils.SimpleStringPool}, this is a fixed table of entries indexed by
+ * message ID, read and written without locking. A body missing from the table is read again from
+ * its message.
+ * <p>
+ * The table keeps at most {@code maxBytes} of bodies. A body larger than {@code maxBodySize}, or
+ * one that doesn't fit, is read for its frame only and left to the garbage collector.
+ */
+public class StompBodyCache
+{
+   // Constants -----------------------------------------------------
+
+   public static final int DEFAULT_SIZE = 256;
+
+   public static final long DEFAULT_MAX_BYTES = 4 * 1024 * 1024;
+
+   public static final int DEFAULT_MAX_BODY_SIZE = 64 * 1024;
+
+   private static final byte[] EMPTY = new byte[0];
+
+   // Attributes ----------------------------------------------------
+
+   private final AtomicReferenceArray<Body> entries;
+
+   private final int mask;
+
+   private final long maxBytes;
+
+   private final int maxBodySize;
+
+   private final AtomicLong cachedBytes = new AtomicLong(0);
+
+   // Constructors --------------------------------------------------
+
+   /**
+    * @param size the number of entries, rounded up to a power of two
+    */
+   public StompBodyCache(final int size)
+   {
+      this(size, DEFAULT_MAX_BYTES, DEFAULT_MAX_BODY_SIZE);
+   }
+
+   /**
+    * @param size the number of entries, rounded up to a power of two
+    * @param maxBytes the maximum number of bytes of all the cached bodies
+    * @param maxBodySize the size above which a body is never cached
+    */
+   public StompBodyCache(final int size, final long maxBytes, final int maxBodySize)
+   {
+      int capacity = 1;
+      while (capacity < size)
+      {
+         capacity <<= 1;
+      }
+
+      entries = new AtomicReferenceArray<Body>(capacity);
+      mask = capacity - 1;
+      this.maxBytes = maxBytes;
+      this.maxBodySize = maxBodySize;
+   }
+
+   // Public --------------------------------------------------------
+
+   public Body getBody(final ServerMessage message) throws Exception
+   {
+      long id = message.getMessageID();
+
+      // IDs are sequential, consecutive messages take consecutive entries
+      int index = (int)id & mask;
+
+      Body cached = entries.get(index);
+
+      if (cached != null && cached.messageID == id)
+      {
+         return cached;
+      }
+
+      Body body = new Body(id, message);
+
+      int delta = body.data.length - (cached == null ? 0 : cached.data.length);
+
+      if (body.data.length > maxBodySize || cachedBytes.addAndGet(delta) > maxBytes)
+      {
+         if (body.data.length <= maxBodySize)
+         {
+            cachedBytes.addAndGet(-delta);
+         }
+
+         // the entry of an older message is dropped either way, so the bytes it holds are freed
+         if (cached != null && entries.compareAndSet(index, cached, null))
+         {
+            cachedBytes.addAndGet(-cached.data.length);
+         }
+      }
+      else if (!entries.compareAndSet(index, cached, body))
+      {
+         // another thread changed the entry, this body is not cached
+         cachedBytes.addAndGet(-delta);
+      }
+
+      return body;
+   }
+
+   /**
+    * Returns the number of bytes of the cached bodies.
+    */
+   public long getCachedBytes()
+   {
+      return cachedBytes.get();
+   }
+
+   // Inner classes -------------------------------------------------
+
+   public static final class Body
+   {
+      private final long messageID;
+
+      private final byte[] data;
+
+      private final boolean bytes;
+
+      Body(final long messageID, final ServerMessage message) throws Exception
+      {
+         this.messageID = messageID;
+
+         HornetQBuffer buffer = message.getBodyBufferCopy();
+
+         int bodyPos = message.getEndOfBodyPosition() == -1 ? buffer.writerIndex() : message.getEndOfBodyPosition();
+
+         buffer.readerIndex(MessageImpl.BUFFER_HEADER_SPACE + DataConstants.SIZE_INT);
+
+         bytes = message.containsProperty(Stomp.Headers.CONTENT_LENGTH) || message.getType() == Message.BYTES_TYPE;
+
+         if (bytes)
+         {
+            data = new byte[bodyPos - buffer.readerIndex()];
+            buffer.readBytes(data);
+         }
+         else
+         {
+            SimpleString text = buffer.readNullableSimpleString();
+            data = text == null ? EMPTY : text.toString().getBytes("UTF-8");
+         }
+      }
+
+      /**
+       * The bytes of the body, shared by every frame of the message: they must not be modified.
+       */
+      public byte[] getData()
+      {
+         return data;
+      }
+
+      /**
+       * Whether the body is sent with a content-length header.
+       */
+      public boolean isBytes()
+      {
+         return bytes;
+      }
+   }
+}
@@ -699,6 +699,11 @@ public class StompConnection implements RemotingConnection
       return "HornetQ/2.2.5 HornetQ Messaging Engine";
    }
 
+   public StompBodyCache.Body getMessageBody(ServerMessage serverMessage) throws Exception
+   {
+      return manager.getBodyCache().getBody(serverMessage);
+   }
+
    public StompFrame createStompMessage(ServerMessage serverMessage,
          StompSubscription subscription, int deliveryCount) throws Exception
    {
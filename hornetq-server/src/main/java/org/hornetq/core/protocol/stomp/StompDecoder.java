@@ -13,6 +13,7 @@
 
 package org.hornetq.core.protocol.stomp;
 
+import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -127,6 +128,41 @@ public class StompDecoder
 
    public static final String CONTENT_LENGTH_HEADER_NAME = "content-length";
 
+   private static final Charset UTF8 = Charset.forName("UTF-8");
+
+   // The names of the headers found in most frames, decoded without creating a new string
+   private static final String[] KNOWN_HEADER_NAMES = new String[] { Stomp.Headers.Send.DESTINATION,
+                                                                     CONTENT_LENGTH_HEADER_NAME,
+                                                                     CONTENT_TYPE_HEADER_NAME,
+                                                                     Stomp.Headers.RECEIPT_REQUESTED,
+                                                                     Stomp.Headers.TRANSACTION,
+                                                                     Stomp.Headers.Subscribe.ID,
+                                                                     Stomp.Headers.Subscribe.ACK_MODE,
+                                                                     Stomp.Headers.Message.SUBSCRIPTION,
+                                                                     Stomp.Headers.Message.MESSAGE_ID,
+                                                                     "persistent",
+                                                                     Stomp.Headers.Send.PRIORITY,
+                                                                     Stomp.Headers.Send.EXPIRATION_TIME,
+                                                                     Stomp.Headers.Send.REPLY_TO,
+                                                                     Stomp.Headers.Send.TYPE,
+                                                                     Stomp.Headers.Send.CORRELATION_ID,
+                                                                     Stomp.Headers.Connect.LOGIN,
+                                                                     Stomp.Headers.Connect.PASSCODE,
+                                                                     Stomp.Headers.Connect.CLIENT_ID,
+                                                                     Stomp.Headers.ACCEPT_VERSION,
+                                                                     Stomp.Headers.Connect.HOST,
+                                                                     Stomp.Headers.Connected.HEART_BEAT };
+
+   private static final byte[][] KNOWN_HEADER_NAME_BYTES = new byte[KNOWN_HEADER_NAMES.length][];
+
+   static
+   {
+      for (int i = 0; i < KNOWN_HEADER_NAMES.length; i++)
+      {
+         KNOWN_HEADER_NAME_BYTES[i] = KNOWN_HEADER_NAMES[i].getBytes(UTF8);
+      }
+   }
+
    public byte[] workingBuffer = new byte[1024];
 
    public int pos;
@@ -147,6 +183,9 @@ public class StompDecoder
 
    public String headerName;
 
+   // the bytes of the header name or value being read, kept between calls when a frame spans packets
+   public final SimpleBytes headerBytes = new SimpleBytes(1024);
+
    public boolean whiteSpaceOnly;
 
    public int contentLength;
@@ -440,11 +479,7 @@ public class StompDecoder
                {
                   if (inHeaderName)
                   {
-                     byte[] data = new byte[pos - headerBytesCopyStart - 1];
-
-                     System.arraycopy(workingBuffer, headerBytesCopyStart, data, 0, data.length);
-
-                     headerName = new String(data);
+                     headerName = decodeHeaderName(workingBuffer, headerBytesCopyStart, pos - headerBytesCopyStart - 1);
 
                      inHeaderName = false;
 
@@ -467,11 +502,7 @@ public class StompDecoder
                      break outer;
                   }
 
-                  byte[] data = new byte[pos - headerBytesCopyStart - 1];
-
-                  System.arraycopy(workingBuffer, headerBytesCopyStart, data, 0, data.length);
-
-                  String headerValue = new String(data);
+                  String headerValue = new String(workingBuffer, headerBytesCopyStart, pos - headerBytesCopyStart - 1, UTF8);
 
                   headers.put(headerName, headerValue);
 
@@ -617,6 +648,8 @@ public class StompDecoder
 
       headerName = null;
 
+      headerBytes.reset();
+
       whiteSpaceOnly = true;
 
       contentLength = -1;
@@ -626,6 +659,35 @@ public class StompDecoder
       bodyStart = -1;
    }
 
+   /**
+    * Decodes the name of a header, returning the same string for all the frames when it is one of
+    * the names defined by the protocol.
+    */
+   public static String decodeHeaderName(final byte[] bytes, final int offset, final int length)
+   {
+      outer: for (int i = 0; i < KNOWN_HEADER_NAME_BYTES.length; i++)
+      {
+         byte[] name = KNOWN_HEADER_NAME_BYTES[i];
+
+         if (name.length != length)
+         {
+            continue;
+         }
+
+         for (int j = 0; j < length; j++)
+         {
+            if (name[j] != bytes[offset + j])
+            {
+               continue outer;
+            }
+         }
+
+         return KNOWN_HEADER_NAMES[i];
+      }
+
+      return new String(bytes, offset, length, UTF8);
+   }
+
    public void resizeWorking(final int newSize)
    {
       byte[] oldBuffer = workingBuffer;
@@ -24,6 +24,8 @@ import java.util.Map;
 
 import org.hornetq.api.core.HornetQBuffer;
 import org.hornetq.api.core.HornetQBuffers;
+import org.hornetq.core.buffers.impl.ChannelBufferWrapper;
+import org.jboss.netty.buffer.ChannelBuffers;
 
 /**
  * Represents all the data in a STOMP frame.
@@ -109,17 +111,9 @@ public class StompFrame
    {
       if (buffer == null)
       {
-         if (bytesBody != null)
-         {
-            buffer = HornetQBuffers.dynamicBuffer(bytesBody.length + 512);
-         }
-         else
-         {
-            buffer = HornetQBuffers.dynamicBuffer(512);
-         }
-
          if (isPing())
          {
+            buffer = HornetQBuffers.fixedBuffer(1);
             buffer.writeByte((byte)10);
             return buffer;
          }
@@ -138,18 +132,31 @@ public class StompFrame
          // Add a newline to separate the headers from the content.
          head.append(Stomp.NEWLINE);
 
-         buffer.writeBytes(head.toString().getBytes("UTF-8"));
-         if (bytesBody != null)
-         {
-            buffer.writeBytes(bytesBody);
-         }
-         buffer.writeBytes(END_OF_FRAME);
-
-         size = buffer.writerIndex();
+         encode(head);
       }
       return buffer;
    }
 
+   /**
+    * Wraps the head of the frame, its body and the end of frame into the buffer of the frame. The
+    * body is not copied, it may be shared by the frames of many subscribers of a message.
+    */
+   protected void encode(final CharSequence head) throws UnsupportedEncodingException
+   {
+      byte[] headBytes = head.toString().getBytes("UTF-8");
+
+      if (bytesBody != null)
+      {
+         buffer = new ChannelBufferWrapper(ChannelBuffers.wrappedBuffer(headBytes, bytesBody, END_OF_FRAME));
+      }
+      else
+      {
+         buffer = new ChannelBufferWrapper(ChannelBuffers.wrappedBuffer(headBytes, END_OF_FRAME));
+      }
+
+      size = buffer.writerIndex();
+   }
+
    public String getHeader(String key)
    {
       return headers.get(key);
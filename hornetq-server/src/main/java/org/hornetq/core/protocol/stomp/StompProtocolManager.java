@@ -57,6 +57,8 @@ class StompProtocolManager implements ProtocolManager
    // key => connection ID, value => Stomp session
    private final Map<Object, StompSession> sessions = new HashMap<Object, StompSession>();
 
+   private final StompBodyCache bodyCache = new StompBodyCache(StompBodyCache.DEFAULT_SIZE);
+
    // Static --------------------------------------------------------
 
    // Constructors --------------------------------------------------
@@ -331,6 +333,11 @@ class StompProtocolManager implements ProtocolManager
       return new ServerMessageImpl(server.getStorageManager().generateUniqueID(), 512);
    }
 
+   public StompBodyCache getBodyCache()
+   {
+      return bodyCache;
+   }
+
    public void commitTransaction(StompConnection connection, String txID) throws Exception
    {
       StompSession session = getTransactedSession(connection, txID);
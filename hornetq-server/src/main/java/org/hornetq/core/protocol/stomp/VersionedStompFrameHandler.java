@@ -15,13 +15,11 @@ package org.hornetq.core.protocol.stomp;
 import org.hornetq.api.core.HornetQBuffer;
 import org.hornetq.api.core.Message;
 import org.hornetq.api.core.SimpleString;
-import org.hornetq.core.message.impl.MessageImpl;
 import org.hornetq.core.protocol.stomp.Stomp.Headers;
 import org.hornetq.core.protocol.stomp.v10.StompFrameHandlerV10;
 import org.hornetq.core.protocol.stomp.v11.StompFrameHandlerV11;
 import org.hornetq.core.server.ServerMessage;
 import org.hornetq.core.server.impl.ServerMessageImpl;
-import org.hornetq.utils.DataConstants;
 
 /**
  *
@@ -306,37 +304,14 @@ public abstract class VersionedStompFrameHandler
                subscription.getID());
       }
 
-      HornetQBuffer buffer = serverMessage.getBodyBufferCopy();
+      // the body is shared with the frames sent to the other subscribers of the message
+      StompBodyCache.Body body = connection.getMessageBody(serverMessage);
 
-      int bodyPos = serverMessage.getEndOfBodyPosition() == -1 ? buffer
-            .writerIndex() : serverMessage.getEndOfBodyPosition();
-
-      buffer.readerIndex(MessageImpl.BUFFER_HEADER_SPACE
-                  + DataConstants.SIZE_INT);
-
-      int size = bodyPos - buffer.readerIndex();
-
-      byte[] data = new byte[size];
-
-      if (serverMessage.containsProperty(Stomp.Headers.CONTENT_LENGTH)
-            || serverMessage.getType() == Message.BYTES_TYPE)
-      {
-         frame.addHeader(Headers.CONTENT_LENGTH, String.valueOf(data.length));
-         buffer.readBytes(data);
-      }
-      else
+      if (body.isBytes())
       {
-         SimpleString text = buffer.readNullableSimpleString();
-         if (text != null)
-         {
-            data = text.toString().getBytes("UTF-8");
-         }
-         else
-         {
-            data = new byte[0];
-         }
+         frame.addHeader(Headers.CONTENT_LENGTH, String.valueOf(body.getData().length));
       }
-      frame.setByteBody(data);
+      frame.setByteBody(body.getData());
 
       StompUtils.copyStandardHeadersFromMessageToFrame(serverMessage, frame,
             deliveryCount);
@@ -678,7 +678,7 @@ public class StompFrameHandlerV11 extends VersionedStompFrameHandler implements
          // Now the headers
 
          boolean isEscaping = false;
-         SimpleBytes holder = new SimpleBytes(1024);
+         SimpleBytes holder = decoder.headerBytes;
 
          outer: while (true)
          {
@@ -714,14 +714,7 @@ public class StompFrameHandlerV11 extends VersionedStompFrameHandler implements
                   {
                      if (decoder.inHeaderName)
                      {
-                        try
-                        {
-                           decoder.headerName = holder.getString();
-                        }
-                        catch (UnsupportedEncodingException e)
-                        {
-                           throw new HornetQStompException("Encoding exception", e);
-                        }
+                        decoder.headerName = holder.getHeaderName();
 
                         holder.reset();
 
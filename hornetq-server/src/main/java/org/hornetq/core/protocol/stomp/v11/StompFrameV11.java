@@ -17,7 +17,6 @@ import java.util.List;
 import java.util.Map;
 
 import org.hornetq.api.core.HornetQBuffer;
-import org.hornetq.api.core.HornetQBuffers;
 import org.hornetq.core.protocol.stomp.Stomp;
 import org.hornetq.core.protocol.stomp.StompFrame;
 
@@ -27,7 +26,6 @@ import org.hornetq.core.protocol.stomp.StompFrame;
  */
 public class StompFrameV11 extends StompFrame
 {
-   private static final byte[] END_OF_FRAME = new byte[] { 0, '\n' };
 
    //stomp 1.1 talks about repetitive headers.
    private final List<Header> allHeaders = new ArrayList<Header>();
@@ -47,15 +45,6 @@ public class StompFrameV11 extends StompFrame
    {
       if (buffer == null)
       {
-         if (bytesBody != null)
-         {
-            buffer = HornetQBuffers.dynamicBuffer(bytesBody.length + 512);
-         }
-         else
-         {
-            buffer = HornetQBuffers.dynamicBuffer(512);
-         }
-
          StringBuffer head = new StringBuffer();
          head.append(command);
          head.append(Stomp.NEWLINE);
@@ -70,15 +59,7 @@ public class StompFrameV11 extends StompFrame
          // Add a newline to separate the headers from the content.
          head.append(Stomp.NEWLINE);
 
-         buffer.writeBytes(head.toString().getBytes("UTF-8"));
-         if (bytesBody != null)
-         {
-            buffer.writeBytes(bytesBody);
-         }
-
-         buffer.writeBytes(END_OF_FRAME);
-
-         size = buffer.writerIndex();
+         encode(head);
       }
       return buffer;
    }
@@ -69,6 +69,7 @@ import org.hornetq.core.protocol.core.impl.wireformat.ReplicationSyncFileMessage
 import org.hornetq.core.server.HornetQComponent;
 import org.hornetq.core.server.HornetQServerLogger;
 import org.hornetq.core.server.HornetQMessageBundle;
+import org.hornetq.core.server.JournalType;
 import org.hornetq.core.server.ServerMessage;
 import org.hornetq.core.server.impl.HornetQServerImpl;
 import org.hornetq.core.server.impl.QuorumManager;
@@ -291,7 +292,8 @@ public final class ReplicationEndpoint implements ChannelHandler, HornetQCompone
                                                                     config.getJournalBufferSize_NIO(),
                                                                     server.getScheduledPool(),
                                                                     server.getExecutorFactory(),
-                                                                    config.isJournalSyncNonTransactional(), criticalErrorListener),
+                                                                    config.isJournalSyncNonTransactional(), criticalErrorListener,
+                                                                    config.getJournalType() == JournalType.MAPPED),
                                           storage,
                                           server.getAddressSettingsRepository());
 
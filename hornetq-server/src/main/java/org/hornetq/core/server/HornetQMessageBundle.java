@@ -512,4 +512,7 @@ public interface HornetQMessageBundle
    @Message(id = 119144, value =  "Invalid Page IO, PagingManager was stopped or closed", format = Message.Format.MESSAGE_FORMAT)
    HornetQIllegalStateException invalidPageIO();
 
+   @Message(id = 119145, value = "Invalid duplicate ID cache type {0}", format = Message.Format.MESSAGE_FORMAT)
+   IllegalArgumentException invalidDuplicateIDCacheType(String val);
+
 }
@@ -153,6 +153,12 @@ public interface Queue extends Bindable
 
    LinkedListIterator<MessageReference> iterator();
 
+   /**
+    * @return an iterator over the references in memory and then over the messages still in the
+    *         pages, which doesn't hold the queue for the whole iteration and doesn't deliver them
+    */
+   LinkedListIterator<MessageReference> browserIterator();
+
    void setExpiryAddress(SimpleString expiryAddress);
 
    /**
@@ -46,6 +46,8 @@ public class Redistributor implements Consumer
 {
    private boolean active;
 
+   private boolean started;
+
    private final StorageManager storageManager;
 
    private final PostOffice postOffice;
@@ -56,6 +58,10 @@ public class Redistributor implements Consumer
 
    private final Queue queue;
 
+   // The transaction redistributing the messages handled since the last batch was committed.
+   // volatile so a BatchCommitter finds out without locking that its batch was already committed
+   private volatile Transaction tx;
+
    private int count;
 
    public Redistributor(final Queue queue,
@@ -92,13 +98,23 @@ public class Redistributor implements Consumer
 
    public synchronized void start()
    {
+      started = true;
+
       active = true;
    }
 
-   public synchronized void stop() throws Exception
+   public void stop() throws Exception
    {
-      active = false;
+      synchronized (this)
+      {
+         started = false;
+
+         active = false;
 
+         flushBatch();
+      }
+
+      // The executor is flushed without holding the lock, as the tasks on it synchronize on this redistributor
       boolean ok = flushExecutor();
 
       if (!ok)
@@ -112,8 +128,13 @@ public class Redistributor implements Consumer
       // noop
    }
 
-   public synchronized void close()
+   public void close() throws Exception
    {
+      synchronized (this)
+      {
+         flushBatch();
+      }
+
       boolean ok = flushExecutor();
 
       if (!ok)
@@ -121,7 +142,12 @@ public class Redistributor implements Consumer
          throw new IllegalStateException("Timed out waiting for executor to complete");
       }
 
-      active = false;
+      synchronized (this)
+      {
+         started = false;
+
+         active = false;
+      }
    }
 
    private boolean flushExecutor()
@@ -146,75 +172,172 @@ public class Redistributor implements Consumer
          return HandleStatus.NO_MATCH;
       }
 
-      final Transaction tx = new TransactionImpl(storageManager);
+      if (reference.getMessage().isLargeMessage())
+      {
+         if (tx != null)
+         {
+            // Large messages are redistributed on their own, once the batch in progress is stored
+            commitBatch();
+
+            return HandleStatus.BUSY;
+         }
 
-      final Pair<RoutingContext, ServerMessage> routingInfo = postOffice.redistribute(reference.getMessage(), queue, tx);
+         return handleLargeMessage(reference);
+      }
 
-      if (routingInfo == null)
+      if (tx == null)
       {
-         return HandleStatus.BUSY;
+         tx = new TransactionImpl(storageManager);
+
+         // The batch is committed when it is full, or once the delivery in progress is done if the queue runs out of
+         // messages first
+         executor.execute(new BatchCommitter(tx));
       }
 
-      if (!reference.getMessage().isLargeMessage())
+      try
       {
+         Pair<RoutingContext, ServerMessage> routingInfo = postOffice.redistribute(reference.getMessage(), queue, tx);
+
+         if (routingInfo == null)
+         {
+            return HandleStatus.BUSY;
+         }
+
          routingInfo.getB().finishCopy();
 
          postOffice.processRoute(routingInfo.getB(), routingInfo.getA(), false);
 
-         ackRedistribution(reference, tx);
+         reference.handled();
+
+         queue.acknowledge(tx, reference);
       }
-      else
+      catch (Exception e)
       {
-         active = false;
-         executor.execute(new Runnable()
+         rollbackBatch();
+
+         throw e;
+      }
+
+      if (++count >= batchSize)
+      {
+         commitBatch();
+      }
+
+      return HandleStatus.HANDLED;
+   }
+
+   private HandleStatus handleLargeMessage(final MessageReference reference) throws Exception
+   {
+      final Transaction largeMessageTx = new TransactionImpl(storageManager);
+
+      final Pair<RoutingContext, ServerMessage> routingInfo = postOffice.redistribute(reference.getMessage(),
+                                                                                      queue,
+                                                                                      largeMessageTx);
+
+      if (routingInfo == null)
+      {
+         return HandleStatus.BUSY;
+      }
+
+      active = false;
+      executor.execute(new Runnable()
+      {
+         public void run()
          {
-            public void run()
+            try
             {
-               try
-               {
-                  routingInfo.getB().finishCopy();
+               routingInfo.getB().finishCopy();
 
-                  postOffice.processRoute(routingInfo.getB(), routingInfo.getA(), false);
+               postOffice.processRoute(routingInfo.getB(), routingInfo.getA(), false);
 
-                  ackRedistribution(reference, tx);
+               reference.handled();
 
+               queue.acknowledge(largeMessageTx, reference);
+
+               // Committing takes the queue lock, which is always taken before the redistributor's
+               synchronized (queue)
+               {
                   synchronized (Redistributor.this)
                   {
-                     active = true;
-
-                     count++;
-
-                     queue.deliverAsync();
+                     commit(largeMessageTx);
                   }
                }
-               catch (Exception e)
+            }
+            catch (Exception e)
+            {
+               try
                {
-                  try
-                  {
-                     tx.rollback();
-                  }
-                  catch (Exception e2)
-                  {
-                     // Nothing much we can do now
+                  largeMessageTx.rollback();
+               }
+               catch (Exception e2)
+               {
+                  // Nothing much we can do now
 
-                     // TODO log
-                     HornetQServerLogger.LOGGER.warn(e2.getMessage(), e2);
-                  }
+                  // TODO log
+                  HornetQServerLogger.LOGGER.warn(e2.getMessage(), e2);
                }
             }
-         });
-      }
+         }
+      });
 
       return HandleStatus.HANDLED;
    }
 
-   private void ackRedistribution(final MessageReference reference, final Transaction tx) throws Exception
+   /**
+    * Commits the batch in progress, or forgets it if no message was added to it.
+    */
+   private void flushBatch() throws Exception
    {
-      reference.handled();
+      if (tx != null)
+      {
+         if (count > 0)
+         {
+            commitBatch();
+         }
+         else
+         {
+            tx = null;
+         }
+      }
+   }
+
+   private void commitBatch() throws Exception
+   {
+      Transaction batch = tx;
+
+      tx = null;
+
+      count = 0;
+
+      commit(batch);
+   }
+
+   private void rollbackBatch()
+   {
+      Transaction batch = tx;
+
+      tx = null;
+
+      count = 0;
+
+      try
+      {
+         batch.rollback();
+      }
+      catch (Exception e)
+      {
+         HornetQServerLogger.LOGGER.warn(e.getMessage(), e);
+      }
+   }
 
-      queue.acknowledge(tx, reference);
+   private void commit(final Transaction transaction) throws Exception
+   {
+      transaction.commit();
 
-      tx.commit();
+      // We continue with the next batch once this one is stored, so the redistribution doesn't run ahead of the
+      // journal, and on a different thread, so as not to keep the delivery thread busy for a very long time in the case
+      // there are many messages in the queue
+      active = false;
 
       storageManager.afterCompleteOperations(new IOAsyncTask()
       {
@@ -222,32 +345,55 @@ public class Redistributor implements Consumer
          public void onError(final int errorCode, final String errorMessage)
          {
             HornetQServerLogger.LOGGER.ioErrorRedistributing(errorCode, errorMessage);
+
+            executor.execute(new Prompter());
          }
 
          public void done()
          {
-            execPrompter();
+            executor.execute(new Prompter());
          }
       });
    }
 
-   private void execPrompter()
+   private class BatchCommitter implements Runnable
    {
-      count++;
+      private final Transaction batch;
 
-      // We use >= as the large message redistribution will set count to max_int
-      // so we are use the prompter will get called
-      if (count >= batchSize)
+      BatchCommitter(final Transaction batch)
       {
-         // We continue the next batch on a different thread, so as not to keep the delivery thread busy for a very
-         // long time in the case there are many messages in the queue
-         active = false;
+         this.batch = batch;
+      }
 
-         executor.execute(new Prompter());
+      public void run()
+      {
+         if (tx != batch)
+         {
+            // already committed
+            return;
+         }
 
-         count = 0;
-      }
+         // Committing takes the queue lock, which is always taken before the redistributor's
+         synchronized (queue)
+         {
+            synchronized (Redistributor.this)
+            {
+               if (tx != batch)
+               {
+                  return;
+               }
 
+               try
+               {
+                  flushBatch();
+               }
+               catch (Exception e)
+               {
+                  HornetQServerLogger.LOGGER.warn(e.getMessage(), e);
+               }
+            }
+         }
+      }
    }
 
    private class Prompter implements Runnable
@@ -256,9 +402,12 @@ public class Redistributor implements Consumer
       {
          synchronized (Redistributor.this)
          {
-            active = true;
+            if (started)
+            {
+               active = true;
 
-            queue.deliverAsync();
+               queue.deliverAsync();
+            }
          }
       }
    }
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.server.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hornetq.core.server.MessageReference;
+import org.hornetq.utils.LinkedListImpl;
+
+/**
+ * The references delivered by a consumer and not acknowledged yet, in delivery order and indexed by
+ * message ID.
+ * <p>
+ * Cumulative acknowledgements and cancellations take the references in delivery order, while
+ * individual acknowledgements and expiries remove a reference by its message ID without going
+ * through the references delivered before it.
+ * <p>
+ * References are added by the delivery of the queue and removed by the session, every method is
+ * synchronized.
+ */
+final class DeliveringReferences
+{
+   // Attributes ----------------------------------------------------
+
+   private final LinkedListImpl<MessageReference> refs = new LinkedListImpl<MessageReference>();
+
+   // message ID -> node of the first reference delivered with that message ID
+   private final Map<Long, LinkedListImpl.Node<MessageReference>> index = new HashMap<Long, LinkedListImpl.Node<MessageReference>>();
+
+   // message ID -> number of references not in the index as a reference with the same message ID
+   // was already, only for the message IDs that have some
+   private final Map<Long, Integer> duplicates = new HashMap<Long, Integer>();
+
+   // Public --------------------------------------------------------
+
+   synchronized void add(final MessageReference ref)
+   {
+      LinkedListImpl.Node<MessageReference> node = refs.addTailNode(ref);
+
+      Long messageID = ref.getMessage().getMessageID();
+
+      if (index.containsKey(messageID))
+      {
+         Integer count = duplicates.get(messageID);
+
+         duplicates.put(messageID, count == null ? 1 : count + 1);
+      }
+      else
+      {
+         index.put(messageID, node);
+      }
+   }
+
+   /**
+    * @return the reference delivered first or null if there is none
+    */
+   synchronized MessageReference poll()
+   {
+      LinkedListImpl.Node<MessageReference> node = refs.getFirstNode();
+
+      if (node == null)
+      {
+         return null;
+      }
+
+      refs.removeNode(node);
+
+      unindex(node);
+
+      return node.getValue();
+   }
+
+   /**
+    * @return the first delivered reference with this message ID or null if there is none
+    */
+   synchronized MessageReference remove(final long messageID)
+   {
+      LinkedListImpl.Node<MessageReference> node = index.get(messageID);
+
+      if (node == null)
+      {
+         return null;
+      }
+
+      refs.removeNode(node);
+
+      unindex(node);
+
+      return node.getValue();
+   }
+
+   /**
+    * @return the references in delivery order
+    */
+   synchronized List<MessageReference> toList()
+   {
+      List<MessageReference> list = new ArrayList<MessageReference>(refs.size());
+
+      LinkedListImpl.Node<MessageReference> node = refs.getFirstNode();
+
+      while (node != null)
+      {
+         list.add(node.getValue());
+
+         node = node.getNext();
+      }
+
+      return list;
+   }
+
+   synchronized void clear()
+   {
+      refs.clear();
+
+      index.clear();
+
+      duplicates.clear();
+   }
+
+   synchronized boolean isEmpty()
+   {
+      return refs.size() == 0;
+   }
+
+   synchronized int size()
+   {
+      return refs.size();
+   }
+
+   // Private -------------------------------------------------------
+
+   private void unindex(final LinkedListImpl.Node<MessageReference> node)
+   {
+      Long messageID = node.getValue().getMessage().getMessageID();
+
+      if (index.get(messageID) != node)
+      {
+         // it was not indexed, a reference with the same message ID is still delivering
+         removeDuplicate(messageID);
+
+         return;
+      }
+
+      index.remove(messageID);
+
+      if (duplicates.containsKey(messageID))
+      {
+         // the next reference with the same message ID takes its place, this is the rare case of a
+         // message delivered twice to the same consumer
+         LinkedListImpl.Node<MessageReference> next = refs.getFirstNode();
+
+         while (next != null)
+         {
+            if (next.getValue().getMessage().getMessageID() == messageID)
+            {
+               removeDuplicate(messageID);
+
+               index.put(messageID, next);
+
+               return;
+            }
+
+            next = next.getNext();
+         }
+      }
+   }
+
+   private void removeDuplicate(final Long messageID)
+   {
+      int count = duplicates.get(messageID);
+
+      if (count == 1)
+      {
+         duplicates.remove(messageID);
+      }
+      else
+      {
+         duplicates.put(messageID, count - 1);
+      }
+   }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.server.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.hornetq.core.server.MessageReference;
+import org.hornetq.utils.LinkedListImpl;
+
+/**
+ * The references of a queue that have an expiration, in buckets of expiration time. The expiry
+ * reaper takes the references that are due from here instead of checking every reference of the
+ * queue. The index keeps the nodes holding the references in the queue so the reaper can unlink
+ * them without iterating the queue.
+ * <p>
+ * A bucket holds the references expiring up to its time, so every reference of a bucket that is due
+ * is expired. A reference whose message changed its expiration after being added may stay in the
+ * wrong bucket until that bucket is due.
+ * <p>
+ * This class is not thread safe, the queue uses it holding its lock.
+ */
+public final class ExpiryIndex
+{
+   // Constants -----------------------------------------------------
+
+   public static final long DEFAULT_GRANULARITY = 1000;
+
+   // Attributes ----------------------------------------------------
+
+   private final long granularity;
+
+   private final TreeMap<Long, Map<MessageReference, Entry>> buckets = new TreeMap<Long, Map<MessageReference, Entry>>();
+
+   private int size;
+
+   // Constructors --------------------------------------------------
+
+   public ExpiryIndex()
+   {
+      this(DEFAULT_GRANULARITY);
+   }
+
+   /**
+    * @param granularity the time in milliseconds covered by a bucket
+    */
+   public ExpiryIndex(final long granularity)
+   {
+      this.granularity = granularity;
+   }
+
+   // Public --------------------------------------------------------
+
+   /**
+    * Adds the reference held by a node of the queue if its message has an expiration. A reference
+    * which is already indexed is kept with the new node.
+    *
+    * @param priority the priority the node was added with to the queue
+    */
+   public void add(final LinkedListImpl.Node<MessageReference> node, final int priority)
+   {
+      MessageReference ref = node.getValue();
+
+      long expiration = ref.getMessage().getExpiration();
+
+      if (expiration == 0)
+      {
+         return;
+      }
+
+      Long bucket = bucketOf(expiration);
+
+      Map<MessageReference, Entry> refs = buckets.get(bucket);
+
+      if (refs == null)
+      {
+         refs = new IdentityHashMap<MessageReference, Entry>();
+         buckets.put(bucket, refs);
+      }
+
+      if (refs.put(ref, new Entry(node, priority)) == null)
+      {
+         size++;
+      }
+   }
+
+   public void remove(final MessageReference ref)
+   {
+      long expiration = ref.getMessage().getExpiration();
+
+      if (expiration == 0 || size == 0)
+      {
+         return;
+      }
+
+      Long bucket = bucketOf(expiration);
+
+      Map<MessageReference, Entry> refs = buckets.get(bucket);
+
+      if (refs != null && refs.remove(ref) != null)
+      {
+         size--;
+
+         if (refs.isEmpty())
+         {
+            buckets.remove(bucket);
+         }
+      }
+   }
+
+   /**
+    * Removes and returns the entries of the buckets that are due at {@code now}. The node of an
+    * entry may have been removed from the queue since it was added.
+    */
+   public Collection<Entry> pollExpired(final long now)
+   {
+      SortedMap<Long, Map<MessageReference, Entry>> due = buckets.headMap(now, true);
+
+      if (due.isEmpty())
+      {
+         return Collections.emptyList();
+      }
+
+      List<Entry> expired = new ArrayList<Entry>();
+
+      Iterator<Map<MessageReference, Entry>> iter = due.values().iterator();
+
+      while (iter.hasNext())
+      {
+         Map<MessageReference, Entry> refs = iter.next();
+         size -= refs.size();
+         expired.addAll(refs.values());
+         iter.remove();
+      }
+
+      return expired;
+   }
+
+   /**
+    * The time when the first bucket is due, or -1 if there is none.
+    */
+   public long getNextExpiration()
+   {
+      return buckets.isEmpty() ? -1 : buckets.firstKey();
+   }
+
+   public boolean isEmpty()
+   {
+      return size == 0;
+   }
+
+   public int size()
+   {
+      return size;
+   }
+
+   public void clear()
+   {
+      buckets.clear();
+      size = 0;
+   }
+
+   // Private -------------------------------------------------------
+
+   /**
+    * The expiration rounded up to the granularity, a bucket is due once all its references are
+    * expired.
+    */
+   private Long bucketOf(final long expiration)
+   {
+      long remainder = expiration % granularity;
+
+      return remainder == 0 ? expiration : expiration - remainder + granularity;
+   }
+
+   // Inner classes -------------------------------------------------
+
+   /**
+    * An indexed reference, with the node holding it in the queue.
+    */
+   public static final class Entry
+   {
+      private final LinkedListImpl.Node<MessageReference> node;
+
+      private final int priority;
+
+      Entry(final LinkedListImpl.Node<MessageReference> node, final int priority)
+      {
+         this.node = node;
+         this.priority = priority;
+      }
+
+      public LinkedListImpl.Node<MessageReference> getNode()
+      {
+         return node;
+      }
+
+      public int getPriority()
+      {
+         return priority;
+      }
+
+      public MessageReference getReference()
+      {
+         return node.getValue();
+      }
+   }
+}
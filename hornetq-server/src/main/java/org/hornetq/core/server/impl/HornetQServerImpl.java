@@ -1192,7 +1192,7 @@ public class HornetQServerImpl implements HornetQServer
 
       Transformer transformer = instantiateTransformer(config.getTransformerClassName());
 
-      Filter filter = FilterImpl.createFilter(config.getFilterString());
+      Filter filter = FilterImpl.createFilter(config.getFilterString(), configuration.isFilterCompilationEnabled());
 
       Divert divert = new DivertImpl(new SimpleString(config.getForwardingAddress()),
          sName,
@@ -1276,7 +1276,8 @@ public class HornetQServerImpl implements HornetQServer
          scheduledPool,
          executorFactory,
          configuration.isJournalSyncNonTransactional(),
-         shutdownOnCriticalIO),
+         shutdownOnCriticalIO,
+         configuration.getJournalType() == JournalType.MAPPED),
          storageManager,
          addressSettingsRepository);
    }
@@ -1612,7 +1613,8 @@ public class HornetQServerImpl implements HornetQServer
             .toString()
             .equals(GENERIC_IGNORED_FILTER))
          {
-            Filter filter = FilterImpl.createFilter(queueBindingInfo.getFilterString());
+            Filter filter = FilterImpl.createFilter(queueBindingInfo.getFilterString(),
+                                                    configuration.isFilterCompilationEnabled());
 
             PageSubscription subscription = pagingManager.getPageStore(queueBindingInfo.getAddress())
                .getCursorProvider()
@@ -1733,7 +1735,7 @@ public class HornetQServerImpl implements HornetQServer
          }
       }
 
-      Filter filter = FilterImpl.createFilter(filterString);
+      Filter filter = FilterImpl.createFilter(filterString, configuration.isFilterCompilationEnabled());
 
       long txID = storageManager.generateUniqueID();;
       long queueID = storageManager.generateUniqueID();
@@ -154,6 +154,13 @@ public class LastValueQueue extends QueueImpl
       }
    }
 
+   @Override
+   protected boolean isSelectorIndexed()
+   {
+      // a holder gets the message of the last reference with its name, which may match other selectors
+      return false;
+   }
+
    private class HolderReference implements MessageReference
    {
       private final SimpleString prop;
@@ -105,7 +105,8 @@ public class QueueFactoryImpl implements QueueFactory
                                postOffice,
                                storageManager,
                                addressSettingsRepository,
-                               executorFactory.getExecutor());
+                               executorFactory.getExecutor(),
+                               addressSettings.isBatchedIntake());
       }
 
       return queue;
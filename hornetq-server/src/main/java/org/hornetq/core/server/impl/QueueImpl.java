@@ -22,6 +22,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
@@ -30,6 +31,7 @@ import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -60,8 +62,8 @@ import org.hornetq.core.transaction.TransactionPropertyIndexes;
 import org.hornetq.core.transaction.impl.TransactionImpl;
 import org.hornetq.utils.ConcurrentHashSet;
 import org.hornetq.utils.FutureLatch;
+import org.hornetq.utils.LinkedListImpl;
 import org.hornetq.utils.LinkedListIterator;
-import org.hornetq.utils.PriorityLinkedList;
 import org.hornetq.utils.PriorityLinkedListImpl;
 
 /**
@@ -79,7 +81,7 @@ public class QueueImpl implements Queue
 {
    private static final boolean isTrace = HornetQServerLogger.LOGGER.isTraceEnabled();
 
-   public static final int REDISTRIBUTOR_BATCH_SIZE = 100;
+   public static final int REDISTRIBUTOR_BATCH_SIZE = AddressSettings.DEFAULT_REDISTRIBUTION_BATCH_SIZE;
 
    public static final int NUM_PRIORITIES = 10;
 
@@ -114,7 +116,10 @@ public class QueueImpl implements Queue
    private final ConcurrentLinkedQueue<MessageReference> intermediateMessageReferences = new ConcurrentLinkedQueue<MessageReference>();
 
    // This is where messages are stored
-   private final PriorityLinkedList<MessageReference> messageReferences = new PriorityLinkedListImpl<MessageReference>(QueueImpl.NUM_PRIORITIES);
+   private final PriorityLinkedListImpl<MessageReference> messageReferences = new PriorityLinkedListImpl<MessageReference>(QueueImpl.NUM_PRIORITIES);
+
+   /** The references of messageReferences by the selectors of the consumers, @protected by this */
+   private final SelectorIndex selectorIndex = new SelectorIndex(messageReferences);
 
    // The quantity of pagedReferences on messageReferences priority list
    private final AtomicInteger pagedReferences = new AtomicInteger(0);
@@ -126,7 +131,7 @@ public class QueueImpl implements Queue
 
    private final ScheduledDeliveryHandler scheduledDeliveryHandler;
 
-   private long messagesAdded;
+   private final AtomicLong messagesAdded = new AtomicLong(0);
 
    protected final AtomicInteger deliveringCount = new AtomicInteger(0);
 
@@ -136,6 +141,11 @@ public class QueueImpl implements Queue
 
    private volatile boolean depagePending = false;
 
+   /** The references of messageReferences that have an expiration, @protected by this */
+   private final ExpiryIndex expiryIndex = new ExpiryIndex();
+
+   private volatile boolean pagedExpiryPending = false;
+
    private final StorageManager storageManager;
 
    private final HierarchicalRepository<AddressSettings> addressSettingsRepository;
@@ -168,6 +178,14 @@ public class QueueImpl implements Queue
 
    private final Runnable concurrentPoller = new ConcurrentPoller();
 
+   // When true, producers never deliver directly and never lock the queue: the references they add
+   // are moved from intermediateMessageReferences to messageReferences in batches on the executor
+   private final boolean batchedIntake;
+
+   private final AtomicBoolean intakePending = new AtomicBoolean(false);
+
+   private final Runnable intakeRunner = new IntakeRunner();
+
    private boolean internalQueue;
 
    private volatile boolean checkDirect;
@@ -260,6 +278,35 @@ public class QueueImpl implements Queue
                     final StorageManager storageManager,
                     final HierarchicalRepository<AddressSettings> addressSettingsRepository,
                     final Executor executor)
+   {
+      this(id,
+           address,
+           name,
+           filter,
+           pageSubscription,
+           durable,
+           temporary,
+           scheduledExecutor,
+           postOffice,
+           storageManager,
+           addressSettingsRepository,
+           executor,
+           false);
+   }
+
+   public QueueImpl(final long id,
+                    final SimpleString address,
+                    final SimpleString name,
+                    final Filter filter,
+                    final PageSubscription pageSubscription,
+                    final boolean durable,
+                    final boolean temporary,
+                    final ScheduledExecutorService scheduledExecutor,
+                    final PostOffice postOffice,
+                    final StorageManager storageManager,
+                    final HierarchicalRepository<AddressSettings> addressSettingsRepository,
+                    final Executor executor,
+                    final boolean batchedIntake)
    {
       this.id = id;
 
@@ -308,6 +355,13 @@ public class QueueImpl implements Queue
 
       this.executor = executor;
 
+      this.batchedIntake = batchedIntake;
+
+      if (batchedIntake)
+      {
+         directDeliver = false;
+      }
+
       try
       {
          checkQueueSizeFuture = scheduledExecutor.scheduleWithFixedDelay(new Runnable()
@@ -423,7 +477,7 @@ public class QueueImpl implements Queue
 
       directDeliver = false;
 
-      messagesAdded++;
+      messagesAdded.incrementAndGet();
    }
 
    public void addTail(final MessageReference ref)
@@ -435,9 +489,20 @@ public class QueueImpl implements Queue
    {
       if (scheduledDeliveryHandler.checkAndSchedule(ref, true))
       {
-         synchronized (this)
+         messagesAdded.incrementAndGet();
+
+         return;
+      }
+
+      if (batchedIntake)
+      {
+         queueMemorySize.addAndGet(ref.getMessageMemoryEstimate());
+
+         intermediateMessageReferences.add(ref);
+
+         if (!intakePending.get() && intakePending.compareAndSet(false, true))
          {
-            messagesAdded++;
+            getExecutor().execute(intakeRunner);
          }
 
          return;
@@ -591,7 +656,9 @@ public class QueueImpl implements Queue
          consumerWithFilterCount.incrementAndGet();
       }
 
-      consumerList.add(new ConsumerHolder(consumer));
+      SelectorIndex.Group group = isSelectorIndexed() ? selectorIndex.addConsumer(consumer.getFilter()) : null;
+
+      consumerList.add(new ConsumerHolder(consumer, group));
 
       consumerSet.add(consumer);
    }
@@ -611,6 +678,11 @@ public class QueueImpl implements Queue
                holder.iter.close();
             }
 
+            if (holder.group != null)
+            {
+               selectorIndex.removeConsumer(holder.group);
+            }
+
             iter.remove();
 
             break;
@@ -769,6 +841,11 @@ public class QueueImpl implements Queue
       return new SynchronizedIterator(messageReferences.iterator());
    }
 
+   public LinkedListIterator<MessageReference> browserIterator()
+   {
+      return new BrowserIterator();
+   }
+
    public synchronized MessageReference removeReferenceWithID(final long id) throws Exception
    {
       LinkedListIterator<MessageReference> iterator = iterator();
@@ -1076,16 +1153,13 @@ public class QueueImpl implements Queue
 
    public long getInstantMessagesAdded()
    {
-      synchronized (this)
+      if (pageSubscription != null)
       {
-         if (pageSubscription != null)
-         {
-            return messagesAdded + pageSubscription.getCounter().getValue() - pagedReferences.get();
-         }
-         else
-         {
-            return messagesAdded;
-         }
+         return messagesAdded.get() + pageSubscription.getCounter().getValue() - pagedReferences.get();
+      }
+      else
+      {
+         return messagesAdded.get();
       }
     }
 
@@ -1335,43 +1409,13 @@ public class QueueImpl implements Queue
          {
             synchronized (QueueImpl.this)
             {
-               LinkedListIterator<MessageReference> iter = iterator();
-
-               try
-               {
-                  boolean expired = false;
-                  boolean hasElements = false;
-                  while (iter.hasNext())
-                  {
-                     hasElements = true;
-                     MessageReference ref = iter.next();
-                     try
-                     {
-                        if (ref.getMessage().isExpired())
-                        {
-                           deliveringCount.incrementAndGet();
-                           expired = true;
-                           expire(ref);
-                           iter.remove();
-                           refRemoved(ref);
-                        }
-                     }
-                     catch (Exception e)
-                     {
-                        HornetQServerLogger.LOGGER.errorExpiringReferencesOnQueue(e, ref);
-                     }
-                  }
+               expireDueReferences();
+            }
 
-                  // If empty we need to schedule depaging to make sure we would depage expired messages as well
-                  if ((!hasElements || expired) && pageIterator != null && pageIterator.hasNext())
-                  {
-                     scheduleDepage(true);
-                  }
-               }
-               finally
-               {
-                  iter.close();
-               }
+            // paged messages are expired from the pages, without being depaged first
+            if (pageIterator != null && pageSubscription.isPaging())
+            {
+               schedulePagedExpiry();
             }
          }
       });
@@ -1656,7 +1700,10 @@ public class QueueImpl implements Queue
    private void internalAddTail(final MessageReference ref)
    {
       refAdded(ref);
-      messageReferences.addTail(ref, ref.getMessage().getPriority());
+      int priority = ref.getMessage().getPriority();
+      LinkedListImpl.Node<MessageReference> node = messageReferences.addTailNode(ref, priority);
+      selectorIndex.add(node, priority, false);
+      expiryIndex.add(node, priority);
    }
 
    /**
@@ -1669,7 +1716,10 @@ public class QueueImpl implements Queue
    {
       queueMemorySize.addAndGet(ref.getMessageMemoryEstimate());
       refAdded(ref);
-      messageReferences.addHead(ref, ref.getMessage().getPriority());
+      int priority = ref.getMessage().getPriority();
+      LinkedListImpl.Node<MessageReference> node = messageReferences.addHeadNode(ref, priority);
+      selectorIndex.add(node, priority, true);
+      expiryIndex.add(node, priority);
    }
 
    private synchronized void doPoll()
@@ -1680,7 +1730,7 @@ public class QueueImpl implements Queue
       {
          internalAddTail(ref);
 
-         messagesAdded++;
+         messagesAdded.incrementAndGet();
 
          if (consumerWithFilterCount.get() > 0 || messageReferences.size() == 1)
          {
@@ -1689,6 +1739,43 @@ public class QueueImpl implements Queue
       }
    }
 
+   /**
+    * Moves the references added by producers to messageReferences with a single lock and delivers
+    * them. Used instead of {@link #doPoll()} when the intake is batched.
+    */
+   private void drainIntake()
+   {
+      // Cleared before polling, so a reference added from now on will schedule another run
+      intakePending.set(false);
+
+      int added = 0;
+
+      synchronized (this)
+      {
+         MessageReference ref;
+
+         while (added < MAX_DELIVERIES_IN_LOOP && (ref = intermediateMessageReferences.poll()) != null)
+         {
+            internalAddTail(ref);
+
+            added++;
+         }
+      }
+
+      messagesAdded.addAndGet(added);
+
+      if (added == MAX_DELIVERIES_IN_LOOP && intakePending.compareAndSet(false, true))
+      {
+         // There may be more, we let the other tasks of the executor run before draining them
+         getExecutor().execute(intakeRunner);
+      }
+
+      if (added > 0)
+      {
+         deliver();
+      }
+   }
+
    /**
     * This method will deliver as many messages as possible until all consumers are busy or there
     * are no more matching or available messages.
@@ -1751,7 +1838,8 @@ public class QueueImpl implements Queue
 
             if (holder.iter == null)
             {
-               holder.iter = messageReferences.iterator();
+               // a consumer with an indexed selector only goes through the references it can match
+               holder.iter = holder.group == null ? messageReferences.iterator() : selectorIndex.iterator(holder.group);
             }
 
             MessageReference ref;
@@ -1869,6 +1957,7 @@ public class QueueImpl implements Queue
     */
    private void refRemoved(MessageReference ref)
    {
+      expiryIndex.remove(ref);
       queueMemorySize.addAndGet(-ref.getMessageMemoryEstimate());
       if (ref.isPaged())
       {
@@ -1876,6 +1965,15 @@ public class QueueImpl implements Queue
       }
    }
 
+   /**
+    * Whether the selectors of the consumers can be indexed. The references of the queue must keep
+    * the message they were added with.
+    */
+   protected boolean isSelectorIndexed()
+   {
+      return true;
+   }
+
    /**
     * @param ref
     */
@@ -1887,6 +1985,158 @@ public class QueueImpl implements Queue
       }
    }
 
+   /**
+    * Expires the references that the expiry index has due. Only those references are checked, they
+    * are unlinked from the queue through their nodes. Must be called holding the lock on the queue.
+    */
+   private void expireDueReferences()
+   {
+      if (expiryIndex.isEmpty())
+      {
+         return;
+      }
+
+      for (ExpiryIndex.Entry entry : expiryIndex.pollExpired(System.currentTimeMillis()))
+      {
+         LinkedListImpl.Node<MessageReference> node = entry.getNode();
+
+         // the reference is no longer on the queue (being delivered or acked)
+         if (!node.isLinked())
+         {
+            continue;
+         }
+
+         MessageReference ref = node.getValue();
+
+         try
+         {
+            if (ref.getMessage().isExpired())
+            {
+               deliveringCount.incrementAndGet();
+               expire(ref);
+               messageReferences.removeNode(node, entry.getPriority());
+               refRemoved(ref);
+            }
+            else
+            {
+               // its expiration was changed after it was indexed
+               expiryIndex.add(node, entry.getPriority());
+            }
+         }
+         catch (Exception e)
+         {
+            HornetQServerLogger.LOGGER.errorExpiringReferencesOnQueue(e, ref);
+         }
+      }
+   }
+
+   private void schedulePagedExpiry()
+   {
+      if (!pagedExpiryPending)
+      {
+         pagedExpiryPending = true;
+         pageSubscription.getExecutor().execute(new Runnable()
+         {
+            public void run()
+            {
+               expirePagedReferences();
+            }
+         });
+      }
+   }
+
+   /**
+    * Expires the paged messages at the head of the page cursor straight from the pages. Messages
+    * are paged in the order they are sent, so with the same time to live on an address the expired
+    * ones come first. The first message that isn't expired is left on the cursor for depage, which
+    * only depages while the queue has room. Runs on the executor of the page subscription, as depage
+    * does.
+    */
+   private void expirePagedReferences()
+   {
+      pagedExpiryPending = false;
+
+      if (paused || pageIterator == null)
+      {
+         return;
+      }
+
+      long timeout = System.currentTimeMillis() + DELIVERY_TIMEOUT;
+
+      int expired = 0;
+
+      int txCount = 0;
+
+      boolean live = false;
+
+      Transaction tx = new TransactionImpl(storageManager);
+
+      try
+      {
+         while (timeout > System.currentTimeMillis() && pageIterator.hasNext())
+         {
+            PagedReference reference = pageIterator.next();
+
+            if (!reference.getMessage().isExpired())
+            {
+               pageIterator.repeat();
+               live = true;
+               break;
+            }
+
+            try
+            {
+               expire(tx, reference);
+            }
+            catch (Exception e)
+            {
+               // left on the cursor, depage will take it and the queue expires it from there
+               HornetQServerLogger.LOGGER.errorExpiringReferencesOnQueue(e, reference);
+               pageIterator.repeat();
+               live = true;
+               break;
+            }
+
+            // the reference is acked or moved when the transaction commits
+            pageIterator.remove();
+            deliveringCount.incrementAndGet();
+            expired++;
+            txCount++;
+
+            if (txCount == 500)
+            {
+               tx.commit();
+               tx = new TransactionImpl(storageManager);
+               txCount = 0;
+            }
+         }
+
+         if (txCount > 0)
+         {
+            tx.commit();
+         }
+      }
+      catch (Exception e)
+      {
+         HornetQServerLogger.LOGGER.errorExpiringRef(e);
+      }
+
+      if (isTrace)
+      {
+         HornetQServerLogger.LOGGER.trace("Expired " + expired + " paged messages on queue " + this.getName());
+      }
+
+      if (live)
+      {
+         scheduleDepage(false);
+      }
+      else if (expired > 0 && pageIterator.hasNext())
+      {
+         // the time was up before reaching a message that isn't expired
+         schedulePagedExpiry();
+      }
+   }
+
    private void scheduleDepage(final boolean scheduleExpiry)
    {
       if (!depagePending)
@@ -1970,13 +2220,13 @@ public class QueueImpl implements Queue
       // create the redistributor only once if there are no local consumers
       if (consumerSet.isEmpty() && redistributor == null)
       {
-         redistributor = new Redistributor(this,
-                                           storageManager,
-                                           postOffice,
-                                           executor,
-                                           QueueImpl.REDISTRIBUTOR_BATCH_SIZE);
+         int batchSize = addressSettingsRepository == null ? QueueImpl.REDISTRIBUTOR_BATCH_SIZE
+                                                           : addressSettingsRepository.getMatch(address.toString())
+                                                                                      .getRedistributionBatchSize();
 
-         consumerList.add(new ConsumerHolder(redistributor));
+         redistributor = new Redistributor(this, storageManager, postOffice, executor, batchSize);
+
+         consumerList.add(new ConsumerHolder(redistributor, null));
 
          redistributor.start();
 
@@ -2086,10 +2336,12 @@ public class QueueImpl implements Queue
       return copy;
    }
 
+   /**
+    * Expires a reference within a transaction, as {@link #expire(MessageReference)} does: the
+    * reference is acked when there is no expiry address or no queue bound to it.
+    */
    private void expire(final Transaction tx, final MessageReference ref) throws Exception
    {
-      SimpleString expiryAddress = addressSettingsRepository.getMatch(address.toString()).getExpiryAddress();
-
       if (expiryAddress != null)
       {
          Bindings bindingList = postOffice.getBindingsForAddress(expiryAddress);
@@ -2097,21 +2349,28 @@ public class QueueImpl implements Queue
          if (bindingList.getBindings().isEmpty())
          {
             HornetQServerLogger.LOGGER.errorExpiringReferencesNoBindings(expiryAddress);
+
+            acknowledge(tx, ref);
          }
          else
          {
+            if (isTrace)
+            {
+               HornetQServerLogger.LOGGER.trace("moving expired reference " + ref + " to address = " + expiryAddress + " from queue=" + this.getName());
+            }
             move(expiryAddress, tx, ref, true, true);
          }
       }
       else
       {
-         HornetQServerLogger.LOGGER.errorExpiringReferencesNoQueue(name);
-
+         if (isTrace)
+         {
+            HornetQServerLogger.LOGGER.trace("expiry is null, just acking expired message for reference " + ref + " from queue=" + this.getName());
+         }
          acknowledge(tx, ref);
       }
    }
 
-
    private void sendToDeadLetterAddress(final MessageReference ref) throws Exception
    {
       sendToDeadLetterAddress(ref, addressSettingsRepository.getMatch(address.toString()).getDeadLetterAddress());
@@ -2214,7 +2473,7 @@ public class QueueImpl implements Queue
                groups.put(groupID, consumer);
             }
 
-            messagesAdded++;
+            messagesAdded.incrementAndGet();
 
             return true;
          }
@@ -2382,13 +2641,17 @@ public class QueueImpl implements Queue
 
    private static class ConsumerHolder
    {
-      ConsumerHolder(final Consumer consumer)
+      ConsumerHolder(final Consumer consumer, final SelectorIndex.Group group)
       {
          this.consumer = consumer;
+         this.group = group;
       }
 
       final Consumer consumer;
 
+      /** The group of the consumer in the selector index, or null if its selector isn't indexed */
+      final SelectorIndex.Group group;
+
       LinkedListIterator<MessageReference> iter;
    }
 
@@ -2571,6 +2834,21 @@ public class QueueImpl implements Queue
       }
    }
 
+   private final class IntakeRunner implements Runnable
+   {
+      public void run()
+      {
+         try
+         {
+            drainIntake();
+         }
+         catch (Exception e)
+         {
+            HornetQServerLogger.LOGGER.errorDelivering(e);
+         }
+      }
+   }
+
    /**
     * This will determine the actions that could be done while iterate the queue through iterQueue
     *
@@ -2633,6 +2911,88 @@ public class QueueImpl implements Queue
 
    }
 
+   /**
+    * Iterates over the references in memory and then over the messages still in the pages. The queue
+    * is only held while taking the next reference in memory, the pages are read without it.
+    * <p>
+    * A message taken from the pages into the queue after the browser went through the references
+    * in memory is not returned.
+    */
+   private class BrowserIterator implements LinkedListIterator<MessageReference>
+   {
+      private final LinkedListIterator<MessageReference> memoryIterator = iterator();
+
+      private LinkedListIterator<PagedReference> pagesIterator;
+
+      private boolean lastFromPages;
+
+      public void repeat()
+      {
+         if (lastFromPages)
+         {
+            pagesIterator.repeat();
+         }
+         else
+         {
+            memoryIterator.repeat();
+
+            if (pagesIterator != null)
+            {
+               // nothing was taken from the pages yet, they will be browsed again after the reference
+               pagesIterator.close();
+               pagesIterator = null;
+            }
+         }
+      }
+
+      public boolean hasNext()
+      {
+         if (pagesIterator == null)
+         {
+            if (memoryIterator.hasNext())
+            {
+               return true;
+            }
+
+            if (pageSubscription == null)
+            {
+               return false;
+            }
+
+            pagesIterator = pageSubscription.browserIterator();
+         }
+
+         return pagesIterator.hasNext();
+      }
+
+      public MessageReference next()
+      {
+         if (!hasNext())
+         {
+            throw new NoSuchElementException();
+         }
+
+         lastFromPages = pagesIterator != null;
+
+         return lastFromPages ? pagesIterator.next() : memoryIterator.next();
+      }
+
+      public void remove()
+      {
+         throw new UnsupportedOperationException("a browser can't remove messages");
+      }
+
+      public void close()
+      {
+         memoryIterator.close();
+
+         if (pagesIterator != null)
+         {
+            pagesIterator.close();
+         }
+      }
+   }
+
    private class AddressSettingsRepositoryListener implements HierarchicalRepositoryChangeListener
    {
       @Override
@@ -12,12 +12,16 @@
  */
 package org.hornetq.core.server.impl;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -29,6 +33,12 @@ import org.hornetq.core.server.ScheduledDeliveryHandler;
 
 /**
  * Handles scheduling deliveries to a queue at the correct time.
+ * <p>
+ * Scheduled references are kept in buckets sorted by delivery time, with an index by message ID.
+ * Scheduling a reference is constant time when it goes to an existing bucket (which is the common
+ * case when many messages are scheduled with the same delay), removing a reference by ID is
+ * constant time, and a single task is kept on the scheduled executor for the earliest bucket: when
+ * it fires every due bucket is delivered in one batch and the next wake-up is scheduled.
  *
  * @author <a href="mailto:tim.fox@jboss.com">Tim Fox</a>
  * @author <a href="ataylor@redhat.com">Andy Taylor</a>
@@ -43,7 +53,27 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler
 
    private final Object lockDelivery = new Object();
 
-   private final LinkedList<MessageReference> scheduledReferences = new LinkedList<MessageReference>();
+   // All the fields below are guarded by scheduledBuckets
+
+   private final TreeMap<Long, ScheduledBucket> scheduledBuckets = new TreeMap<Long, ScheduledBucket>();
+
+   private final Map<Long, ScheduledEntry> scheduledByID = new HashMap<Long, ScheduledEntry>();
+
+   /** the bucket of the last insertion, as most insertions go to the latest delivery time */
+   private ScheduledBucket lastBucket;
+
+   private int scheduledCount;
+
+   /**
+    * Sequences giving the order of the scheduled references across buckets, as they used to be kept
+    * in a single list: a reference scheduled at the tail goes first, one at the head goes last.
+    */
+   private long firstSequence;
+
+   private long lastSequence;
+
+   /** the earliest time a delivery task is scheduled for, or Long.MAX_VALUE */
+   private long nextWakeup = Long.MAX_VALUE;
 
    public ScheduledDeliveryHandlerImpl(final ScheduledExecutorService scheduledExecutor)
    {
@@ -61,23 +91,50 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler
             HornetQServerLogger.LOGGER.trace("Scheduling delivery for " + ref + " to occur at " + deliveryTime);
          }
 
-         ScheduledDeliveryRunnable runnable = new ScheduledDeliveryRunnable(ref.getScheduledDeliveryTime());
+         boolean wakeup = false;
 
-         synchronized (scheduledReferences)
+         synchronized (scheduledBuckets)
          {
+            ScheduledBucket bucket = getBucket(deliveryTime);
+
+            ScheduledEntry entry = new ScheduledEntry(ref, bucket, tail ? --firstSequence : lastSequence++);
+
             if (tail)
             {
                // We do the opposite what the parameter says as the Runnable will always add it to the head
-               scheduledReferences.addFirst(ref);
+               bucket.entries.addFirst(entry);
             }
             else
             {
                // We do the opposite what the parameter says as the Runnable will always add it to the head
-               scheduledReferences.add(ref);
+               bucket.entries.addLast(entry);
+            }
+
+            bucket.live++;
+
+            scheduledCount++;
+
+            Long id = ref.getMessage().getMessageID();
+
+            ScheduledEntry previous = scheduledByID.put(id, entry);
+
+            if (previous != null)
+            {
+               // the same message was scheduled twice on this queue: keep indexing the first one
+               scheduledByID.put(id, previous);
+            }
+
+            if (deliveryTime < nextWakeup)
+            {
+               nextWakeup = deliveryTime;
+               wakeup = true;
             }
          }
 
-         scheduleDelivery(runnable, deliveryTime);
+         if (wakeup)
+         {
+            scheduleDelivery(deliveryTime);
+         }
 
          return true;
       }
@@ -86,64 +143,163 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler
 
    public int getScheduledCount()
    {
-      synchronized (scheduledReferences)
+      synchronized (scheduledBuckets)
       {
-         return scheduledReferences.size();
+         return scheduledCount;
       }
    }
 
    public List<MessageReference> getScheduledReferences()
    {
-      List<MessageReference> refs = new ArrayList<MessageReference>();
+      List<ScheduledEntry> entries = new ArrayList<ScheduledEntry>();
 
-      synchronized (scheduledReferences)
+      synchronized (scheduledBuckets)
       {
-         refs.addAll(scheduledReferences);
+         for (ScheduledBucket bucket : scheduledBuckets.values())
+         {
+            for (ScheduledEntry entry : bucket.entries)
+            {
+               if (!entry.removed)
+               {
+                  entries.add(entry);
+               }
+            }
+         }
       }
-      return refs;
+
+      return toReferences(entries);
    }
 
    public List<MessageReference> cancel(final Filter filter)
    {
-      List<MessageReference> refs = new ArrayList<MessageReference>();
+      List<ScheduledEntry> cancelled = new ArrayList<ScheduledEntry>();
 
-      synchronized (scheduledReferences)
+      synchronized (scheduledBuckets)
       {
-         Iterator<MessageReference> iter = scheduledReferences.iterator();
+         Iterator<ScheduledBucket> bucketIter = scheduledBuckets.values().iterator();
 
-         while (iter.hasNext())
+         while (bucketIter.hasNext())
          {
-            MessageReference ref = iter.next();
-            if (filter == null || filter.match(ref.getMessage()))
+            ScheduledBucket bucket = bucketIter.next();
+
+            Iterator<ScheduledEntry> iter = bucket.entries.iterator();
+
+            while (iter.hasNext())
             {
-               iter.remove();
-               refs.add(ref);
+               ScheduledEntry entry = iter.next();
+
+               if (entry.removed)
+               {
+                  iter.remove();
+               }
+               else if (filter == null || filter.match(entry.ref.getMessage()))
+               {
+                  iter.remove();
+                  unindex(entry);
+                  entry.removed = true;
+                  bucket.live--;
+                  scheduledCount--;
+                  cancelled.add(entry);
+               }
+            }
+
+            if (bucket.live == 0)
+            {
+               bucketIter.remove();
+               if (lastBucket == bucket)
+               {
+                  lastBucket = null;
+               }
             }
          }
       }
-      return refs;
+
+      return toReferences(cancelled);
    }
 
    public MessageReference removeReferenceWithID(final long id)
    {
-      synchronized (scheduledReferences)
+      synchronized (scheduledBuckets)
       {
-         Iterator<MessageReference> iter = scheduledReferences.iterator();
-         while (iter.hasNext())
+         ScheduledEntry entry = scheduledByID.remove(id);
+
+         if (entry == null)
          {
-            MessageReference ref = iter.next();
-            if (ref.getMessage().getMessageID() == id)
+            return null;
+         }
+
+         // the entry stays in its bucket until the bucket is delivered or becomes empty
+         entry.removed = true;
+
+         scheduledCount--;
+
+         ScheduledBucket bucket = entry.bucket;
+
+         if (--bucket.live == 0)
+         {
+            scheduledBuckets.remove(bucket.deliveryTime);
+            if (lastBucket == bucket)
             {
-               iter.remove();
-               return ref;
+               lastBucket = null;
             }
          }
+
+         return entry.ref;
       }
+   }
 
-      return null;
+   /**
+    * @return the references of the entries in the order they were scheduled, not in the order of delivery
+    */
+   private static List<MessageReference> toReferences(final List<ScheduledEntry> entries)
+   {
+      Collections.sort(entries, ScheduledEntry.SEQUENCE_ORDER);
+
+      List<MessageReference> refs = new ArrayList<MessageReference>(entries.size());
+
+      for (ScheduledEntry entry : entries)
+      {
+         refs.add(entry.ref);
+      }
+
+      return refs;
    }
 
-   private void scheduleDelivery(final ScheduledDeliveryRunnable runnable, final long deliveryTime)
+   // must be called with scheduledBuckets locked
+   private ScheduledBucket getBucket(final long deliveryTime)
+   {
+      if (lastBucket != null && lastBucket.deliveryTime == deliveryTime)
+      {
+         return lastBucket;
+      }
+
+      Long key = deliveryTime;
+
+      ScheduledBucket bucket = scheduledBuckets.get(key);
+
+      if (bucket == null)
+      {
+         bucket = new ScheduledBucket(deliveryTime);
+         scheduledBuckets.put(key, bucket);
+      }
+
+      lastBucket = bucket;
+
+      return bucket;
+   }
+
+   // must be called with scheduledBuckets locked
+   private void unindex(final ScheduledEntry entry)
+   {
+      Long id = entry.ref.getMessage().getMessageID();
+
+      if (scheduledByID.get(id) == entry)
+      {
+         scheduledByID.remove(id);
+      }
+   }
+
+   private void scheduleDelivery(final long deliveryTime)
    {
       long now = System.currentTimeMillis();
 
@@ -154,7 +310,52 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler
          delay = 0;
       }
 
-      scheduledExecutor.schedule(runnable, delay, TimeUnit.MILLISECONDS);
+      scheduledExecutor.schedule(new ScheduledDeliveryRunnable(deliveryTime), delay, TimeUnit.MILLISECONDS);
+   }
+
+   /**
+    * The references scheduled for the same delivery time, in the order they will be added to the
+    * head of the queue.
+    */
+   private static final class ScheduledBucket
+   {
+      final long deliveryTime;
+
+      final ArrayDeque<ScheduledEntry> entries = new ArrayDeque<ScheduledEntry>();
+
+      /** number of entries which have not been removed */
+      int live;
+
+      ScheduledBucket(final long deliveryTime)
+      {
+         this.deliveryTime = deliveryTime;
+      }
+   }
+
+   private static final class ScheduledEntry
+   {
+      static final Comparator<ScheduledEntry> SEQUENCE_ORDER = new Comparator<ScheduledEntry>()
+      {
+         public int compare(final ScheduledEntry entry1, final ScheduledEntry entry2)
+         {
+            return entry1.sequence < entry2.sequence ? -1 : entry1.sequence == entry2.sequence ? 0 : 1;
+         }
+      };
+
+      final MessageReference ref;
+
+      final ScheduledBucket bucket;
+
+      final long sequence;
+
+      boolean removed;
+
+      ScheduledEntry(final MessageReference ref, final ScheduledBucket bucket, final long sequence)
+      {
+         this.ref = ref;
+         this.bucket = bucket;
+         this.sequence = sequence;
+      }
    }
 
    private class ScheduledDeliveryRunnable implements Runnable
@@ -170,18 +371,50 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler
       {
          HashMap<Queue, LinkedList<MessageReference>> refs = new HashMap<Queue, LinkedList<MessageReference>>();
 
+         long next = -1;
+
          synchronized (lockDelivery)
          {
-            synchronized (scheduledReferences)
+            synchronized (scheduledBuckets)
             {
+               if (nextWakeup == scheduledTime)
+               {
+                  nextWakeup = Long.MAX_VALUE;
+               }
+
+               long now = Math.max(System.currentTimeMillis(), scheduledTime);
 
-               Iterator<MessageReference> iter = scheduledReferences.iterator();
-               while (iter.hasNext())
+               List<ScheduledBucket> due = new ArrayList<ScheduledBucket>();
+
+               while (!scheduledBuckets.isEmpty() && scheduledBuckets.firstKey() <= now)
                {
-                  MessageReference reference = iter.next();
-                  if (reference.getScheduledDeliveryTime() <= this.scheduledTime)
+                  ScheduledBucket bucket = scheduledBuckets.pollFirstEntry().getValue();
+
+                  if (lastBucket == bucket)
                   {
-                     iter.remove();
+                     lastBucket = null;
+                  }
+
+                  due.add(bucket);
+               }
+
+               // Queue.addHead(List) reverses the list, so the latest bucket goes first
+               for (int i = due.size() - 1; i >= 0; i--)
+               {
+                  for (ScheduledEntry entry : due.get(i).entries)
+                  {
+                     if (entry.removed)
+                     {
+                        continue;
+                     }
+
+                     unindex(entry);
+
+                     entry.removed = true;
+
+                     scheduledCount--;
+
+                     MessageReference reference = entry.ref;
 
                      reference.setScheduledDeliveryTime(0);
 
@@ -196,6 +429,17 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler
                      references.add(reference);
                   }
                }
+
+               if (!scheduledBuckets.isEmpty())
+               {
+                  long first = scheduledBuckets.firstKey();
+
+                  if (first < nextWakeup)
+                  {
+                     nextWakeup = first;
+                     next = first;
+                  }
+               }
             }
 
             for (Map.Entry<Queue, LinkedList<MessageReference>> entry : refs.entrySet())
@@ -206,6 +450,11 @@ public class ScheduledDeliveryHandlerImpl implements ScheduledDeliveryHandler
             // Just to speed up GC
             refs.clear();
          }
+
+         if (next != -1)
+         {
+            scheduleDelivery(next);
+         }
       }
    }
 }
@@ -0,0 +1,357 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.server.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.filter.Filter;
+import org.hornetq.core.filter.impl.EqualityPredicate;
+import org.hornetq.core.server.MessageReference;
+import org.hornetq.utils.LinkedListImpl;
+import org.hornetq.utils.LinkedListIterator;
+import org.hornetq.utils.PriorityLinkedListImpl;
+
+/**
+ * An index of the references of a queue by the consumer selectors they match.
+ * <p>
+ * Consumers whose filter is an {@link EqualityPredicate} are grouped by filter, and every group
+ * keeps the references of the queue that have one of its values, in the order of the queue. Those
+ * consumers iterate their group instead of the whole queue, so they don't go through the references
+ * they would not match.
+ * <p>
+ * A reference removed from the queue stays in the groups until it's iterated over: the node which
+ * holds it in the queue tells whether it's still there.
+ * <p>
+ * This class is not thread safe, the queue uses it holding its lock.
+ */
+final class SelectorIndex
+{
+   // Attributes ----------------------------------------------------
+
+   private final PriorityLinkedListImpl<MessageReference> references;
+
+   // filter string -> group
+   private final Map<SimpleString, Group> groups = new HashMap<SimpleString, Group>();
+
+   // property name -> property value -> groups
+   private final Map<SimpleString, Map<SimpleString, List<Group>>> index = new HashMap<SimpleString, Map<SimpleString, List<Group>>>();
+
+   // Constructors --------------------------------------------------
+
+   SelectorIndex(final PriorityLinkedListImpl<MessageReference> references)
+   {
+      this.references = references;
+   }
+
+   // Public --------------------------------------------------------
+
+   /**
+    * Adds a consumer with this filter to its group, the group is created with the references
+    * already in the queue if it's the first one.
+    *
+    * @return the group of the consumer or null if its filter can't be indexed
+    */
+   Group addConsumer(final Filter filter)
+   {
+      if (filter == null)
+      {
+         return null;
+      }
+
+      Group group = groups.get(filter.getFilterString());
+
+      if (group == null)
+      {
+         EqualityPredicate predicate = EqualityPredicate.analyze(filter);
+
+         if (predicate == null)
+         {
+            return null;
+         }
+
+         group = new Group(filter.getFilterString(), predicate, references.getNumberOfPriorities());
+
+         populate(group);
+
+         addToIndex(group);
+      }
+
+      group.consumers++;
+
+      return group;
+   }
+
+   void removeConsumer(final Group group)
+   {
+      if (--group.consumers == 0)
+      {
+         removeFromIndex(group);
+
+         group.refs.clear();
+      }
+   }
+
+   /**
+    * Adds a reference just added to the queue to the groups it matches.
+    */
+   void add(final LinkedListImpl.Node<MessageReference> node, final int priority, final boolean head)
+   {
+      if (index.isEmpty())
+      {
+         return;
+      }
+
+      for (Map.Entry<SimpleString, Map<SimpleString, List<Group>>> entry : index.entrySet())
+      {
+         List<Group> matching = getGroups(entry, node.getValue());
+
+         if (matching != null)
+         {
+            IndexedReference indexed = new IndexedReference(node, priority);
+
+            for (Group group : matching)
+            {
+               if (head)
+               {
+                  group.refs.addHead(indexed, priority);
+               }
+               else
+               {
+                  group.refs.addTail(indexed, priority);
+               }
+            }
+         }
+      }
+   }
+
+   /**
+    * @return an iterator of the references of the queue in the group, removing a reference with it
+    *         removes it from the queue
+    */
+   LinkedListIterator<MessageReference> iterator(final Group group)
+   {
+      return new GroupIterator(group);
+   }
+
+   // Private -------------------------------------------------------
+
+   private void populate(final Group group)
+   {
+      for (int priority = references.getNumberOfPriorities() - 1; priority >= 0; priority--)
+      {
+         LinkedListImpl.Node<MessageReference> node = references.getFirstNode(priority);
+
+         while (node != null)
+         {
+            if (group.predicate.getValues().contains(getValue(node.getValue(), group.predicate.getProperty())))
+            {
+               group.refs.addTail(new IndexedReference(node, priority), priority);
+            }
+
+            node = node.getNext();
+         }
+      }
+   }
+
+   private List<Group> getGroups(final Map.Entry<SimpleString, Map<SimpleString, List<Group>>> entry,
+                                 final MessageReference ref)
+   {
+      Object value = getValue(ref, entry.getKey());
+
+      return value == null ? null : entry.getValue().get(value);
+   }
+
+   private static SimpleString getValue(final MessageReference ref, final SimpleString property)
+   {
+      Object value = ref.getMessage().getObjectProperty(property);
+
+      // a missing property or a property of another type never matches a string equality
+      return value instanceof SimpleString ? (SimpleString)value : null;
+   }
+
+   private void addToIndex(final Group group)
+   {
+      SimpleString property = group.predicate.getProperty();
+
+      Map<SimpleString, List<Group>> valueMap = index.get(property);
+
+      if (valueMap == null)
+      {
+         valueMap = new HashMap<SimpleString, List<Group>>();
+         index.put(property, valueMap);
+      }
+
+      for (SimpleString value : group.predicate.getValues())
+      {
+         List<Group> valueGroups = valueMap.get(value);
+
+         if (valueGroups == null)
+         {
+            valueGroups = new ArrayList<Group>();
+            valueMap.put(value, valueGroups);
+         }
+
+         valueGroups.add(group);
+      }
+
+      groups.put(group.filterString, group);
+   }
+
+   private void removeFromIndex(final Group group)
+   {
+      groups.remove(group.filterString);
+
+      SimpleString property = group.predicate.getProperty();
+
+      Map<SimpleString, List<Group>> valueMap = index.get(property);
+
+      if (valueMap == null)
+      {
+         return;
+      }
+
+      for (SimpleString value : group.predicate.getValues())
+      {
+         List<Group> valueGroups = valueMap.get(value);
+
+         if (valueGroups != null)
+         {
+            valueGroups.remove(group);
+
+            if (valueGroups.isEmpty())
+            {
+               valueMap.remove(value);
+            }
+         }
+      }
+
+      if (valueMap.isEmpty())
+      {
+         index.remove(property);
+      }
+   }
+
+   // Inner classes -------------------------------------------------
+
+   /**
+    * The consumers sharing a filter and the references they can match.
+    */
+   static final class Group
+   {
+      final SimpleString filterString;
+
+      final EqualityPredicate predicate;
+
+      final PriorityLinkedListImpl<IndexedReference> refs;
+
+      int consumers;
+
+      Group(final SimpleString filterString, final EqualityPredicate predicate, final int priorities)
+      {
+         this.filterString = filterString;
+         this.predicate = predicate;
+         refs = new PriorityLinkedListImpl<IndexedReference>(priorities);
+      }
+   }
+
+   private static final class IndexedReference
+   {
+      final LinkedListImpl.Node<MessageReference> node;
+
+      final int priority;
+
+      IndexedReference(final LinkedListImpl.Node<MessageReference> node, final int priority)
+      {
+         this.node = node;
+         this.priority = priority;
+      }
+   }
+
+   /**
+    * Iterates the references of a group which are still in the queue, dropping the others from the
+    * group on the way.
+    */
+   private final class GroupIterator implements LinkedListIterator<MessageReference>
+   {
+      private final LinkedListIterator<IndexedReference> iter;
+
+      private IndexedReference last;
+
+      GroupIterator(final Group group)
+      {
+         iter = group.refs.iterator();
+      }
+
+      public boolean hasNext()
+      {
+         while (iter.hasNext())
+         {
+            IndexedReference indexed = iter.next();
+
+            if (indexed.node.isLinked())
+            {
+               // next() will return it again
+               iter.repeat();
+
+               return true;
+            }
+
+            iter.remove();
+         }
+
+         return false;
+      }
+
+      public MessageReference next()
+      {
+         if (!hasNext())
+         {
+            throw new NoSuchElementException();
+         }
+
+         last = iter.next();
+
+         return last.node.getValue();
+      }
+
+      public void remove()
+      {
+         if (last == null)
+         {
+            throw new NoSuchElementException();
+         }
+
+         iter.remove();
+
+         references.removeNode(last.node, last.priority);
+
+         last = null;
+      }
+
+      public void repeat()
+      {
+         iter.repeat();
+      }
+
+      public void close()
+      {
+         iter.close();
+      }
+   }
+}
@@ -16,7 +16,6 @@ package org.hornetq.core.server.impl;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -106,7 +105,7 @@ public class ServerConsumerImpl implements ServerConsumer, ReadyListener
 
    private final StorageManager storageManager;
 
-   private final java.util.Queue<MessageReference> deliveringRefs = new ConcurrentLinkedQueue<MessageReference>();
+   private final DeliveringReferences deliveringRefs = new DeliveringReferences();
 
    private final SessionCallback callback;
 
@@ -212,7 +211,7 @@ public class ServerConsumerImpl implements ServerConsumer, ReadyListener
    {
       synchronized(lock)
       {
-         refList.addAll(deliveringRefs);
+         refList.addAll(deliveringRefs.toList());
       }
    }
 
@@ -478,7 +477,7 @@ public class ServerConsumerImpl implements ServerConsumer, ReadyListener
 
       if (!deliveringRefs.isEmpty())
       {
-         for (MessageReference ref : deliveringRefs)
+         for (MessageReference ref : deliveringRefs.toList())
          {
             if (isTrace)
             {
@@ -715,25 +714,7 @@ public class ServerConsumerImpl implements ServerConsumer, ReadyListener
 
       // Expiries can come in out of sequence with respect to delivery order
 
-      Iterator<MessageReference> iter = deliveringRefs.iterator();
-
-      MessageReference ref = null;
-
-      while (iter.hasNext())
-      {
-         MessageReference theRef = iter.next();
-
-         if (theRef.getMessage().getMessageID() == messageID)
-         {
-            iter.remove();
-
-            ref = theRef;
-
-            break;
-         }
-      }
-
-      return ref;
+      return deliveringRefs.remove(messageID);
    }
 
    public void readyForWriting(final boolean ready)
@@ -68,6 +68,8 @@ public class ServerMessageImpl extends MessageImpl implements ServerMessage
     */
    public ServerMessageImpl()
    {
+      // most messages are routed and delivered without their properties being read
+      properties.setLazyDecode(true);
    }
 
    /*
@@ -78,6 +80,8 @@ public class ServerMessageImpl extends MessageImpl implements ServerMessage
       super(initialMessageBufferSize);
 
       this.messageID = messageID;
+
+      properties.setLazyDecode(true);
    }
 
    /*
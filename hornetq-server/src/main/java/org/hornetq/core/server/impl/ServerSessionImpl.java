@@ -340,7 +340,7 @@ public class ServerSessionImpl implements ServerSession, FailureListener
 
       securityStore.check(binding.getAddress(), CheckType.CONSUME, this);
 
-      Filter filter = FilterImpl.createFilter(filterString);
+      Filter filter = FilterImpl.createFilter(filterString, server.getConfiguration().isFilterCompilationEnabled());
 
       ServerConsumer consumer = new ServerConsumerImpl(consumerID,
                                                        this,
@@ -59,6 +59,16 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
 
    public static final boolean DEFAULT_SEND_TO_DLA_ON_NO_ROUTE = false;
 
+   public static final DuplicateIDCacheType DEFAULT_DUPLICATE_ID_CACHE_TYPE = DuplicateIDCacheType.HASH_MAP;
+
+   public static final boolean DEFAULT_BATCHED_INTAKE = false;
+
+   public static final long DEFAULT_PAGE_MAX_CACHE_BYTES = -1;
+
+   public static final boolean DEFAULT_PAGE_READ_MAPPED = false;
+
+   public static final int DEFAULT_REDISTRIBUTION_BATCH_SIZE = 100;
+
    private AddressFullMessagePolicy addressFullMessagePolicy = null;
 
    private Long maxSizeBytes = null;
@@ -91,6 +101,16 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
 
    private Boolean sendToDLAOnNoRoute = null;
 
+   private DuplicateIDCacheType duplicateIDCacheType = null;
+
+   private Boolean batchedIntake = null;
+
+   private Long pageMaxCacheBytes = null;
+
+   private Boolean pageReadMapped = null;
+
+   private Integer redistributionBatchSize = null;
+
    public boolean isLastValueQueue()
    {
       return lastValueQueue != null ? lastValueQueue : AddressSettings.DEFAULT_LAST_VALUE_QUEUE;
@@ -132,6 +152,26 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
       this.pageMaxCache = pageMaxCache;
    }
 
+   public long getPageCacheMaxBytes()
+   {
+      return pageMaxCacheBytes != null ? pageMaxCacheBytes : AddressSettings.DEFAULT_PAGE_MAX_CACHE_BYTES;
+   }
+
+   public void setPageCacheMaxBytes(final long pageMaxCacheBytes)
+   {
+      this.pageMaxCacheBytes = pageMaxCacheBytes;
+   }
+
+   public boolean isPageReadMapped()
+   {
+      return pageReadMapped != null ? pageReadMapped : AddressSettings.DEFAULT_PAGE_READ_MAPPED;
+   }
+
+   public void setPageReadMapped(final boolean pageReadMapped)
+   {
+      this.pageReadMapped = pageReadMapped;
+   }
+
    public long getMaxSizeBytes()
    {
       return maxSizeBytes != null ? maxSizeBytes : AddressSettings.DEFAULT_MAX_SIZE_BYTES;
@@ -233,6 +273,26 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
       sendToDLAOnNoRoute = value;
    }
 
+   public DuplicateIDCacheType getDuplicateIDCacheType()
+   {
+      return duplicateIDCacheType != null ? duplicateIDCacheType : AddressSettings.DEFAULT_DUPLICATE_ID_CACHE_TYPE;
+   }
+
+   public void setDuplicateIDCacheType(final DuplicateIDCacheType duplicateIDCacheType)
+   {
+      this.duplicateIDCacheType = duplicateIDCacheType;
+   }
+
+   public boolean isBatchedIntake()
+   {
+      return batchedIntake != null ? batchedIntake : AddressSettings.DEFAULT_BATCHED_INTAKE;
+   }
+
+   public void setBatchedIntake(final boolean batchedIntake)
+   {
+      this.batchedIntake = batchedIntake;
+   }
+
    public long getRedistributionDelay()
    {
       return redistributionDelay != null ? redistributionDelay : AddressSettings.DEFAULT_REDISTRIBUTION_DELAY;
@@ -243,6 +303,17 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
       this.redistributionDelay = redistributionDelay;
    }
 
+   public int getRedistributionBatchSize()
+   {
+      return redistributionBatchSize != null ? redistributionBatchSize
+                                            : AddressSettings.DEFAULT_REDISTRIBUTION_BATCH_SIZE;
+   }
+
+   public void setRedistributionBatchSize(final int redistributionBatchSize)
+   {
+      this.redistributionBatchSize = redistributionBatchSize;
+   }
+
    /**
     * merge 2 objects in to 1
     * @param merged
@@ -309,6 +380,26 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
       {
          addressFullMessagePolicy = merged.addressFullMessagePolicy;
       }
+      if (duplicateIDCacheType == null)
+      {
+         duplicateIDCacheType = merged.duplicateIDCacheType;
+      }
+      if (batchedIntake == null)
+      {
+         batchedIntake = merged.batchedIntake;
+      }
+      if (pageMaxCacheBytes == null)
+      {
+         pageMaxCacheBytes = merged.pageMaxCacheBytes;
+      }
+      if (pageReadMapped == null)
+      {
+         pageReadMapped = merged.pageReadMapped;
+      }
+      if (redistributionBatchSize == null)
+      {
+         redistributionBatchSize = merged.redistributionBatchSize;
+      }
    }
 
    /* (non-Javadoc)
@@ -356,6 +447,52 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
       redistributionDelay = BufferHelper.readNullableLong(buffer);
 
       sendToDLAOnNoRoute = BufferHelper.readNullableBoolean(buffer);
+
+      // settings persisted before the duplicate ID cache type was added end here
+      if (buffer.readable())
+      {
+         SimpleString cacheTypeStr = buffer.readNullableSimpleString();
+
+         duplicateIDCacheType = cacheTypeStr != null ? DuplicateIDCacheType.valueOf(cacheTypeStr.toString()) : null;
+
+         batchedIntake = BufferHelper.readNullableBoolean(buffer);
+      }
+      else
+      {
+         duplicateIDCacheType = null;
+
+         batchedIntake = null;
+      }
+
+      // settings persisted before the page cache size in bytes was added end here
+      if (buffer.readable())
+      {
+         pageMaxCacheBytes = BufferHelper.readNullableLong(buffer);
+      }
+      else
+      {
+         pageMaxCacheBytes = null;
+      }
+
+      // settings persisted before the mapped page reads were added end here
+      if (buffer.readable())
+      {
+         pageReadMapped = BufferHelper.readNullableBoolean(buffer);
+      }
+      else
+      {
+         pageReadMapped = null;
+      }
+
+      // settings persisted before the redistribution batches were added end here
+      if (buffer.readable())
+      {
+         redistributionBatchSize = BufferHelper.readNullableInteger(buffer);
+      }
+      else
+      {
+         redistributionBatchSize = null;
+      }
    }
 
    /* (non-Javadoc)
@@ -379,7 +516,13 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
              BufferHelper.sizeOfNullableLong(expiryDelay) +
              BufferHelper.sizeOfNullableBoolean(lastValueQueue) +
              BufferHelper.sizeOfNullableLong(redistributionDelay) +
-             BufferHelper.sizeOfNullableBoolean(sendToDLAOnNoRoute);
+             BufferHelper.sizeOfNullableBoolean(sendToDLAOnNoRoute) +
+             BufferHelper.sizeOfNullableSimpleString(duplicateIDCacheType != null ? duplicateIDCacheType.toString()
+                                                                                  : null) +
+             BufferHelper.sizeOfNullableBoolean(batchedIntake) +
+             BufferHelper.sizeOfNullableLong(pageMaxCacheBytes) +
+             BufferHelper.sizeOfNullableBoolean(pageReadMapped) +
+             BufferHelper.sizeOfNullableInteger(redistributionBatchSize);
    }
 
    /* (non-Javadoc)
@@ -419,6 +562,17 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
       BufferHelper.writeNullableLong(buffer, redistributionDelay);
 
       BufferHelper.writeNullableBoolean(buffer, sendToDLAOnNoRoute);
+
+      buffer.writeNullableSimpleString(duplicateIDCacheType != null ? new SimpleString(duplicateIDCacheType.toString())
+                                                                   : null);
+
+      BufferHelper.writeNullableBoolean(buffer, batchedIntake);
+
+      BufferHelper.writeNullableLong(buffer, pageMaxCacheBytes);
+
+      BufferHelper.writeNullableBoolean(buffer, pageReadMapped);
+
+      BufferHelper.writeNullableInteger(buffer, redistributionBatchSize);
    }
 
    /* (non-Javadoc)
@@ -446,6 +600,11 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
       result = prime * result + ((maxRedeliveryDelay == null) ? 0 : maxRedeliveryDelay.hashCode());
       result = prime * result + ((redistributionDelay == null) ? 0 : redistributionDelay.hashCode());
       result = prime * result + ((sendToDLAOnNoRoute == null) ? 0 : sendToDLAOnNoRoute.hashCode());
+      result = prime * result + ((duplicateIDCacheType == null) ? 0 : duplicateIDCacheType.hashCode());
+      result = prime * result + ((batchedIntake == null) ? 0 : batchedIntake.hashCode());
+      result = prime * result + ((pageMaxCacheBytes == null) ? 0 : pageMaxCacheBytes.hashCode());
+      result = prime * result + ((pageReadMapped == null) ? 0 : pageReadMapped.hashCode());
+      result = prime * result + ((redistributionBatchSize == null) ? 0 : redistributionBatchSize.hashCode());
       return result;
    }
 
@@ -574,6 +733,41 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
       }
       else if (!sendToDLAOnNoRoute.equals(other.sendToDLAOnNoRoute))
          return false;
+      if (duplicateIDCacheType == null)
+      {
+         if (other.duplicateIDCacheType != null)
+            return false;
+      }
+      else if (!duplicateIDCacheType.equals(other.duplicateIDCacheType))
+         return false;
+      if (batchedIntake == null)
+      {
+         if (other.batchedIntake != null)
+            return false;
+      }
+      else if (!batchedIntake.equals(other.batchedIntake))
+         return false;
+      if (pageMaxCacheBytes == null)
+      {
+         if (other.pageMaxCacheBytes != null)
+            return false;
+      }
+      else if (!pageMaxCacheBytes.equals(other.pageMaxCacheBytes))
+         return false;
+      if (pageReadMapped == null)
+      {
+         if (other.pageReadMapped != null)
+            return false;
+      }
+      else if (!pageReadMapped.equals(other.pageReadMapped))
+         return false;
+      if (redistributionBatchSize == null)
+      {
+         if (other.redistributionBatchSize != null)
+            return false;
+      }
+      else if (!redistributionBatchSize.equals(other.redistributionBatchSize))
+         return false;
       return true;
    }
 
@@ -614,6 +808,16 @@ public class AddressSettings implements Mergeable<AddressSettings>, Serializable
              redistributionDelay +
              ", sendToDLAOnNoRoute=" +
              sendToDLAOnNoRoute +
+             ", duplicateIDCacheType=" +
+             duplicateIDCacheType +
+             ", batchedIntake=" +
+             batchedIntake +
+             ", pageMaxCacheBytes=" +
+             pageMaxCacheBytes +
+             ", pageReadMapped=" +
+             pageReadMapped +
+             ", redistributionBatchSize=" +
+             redistributionBatchSize +
              "]";
    }
 }
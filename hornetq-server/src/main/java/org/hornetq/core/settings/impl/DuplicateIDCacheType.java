@@ -0,0 +1,27 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.settings.impl;
+
+/**
+ * How the duplicate ID cache of an address stores its IDs.
+ * <ul>
+ * <li>{@link #HASH_MAP}: one object per cached ID in a concurrent hash map</li>
+ * <li>{@link #BUFFER}: an open addressing table and a ring of fixed size slots in a heap buffer</li>
+ * <li>{@link #DIRECT_BUFFER}: same as {@link #BUFFER} in a direct (off-heap) buffer</li>
+ * </ul>
+ */
+public enum DuplicateIDCacheType
+{
+   HASH_MAP, BUFFER, DIRECT_BUFFER;
+}
@@ -25,6 +25,8 @@ import org.hornetq.core.config.Configuration;
 import org.hornetq.core.config.DivertConfiguration;
 import org.hornetq.core.security.Role;
 import org.hornetq.core.server.JournalType;
+import org.hornetq.core.settings.impl.AddressSettings;
+import org.hornetq.core.settings.impl.DuplicateIDCacheType;
 
 /**
  * @author <a href="ataylor@redhat.com">Andy Taylor</a>
@@ -75,6 +77,7 @@ public class FileConfigurationTest extends ConfigurationImplTest
       Assert.assertEquals(JournalType.NIO, conf.getJournalType());
       Assert.assertEquals(10000, conf.getJournalBufferSize_NIO());
       Assert.assertEquals(1000, conf.getJournalBufferTimeout_NIO());
+      Assert.assertEquals(true, conf.isJournalAdaptiveBufferTimeout());
       Assert.assertEquals(56546, conf.getJournalMaxIO_NIO());
 
       Assert.assertEquals(false, conf.isJournalSyncTransactional());
@@ -83,6 +86,8 @@ public class FileConfigurationTest extends ConfigurationImplTest
       Assert.assertEquals(100, conf.getJournalMinFiles());
       Assert.assertEquals(123, conf.getJournalCompactMinFiles());
       Assert.assertEquals(33, conf.getJournalCompactPercentage());
+      Assert.assertEquals(5, conf.getJournalCompactIncrementalFiles());
+      Assert.assertEquals(4, conf.getJournalLoadThreads());
 
       Assert.assertEquals("largemessagesdir", conf.getLargeMessagesDirectory());
       Assert.assertEquals(95, conf.getMemoryWarningThreshold());
@@ -278,7 +283,12 @@ public class FileConfigurationTest extends ConfigurationImplTest
       assertEquals(81781728121878l, conf.getAddressesSettings().get("a1").getMaxSizeBytes());
       assertEquals(81738173872337l, conf.getAddressesSettings().get("a1").getPageSizeBytes());
       assertEquals(10, conf.getAddressesSettings().get("a1").getPageCacheMaxSize());
+      assertEquals(-1, conf.getAddressesSettings().get("a1").getPageCacheMaxBytes());
+      assertFalse(conf.getAddressesSettings().get("a1").isPageReadMapped());
       assertEquals(4, conf.getAddressesSettings().get("a1").getMessageCounterHistoryDayLimit());
+      assertEquals(DuplicateIDCacheType.HASH_MAP, conf.getAddressesSettings().get("a1").getDuplicateIDCacheType());
+      assertFalse(conf.getAddressesSettings().get("a1").isBatchedIntake());
+      assertEquals(AddressSettings.DEFAULT_REDISTRIBUTION_BATCH_SIZE, conf.getAddressesSettings().get("a1").getRedistributionBatchSize());
 
       assertEquals("a2.1", conf.getAddressesSettings().get("a2").getDeadLetterAddress().toString());
       assertEquals("a2.2", conf.getAddressesSettings().get("a2").getExpiryAddress().toString());
@@ -286,7 +296,12 @@ public class FileConfigurationTest extends ConfigurationImplTest
       assertEquals(932489234928324l, conf.getAddressesSettings().get("a2").getMaxSizeBytes());
       assertEquals(7126716262626l, conf.getAddressesSettings().get("a2").getPageSizeBytes());
       assertEquals(20, conf.getAddressesSettings().get("a2").getPageCacheMaxSize());
+      assertEquals(104857600, conf.getAddressesSettings().get("a2").getPageCacheMaxBytes());
+      assertTrue(conf.getAddressesSettings().get("a2").isPageReadMapped());
       assertEquals(8, conf.getAddressesSettings().get("a2").getMessageCounterHistoryDayLimit());
+      assertEquals(DuplicateIDCacheType.DIRECT_BUFFER, conf.getAddressesSettings().get("a2").getDuplicateIDCacheType());
+      assertTrue(conf.getAddressesSettings().get("a2").isBatchedIntake());
+      assertEquals(500, conf.getAddressesSettings().get("a2").getRedistributionBatchSize());
 
 
       assertEquals(2, conf.getQueueConfigurations().size());
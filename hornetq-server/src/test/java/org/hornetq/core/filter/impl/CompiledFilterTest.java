@@ -0,0 +1,177 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.filter.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.hornetq.api.core.HornetQException;
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.filter.Filter;
+import org.hornetq.core.server.ServerMessage;
+import org.hornetq.core.server.impl.ServerMessageImpl;
+
+/**
+ * Runs all the {@link FilterTest} cases against {@link CompiledFilter} and checks that compiled
+ * filters give the same results as interpreted ones.
+ */
+public class CompiledFilterTest extends FilterTest
+{
+
+   private static final String[] EXPRESSIONS = new String[] { "region = 'EU'",
+                                                             "region <> 'EU'",
+                                                             "NOT (region = 'EU')",
+                                                             "region IN ('EU', 'US')",
+                                                             "region NOT IN ('EU', 'US')",
+                                                             "region LIKE 'E%'",
+                                                             "region NOT LIKE 'E%'",
+                                                             "region IS NULL",
+                                                             "region IS NOT NULL",
+                                                             "amount > 10",
+                                                             "amount >= 10.5",
+                                                             "amount < 10",
+                                                             "amount <= 10",
+                                                             "amount = 10",
+                                                             "amount <> 10",
+                                                             "amount BETWEEN 5 AND 15",
+                                                             "amount NOT BETWEEN 5 AND 15",
+                                                             "amount * 2 + 1 > 20",
+                                                             "-amount < 0",
+                                                             "amount / 2 = 5",
+                                                             "flag = true",
+                                                             "flag",
+                                                             "region = 'EU' AND amount > 10",
+                                                             "region = 'EU' OR amount > 10",
+                                                             "missing = 'x' OR amount > 10",
+                                                             "missing = 'x' AND amount > 10",
+                                                             "HQPriority > 4 AND HQDurable = 'DURABLE'" };
+
+   @Override
+   protected Filter createFilter(final String filterString) throws HornetQException
+   {
+      return FilterImpl.createFilter(filterString, true);
+   }
+
+   @Override
+   protected Filter createFilter(final SimpleString filterString) throws HornetQException
+   {
+      return FilterImpl.createFilter(filterString, true);
+   }
+
+   public void testCreatesCompiledFilter() throws Exception
+   {
+      Assert.assertTrue(FilterImpl.createFilter("a = 1", true) instanceof CompiledFilter);
+      Assert.assertTrue(FilterImpl.createFilter("a = 1", false) instanceof FilterImpl);
+      Assert.assertNull(FilterImpl.createFilter((String)null, true));
+      Assert.assertNull(FilterImpl.createFilter("", true));
+   }
+
+   public void testSameResultsAsInterpreter() throws Exception
+   {
+      List<ServerMessage> messages = new ArrayList<ServerMessage>();
+
+      messages.add(new ServerMessageImpl(1, 1000));
+      messages.add(createMessage("EU", 10, true, 4, false));
+      messages.add(createMessage("US", 12, false, 5, true));
+      messages.add(createMessage("ES", 3, true, 9, true));
+      messages.add(createMessage("APAC", 20, false, 1, false));
+
+      ServerMessage doubleAmount = createMessage("EU", 10, true, 4, true);
+      doubleAmount.putDoubleProperty(new SimpleString("amount"), 10.5d);
+      messages.add(doubleAmount);
+
+      for (String expression : EXPRESSIONS)
+      {
+         Filter interpreted = FilterImpl.createFilter(expression, false);
+         Filter compiled = FilterImpl.createFilter(expression, true);
+
+         for (ServerMessage message : messages)
+         {
+            Assert.assertEquals(expression + " on " + message,
+                                interpreted.match(message),
+                                compiled.match(message));
+         }
+      }
+   }
+
+   public void testConcurrentMatch() throws Exception
+   {
+      final Filter compiled = FilterImpl.createFilter("region = 'EU' AND amount > 10", true);
+
+      final ServerMessage matching = createMessage("EU", 11, true, 4, false);
+      final ServerMessage notMatching = createMessage("EU", 9, true, 4, false);
+
+      final int numberOfThreads = 10;
+      final int iterations = 10000;
+
+      final CountDownLatch latch = new CountDownLatch(1);
+      final AtomicInteger errors = new AtomicInteger(0);
+
+      Thread[] threads = new Thread[numberOfThreads];
+      for (int i = 0; i < numberOfThreads; i++)
+      {
+         threads[i] = new Thread()
+         {
+            @Override
+            public void run()
+            {
+               try
+               {
+                  latch.await();
+                  for (int j = 0; j < iterations; j++)
+                  {
+                     if (!compiled.match(matching) || compiled.match(notMatching))
+                     {
+                        errors.incrementAndGet();
+                     }
+                  }
+               }
+               catch (Throwable e)
+               {
+                  errors.incrementAndGet();
+               }
+            }
+         };
+         threads[i].start();
+      }
+
+      latch.countDown();
+
+      for (Thread t : threads)
+      {
+         t.join();
+      }
+
+      Assert.assertEquals(0, errors.get());
+   }
+
+   private ServerMessage createMessage(final String region,
+                                       final int amount,
+                                       final boolean flag,
+                                       final int priority,
+                                       final boolean durable)
+   {
+      ServerMessage msg = new ServerMessageImpl(1, 1000);
+      msg.putStringProperty(new SimpleString("region"), new SimpleString(region));
+      msg.putIntProperty(new SimpleString("amount"), amount);
+      msg.putBooleanProperty(new SimpleString("flag"), flag);
+      msg.setPriority((byte)priority);
+      msg.setDurable(durable);
+      return msg;
+   }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.filter.impl;
+
+import junit.framework.Assert;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.tests.util.SilentTestCase;
+
+/**
+ * A EqualityPredicateTest
+ */
+public class EqualityPredicateTest extends SilentTestCase
+{
+
+   public void testEquality() throws Exception
+   {
+      assertPredicate("region = 'EU'", "region", "EU");
+      assertPredicate("'EU' = region", "region", "EU");
+   }
+
+   public void testIn() throws Exception
+   {
+      assertPredicate("region IN ('EU', 'US')", "region", "EU", "US");
+   }
+
+   public void testDisjunction() throws Exception
+   {
+      assertPredicate("region = 'EU' OR region = 'US' OR region IN ('APAC')", "region", "EU", "US", "APAC");
+   }
+
+   public void testNotIndexable() throws Exception
+   {
+      assertNotIndexable(null);
+      assertNotIndexable("region <> 'EU'");
+      assertNotIndexable("region NOT IN ('EU', 'US')");
+      assertNotIndexable("region = 'EU' AND amount > 10");
+      assertNotIndexable("region = 'EU' OR country = 'FR'");
+      assertNotIndexable("amount = 10");
+      assertNotIndexable("region LIKE 'E%'");
+      assertNotIndexable("HQDurable = 'DURABLE'");
+      assertNotIndexable("NOT (region = 'EU')");
+   }
+
+   private void assertPredicate(final String filter, final String property, final String... values) throws Exception
+   {
+      EqualityPredicate predicate = EqualityPredicate.analyze(FilterImpl.createFilter(filter));
+
+      Assert.assertNotNull(filter, predicate);
+      Assert.assertEquals(new SimpleString(property), predicate.getProperty());
+      Assert.assertEquals(values.length, predicate.getValues().size());
+      for (String value : values)
+      {
+         Assert.assertTrue(predicate.getValues().contains(new SimpleString(value)));
+      }
+   }
+
+   private void assertNotIndexable(final String filter) throws Exception
+   {
+      Assert.assertNull(filter, EqualityPredicate.analyze(FilterImpl.createFilter(filter)));
+   }
+}
@@ -45,7 +45,7 @@ public class FilterTest extends SilentTestCase
 
    public void testFilterForgets() throws Exception
    {
-      filter = FilterImpl.createFilter(new SimpleString("color = 'RED'"));
+      filter = createFilter(new SimpleString("color = 'RED'"));
 
       message.putStringProperty(new SimpleString("color"), new SimpleString("RED"));
       Assert.assertTrue(filter.match(message));
@@ -72,7 +72,7 @@ public class FilterTest extends SilentTestCase
 
    public void testHQDurable() throws Exception
    {
-      filter = FilterImpl.createFilter(new SimpleString("HQDurable='DURABLE'"));
+      filter = createFilter(new SimpleString("HQDurable='DURABLE'"));
 
       message.setDurable(true);
 
@@ -82,7 +82,7 @@ public class FilterTest extends SilentTestCase
 
       Assert.assertFalse(filter.match(message));
 
-      filter = FilterImpl.createFilter(new SimpleString("HQDurable='NON_DURABLE'"));
+      filter = createFilter(new SimpleString("HQDurable='NON_DURABLE'"));
 
       message = new ServerMessageImpl();
       message.setDurable(true);
@@ -101,11 +101,11 @@ public class FilterTest extends SilentTestCase
 
       int encodeSize = message.getEncodeSize();
 
-      Filter moreThanSmall = FilterImpl.createFilter(new SimpleString("HQSize > " + (encodeSize - 1)));
-      Filter lessThanLarge = FilterImpl.createFilter(new SimpleString("HQSize < " + (encodeSize + 1)));
+      Filter moreThanSmall = createFilter(new SimpleString("HQSize > " + (encodeSize - 1)));
+      Filter lessThanLarge = createFilter(new SimpleString("HQSize < " + (encodeSize + 1)));
 
-      Filter lessThanSmall = FilterImpl.createFilter(new SimpleString("HQSize < " + encodeSize));
-      Filter moreThanLarge = FilterImpl.createFilter(new SimpleString("HQSize > " + encodeSize));
+      Filter lessThanSmall = createFilter(new SimpleString("HQSize < " + encodeSize));
+      Filter moreThanLarge = createFilter(new SimpleString("HQSize > " + encodeSize));
 
       Assert.assertTrue(moreThanSmall.match(message));
       Assert.assertTrue(lessThanLarge.match(message));
@@ -117,7 +117,7 @@ public class FilterTest extends SilentTestCase
 
    public void testHQPriority() throws Exception
    {
-      filter = FilterImpl.createFilter(new SimpleString("HQPriority=3"));
+      filter = createFilter(new SimpleString("HQPriority=3"));
 
       for (int i = 0; i < 10; i++)
       {
@@ -136,7 +136,7 @@ public class FilterTest extends SilentTestCase
 
    public void testHQTimestamp() throws Exception
    {
-      filter = FilterImpl.createFilter(new SimpleString("HQTimestamp=12345678"));
+      filter = createFilter(new SimpleString("HQTimestamp=12345678"));
 
       message.setTimestamp(87654321);
 
@@ -149,38 +149,38 @@ public class FilterTest extends SilentTestCase
 
    public void testBooleanTrue() throws Exception
    {
-      filter = FilterImpl.createFilter(new SimpleString("MyBoolean=true"));
+      filter = createFilter(new SimpleString("MyBoolean=true"));
 
       testBoolean("MyBoolean", true);
    }
 
    public void testIdentifier() throws Exception
    {
-      filter = FilterImpl.createFilter(new SimpleString("MyBoolean"));
+      filter = createFilter(new SimpleString("MyBoolean"));
 
       testBoolean("MyBoolean", true);
    }
 
    public void testDifferentNullString() throws Exception
    {
-      filter = FilterImpl.createFilter(new SimpleString("prop <> 'foo'"));
+      filter = createFilter(new SimpleString("prop <> 'foo'"));
       Assert.assertTrue(filter.match(message));
 
-      filter = FilterImpl.createFilter(new SimpleString("NOT (prop = 'foo')"));
+      filter = createFilter(new SimpleString("NOT (prop = 'foo')"));
       Assert.assertTrue(filter.match(message));
 
-      filter = FilterImpl.createFilter(new SimpleString("prop <> 'foo'"));
+      filter = createFilter(new SimpleString("prop <> 'foo'"));
       doPutStringProperty("prop", "bar");
       Assert.assertTrue(filter.match(message));
 
-      filter = FilterImpl.createFilter(new SimpleString("prop <> 'foo'"));
+      filter = createFilter(new SimpleString("prop <> 'foo'"));
       doPutStringProperty("prop", "foo");
       Assert.assertFalse(filter.match(message));
    }
 
    public void testBooleanFalse() throws Exception
    {
-      filter = FilterImpl.createFilter(new SimpleString("MyBoolean=false"));
+      filter = createFilter(new SimpleString("MyBoolean=false"));
       testBoolean("MyBoolean", false);
    }
 
@@ -196,7 +196,7 @@ public class FilterTest extends SilentTestCase
    public void testStringEquals() throws Exception
    {
       // First, simple test of string equality and inequality
-      filter = FilterImpl.createFilter(new SimpleString("MyString='astring'"));
+      filter = createFilter(new SimpleString("MyString='astring'"));
 
       doPutStringProperty("MyString", "astring");
       Assert.assertTrue(filter.match(message));
@@ -205,7 +205,7 @@ public class FilterTest extends SilentTestCase
       Assert.assertTrue(!filter.match(message));
 
       // test empty string
-      filter = FilterImpl.createFilter(new SimpleString("MyString=''"));
+      filter = createFilter(new SimpleString("MyString=''"));
 
       doPutStringProperty("MyString", "");
       Assert.assertTrue("test 1", filter.match(message));
@@ -215,7 +215,7 @@ public class FilterTest extends SilentTestCase
 
       // test literal apostrophes (which are escaped using two apostrophes
       // in selectors)
-      filter = FilterImpl.createFilter(new SimpleString("MyString='test JBoss''s filter'"));
+      filter = createFilter(new SimpleString("MyString='test JBoss''s filter'"));
 
       // note: apostrophes are not escaped in string properties
       doPutStringProperty("MyString", "test JBoss's filter");
@@ -229,7 +229,7 @@ public class FilterTest extends SilentTestCase
 
    public void testNOT_INWithNullProperty() throws Exception
    {
-      filter = FilterImpl.createFilter(new SimpleString("myNullProp NOT IN ('foo','jms','test')"));
+      filter = createFilter(new SimpleString("myNullProp NOT IN ('foo','jms','test')"));
 
       assertFalse(filter.match(message));
 
@@ -239,7 +239,7 @@ public class FilterTest extends SilentTestCase
 
    public void testNOT_LIKEWithNullProperty() throws Exception
    {
-      filter = FilterImpl.createFilter(new SimpleString("myNullProp NOT LIKE '1_3'"));
+      filter = createFilter(new SimpleString("myNullProp NOT LIKE '1_3'"));
 
       assertFalse(filter.match(message));
 
@@ -249,7 +249,7 @@ public class FilterTest extends SilentTestCase
 
    public void testIS_NOT_NULLWithNullProperty() throws Exception
    {
-      filter = FilterImpl.createFilter(new SimpleString("myNullProp IS NOT NULL"));
+      filter = createFilter(new SimpleString("myNullProp IS NOT NULL"));
 
       assertFalse(filter.match(message));
 
@@ -260,7 +260,7 @@ public class FilterTest extends SilentTestCase
    public void testStringLike() throws Exception
    {
       // test LIKE operator with no wildcards
-      filter = FilterImpl.createFilter(new SimpleString("MyString LIKE 'astring'"));
+      filter = createFilter(new SimpleString("MyString LIKE 'astring'"));
       Assert.assertFalse(filter.match(message));
 
       // test where LIKE operand matches
@@ -268,17 +268,17 @@ public class FilterTest extends SilentTestCase
       Assert.assertTrue(filter.match(message));
 
       // test one character string
-      filter = FilterImpl.createFilter(new SimpleString("MyString LIKE 'a'"));
+      filter = createFilter(new SimpleString("MyString LIKE 'a'"));
       doPutStringProperty("MyString", "a");
       Assert.assertTrue(filter.match(message));
 
       // test empty string
-      filter = FilterImpl.createFilter(new SimpleString("MyString LIKE ''"));
+      filter = createFilter(new SimpleString("MyString LIKE ''"));
       doPutStringProperty("MyString", "");
       Assert.assertTrue(filter.match(message));
 
       // tests where operand does not match
-      filter = FilterImpl.createFilter(new SimpleString("MyString LIKE 'astring'"));
+      filter = createFilter(new SimpleString("MyString LIKE 'astring'"));
 
       // test with extra characters at beginning
       doPutStringProperty("MyString", "NOTastring");
@@ -313,7 +313,7 @@ public class FilterTest extends SilentTestCase
       // matches any single character
 
       // first, some tests with the wildcard by itself
-      filter = FilterImpl.createFilter(new SimpleString("MyString LIKE '_'"));
+      filter = createFilter(new SimpleString("MyString LIKE '_'"));
       Assert.assertFalse(filter.match(message));
 
       // test match against single character
@@ -329,7 +329,7 @@ public class FilterTest extends SilentTestCase
       Assert.assertTrue(!filter.match(message));
 
       // next, tests with wildcard at the beginning of the string
-      filter = FilterImpl.createFilter(new SimpleString("MyString LIKE '_bcdf'"));
+      filter = createFilter(new SimpleString("MyString LIKE '_bcdf'"));
 
       // test match at beginning of string
       doPutStringProperty("MyString", "abcdf");
@@ -364,7 +364,7 @@ public class FilterTest extends SilentTestCase
       Assert.assertTrue(!filter.match(message));
 
       // next, tests with wildcard at the end of the string
-      filter = FilterImpl.createFilter(new SimpleString("MyString LIKE 'abcd_'"));
+      filter = createFilter(new SimpleString("MyString LIKE 'abcd_'"));
 
       // test match at end of string
       doPutStringProperty("MyString", "abcdf");
@@ -401,7 +401,7 @@ public class FilterTest extends SilentTestCase
       // test match in middle of string
 
       // next, tests with wildcard in the middle of the string
-      filter = FilterImpl.createFilter(new SimpleString("MyString LIKE 'ab_df'"));
+      filter = createFilter(new SimpleString("MyString LIKE 'ab_df'"));
 
       // test match in the middle of string
       doPutStringProperty("MyString", "abcdf");
@@ -441,7 +441,7 @@ public class FilterTest extends SilentTestCase
    public void testNotLikeExpression() throws Exception
    {
       // Should evaluate to false when the property MyString is not set
-      filter = FilterImpl.createFilter(new SimpleString("NOT (MyString LIKE '%')"));
+      filter = createFilter(new SimpleString("NOT (MyString LIKE '%')"));
 
       Assert.assertFalse(filter.match(message));
    }
@@ -453,7 +453,7 @@ public class FilterTest extends SilentTestCase
       // note many of the tests are similar to those for _
 
       // first, some tests with the wildcard by itself
-      filter = FilterImpl.createFilter(new SimpleString("MyString LIKE '%'"));
+      filter = createFilter(new SimpleString("MyString LIKE '%'"));
       Assert.assertFalse(filter.match(message));
 
       // test match against single character
@@ -472,7 +472,7 @@ public class FilterTest extends SilentTestCase
       Assert.assertTrue(filter.match(message));
 
       // next, tests with wildcard at the beginning of the string
-      filter = FilterImpl.createFilter(new SimpleString("MyString LIKE '%bcdf'"));
+      filter = createFilter(new SimpleString("MyString LIKE '%bcdf'"));
 
       // test match with single character at beginning of string
       doPutStringProperty("MyString", "Xbcdf");
@@ -503,7 +503,7 @@ public class FilterTest extends SilentTestCase
       Assert.assertTrue(filter.match(message));
 
       // next, tests with wildcard at the end of the string
-      filter = FilterImpl.createFilter(new SimpleString("MyString LIKE 'abcd%'"));
+      filter = createFilter(new SimpleString("MyString LIKE 'abcd%'"));
 
       // test match of single character at end of string
       doPutStringProperty("MyString", "abcdf");
@@ -538,7 +538,7 @@ public class FilterTest extends SilentTestCase
       Assert.assertTrue(filter.match(message));
 
       // next, tests with wildcard in the middle of the string
-      filter = FilterImpl.createFilter(new SimpleString("MyString LIKE 'ab%df'"));
+      filter = createFilter(new SimpleString("MyString LIKE 'ab%df'"));
 
       // test match with single character in the middle of string
       doPutStringProperty("MyString", "abXdf");
@@ -590,7 +590,7 @@ public class FilterTest extends SilentTestCase
       // wildcards of the current underlying RE engine,
       // GNU regexp.
 
-      filter = FilterImpl.createFilter(new SimpleString("MyString LIKE 'a^$b'"));
+      filter = createFilter(new SimpleString("MyString LIKE 'a^$b'"));
       Assert.assertFalse(filter.match(message));
 
       doPutStringProperty("MyString", "a^$b");
@@ -598,67 +598,67 @@ public class FilterTest extends SilentTestCase
 
       // this one has a double backslash since backslash
       // is interpreted specially by Java
-      filter = FilterImpl.createFilter(new SimpleString("MyString LIKE 'a\\dc'"));
+      filter = createFilter(new SimpleString("MyString LIKE 'a\\dc'"));
       doPutStringProperty("MyString", "a\\dc");
       Assert.assertTrue(filter.match(message));
 
-      filter = FilterImpl.createFilter(new SimpleString("MyString LIKE 'a.c'"));
+      filter = createFilter(new SimpleString("MyString LIKE 'a.c'"));
       doPutStringProperty("MyString", "abc");
       Assert.assertTrue(!filter.match(message));
 
-      filter = FilterImpl.createFilter(new SimpleString("MyString LIKE '[abc]'"));
+      filter = createFilter(new SimpleString("MyString LIKE '[abc]'"));
       doPutStringProperty("MyString", "[abc]");
       Assert.assertTrue(filter.match(message));
 
-      filter = FilterImpl.createFilter(new SimpleString("MyString LIKE '[^abc]'"));
+      filter = createFilter(new SimpleString("MyString LIKE '[^abc]'"));
       doPutStringProperty("MyString", "[^abc]");
       Assert.assertTrue(filter.match(message));
 
-      filter = FilterImpl.createFilter(new SimpleString("MyString LIKE '[a-c]'"));
+      filter = createFilter(new SimpleString("MyString LIKE '[a-c]'"));
       doPutStringProperty("MyString", "[a-c]");
       Assert.assertTrue(filter.match(message));
 
-      filter = FilterImpl.createFilter(new SimpleString("MyString LIKE '[:alpha]'"));
+      filter = createFilter(new SimpleString("MyString LIKE '[:alpha]'"));
       doPutStringProperty("MyString", "[:alpha]");
       Assert.assertTrue(filter.match(message));
 
-      filter = FilterImpl.createFilter(new SimpleString("MyString LIKE '(abc)'"));
+      filter = createFilter(new SimpleString("MyString LIKE '(abc)'"));
       doPutStringProperty("MyString", "(abc)");
       Assert.assertTrue(filter.match(message));
 
-      filter = FilterImpl.createFilter(new SimpleString("MyString LIKE 'a|bc'"));
+      filter = createFilter(new SimpleString("MyString LIKE 'a|bc'"));
       doPutStringProperty("MyString", "a|bc");
       Assert.assertTrue(filter.match(message));
 
-      filter = FilterImpl.createFilter(new SimpleString("MyString LIKE '(abc)?'"));
+      filter = createFilter(new SimpleString("MyString LIKE '(abc)?'"));
       doPutStringProperty("MyString", "(abc)?");
       Assert.assertTrue(filter.match(message));
 
-      filter = FilterImpl.createFilter(new SimpleString("MyString LIKE '(abc)*'"));
+      filter = createFilter(new SimpleString("MyString LIKE '(abc)*'"));
       doPutStringProperty("MyString", "(abc)*");
       Assert.assertTrue(filter.match(message));
 
-      filter = FilterImpl.createFilter(new SimpleString("MyString LIKE '(abc)+'"));
+      filter = createFilter(new SimpleString("MyString LIKE '(abc)+'"));
       doPutStringProperty("MyString", "(abc)+");
       Assert.assertTrue(filter.match(message));
 
-      filter = FilterImpl.createFilter(new SimpleString("MyString LIKE '(abc){3}'"));
+      filter = createFilter(new SimpleString("MyString LIKE '(abc){3}'"));
       doPutStringProperty("MyString", "(abc){3}");
       Assert.assertTrue(filter.match(message));
 
-      filter = FilterImpl.createFilter(new SimpleString("MyString LIKE '(abc){3,5}'"));
+      filter = createFilter(new SimpleString("MyString LIKE '(abc){3,5}'"));
       doPutStringProperty("MyString", "(abc){3,5}");
       Assert.assertTrue(filter.match(message));
 
-      filter = FilterImpl.createFilter(new SimpleString("MyString LIKE '(abc){3,}'"));
+      filter = createFilter(new SimpleString("MyString LIKE '(abc){3,}'"));
       doPutStringProperty("MyString", "(abc){3,}");
       Assert.assertTrue(filter.match(message));
 
-      filter = FilterImpl.createFilter(new SimpleString("MyString LIKE '(?=abc)'"));
+      filter = createFilter(new SimpleString("MyString LIKE '(?=abc)'"));
       doPutStringProperty("MyString", "(?=abc)");
       Assert.assertTrue(filter.match(message));
 
-      filter = FilterImpl.createFilter(new SimpleString("MyString LIKE '(?!abc)'"));
+      filter = createFilter(new SimpleString("MyString LIKE '(?!abc)'"));
       doPutStringProperty("MyString", "(?!abc)");
       Assert.assertTrue(filter.match(message));
    }
@@ -686,6 +686,18 @@ public class FilterTest extends SilentTestCase
       parse.getNextToken();
    }
 
+   // Protected ---------------------------------------------------------------------------------
+
+   protected Filter createFilter(final String filterString) throws HornetQException
+   {
+      return FilterImpl.createFilter(filterString);
+   }
+
+   protected Filter createFilter(final SimpleString filterString) throws HornetQException
+   {
+      return FilterImpl.createFilter(filterString);
+   }
+
    // Private -----------------------------------------------------------------------------------
 
    private void doPutStringProperty(final String key, final String value)
@@ -697,7 +709,7 @@ public class FilterTest extends SilentTestCase
    {
       try
       {
-         filter = FilterImpl.createFilter(filterString);
+         filter = createFilter(filterString);
          Assert.fail("Should throw exception");
       }
       catch(HornetQInvalidFilterExpressionException ife)
@@ -714,7 +726,7 @@ public class FilterTest extends SilentTestCase
    {
       try
       {
-         filter = FilterImpl.createFilter(filterString);
+         filter = createFilter(filterString);
          Assert.fail("Should throw exception");
       }
       catch(HornetQInvalidFilterExpressionException ife)
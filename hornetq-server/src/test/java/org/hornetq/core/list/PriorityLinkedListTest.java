@@ -16,6 +16,7 @@ package org.hornetq.core.list;
 import junit.framework.Assert;
 import junit.framework.TestCase;
 
+import org.hornetq.utils.LinkedListImpl;
 import org.hornetq.utils.LinkedListIterator;
 import org.hornetq.utils.PriorityLinkedListImpl;
 
@@ -847,6 +848,36 @@ public final class PriorityLinkedListTest extends TestCase
       assertEquals(d, iter.next());
    }
 
+   public void testRemoveNode()
+   {
+      LinkedListImpl.Node<Wibble> nodeA = list.addTailNode(a, 4);
+      LinkedListImpl.Node<Wibble> nodeB = list.addTailNode(b, 4);
+      LinkedListImpl.Node<Wibble> nodeC = list.addHeadNode(c, 7);
+      list.addTail(d, 4);
+
+      LinkedListIterator<Wibble> iter = list.iterator();
+
+      assertTrue(iter.hasNext());
+      assertEquals(c, iter.next());
+      assertTrue(iter.hasNext());
+      assertEquals(a, iter.next());
+
+      // the iterator is moved on as if it had removed the nodes itself
+      assertTrue(list.removeNode(nodeA, 4));
+      assertTrue(list.removeNode(nodeB, 4));
+      assertFalse(list.removeNode(nodeB, 4));
+      assertFalse(nodeB.isLinked());
+
+      assertTrue(iter.hasNext());
+      assertEquals(d, iter.next());
+      assertFalse(iter.hasNext());
+
+      assertTrue(list.removeNode(nodeC, 7));
+      assertEquals(1, list.size());
+      assertEquals(d, list.poll());
+      assertTrue(list.isEmpty());
+   }
+
    public void testMixupIterator2()
    {
       list.addTail(c, 5);
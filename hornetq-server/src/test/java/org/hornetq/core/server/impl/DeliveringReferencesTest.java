@@ -0,0 +1,118 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.core.server.impl;
+
+import java.util.Arrays;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.hornetq.core.server.MessageReference;
+
+public class DeliveringReferencesTest extends TestCase
+{
+   public void testRemoveOutOfOrder() throws Exception
+   {
+      DeliveringReferences refs = new DeliveringReferences();
+
+      MessageReference ref1 = createReference(1);
+      MessageReference ref2 = createReference(2);
+      MessageReference ref3 = createReference(3);
+      MessageReference ref4 = createReference(4);
+
+      refs.add(ref1);
+      refs.add(ref2);
+      refs.add(ref3);
+      refs.add(ref4);
+
+      Assert.assertSame(ref3, refs.remove(3));
+      Assert.assertNull(refs.remove(3));
+      Assert.assertSame(ref1, refs.remove(1));
+
+      Assert.assertEquals(Arrays.asList(ref2, ref4), refs.toList());
+
+      // cumulative acknowledgements take the references in delivery order
+      Assert.assertSame(ref2, refs.poll());
+      Assert.assertNull(refs.remove(2));
+      Assert.assertSame(ref4, refs.poll());
+      Assert.assertNull(refs.poll());
+      Assert.assertTrue(refs.isEmpty());
+   }
+
+   public void testSameMessageDeliveredTwice() throws Exception
+   {
+      DeliveringReferences refs = new DeliveringReferences();
+
+      MessageReference ref1 = createReference(1);
+      MessageReference ref2 = createReference(2);
+      MessageReference ref1Again = createReference(1);
+
+      refs.add(ref1);
+      refs.add(ref2);
+      refs.add(ref1Again);
+
+      Assert.assertSame(ref1, refs.remove(1));
+      Assert.assertSame(ref1Again, refs.remove(1));
+      Assert.assertNull(refs.remove(1));
+
+      refs.add(ref1);
+      refs.add(ref1Again);
+
+      Assert.assertSame(ref2, refs.poll());
+      Assert.assertSame(ref1, refs.poll());
+      Assert.assertSame(ref1Again, refs.remove(1));
+      Assert.assertEquals(0, refs.size());
+   }
+
+   public void testSameMessageDeliveredThreeTimes() throws Exception
+   {
+      DeliveringReferences refs = new DeliveringReferences();
+
+      MessageReference ref1 = createReference(1);
+      MessageReference ref1Again = createReference(1);
+      MessageReference ref1Third = createReference(1);
+      MessageReference ref2 = createReference(2);
+
+      refs.add(ref1);
+      refs.add(ref1Again);
+      refs.add(ref2);
+      refs.add(ref1Third);
+
+      Assert.assertSame(ref2, refs.remove(2));
+      Assert.assertSame(ref1, refs.poll());
+      Assert.assertSame(ref1Again, refs.remove(1));
+      Assert.assertSame(ref1Third, refs.remove(1));
+      Assert.assertNull(refs.remove(1));
+      Assert.assertTrue(refs.isEmpty());
+   }
+
+   public void testClear() throws Exception
+   {
+      DeliveringReferences refs = new DeliveringReferences();
+
+      refs.add(createReference(1));
+      refs.add(createReference(2));
+
+      refs.clear();
+
+      Assert.assertTrue(refs.isEmpty());
+      Assert.assertNull(refs.remove(1));
+      Assert.assertTrue(refs.toList().isEmpty());
+   }
+
+   private MessageReference createReference(final long messageID)
+   {
+      return new MessageReferenceImpl(new ServerMessageImpl(messageID, 100), null);
+   }
+}
@@ -266,6 +266,70 @@ void AsyncFile::write(THREAD_CONTEXT threadContext, long position, size_t size,
 	}
 }
 
+void AsyncFile::writeBatch(THREAD_CONTEXT threadContext, int count, long * positions, size_t * sizes, void ** buffers, CallbackAdapter ** adapters)
+{
+	struct iocb ** iocbs = new struct iocb *[count];
+
+	for (int i = 0; i < count; i++)
+	{
+		iocbs[i] = new struct iocb();
+		::io_prep_pwrite(iocbs[i], fileHandle, buffers[i], sizes[i], positions[i]);
+		iocbs[i]->data = (void *) adapters[i];
+	}
+
+	int tries = 0;
+	int submitted = 0;
+	int errorCode = 0;
+	std::string errorMessage;
+
+	while (submitted < count)
+	{
+		// io_submit may take only part of the iocbs, the remaining ones are submitted again
+		int result = ::io_submit(aioContext, count - submitted, iocbs + submitted);
+
+		if (result == (-EAGAIN))
+		{
+#ifdef DEBUG
+			fprintf (stderr, "Retrying batch as iocb was full (retry=%d)\n", tries);
+#endif
+			tries ++;
+			if (tries > TRIES_BEFORE_WARN)
+			{
+				controller->log(threadContext, 1, "You should consider expanding AIOLimit if this message appears too many times");
+			}
+
+			if (tries > TRIES_BEFORE_ERROR)
+			{
+				errorCode = NATIVE_ERROR_AIO_FULL;
+				errorMessage = "Too many retries (500) waiting for a valid iocb block, please increase MAX_IO limit";
+				break;
+			}
+			::usleep(WAIT_FOR_SPOT);
+		}
+		else if (result < 0)
+		{
+			std::stringstream str;
+			str<< "Problem on submit block, errorCode=" << result;
+			errorCode = NATIVE_ERROR_IO;
+			errorMessage = str.str();
+			break;
+		}
+		else
+		{
+			submitted += result;
+		}
+	}
+
+	// The poller owns the submitted iocbs, the others are released here
+	for (int i = submitted; i < count; i++)
+	{
+		delete iocbs[i];
+		adapters[i]->onError(threadContext, errorCode, errorMessage);
+	}
+
+	delete [] iocbs;
+}
+
 void AsyncFile::read(THREAD_CONTEXT threadContext, long position, size_t size, void *& buffer, CallbackAdapter *& adapter)
 {
 
@@ -48,6 +48,10 @@ public:
 	virtual ~AsyncFile();
 	
 	void write(THREAD_CONTEXT threadContext, long position, size_t size, void *& buffer, CallbackAdapter *& adapter);
+
+	/** Submit many writes with as few io_submit calls as possible.
+	 *  The writes that couldn't be submitted are reported as errors on their adapters */
+	void writeBatch(THREAD_CONTEXT threadContext, int count, long * positions, size_t * sizes, void ** buffers, CallbackAdapter ** adapters);
 	
 	/** Write directly to the file without using libaio queue */
 	void writeInternal(THREAD_CONTEXT threadContext, long position, size_t size, void *& buffer);
@@ -241,6 +241,65 @@ JNIEXPORT void JNICALL Java_org_hornetq_core_asyncio_impl_AsynchronousFileImpl_w
 	}
 }
 
+JNIEXPORT void JNICALL Java_org_hornetq_core_asyncio_impl_AsynchronousFileImpl_writeBatch
+  (JNIEnv *env, jobject objThis, jobject controllerAddress, jlong firstSequence, jlongArray jpositions, jlongArray jsizes, jobjectArray jbuffers, jobjectArray jcallbacks, jint offset, jint count)
+{
+	jlong * positions = new jlong[count];
+	jlong * sizes = new jlong[count];
+	long * nativePositions = new long[count];
+	size_t * nativeSizes = new size_t[count];
+	void ** buffers = new void *[count];
+	CallbackAdapter ** adapters = new CallbackAdapter *[count];
+
+	try
+	{
+		AIOController * controller = getController(env, controllerAddress);
+
+		env->GetLongArrayRegion(jpositions, offset, count, positions);
+		env->GetLongArrayRegion(jsizes, offset, count, sizes);
+
+		// Every buffer is validated before any adapter is created, so an exception means nothing was submitted
+		for (int i = 0; i < count; i++)
+		{
+			jobject jbuffer = env->GetObjectArrayElement(jbuffers, offset + i);
+			buffers[i] = env->GetDirectBufferAddress(jbuffer);
+			env->DeleteLocalRef(jbuffer);
+
+			if (buffers[i] == 0)
+			{
+				throw AIOException(NATIVE_ERROR_INVALID_BUFFER, "Invalid Buffer used, libaio requires NativeBuffer instead of Java ByteBuffer");
+			}
+
+			nativePositions[i] = (long)positions[i];
+			nativeSizes[i] = (size_t)sizes[i];
+		}
+
+		for (int i = 0; i < count; i++)
+		{
+			jobject jbuffer = env->GetObjectArrayElement(jbuffers, offset + i);
+			jobject callback = env->GetObjectArrayElement(jcallbacks, offset + i);
+
+			adapters[i] = new JNICallbackAdapter(controller, firstSequence + i, env->NewGlobalRef(callback), env->NewGlobalRef(objThis), env->NewGlobalRef(jbuffer), false);
+
+			env->DeleteLocalRef(jbuffer);
+			env->DeleteLocalRef(callback);
+		}
+
+		controller->fileOutput.writeBatch(env, count, nativePositions, nativeSizes, buffers, adapters);
+	}
+	catch (AIOException& e)
+	{
+		throwException(env, e.getErrorCode(), e.what());
+	}
+
+	delete [] positions;
+	delete [] sizes;
+	delete [] nativePositions;
+	delete [] nativeSizes;
+	delete [] buffers;
+	delete [] adapters;
+}
+
 JNIEXPORT void JNICALL Java_org_hornetq_core_asyncio_impl_AsynchronousFileImpl_writeInternal
   (JNIEnv * env, jobject , jobject controllerAddress, jlong positionToWrite, jlong size, jobject jbuffer)
 {
@@ -3,6 +3,6 @@
 
 // This definition needs to match org.hornetq.core.asyncio.impl.AsynchronousFileImpl.EXPECTED_NATIVE_VERSION
 // Or else the native module won't be loaded because of version mismatches
-#define _VERSION_NATIVE_AIO 51
+#define _VERSION_NATIVE_AIO 52
 #endif
 
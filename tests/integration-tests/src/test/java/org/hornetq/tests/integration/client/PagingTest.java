@@ -621,6 +621,140 @@ public class PagingTest extends ServiceTestBase
       server.stop();
    }
 
+   public void testExpirePagedMessages() throws Exception
+   {
+      internalTestExpirePagedMessages(true, true);
+   }
+
+   public void testExpirePagedMessagesNoExpiryAddress() throws Exception
+   {
+      internalTestExpirePagedMessages(false, false);
+   }
+
+   public void testExpirePagedMessagesNoExpiryQueue() throws Exception
+   {
+      internalTestExpirePagedMessages(true, false);
+   }
+
+   private void internalTestExpirePagedMessages(final boolean expiryAddress, final boolean expiryQueue) throws Exception
+   {
+      clearData();
+
+      Configuration config = createDefaultConfig();
+
+      config.setJournalSyncNonTransactional(false);
+
+      config.setMessageExpiryScanPeriod(500);
+
+      server = createServer(true,
+         config,
+         PagingTest.PAGE_SIZE,
+         PagingTest.PAGE_MAX,
+         new HashMap<String, AddressSettings>());
+
+      AddressSettings defaultSetting = new AddressSettings();
+      defaultSetting.setPageSizeBytes(PAGE_SIZE);
+      defaultSetting.setMaxSizeBytes(PAGE_MAX);
+      if (expiryAddress)
+      {
+         defaultSetting.setExpiryAddress(new SimpleString("EXP"));
+      }
+      defaultSetting.setAddressFullMessagePolicy(AddressFullMessagePolicy.PAGE);
+
+      server.getAddressSettingsRepository().clear();
+
+      server.getAddressSettingsRepository().addMatch("#", defaultSetting);
+
+      server.start();
+
+      final int numberOfMessages = 1000;
+
+      final int numberOfExpired = 500;
+
+      locator.setBlockOnAcknowledge(true);
+
+      ClientSessionFactory sf = createSessionFactory(locator);
+
+      ClientSession session = sf.createSession(false, false, false);
+
+      session.createQueue(PagingTest.ADDRESS, PagingTest.ADDRESS, null, true);
+
+      if (expiryQueue)
+      {
+         session.createQueue("EXP", "EXP", null, true);
+      }
+
+      Queue queue1 = server.locateQueue(ADDRESS);
+      Queue qEXP = server.locateQueue(new SimpleString("EXP"));
+
+      ClientProducer producer = session.createProducer(PagingTest.ADDRESS);
+
+      for (int i = 0; i < numberOfMessages; i++)
+      {
+         ClientMessage message = session.createMessage(true);
+
+         if (i < numberOfExpired)
+         {
+            message.setExpiration(System.currentTimeMillis() + 500);
+         }
+
+         message.putIntProperty("tst-count", i);
+
+         message.getBodyBuffer().writeBytes(new byte[1024]);
+
+         producer.send(message);
+      }
+      session.commit();
+      producer.close();
+
+      if (expiryQueue)
+      {
+         for (long timeout = System.currentTimeMillis() + 60000; timeout > System.currentTimeMillis() && qEXP.getMessageCount() < numberOfExpired;)
+         {
+            Thread.sleep(100);
+         }
+
+         assertEquals(numberOfExpired, qEXP.getMessageCount());
+      }
+      else
+      {
+         // the expired messages are just acked
+         for (long timeout = System.currentTimeMillis() + 60000; timeout > System.currentTimeMillis() && queue1.getMessageCount() > numberOfMessages - numberOfExpired;)
+         {
+            Thread.sleep(100);
+         }
+
+         assertEquals(numberOfMessages - numberOfExpired, queue1.getMessageCount());
+      }
+
+      // the live messages are only depaged as the queue has room for them
+      assertTrue(queue1.getPageSubscription().isPaging());
+
+      assertEquals(0, queue1.getDeliveringCount());
+
+      session.start();
+
+      ClientConsumer consumer = session.createConsumer(ADDRESS);
+
+      for (int i = numberOfExpired; i < numberOfMessages; i++)
+      {
+         ClientMessage message = consumer.receive(5000);
+         assertNotNull(message);
+         message.acknowledge();
+         assertEquals(i, message.getIntProperty("tst-count").intValue());
+      }
+
+      session.commit();
+
+      assertNull(consumer.receiveImmediate());
+
+      consumer.close();
+
+      session.close();
+
+      server.stop();
+   }
+
    public void testDeleteQueueRestart() throws Exception
    {
       clearData();
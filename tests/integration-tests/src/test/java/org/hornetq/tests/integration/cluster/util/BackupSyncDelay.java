@@ -12,6 +12,7 @@ import org.hornetq.core.protocol.core.ChannelHandler;
 import org.hornetq.core.protocol.core.CommandConfirmationHandler;
 import org.hornetq.core.protocol.core.CoreRemotingConnection;
 import org.hornetq.core.protocol.core.Packet;
+import org.hornetq.core.protocol.core.ResponseFuture;
 import org.hornetq.core.protocol.core.impl.PacketImpl;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationResponseMessage;
 import org.hornetq.core.protocol.core.impl.wireformat.ReplicationStartSyncMessage;
@@ -245,6 +246,12 @@ public class BackupSyncDelay implements Interceptor
          throw new UnsupportedOperationException();
       }
 
+      @Override
+      public ResponseFuture sendBlockingAsync(Packet packet) throws HornetQException
+      {
+         throw new UnsupportedOperationException();
+      }
+
       @Override
       public void setHandler(ChannelHandler handler)
       {
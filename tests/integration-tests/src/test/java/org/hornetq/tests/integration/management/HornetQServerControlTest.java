@@ -132,6 +132,7 @@ public class HornetQServerControlTest extends ManagementTestBase
          Assert.assertEquals(conf.getJournalBufferSize_AIO(), serverControl.getJournalBufferSize());
          Assert.assertEquals(conf.getJournalBufferTimeout_AIO(), serverControl.getJournalBufferTimeout());
       }
+      Assert.assertEquals(conf.isJournalAdaptiveBufferTimeout(), serverControl.isJournalAdaptiveBufferTimeout());
       Assert.assertEquals(conf.isCreateBindingsDir(), serverControl.isCreateBindingsDir());
       Assert.assertEquals(conf.isCreateJournalDir(), serverControl.isCreateJournalDir());
       Assert.assertEquals(conf.getPagingDirectory(), serverControl.getPagingDirectory());
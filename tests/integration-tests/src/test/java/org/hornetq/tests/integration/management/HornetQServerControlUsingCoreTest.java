@@ -465,6 +465,26 @@ public class HornetQServerControlUsingCoreTest extends HornetQServerControlTest
             return (Integer)proxy.retrieveAttributeValue("JournalBufferTimeout");
          }
 
+         public boolean isJournalAdaptiveBufferTimeout()
+         {
+            return (Boolean)proxy.retrieveAttributeValue("journalAdaptiveBufferTimeout");
+         }
+
+         public long getJournalBufferCurrentTimeout()
+         {
+            return (Long)proxy.retrieveAttributeValue("journalBufferCurrentTimeout", Long.class);
+         }
+
+         public long getJournalBufferAverageSyncTime()
+         {
+            return (Long)proxy.retrieveAttributeValue("journalBufferAverageSyncTime", Long.class);
+         }
+
+         public double getJournalBufferAverageBatchSize()
+         {
+            return ((Number)proxy.retrieveAttributeValue("journalBufferAverageBatchSize")).doubleValue();
+         }
+
          public int getJournalCompactMinFiles()
          {
             return (Integer)proxy.retrieveAttributeValue("JournalCompactMinFiles");
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.integration.management;
+
+import java.util.Map;
+
+import junit.framework.Assert;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.api.core.TransportConfiguration;
+import org.hornetq.api.core.client.ClientMessage;
+import org.hornetq.api.core.client.ClientProducer;
+import org.hornetq.api.core.client.ClientSession;
+import org.hornetq.api.core.client.ClientSessionFactory;
+import org.hornetq.api.core.client.ServerLocator;
+import org.hornetq.api.core.management.QueueControl;
+import org.hornetq.core.config.Configuration;
+import org.hornetq.core.server.HornetQServer;
+import org.hornetq.core.server.HornetQServers;
+import org.hornetq.core.settings.impl.AddressFullMessagePolicy;
+import org.hornetq.core.settings.impl.AddressSettings;
+import org.hornetq.tests.util.RandomUtil;
+import org.hornetq.utils.json.JSONArray;
+
+/**
+ * Browses a queue through management while its address is paging, messages are only paged when
+ * persistence is enabled.
+ */
+public class QueueControlPagingTest extends ManagementTestBase
+{
+
+   // Constants -----------------------------------------------------
+
+   private static final int NUMBER_OF_MESSAGES = 100;
+
+   private static final int BROWSE_LIMIT = 30;
+
+   // Attributes ----------------------------------------------------
+
+   private HornetQServer server;
+
+   private ServerLocator locator;
+
+   private ClientSession session;
+
+   // Public --------------------------------------------------------
+
+   public void testBrowsePagedMessages() throws Exception
+   {
+      SimpleString key = new SimpleString("key");
+      SimpleString address = RandomUtil.randomSimpleString();
+      SimpleString queue = RandomUtil.randomSimpleString();
+
+      AddressSettings addressSettings = new AddressSettings();
+      addressSettings.setPageSizeBytes(10 * 1024);
+      addressSettings.setMaxSizeBytes(20 * 1024);
+      addressSettings.setAddressFullMessagePolicy(AddressFullMessagePolicy.PAGE);
+      server.getAddressSettingsRepository().addMatch(address.toString(), addressSettings);
+
+      session.createQueue(address, queue, null, true);
+      QueueControl queueControl = createManagementControl(address, queue);
+
+      ClientProducer producer = session.createProducer(address);
+      for (int i = 0; i < NUMBER_OF_MESSAGES; i++)
+      {
+         ClientMessage message = session.createMessage(true);
+         message.putLongProperty(key, i);
+         message.getBodyBuffer().writeBytes(new byte[1024]);
+         producer.send(message);
+      }
+
+      Assert.assertTrue(server.locateQueue(queue).getPageSubscription().isPaging());
+
+      // only the messages in memory are listed
+      Assert.assertTrue(queueControl.listMessages(null).length < NUMBER_OF_MESSAGES);
+
+      // while all of them are browsed, in order
+      long browsed = 0;
+      Map<String, Object>[] messages;
+      do
+      {
+         messages = queueControl.browseMessages(null, (int)browsed, BROWSE_LIMIT);
+         for (Map<String, Object> message : messages)
+         {
+            Assert.assertEquals(browsed++, message.get("key"));
+         }
+      }
+      while (messages.length == BROWSE_LIMIT);
+      Assert.assertEquals(NUMBER_OF_MESSAGES, browsed);
+
+      JSONArray array = new JSONArray(queueControl.browseMessagesAsJSON(key + " >= 90", 5, 10));
+      Assert.assertEquals(5, array.length());
+      Assert.assertEquals(95, array.getJSONObject(0).getLong("key"));
+
+      // browsing didn't take any message away from the consumers
+      ManagementTestBase.consumeMessages(NUMBER_OF_MESSAGES, session, queue);
+
+      Assert.assertEquals(0, queueControl.browseMessages(null, 0, BROWSE_LIMIT).length);
+
+      session.deleteQueue(queue);
+   }
+
+   // Protected -----------------------------------------------------
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+
+      Configuration conf = createBasicConfig();
+      conf.setSecurityEnabled(false);
+      conf.setJMXManagementEnabled(true);
+      conf.getAcceptorConfigurations().add(new TransportConfiguration(INVM_ACCEPTOR_FACTORY));
+      server = addServer(HornetQServers.newHornetQServer(conf, mbeanServer, true));
+      server.start();
+
+      locator = createInVMNonHALocator();
+      locator.setBlockOnDurableSend(true);
+      locator.setConsumerWindowSize(0);
+      ClientSessionFactory sf = createSessionFactory(locator);
+      session = sf.createSession(false, true, false);
+      session.start();
+   }
+
+   @Override
+   protected void tearDown() throws Exception
+   {
+      session = null;
+      locator = null;
+      server = null;
+
+      super.tearDown();
+   }
+
+   protected QueueControl createManagementControl(final SimpleString address, final SimpleString queue) throws Exception
+   {
+      return ManagementControlHelper.createQueueControl(address, queue, mbeanServer);
+   }
+}
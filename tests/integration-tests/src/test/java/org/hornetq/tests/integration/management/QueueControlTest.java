@@ -577,6 +577,61 @@ public class QueueControlTest extends ManagementTestBase
       session.deleteQueue(queue);
    }
 
+   public void testBrowseMessages() throws Exception
+   {
+      SimpleString key = new SimpleString("key");
+      SimpleString address = RandomUtil.randomSimpleString();
+      SimpleString queue = RandomUtil.randomSimpleString();
+
+      session.createQueue(address, queue, null, false);
+      QueueControl queueControl = createManagementControl(address, queue);
+
+      ClientProducer producer = session.createProducer(address);
+      for (int i = 0; i < 10; i++)
+      {
+         ClientMessage message = session.createMessage(false);
+         message.putLongProperty(key, i);
+         producer.send(message);
+      }
+
+      Map<String, Object>[] messages = queueControl.browseMessages(null, 0, 4);
+      Assert.assertEquals(4, messages.length);
+      Assert.assertEquals(0L, messages[0].get("key"));
+
+      messages = queueControl.browseMessages(null, 8, 4);
+      Assert.assertEquals(2, messages.length);
+      Assert.assertEquals(8L, messages[0].get("key"));
+      Assert.assertEquals(9L, messages[1].get("key"));
+
+      // the offset counts the matching messages only
+      messages = queueControl.browseMessages(key + " >= 5", 1, 2);
+      Assert.assertEquals(2, messages.length);
+      Assert.assertEquals(6L, messages[0].get("key"));
+      Assert.assertEquals(7L, messages[1].get("key"));
+
+      JSONArray array = new JSONArray(queueControl.browseMessagesAsJSON(key + " >= 5", 3, 10));
+      Assert.assertEquals(2, array.length());
+      Assert.assertEquals(8, array.getJSONObject(0).getLong("key"));
+      Assert.assertEquals(9, array.getJSONObject(1).getLong("key"));
+
+      Assert.assertEquals(0, queueControl.browseMessages(null, 10, 4).length);
+
+      try
+      {
+         queueControl.browseMessages(null, -1, 4);
+         Assert.fail("a negative offset must be rejected");
+      }
+      catch (Exception expected)
+      {
+      }
+
+      ManagementTestBase.consumeMessages(10, session, queue);
+
+      Assert.assertEquals(0, queueControl.browseMessages(null, 0, 4).length);
+
+      session.deleteQueue(queue);
+   }
+
    /**
     * <ol>
     * <li>send a message to queue</li>
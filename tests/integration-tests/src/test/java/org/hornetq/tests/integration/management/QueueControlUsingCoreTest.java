@@ -168,6 +168,22 @@ public class QueueControlUsingCoreTest extends QueueControlTest
             return (String)proxy.invokeOperation("listMessagesAsJSON", filter);
          }
 
+         public Map<String, Object>[] browseMessages(final String filter, final int offset, final int limit) throws Exception
+         {
+            Object[] res = (Object[])proxy.invokeOperation("browseMessages", filter, offset, limit);
+            Map<String, Object>[] results = new Map[res.length];
+            for (int i = 0; i < res.length; i++)
+            {
+               results[i] = (Map<String, Object>)res[i];
+            }
+            return results;
+         }
+
+         public String browseMessagesAsJSON(final String filter, final int offset, final int limit) throws Exception
+         {
+            return (String)proxy.invokeOperation("browseMessagesAsJSON", filter, offset, limit);
+         }
+
          public Map<String, Object>[] listScheduledMessages() throws Exception
          {
             Object[] res = (Object[])proxy.invokeOperation("listScheduledMessages");
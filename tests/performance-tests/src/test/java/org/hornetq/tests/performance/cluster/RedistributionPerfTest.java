@@ -0,0 +1,145 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.performance.cluster;
+
+import junit.framework.Assert;
+
+import org.hornetq.api.core.client.ClientConsumer;
+import org.hornetq.api.core.client.ClientMessage;
+import org.hornetq.api.core.client.ClientProducer;
+import org.hornetq.api.core.client.ClientSession;
+import org.hornetq.core.settings.impl.AddressSettings;
+import org.hornetq.tests.integration.cluster.distribution.ClusterTestBase;
+
+/**
+ * Measures how fast a backlog of durable messages is redistributed between two in-VM nodes, once
+ * the only consumer of the queue moves from the node holding the messages to the other one, with
+ * the messages redistributed one by one and in batches.
+ */
+public class RedistributionPerfTest extends ClusterTestBase
+{
+
+   // Constants -----------------------------------------------------
+
+   private static final String ADDRESS = "queues.testaddress";
+
+   private static final String QUEUE = "queue0";
+
+   private static final int NUMBER_OF_MESSAGES = 20000;
+
+   private static final int SEND_BATCH = 1000;
+
+   // Public --------------------------------------------------------
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+
+      setupServer(0, isFileStorage(), isNetty());
+      setupServer(1, isFileStorage(), isNetty());
+
+      setupClusterConnection("cluster0", "queues", false, 1, isNetty(), 0, 1);
+      setupClusterConnection("cluster1", "queues", false, 1, isNetty(), 1, 0);
+   }
+
+   protected boolean isNetty()
+   {
+      return false;
+   }
+
+   public void testRedistributeOneByOne() throws Exception
+   {
+      redistribute(1);
+   }
+
+   public void testRedistributeInBatches() throws Exception
+   {
+      redistribute(AddressSettings.DEFAULT_REDISTRIBUTION_BATCH_SIZE);
+   }
+
+   public void testRedistributeInLargeBatches() throws Exception
+   {
+      redistribute(1000);
+   }
+
+   // Private -------------------------------------------------------
+
+   private void redistribute(final int batchSize) throws Exception
+   {
+      for (int node = 0; node < 2; node++)
+      {
+         AddressSettings settings = new AddressSettings();
+         settings.setRedistributionDelay(0);
+         settings.setRedistributionBatchSize(batchSize);
+         getServer(node).getAddressSettingsRepository().addMatch("queues.*", settings);
+      }
+
+      startServers(0, 1);
+
+      setupSessionFactory(0, isNetty());
+      setupSessionFactory(1, isNetty());
+
+      createQueue(0, ADDRESS, QUEUE, null, true);
+      createQueue(1, ADDRESS, QUEUE, null, true);
+
+      waitForBindings(0, ADDRESS, 1, 0, true);
+      waitForBindings(1, ADDRESS, 1, 0, true);
+
+      waitForBindings(0, ADDRESS, 1, 0, false);
+      waitForBindings(1, ADDRESS, 1, 0, false);
+
+      // with no consumer anywhere the messages stay on the node they are sent to
+      ClientSession session = sfs[0].createSession(false, false);
+      ClientProducer producer = session.createProducer(ADDRESS);
+      for (int i = 0; i < NUMBER_OF_MESSAGES; i++)
+      {
+         ClientMessage message = session.createMessage(true);
+         message.getBodyBuffer().writeBytes(new byte[100]);
+         producer.send(message);
+         if ((i + 1) % SEND_BATCH == 0)
+         {
+            session.commit();
+         }
+      }
+      session.commit();
+      session.close();
+
+      long start = System.currentTimeMillis();
+
+      addConsumer(0, 1, QUEUE, null);
+
+      ClientConsumer consumer = getConsumer(0);
+
+      for (int i = 0; i < NUMBER_OF_MESSAGES; i++)
+      {
+         ClientMessage message = consumer.receive(30000);
+         Assert.assertNotNull("only " + i + " messages redistributed", message);
+         message.acknowledge();
+      }
+
+      long elapsed = System.currentTimeMillis() - start;
+
+      Assert.assertNull(consumer.receiveImmediate());
+
+      System.out.println("Redistributed " + NUMBER_OF_MESSAGES +
+                         " messages in batches of " +
+                         batchSize +
+                         " in " +
+                         elapsed +
+                         " ms, " +
+                         NUMBER_OF_MESSAGES * 1000l / Math.max(elapsed, 1) +
+                         " messages/s");
+   }
+}
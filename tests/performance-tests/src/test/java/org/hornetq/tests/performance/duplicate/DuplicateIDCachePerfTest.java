@@ -0,0 +1,162 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.performance.duplicate;
+
+import java.util.UUID;
+
+import junit.framework.Assert;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.persistence.impl.nullpm.NullStorageManager;
+import org.hornetq.core.postoffice.DuplicateIDCache;
+import org.hornetq.core.postoffice.impl.BufferDuplicateIDCacheImpl;
+import org.hornetq.core.postoffice.impl.DuplicateIDCacheImpl;
+import org.hornetq.tests.util.UnitTestCase;
+
+/**
+ * Compares the throughput and the heap used by {@link DuplicateIDCacheImpl} and
+ * {@link BufferDuplicateIDCacheImpl} for a large cache of JMS like duplicate ids.
+ */
+public class DuplicateIDCachePerfTest extends UnitTestCase
+{
+
+   // Constants -----------------------------------------------------
+
+   private static final SimpleString ADDRESS = new SimpleString("address");
+
+   private static final int CACHE_SIZE = 2000000;
+
+   private static final int NUMBER_OF_IDS = 2 * CACHE_SIZE;
+
+   // Attributes ----------------------------------------------------
+
+   private byte[][] ids;
+
+   // Public --------------------------------------------------------
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+
+      ids = new byte[NUMBER_OF_IDS][];
+
+      for (int i = 0; i < NUMBER_OF_IDS; i++)
+      {
+         ids[i] = new SimpleString(UUID.randomUUID().toString()).getData();
+      }
+   }
+
+   @Override
+   protected void tearDown() throws Exception
+   {
+      ids = null;
+      super.tearDown();
+   }
+
+   public void testHashMapCache() throws Exception
+   {
+      measure("hash map", new DuplicateIDCacheFactory()
+      {
+         public DuplicateIDCache create()
+         {
+            return new DuplicateIDCacheImpl(ADDRESS, CACHE_SIZE, new NullStorageManager(), false);
+         }
+      });
+   }
+
+   public void testBufferCache() throws Exception
+   {
+      measure("buffer", new DuplicateIDCacheFactory()
+      {
+         public DuplicateIDCache create()
+         {
+            return new BufferDuplicateIDCacheImpl(ADDRESS, CACHE_SIZE, new NullStorageManager(), false, false);
+         }
+      });
+   }
+
+   public void testDirectBufferCache() throws Exception
+   {
+      measure("direct buffer", new DuplicateIDCacheFactory()
+      {
+         public DuplicateIDCache create()
+         {
+            return new BufferDuplicateIDCacheImpl(ADDRESS, CACHE_SIZE, new NullStorageManager(), false, true);
+         }
+      });
+   }
+
+   // Private -------------------------------------------------------
+
+   private void measure(final String name, final DuplicateIDCacheFactory factory) throws Exception
+   {
+      long heapBefore = usedHeap();
+
+      DuplicateIDCache cache = factory.create();
+
+      long start = System.currentTimeMillis();
+
+      // every id is checked before being added, as the post office does
+      for (byte[] id : ids)
+      {
+         Assert.assertFalse(cache.contains(id));
+         cache.addToCache(id, null);
+      }
+
+      long addTime = Math.max(1, System.currentTimeMillis() - start);
+
+      start = System.currentTimeMillis();
+
+      for (int i = NUMBER_OF_IDS - CACHE_SIZE; i < NUMBER_OF_IDS; i++)
+      {
+         Assert.assertTrue(cache.contains(ids[i]));
+      }
+
+      long containsTime = Math.max(1, System.currentTimeMillis() - start);
+
+      long heapUsed = usedHeap() - heapBefore;
+
+      System.out.println(name + " cache: " +
+                         (NUMBER_OF_IDS * 1000l / addTime) +
+                         " checks and adds/sec, " +
+                         (CACHE_SIZE * 1000l / containsTime) +
+                         " hits/sec, " +
+                         (heapUsed / 1024 / 1024) +
+                         " MiB of heap for " +
+                         CACHE_SIZE +
+                         " ids");
+
+      // keeps the cache reachable until the heap has been measured
+      Assert.assertTrue(cache.contains(ids[NUMBER_OF_IDS - 1]));
+   }
+
+   private static long usedHeap() throws InterruptedException
+   {
+      Runtime runtime = Runtime.getRuntime();
+
+      for (int i = 0; i < 3; i++)
+      {
+         System.gc();
+         Thread.sleep(100);
+      }
+
+      return runtime.totalMemory() - runtime.freeMemory();
+   }
+
+   private interface DuplicateIDCacheFactory
+   {
+      DuplicateIDCache create();
+   }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.performance.executor;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.hornetq.api.config.HornetQDefaultConfiguration;
+import org.hornetq.tests.util.UnitTestCase;
+import org.hornetq.utils.OrderedExecutorFactory;
+
+/**
+ * Measures the throughput of the ordered executors of {@link OrderedExecutorFactory} on a thread pool
+ * sized as the server's, against an executor taking a lock on every submission as they used to.
+ * <p>
+ * Producers submit small tasks either all to the same executor, as the sessions of a connection
+ * share a queue, or each to its own executor, as independent sessions do.
+ */
+public class OrderedExecutorPerfTest extends UnitTestCase
+{
+
+   // Constants -----------------------------------------------------
+
+   private static final int TASKS_PER_PRODUCER = 200000;
+
+   // Attributes ----------------------------------------------------
+
+   private ExecutorService threadPool;
+
+   // Public --------------------------------------------------------
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+
+      threadPool = Executors.newFixedThreadPool(HornetQDefaultConfiguration.DEFAULT_THREAD_POOL_MAX_SIZE);
+   }
+
+   @Override
+   protected void tearDown() throws Exception
+   {
+      threadPool.shutdown();
+
+      super.tearDown();
+   }
+
+   public void testSharedExecutor() throws Exception
+   {
+      // the first runs warm up the JIT
+      measure(4, true, false);
+      measure(4, true, true);
+
+      for (int producers : new int[] { 1, 4, 16 })
+      {
+         measure(producers, true, false);
+         measure(producers, true, true);
+      }
+   }
+
+   public void testExecutorPerProducer() throws Exception
+   {
+      measure(4, false, false);
+      measure(4, false, true);
+
+      for (int producers : new int[] { 4, 16, 64 })
+      {
+         measure(producers, false, false);
+         measure(producers, false, true);
+      }
+   }
+
+   // Private -------------------------------------------------------
+
+   private void measure(final int numberOfProducers, final boolean shared, final boolean lockFree) throws Exception
+   {
+      OrderedExecutorFactory factory = new OrderedExecutorFactory(threadPool);
+
+      Executor sharedExecutor = lockFree ? factory.getExecutor() : new LockingOrderedExecutor(threadPool);
+
+      final CountDownLatch done = new CountDownLatch(numberOfProducers);
+
+      final CountDownLatch start = new CountDownLatch(1);
+
+      Thread[] producers = new Thread[numberOfProducers];
+
+      for (int i = 0; i < numberOfProducers; i++)
+      {
+         final Executor executor = shared ? sharedExecutor : lockFree ? factory.getExecutor()
+                                                                     : new LockingOrderedExecutor(threadPool);
+
+         producers[i] = new Thread()
+         {
+            @Override
+            public void run()
+            {
+               final int[] counter = new int[1];
+
+               Runnable task = new Runnable()
+               {
+                  public void run()
+                  {
+                     counter[0]++;
+                  }
+               };
+
+               try
+               {
+                  start.await();
+               }
+               catch (InterruptedException e)
+               {
+                  return;
+               }
+
+               for (int i = 0; i < TASKS_PER_PRODUCER - 1; i++)
+               {
+                  executor.execute(task);
+               }
+
+               executor.execute(new Runnable()
+               {
+                  public void run()
+                  {
+                     done.countDown();
+                  }
+               });
+            }
+         };
+         producers[i].start();
+      }
+
+      long begin = System.nanoTime();
+
+      start.countDown();
+
+      Assert.assertTrue(done.await(5, TimeUnit.MINUTES));
+
+      long elapsed = Math.max(1, System.nanoTime() - begin);
+
+      for (Thread producer : producers)
+      {
+         producer.join();
+      }
+
+      System.out.println((lockFree ? "lock free" : "locking") + " ordered executor, " +
+                         numberOfProducers +
+                         " producer(s) on " +
+                         (shared ? "a shared executor" : "one executor each") +
+                         ": " +
+                         (numberOfProducers * (long)TASKS_PER_PRODUCER * 1000000000L / elapsed) +
+                         " tasks/sec");
+   }
+
+   // Inner classes -------------------------------------------------
+
+   /**
+    * An ordered executor taking a lock on every submission and when its runner has no more tasks.
+    */
+   private static final class LockingOrderedExecutor implements Executor
+   {
+      private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+
+      // @protected by tasks
+      private boolean running;
+
+      private final Executor parent;
+
+      private final Runnable runner = new Runnable()
+      {
+         public void run()
+         {
+            for (;;)
+            {
+               Runnable task = tasks.poll();
+               if (task == null)
+               {
+                  synchronized (tasks)
+                  {
+                     task = tasks.poll();
+                     if (task == null)
+                     {
+                        running = false;
+                        return;
+                     }
+                  }
+               }
+               task.run();
+            }
+         }
+      };
+
+      LockingOrderedExecutor(final Executor parent)
+      {
+         this.parent = parent;
+      }
+
+      public void execute(final Runnable command)
+      {
+         synchronized (tasks)
+         {
+            tasks.add(command);
+            if (!running)
+            {
+               running = true;
+               parent.execute(runner);
+            }
+         }
+      }
+   }
+}
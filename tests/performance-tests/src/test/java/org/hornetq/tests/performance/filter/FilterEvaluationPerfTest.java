@@ -0,0 +1,123 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.performance.filter;
+
+import java.util.concurrent.CountDownLatch;
+
+import junit.framework.Assert;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.filter.Filter;
+import org.hornetq.core.filter.impl.FilterImpl;
+import org.hornetq.core.server.ServerMessage;
+import org.hornetq.core.server.impl.ServerMessageImpl;
+import org.hornetq.tests.util.UnitTestCase;
+
+/**
+ * Compares the throughput of interpreted filters ({@link FilterImpl}) with compiled filters when
+ * the same filter is shared by several routing threads.
+ */
+public class FilterEvaluationPerfTest extends UnitTestCase
+{
+
+   // Constants -----------------------------------------------------
+
+   private static final String FILTER = "region = 'EU' AND amount BETWEEN 10 AND 100 AND category IN ('a', 'b', 'c')";
+
+   private static final int WARMUP_ITERATIONS = 1000000;
+
+   private static final int ITERATIONS = 2000000;
+
+   // Public --------------------------------------------------------
+
+   public void testInterpretedSingleThread() throws Exception
+   {
+      measure(FilterImpl.createFilter(FILTER, false), 1, "interpreted");
+   }
+
+   public void testCompiledSingleThread() throws Exception
+   {
+      measure(FilterImpl.createFilter(FILTER, true), 1, "compiled");
+   }
+
+   public void testInterpretedMultipleThreads() throws Exception
+   {
+      measure(FilterImpl.createFilter(FILTER, false), 8, "interpreted");
+   }
+
+   public void testCompiledMultipleThreads() throws Exception
+   {
+      measure(FilterImpl.createFilter(FILTER, true), 8, "compiled");
+   }
+
+   // Private -------------------------------------------------------
+
+   private void measure(final Filter filter, final int numberOfThreads, final String name) throws Exception
+   {
+      final ServerMessage message = new ServerMessageImpl(1, 1000);
+      message.putStringProperty(new SimpleString("region"), new SimpleString("EU"));
+      message.putIntProperty(new SimpleString("amount"), 50);
+      message.putStringProperty(new SimpleString("category"), new SimpleString("b"));
+
+      for (int i = 0; i < WARMUP_ITERATIONS; i++)
+      {
+         Assert.assertTrue(filter.match(message));
+      }
+
+      final CountDownLatch latchStart = new CountDownLatch(1);
+
+      Thread[] threads = new Thread[numberOfThreads];
+
+      for (int i = 0; i < numberOfThreads; i++)
+      {
+         threads[i] = new Thread()
+         {
+            @Override
+            public void run()
+            {
+               try
+               {
+                  UnitTestCase.waitForLatch(latchStart);
+                  for (int j = 0; j < ITERATIONS; j++)
+                  {
+                     filter.match(message);
+                  }
+               }
+               catch (Exception e)
+               {
+                  e.printStackTrace();
+               }
+            }
+         };
+         threads[i].start();
+      }
+
+      long start = System.currentTimeMillis();
+
+      latchStart.countDown();
+
+      for (Thread t : threads)
+      {
+         t.join();
+      }
+
+      long elapsed = Math.max(1, System.currentTimeMillis() - start);
+
+      System.out.println(name + " filter with " +
+                         numberOfThreads +
+                         " thread(s): " +
+                         (numberOfThreads * (long)ITERATIONS * 1000 / elapsed) +
+                         " matches/sec");
+   }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.performance.journal;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+import junit.framework.TestSuite;
+
+import org.hornetq.core.journal.IOAsyncTask;
+import org.hornetq.core.journal.impl.AIOSequentialFile;
+import org.hornetq.core.journal.impl.AIOSequentialFileFactory;
+import org.hornetq.tests.util.UnitTestCase;
+
+/**
+ * Measures how fast small writes are appended to a file through libaio, when they are submitted
+ * one by one and in batches.
+ */
+public class AIOBatchWritePerfTest extends UnitTestCase
+{
+
+   // Constants -----------------------------------------------------
+
+   private static final int NUMBER_OF_WRITES = 102400;
+
+   private static final int WRITE_SIZE = 512;
+
+   private static final int MAX_IO = 500;
+
+   // Attributes ----------------------------------------------------
+
+   private AIOSequentialFileFactory factory;
+
+   // Static --------------------------------------------------------
+
+   public static TestSuite suite()
+   {
+      return UnitTestCase.createAIOTestSuite(AIOBatchWritePerfTest.class);
+   }
+
+   // Public --------------------------------------------------------
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+
+      File dir = new File(getTestDir());
+
+      deleteDirectory(dir);
+
+      dir.mkdirs();
+
+      factory = new AIOSequentialFileFactory(getTestDir());
+
+      factory.start();
+   }
+
+   @Override
+   protected void tearDown() throws Exception
+   {
+      factory.stop();
+
+      super.tearDown();
+   }
+
+   public void testWrites() throws Exception
+   {
+      // the first runs warm up the JIT
+      write(1);
+      write(16);
+
+      write(1);
+      write(16);
+      write(64);
+      write(256);
+   }
+
+   // Private -------------------------------------------------------
+
+   private void write(final int batchSize) throws Exception
+   {
+      AIOSequentialFile file = (AIOSequentialFile)factory.createSequentialFile("batch-" + batchSize + ".tst", MAX_IO);
+
+      file.open();
+
+      file.fill(0, NUMBER_OF_WRITES * WRITE_SIZE, (byte)0);
+
+      file.position(0);
+
+      final CountDownLatch latch = new CountDownLatch(NUMBER_OF_WRITES);
+
+      final AtomicInteger errors = new AtomicInteger();
+
+      IOAsyncTask callback = new IOAsyncTask()
+      {
+         public void done()
+         {
+            latch.countDown();
+         }
+
+         public void onError(final int errorCode, final String errorMessage)
+         {
+            errors.incrementAndGet();
+            latch.countDown();
+         }
+      };
+
+      long start = System.currentTimeMillis();
+
+      // the buffers are released by the file once written
+      for (int i = 0; i < NUMBER_OF_WRITES; i += batchSize)
+      {
+         if (batchSize == 1)
+         {
+            file.writeDirect(factory.newBuffer(WRITE_SIZE), false, callback);
+         }
+         else
+         {
+            // the arrays are read when the batch is submitted, they can't be reused
+            ByteBuffer[] batch = new ByteBuffer[batchSize];
+            IOAsyncTask[] callbacks = new IOAsyncTask[batchSize];
+
+            for (int j = 0; j < batchSize; j++)
+            {
+               batch[j] = factory.newBuffer(WRITE_SIZE);
+               callbacks[j] = callback;
+            }
+
+            file.writeDirect(batch, callbacks);
+         }
+      }
+
+      Assert.assertTrue(latch.await(60, TimeUnit.SECONDS));
+
+      long elapsed = System.currentTimeMillis() - start;
+
+      file.close();
+
+      Assert.assertEquals(0, errors.get());
+
+      System.out.println("Wrote " + NUMBER_OF_WRITES +
+                         " blocks of " +
+                         WRITE_SIZE +
+                         " bytes in batches of " +
+                         batchSize +
+                         " in " +
+                         elapsed +
+                         " ms, " +
+                         NUMBER_OF_WRITES * 1000l / Math.max(elapsed, 1) +
+                         " writes/s");
+   }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.performance.journal;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import junit.framework.Assert;
+
+import org.hornetq.core.journal.PreparedTransactionInfo;
+import org.hornetq.core.journal.RecordInfo;
+import org.hornetq.core.journal.impl.JournalImpl;
+import org.hornetq.core.journal.impl.NIOSequentialFileFactory;
+import org.hornetq.tests.unit.core.journal.impl.fakes.SimpleEncoding;
+import org.hornetq.tests.util.UnitTestCase;
+
+/**
+ * Measures the latency of the appends to a journal while it is being compacted, compacting the
+ * whole journal at once and a few files at a time.
+ *
+ * @see JournalImpl#setIncrementalCompactFiles(int)
+ */
+public class JournalCompactLatencyPerfTest extends UnitTestCase
+{
+
+   // Constants -----------------------------------------------------
+
+   private static final int FILE_SIZE = 1024 * 1024;
+
+   private static final int NUMBER_OF_RECORDS = 100000;
+
+   private static final int RECORD_SIZE = 512;
+
+   // Public --------------------------------------------------------
+
+   public void testAppendLatencyDuringCompact() throws Exception
+   {
+      // the first run warms up the JIT
+      measure(0);
+
+      measure(0);
+      measure(4);
+      measure(16);
+   }
+
+   // Private -------------------------------------------------------
+
+   private void measure(final int incrementalCompactFiles) throws Exception
+   {
+      File dir = new File(getTestDir());
+      deleteDirectory(dir);
+      dir.mkdirs();
+
+      NIOSequentialFileFactory factory = new NIOSequentialFileFactory(getTestDir(), true);
+      factory.start();
+
+      // compacting is only triggered by the test
+      final JournalImpl journal = new JournalImpl(FILE_SIZE, 2, 0, 0, factory, "hornetq-data", "hq", 1);
+      journal.setIncrementalCompactFiles(incrementalCompactFiles);
+      journal.start();
+      journal.load(new ArrayList<RecordInfo>(), new ArrayList<PreparedTransactionInfo>(), null);
+
+      try
+      {
+         // 90% of the journal is garbage
+         for (int i = 0; i < NUMBER_OF_RECORDS; i++)
+         {
+            journal.appendAddRecord(i, (byte)1, new SimpleEncoding(RECORD_SIZE, (byte)'a'), false);
+         }
+         for (int i = 0; i < NUMBER_OF_RECORDS; i++)
+         {
+            if (i % 10 != 0)
+            {
+               journal.appendDeleteRecord(i, false);
+            }
+         }
+
+         int dataFiles = journal.getDataFilesCount();
+
+         Appender appender = new Appender(journal, NUMBER_OF_RECORDS);
+         appender.start();
+
+         long start = System.currentTimeMillis();
+
+         journal.testCompact();
+
+         long elapsed = System.currentTimeMillis() - start;
+
+         appender.running = false;
+         appender.join();
+
+         Assert.assertNull(appender.e);
+
+         long[] latencies = Arrays.copyOf(appender.latencies, appender.count);
+         Arrays.sort(latencies);
+
+         System.out.println((incrementalCompactFiles == 0 ? "full compact" : "incremental compact of " +
+                                                                               incrementalCompactFiles +
+                                                                               " files") +
+                            " of " +
+                            dataFiles +
+                            " files in " +
+                            elapsed +
+                            " ms, " +
+                            latencies.length +
+                            " appends, latency (us) p50=" +
+                            percentile(latencies, 0.5) +
+                            " p99=" +
+                            percentile(latencies, 0.99) +
+                            " p99.9=" +
+                            percentile(latencies, 0.999) +
+                            " max=" +
+                            percentile(latencies, 1));
+      }
+      finally
+      {
+         journal.stop();
+         factory.stop();
+      }
+   }
+
+   private static long percentile(final long[] sorted, final double percentile)
+   {
+      if (sorted.length == 0)
+      {
+         return 0;
+      }
+
+      int index = (int)Math.ceil(percentile * sorted.length) - 1;
+
+      return sorted[Math.max(0, index)] / 1000;
+   }
+
+   // Inner classes -------------------------------------------------
+
+   private static final class Appender extends Thread
+   {
+      private final JournalImpl journal;
+
+      private long nextID;
+
+      final long[] latencies = new long[1000000];
+
+      int count;
+
+      volatile boolean running = true;
+
+      Throwable e;
+
+      Appender(final JournalImpl journal, final long firstID)
+      {
+         this.journal = journal;
+         nextID = firstID;
+      }
+
+      @Override
+      public void run()
+      {
+         try
+         {
+            while (running && count < latencies.length)
+            {
+               long id = nextID++;
+
+               long start = System.nanoTime();
+
+               journal.appendAddRecord(id, (byte)1, new SimpleEncoding(RECORD_SIZE, (byte)'b'), false);
+
+               latencies[count++] = System.nanoTime() - start;
+
+               journal.appendDeleteRecord(id, false);
+            }
+         }
+         catch (Throwable t)
+         {
+            t.printStackTrace();
+            e = t;
+         }
+      }
+   }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.performance.journal;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.hornetq.core.journal.PreparedTransactionInfo;
+import org.hornetq.core.journal.RecordInfo;
+import org.hornetq.core.journal.impl.JournalImpl;
+import org.hornetq.core.journal.impl.NIOSequentialFileFactory;
+import org.hornetq.tests.unit.core.journal.impl.fakes.SimpleEncoding;
+import org.hornetq.tests.util.UnitTestCase;
+
+/**
+ * Measures the time taken to load a large journal with one and several load threads.
+ *
+ * @see JournalImpl#setLoadThreads(int)
+ */
+public class JournalLoadPerfTest extends UnitTestCase
+{
+
+   // Constants -----------------------------------------------------
+
+   private static final int FILE_SIZE = 1024 * 1024;
+
+   private static final int NUMBER_OF_RECORDS = 200000;
+
+   private static final int RECORD_SIZE = 512;
+
+   // Public --------------------------------------------------------
+
+   public void testLoad() throws Exception
+   {
+      File dir = new File(getTestDir());
+      deleteDirectory(dir);
+      dir.mkdirs();
+
+      JournalImpl journal = createJournal();
+      journal.start();
+      journal.load(new ArrayList<RecordInfo>(), new ArrayList<PreparedTransactionInfo>(), null);
+
+      for (int i = 0; i < NUMBER_OF_RECORDS; i++)
+      {
+         journal.appendAddRecord(i, (byte)1, new SimpleEncoding(RECORD_SIZE, (byte)'a'), false);
+
+         if (i % 3 == 0)
+         {
+            journal.appendUpdateRecord(i, (byte)1, new SimpleEncoding(RECORD_SIZE, (byte)'b'), false);
+         }
+      }
+
+      journal.stop();
+
+      // the first loads warm up the file system cache and the JIT, every load must find the same records
+      int expected = measure(1, -1);
+      measure(4, expected);
+
+      for (int threads : new int[] { 1, 2, 4, 8 })
+      {
+         measure(threads, expected);
+      }
+   }
+
+   // Private -------------------------------------------------------
+
+   private JournalImpl createJournal()
+   {
+      return new JournalImpl(FILE_SIZE, 2, 0, 0, new NIOSequentialFileFactory(getTestDir()), "hornetq-data", "hq", 1);
+   }
+
+   private int measure(final int threads, final int expected) throws Exception
+   {
+      JournalImpl journal = createJournal();
+
+      journal.setLoadThreads(threads);
+
+      journal.start();
+
+      List<RecordInfo> committedRecords = new ArrayList<RecordInfo>();
+
+      long start = System.currentTimeMillis();
+
+      journal.load(committedRecords, new ArrayList<PreparedTransactionInfo>(), null);
+
+      long elapsed = System.currentTimeMillis() - start;
+
+      int files = journal.getDataFilesCount();
+
+      journal.stop();
+
+      if (expected != -1)
+      {
+         Assert.assertEquals(expected, committedRecords.size());
+      }
+
+      System.out.println("Loaded " + files +
+                         " files with " +
+                         threads +
+                         " thread(s) in " +
+                         elapsed +
+                         " ms");
+
+      return committedRecords.size();
+   }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.performance.message;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import junit.framework.Assert;
+
+import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.HornetQBuffers;
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.server.ServerMessage;
+import org.hornetq.core.server.impl.ServerMessageImpl;
+import org.hornetq.tests.util.UnitTestCase;
+import org.hornetq.utils.SimpleStringPool;
+
+/**
+ * Measures the time taken and the memory allocated to decode messages with and without a
+ * {@link SimpleStringPool}, for messages sent to a few hundred addresses with properties taken
+ * from a few dozen names, and to decode and encode them again with their properties decoded
+ * lazily or not.
+ */
+public class MessageDecodePerfTest extends UnitTestCase
+{
+
+   // Constants -----------------------------------------------------
+
+   private static final int NUMBER_OF_ADDRESSES = 200;
+
+   private static final int NUMBER_OF_KEYS = 50;
+
+   private static final int PROPERTIES_PER_MESSAGE = 10;
+
+   private static final int NUMBER_OF_MESSAGES = 10000;
+
+   private static final int ITERATIONS = 50;
+
+   // Attributes ----------------------------------------------------
+
+   private HornetQBuffer encoded;
+
+   // Public --------------------------------------------------------
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+
+      encoded = HornetQBuffers.dynamicBuffer(NUMBER_OF_MESSAGES * 512);
+
+      for (int i = 0; i < NUMBER_OF_MESSAGES; i++)
+      {
+         ServerMessage message = new ServerMessageImpl(i, 1024);
+         message.setAddress(new SimpleString("jms.queue.address" + i % NUMBER_OF_ADDRESSES));
+         for (int j = 0; j < PROPERTIES_PER_MESSAGE; j++)
+         {
+            message.putIntProperty(new SimpleString("property" + (i + j) % NUMBER_OF_KEYS), j);
+         }
+         message.getBodyBuffer().writeBytes(new byte[100]);
+         message.encode(encoded);
+      }
+   }
+
+   public void testDecode() throws Exception
+   {
+      SimpleStringPool previous = SimpleStringPool.getDecodePool();
+
+      try
+      {
+         // the first runs warm up the JIT
+         SimpleStringPool.setDecodePool(null);
+         measure("without pool");
+         SimpleStringPool.setDecodePool(new SimpleStringPool(1024, SimpleStringPool.DEFAULT_MAX_LENGTH));
+         measure("with pool");
+
+         SimpleStringPool.setDecodePool(null);
+         measure("without pool");
+         SimpleStringPool.setDecodePool(new SimpleStringPool(1024, SimpleStringPool.DEFAULT_MAX_LENGTH));
+         measure("with pool");
+      }
+      finally
+      {
+         SimpleStringPool.setDecodePool(previous);
+      }
+   }
+
+   public void testDecodeEncode() throws Exception
+   {
+      HornetQBuffer output = HornetQBuffers.dynamicBuffer(encoded.writerIndex());
+
+      // the first runs warm up the JIT
+      measureDecodeEncode(false, output);
+      measureDecodeEncode(true, output);
+
+      measureDecodeEncode(false, output);
+      measureDecodeEncode(true, output);
+   }
+
+   // Private -------------------------------------------------------
+
+   private void measureDecodeEncode(final boolean lazy, final HornetQBuffer output)
+   {
+      long allocatedBefore = getAllocatedBytes();
+
+      long start = System.currentTimeMillis();
+
+      for (int i = 0; i < ITERATIONS; i++)
+      {
+         encoded.readerIndex(0);
+         output.clear();
+
+         for (int j = 0; j < NUMBER_OF_MESSAGES; j++)
+         {
+            ServerMessage message = new ServerMessageImpl(j, 50);
+            message.getTypedProperties().setLazyDecode(lazy);
+            message.decode(encoded);
+            message.encode(output);
+         }
+      }
+
+      long elapsed = System.currentTimeMillis() - start;
+
+      long allocated = getAllocatedBytes() - allocatedBefore;
+
+      Assert.assertEquals(encoded.writerIndex(), output.writerIndex());
+
+      long decoded = (long)ITERATIONS * NUMBER_OF_MESSAGES;
+
+      System.out.println("Decoded and encoded " + decoded +
+                         " messages with " +
+                         (lazy ? "lazy" : "eager") +
+                         " properties in " +
+                         elapsed +
+                         " ms, " +
+                         (allocatedBefore < 0 ? "allocation not measured" : allocated / decoded +
+                                                                            " bytes allocated per message"));
+   }
+
+   private void measure(final String name)
+   {
+      long allocatedBefore = getAllocatedBytes();
+
+      long start = System.currentTimeMillis();
+
+      long checksum = 0;
+
+      for (int i = 0; i < ITERATIONS; i++)
+      {
+         encoded.readerIndex(0);
+
+         for (int j = 0; j < NUMBER_OF_MESSAGES; j++)
+         {
+            ServerMessage message = new ServerMessageImpl(j, 50);
+            message.decode(encoded);
+            checksum += message.getPropertyNames().size();
+         }
+      }
+
+      long elapsed = System.currentTimeMillis() - start;
+
+      long allocated = getAllocatedBytes() - allocatedBefore;
+
+      Assert.assertEquals((long)ITERATIONS * NUMBER_OF_MESSAGES * PROPERTIES_PER_MESSAGE, checksum);
+
+      long decoded = (long)ITERATIONS * NUMBER_OF_MESSAGES;
+
+      System.out.println("Decoded " + decoded +
+                         " messages " +
+                         name +
+                         " in " +
+                         elapsed +
+                         " ms, " +
+                         (allocatedBefore < 0 ? "allocation not measured" : allocated / decoded +
+                                                                            " bytes allocated per message"));
+   }
+
+   /**
+    * Returns the bytes allocated by the current thread, or -1 if the JVM can't tell.
+    */
+   private static long getAllocatedBytes()
+   {
+      ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+      if (bean instanceof com.sun.management.ThreadMXBean)
+      {
+         return ((com.sun.management.ThreadMXBean)bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+
+      return -1;
+   }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.performance.persistence;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.hornetq.core.journal.IOAsyncTask;
+import org.hornetq.core.persistence.impl.journal.OperationContextImpl;
+import org.hornetq.tests.util.UnitTestCase;
+import org.hornetq.utils.OrderedExecutorFactory;
+
+/**
+ * Measures the latency between the completion of durable operations on an
+ * {@link OperationContextImpl} and the execution of their tasks, when the journal completes them in
+ * groups as it does after syncing a batch of records.
+ */
+public class OperationContextPerfTest extends UnitTestCase
+{
+
+   // Constants -----------------------------------------------------
+
+   private static final int NUMBER_OF_OPERATIONS = 200000;
+
+   // Attributes ----------------------------------------------------
+
+   private ExecutorService threadPool;
+
+   // Public --------------------------------------------------------
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+
+      threadPool = Executors.newCachedThreadPool();
+   }
+
+   @Override
+   protected void tearDown() throws Exception
+   {
+      threadPool.shutdown();
+
+      super.tearDown();
+   }
+
+   public void testGroupCompletion() throws Exception
+   {
+      // the first runs warm up the JIT
+      measure(1);
+      measure(64);
+
+      for (int group : new int[] { 1, 8, 64, 256 })
+      {
+         measure(group);
+      }
+   }
+
+   // Private -------------------------------------------------------
+
+   private void measure(final int groupSize) throws Exception
+   {
+      // the contexts of the sessions run on ordered executors, as on the server
+      OperationContextImpl context = new OperationContextImpl(new OrderedExecutorFactory(threadPool).getExecutor());
+
+      final long[] completed = new long[NUMBER_OF_OPERATIONS];
+
+      final long[] executed = new long[NUMBER_OF_OPERATIONS];
+
+      long start = System.currentTimeMillis();
+
+      for (int first = 0; first < NUMBER_OF_OPERATIONS; first += groupSize)
+      {
+         int last = Math.min(first + groupSize, NUMBER_OF_OPERATIONS);
+
+         final CountDownLatch latch = new CountDownLatch(last - first);
+
+         for (int i = first; i < last; i++)
+         {
+            final int operation = i;
+
+            context.storeLineUp();
+
+            context.executeOnCompletion(new IOAsyncTask()
+            {
+               public void done()
+               {
+                  executed[operation] = System.nanoTime();
+                  latch.countDown();
+               }
+
+               public void onError(final int errorCode, final String errorMessage)
+               {
+               }
+            });
+         }
+
+         // the journal calls back every record of the sync, one after the other
+         for (int i = first; i < last; i++)
+         {
+            completed[i] = System.nanoTime();
+            context.done();
+         }
+
+         Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+      }
+
+      long elapsed = System.currentTimeMillis() - start;
+
+      long[] latencies = new long[NUMBER_OF_OPERATIONS];
+
+      for (int i = 0; i < NUMBER_OF_OPERATIONS; i++)
+      {
+         latencies[i] = (executed[i] - completed[i]) / 1000;
+      }
+
+      Arrays.sort(latencies);
+
+      System.out.println("Completed " + NUMBER_OF_OPERATIONS +
+                         " operations in groups of " +
+                         groupSize +
+                         " in " +
+                         elapsed +
+                         " ms, latency in us: 50%=" +
+                         percentile(latencies, 50) +
+                         " 90%=" +
+                         percentile(latencies, 90) +
+                         " 99%=" +
+                         percentile(latencies, 99) +
+                         " 99.9%=" +
+                         percentile(latencies, 99.9) +
+                         " max=" +
+                         latencies[latencies.length - 1]);
+   }
+
+   private static long percentile(final long[] sorted, final double percentile)
+   {
+      return sorted[Math.min(sorted.length - 1, (int)(sorted.length * percentile / 100))];
+   }
+}
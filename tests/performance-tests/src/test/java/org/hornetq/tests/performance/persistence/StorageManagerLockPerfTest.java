@@ -0,0 +1,124 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.performance.persistence;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import junit.framework.Assert;
+
+import org.hornetq.core.persistence.impl.journal.JournalStorageManager;
+import org.hornetq.tests.util.UnitTestCase;
+import org.hornetq.utils.StripedReadWriteLock;
+
+/**
+ * Compares the throughput of the store calls of {@link JournalStorageManager}, which all take its
+ * lock for reading, with the fair ReentrantReadWriteLock it used to have and the
+ * {@link StripedReadWriteLock} it has now, for an increasing number of threads.
+ */
+public class StorageManagerLockPerfTest extends UnitTestCase
+{
+
+   // Constants -----------------------------------------------------
+
+   private static final int CALLS_PER_THREAD = 2000000;
+
+   // Public --------------------------------------------------------
+
+   public void testConcurrentStores() throws Exception
+   {
+      // the first runs warm up the JIT
+      measure(new ReentrantReadWriteLock(true), 2);
+      measure(new StripedReadWriteLock(), 2);
+
+      for (int threads : new int[] { 1, 2, 4, 8, 16 })
+      {
+         measure(new ReentrantReadWriteLock(true), threads);
+         measure(new StripedReadWriteLock(), threads);
+      }
+   }
+
+   // Private -------------------------------------------------------
+
+   private void measure(final ReadWriteLock lock, final int threads) throws Exception
+   {
+      final CyclicBarrier barrier = new CyclicBarrier(threads + 1);
+
+      final AtomicLong stored = new AtomicLong();
+
+      Thread[] storers = new Thread[threads];
+
+      for (int i = 0; i < threads; i++)
+      {
+         storers[i] = new Thread()
+         {
+            @Override
+            public void run()
+            {
+               try
+               {
+                  barrier.await();
+
+                  long record = 0;
+
+                  for (int call = 0; call < CALLS_PER_THREAD; call++)
+                  {
+                     lock.readLock().lock();
+                     try
+                     {
+                        // stands for the append to the journal
+                        record = record * 31 + call;
+                     }
+                     finally
+                     {
+                        lock.readLock().unlock();
+                     }
+                  }
+
+                  stored.addAndGet(CALLS_PER_THREAD + (record == 0 ? 1 : 0));
+               }
+               catch (Exception e)
+               {
+                  e.printStackTrace();
+               }
+            }
+         };
+         storers[i].start();
+      }
+
+      barrier.await();
+
+      long start = System.nanoTime();
+
+      for (Thread storer : storers)
+      {
+         storer.join();
+      }
+
+      long elapsed = System.nanoTime() - start;
+
+      Assert.assertTrue(stored.get() >= (long)threads * CALLS_PER_THREAD);
+
+      System.out.println(lock.getClass().getSimpleName() + " with " +
+                         threads +
+                         " thread(s): " +
+                         (long)threads *
+                         CALLS_PER_THREAD *
+                         1000000000L /
+                         elapsed +
+                         " calls/s");
+   }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.performance.queue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.api.core.client.ClientConsumer;
+import org.hornetq.api.core.client.ClientMessage;
+import org.hornetq.api.core.client.ClientProducer;
+import org.hornetq.api.core.client.ClientSession;
+import org.hornetq.api.core.client.ClientSessionFactory;
+import org.hornetq.api.core.client.ServerLocator;
+import org.hornetq.core.config.Configuration;
+import org.hornetq.core.server.HornetQServer;
+import org.hornetq.core.server.Queue;
+import org.hornetq.tests.util.ServiceTestBase;
+
+/**
+ * Measures the throughput of individual acknowledgements sent in the reverse order of delivery, for
+ * a growing number of messages in flight on the consumer.
+ */
+public class IndividualAckPerfTest extends ServiceTestBase
+{
+
+   // Constants -----------------------------------------------------
+
+   private static final SimpleString ADDRESS = new SimpleString("perf-adr");
+
+   // Attributes ----------------------------------------------------
+
+   private HornetQServer server;
+
+   private ServerLocator locator;
+
+   // Public --------------------------------------------------------
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+
+      Configuration config = createDefaultConfig();
+      config.setPersistenceEnabled(false);
+
+      server = createServer(false, config);
+      server.start();
+
+      locator = createInVMNonHALocator();
+      locator.setBlockOnNonDurableSend(false);
+      locator.setConsumerWindowSize(-1);
+   }
+
+   @Override
+   protected void tearDown() throws Exception
+   {
+      locator.close();
+      server.stop();
+
+      super.tearDown();
+   }
+
+   public void testOutOfOrderAcks() throws Exception
+   {
+      ClientSessionFactory factory = createSessionFactory(locator);
+
+      ClientSession session = factory.createSession(false, true, true);
+
+      session.createQueue(ADDRESS, ADDRESS, false);
+
+      try
+      {
+         // the first run warms up the JIT
+         measure(session, 1000);
+
+         for (int inFlight : new int[] { 100, 1000, 10000, 50000 })
+         {
+            measure(session, inFlight);
+         }
+      }
+      finally
+      {
+         session.close();
+      }
+   }
+
+   // Private -------------------------------------------------------
+
+   private void measure(final ClientSession session, final int inFlight) throws Exception
+   {
+      Queue queue = server.locateQueue(ADDRESS);
+
+      ClientProducer producer = session.createProducer(ADDRESS);
+
+      for (int i = 0; i < inFlight; i++)
+      {
+         ClientMessage msg = session.createMessage(false);
+         msg.getBodyBuffer().writeBytes(new byte[64]);
+         producer.send(msg);
+      }
+
+      producer.close();
+
+      ClientConsumer consumer = session.createConsumer(ADDRESS);
+
+      session.start();
+
+      List<ClientMessage> received = new ArrayList<ClientMessage>(inFlight);
+
+      for (int i = 0; i < inFlight; i++)
+      {
+         ClientMessage msg = consumer.receive(5000);
+         Assert.assertNotNull(msg);
+         received.add(msg);
+      }
+
+      Assert.assertEquals(inFlight, queue.getDeliveringCount());
+
+      long start = System.nanoTime();
+
+      // the last message delivered is acknowledged first, which is the worst case for a scan
+      for (int i = inFlight - 1; i >= 0; i--)
+      {
+         received.get(i).individualAcknowledge();
+      }
+
+      long timeout = System.currentTimeMillis() + 60000;
+
+      while (queue.getDeliveringCount() > 0 && System.currentTimeMillis() < timeout)
+      {
+         Thread.sleep(1);
+      }
+
+      long elapsed = Math.max(1, System.nanoTime() - start);
+
+      Assert.assertEquals(0, queue.getDeliveringCount());
+
+      consumer.close();
+      session.stop();
+
+      System.out.println("individual acks with " + inFlight +
+                         " messages in flight: " +
+                         (inFlight * 1000000000L / elapsed) +
+                         " acks/sec");
+   }
+}
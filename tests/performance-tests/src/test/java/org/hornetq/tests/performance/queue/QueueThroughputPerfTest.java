@@ -0,0 +1,203 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.performance.queue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.api.core.client.ClientConsumer;
+import org.hornetq.api.core.client.ClientMessage;
+import org.hornetq.api.core.client.ClientProducer;
+import org.hornetq.api.core.client.ClientSession;
+import org.hornetq.api.core.client.ClientSessionFactory;
+import org.hornetq.api.core.client.MessageHandler;
+import org.hornetq.api.core.client.ServerLocator;
+import org.hornetq.core.config.Configuration;
+import org.hornetq.core.server.HornetQServer;
+import org.hornetq.core.settings.impl.AddressSettings;
+import org.hornetq.tests.util.ServiceTestBase;
+import org.hornetq.tests.util.UnitTestCase;
+
+/**
+ * Measures the throughput of a single queue shared by N producers and M consumers, with and
+ * without batched intake.
+ *
+ * @see AddressSettings#isBatchedIntake()
+ */
+public class QueueThroughputPerfTest extends ServiceTestBase
+{
+
+   // Constants -----------------------------------------------------
+
+   private static final SimpleString ADDRESS = new SimpleString("perf-adr");
+
+   private static final int MESSAGES_PER_PRODUCER = 10000;
+
+   private static final int SIZE_OF_MESSAGE = 256;
+
+   // Public --------------------------------------------------------
+
+   public void testFewProducersFewConsumers() throws Exception
+   {
+      measure(4, 8, false);
+      measure(4, 8, true);
+   }
+
+   public void testManyProducersManyConsumers() throws Exception
+   {
+      measure(16, 64, false);
+      measure(16, 64, true);
+   }
+
+   // Private -------------------------------------------------------
+
+   private void measure(final int numberOfProducers, final int numberOfConsumers, final boolean batchedIntake) throws Exception
+   {
+      Configuration config = createDefaultConfig();
+      config.setPersistenceEnabled(false);
+
+      AddressSettings addressSettings = new AddressSettings();
+      addressSettings.setBatchedIntake(batchedIntake);
+
+      HashMap<String, AddressSettings> settings = new HashMap<String, AddressSettings>();
+      settings.put(ADDRESS.toString(), addressSettings);
+
+      HornetQServer server = createServer(false, config, -1, -1, settings);
+      server.start();
+
+      ServerLocator locator = createInVMNonHALocator();
+      locator.setBlockOnNonDurableSend(false);
+      locator.setConsumerWindowSize(64 * 1024);
+
+      try
+      {
+         ClientSessionFactory factory = createSessionFactory(locator);
+
+         ClientSession adminSession = factory.createSession(false, true, true);
+         adminSession.createQueue(ADDRESS, ADDRESS, false);
+         adminSession.close();
+
+         final int total = numberOfProducers * MESSAGES_PER_PRODUCER;
+
+         final CountDownLatch latchReceived = new CountDownLatch(total);
+
+         List<ClientSession> sessions = new ArrayList<ClientSession>();
+
+         for (int i = 0; i < numberOfConsumers; i++)
+         {
+            ClientSession session = factory.createSession(false, true, true);
+            sessions.add(session);
+            ClientConsumer consumer = session.createConsumer(ADDRESS);
+            consumer.setMessageHandler(new MessageHandler()
+            {
+               public void onMessage(final ClientMessage message)
+               {
+                  latchReceived.countDown();
+               }
+            });
+            session.start();
+         }
+
+         final CountDownLatch latchStart = new CountDownLatch(1);
+
+         Sender[] senders = new Sender[numberOfProducers];
+
+         for (int i = 0; i < numberOfProducers; i++)
+         {
+            ClientSession session = factory.createSession(false, true, true);
+            sessions.add(session);
+            senders[i] = new Sender(session, latchStart);
+            senders[i].start();
+         }
+
+         long start = System.currentTimeMillis();
+
+         latchStart.countDown();
+
+         for (Sender sender : senders)
+         {
+            sender.join();
+            Assert.assertNull(sender.e);
+         }
+
+         Assert.assertTrue(latchReceived.await(5, TimeUnit.MINUTES));
+
+         long elapsed = Math.max(1, System.currentTimeMillis() - start);
+
+         System.out.println((batchedIntake ? "batched" : "direct") + " intake with " +
+                            numberOfProducers +
+                            " producer(s) and " +
+                            numberOfConsumers +
+                            " consumer(s): " +
+                            (total * 1000L / elapsed) +
+                            " messages/sec");
+
+         for (ClientSession session : sessions)
+         {
+            session.close();
+         }
+      }
+      finally
+      {
+         locator.close();
+         server.stop();
+      }
+   }
+
+   // Inner classes -------------------------------------------------
+
+   private static final class Sender extends Thread
+   {
+      private final ClientSession session;
+
+      private final CountDownLatch latchStart;
+
+      Throwable e;
+
+      Sender(final ClientSession session, final CountDownLatch latchStart)
+      {
+         this.session = session;
+         this.latchStart = latchStart;
+      }
+
+      @Override
+      public void run()
+      {
+         try
+         {
+            ClientProducer producer = session.createProducer(ADDRESS);
+
+            UnitTestCase.waitForLatch(latchStart);
+
+            for (int i = 0; i < MESSAGES_PER_PRODUCER; i++)
+            {
+               ClientMessage msg = session.createMessage(false);
+               msg.getBodyBuffer().writeBytes(new byte[SIZE_OF_MESSAGE]);
+               producer.send(msg);
+            }
+         }
+         catch (Throwable t)
+         {
+            t.printStackTrace();
+            e = t;
+         }
+      }
+   }
+}
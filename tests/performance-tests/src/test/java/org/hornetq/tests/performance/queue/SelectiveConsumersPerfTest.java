@@ -0,0 +1,267 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.performance.queue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import junit.framework.Assert;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.filter.Filter;
+import org.hornetq.core.filter.impl.FilterImpl;
+import org.hornetq.core.server.Consumer;
+import org.hornetq.core.server.HandleStatus;
+import org.hornetq.core.server.MessageReference;
+import org.hornetq.core.server.impl.QueueImpl;
+import org.hornetq.tests.util.UnitTestCase;
+
+/**
+ * Measures the delivery to consumers with selectors on a deep queue where each of them matches a
+ * small fraction of the messages.
+ * <p>
+ * The consumers take one message at a time, and one of them rolls its message back on every round,
+ * which sends every consumer back to the head of the queue. Equality selectors are served from the
+ * selector index of the queue; the same selectors with a redundant condition can't be indexed and
+ * are evaluated against the messages of the queue.
+ */
+public class SelectiveConsumersPerfTest extends UnitTestCase
+{
+
+   // Constants -----------------------------------------------------
+
+   private static final SimpleString ADDRESS = new SimpleString("perf-adr");
+
+   private static final SimpleString REGION = new SimpleString("region");
+
+   private static final int QUEUE_DEPTH = 200000;
+
+   private static final int NUMBER_OF_CONSUMERS = 20;
+
+   /** One message out of this many is for one of the consumers, the others are left in the queue */
+   private static final int SELECTIVITY = 100;
+
+   private static final int ROUNDS = 20;
+
+   // Attributes ----------------------------------------------------
+
+   private ScheduledExecutorService scheduledExecutor;
+
+   private ExecutorService executor;
+
+   // Public --------------------------------------------------------
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+
+      scheduledExecutor = Executors.newSingleThreadScheduledExecutor();
+      executor = Executors.newSingleThreadExecutor();
+   }
+
+   @Override
+   protected void tearDown() throws Exception
+   {
+      scheduledExecutor.shutdownNow();
+      executor.shutdownNow();
+
+      super.tearDown();
+   }
+
+   public void testDeepQueue() throws Exception
+   {
+      // the first runs warm up the JIT
+      measure(QUEUE_DEPTH / 10, true);
+      measure(QUEUE_DEPTH / 10, false);
+
+      measure(QUEUE_DEPTH, true);
+      measure(QUEUE_DEPTH, false);
+   }
+
+   // Private -------------------------------------------------------
+
+   private void measure(final int depth, final boolean indexed) throws Exception
+   {
+      QueueImpl queue = new QueueImpl(1,
+                                      ADDRESS,
+                                      ADDRESS,
+                                      null,
+                                      false,
+                                      true,
+                                      scheduledExecutor,
+                                      null,
+                                      null,
+                                      null,
+                                      executor);
+
+      List<SelectiveConsumer> consumers = new ArrayList<SelectiveConsumer>();
+
+      for (int i = 0; i < NUMBER_OF_CONSUMERS; i++)
+      {
+         String selector = "region = 'region-" + i + "'";
+
+         // the redundant condition makes the selector impossible to index
+         SelectiveConsumer consumer = new SelectiveConsumer(FilterImpl.createFilter(indexed ? selector
+                                                                                           : selector +
+                                                                                             " AND region IS NOT NULL"));
+         consumers.add(consumer);
+         queue.addConsumer(consumer);
+      }
+
+      // no credits yet, the messages stay in the queue
+      long start = System.nanoTime();
+
+      for (int i = 0; i < depth; i++)
+      {
+         MessageReference ref = generateReference(queue, i);
+
+         int consumer = i / SELECTIVITY;
+
+         if (i % SELECTIVITY == 0)
+         {
+            ref.getMessage().putStringProperty(REGION, new SimpleString("region-" + consumer % NUMBER_OF_CONSUMERS));
+         }
+         else
+         {
+            ref.getMessage().putStringProperty(REGION, new SimpleString("other"));
+         }
+
+         queue.addTail(ref);
+      }
+
+      queue.flushExecutor();
+
+      long addTime = System.nanoTime() - start;
+
+      Assert.assertEquals(depth, queue.getMessageCount());
+
+      int delivered = 0;
+
+      start = System.nanoTime();
+
+      for (int round = 0; round < ROUNDS; round++)
+      {
+         for (SelectiveConsumer consumer : consumers)
+         {
+            consumer.credits = 1;
+         }
+
+         queue.deliverNow();
+
+         for (SelectiveConsumer consumer : consumers)
+         {
+            delivered += consumer.delivered.size();
+         }
+
+         // a rollback of one consumer puts its message back and resets the iteration of all of them
+         SelectiveConsumer rollingBack = consumers.get(round % NUMBER_OF_CONSUMERS);
+
+         if (!rollingBack.delivered.isEmpty())
+         {
+            delivered--;
+
+            queue.addHead(Collections.singletonList(rollingBack.delivered.remove(rollingBack.delivered.size() - 1)));
+         }
+
+         for (SelectiveConsumer consumer : consumers)
+         {
+            consumer.delivered.clear();
+         }
+      }
+
+      queue.flushExecutor();
+
+      long deliverTime = System.nanoTime() - start;
+
+      System.out.println((indexed ? "indexed" : "evaluated") + " selectors on a queue of " +
+                         depth +
+                         " messages with " +
+                         NUMBER_OF_CONSUMERS +
+                         " consumers: add " +
+                         (addTime / depth) +
+                         " ns/message, delivered " +
+                         delivered +
+                         " messages in " +
+                         ROUNDS +
+                         " rounds in " +
+                         deliverTime /
+                         1000000 +
+                         " ms");
+   }
+
+   // Inner classes -------------------------------------------------
+
+   /**
+    * A consumer with a selector which takes as many messages as it has credits, as the consumers
+    * of a session with a small window.
+    */
+   private static final class SelectiveConsumer implements Consumer
+   {
+      private final Filter filter;
+
+      final List<MessageReference> delivered = new ArrayList<MessageReference>();
+
+      int credits;
+
+      SelectiveConsumer(final Filter filter)
+      {
+         this.filter = filter;
+      }
+
+      public HandleStatus handle(final MessageReference reference)
+      {
+         if (credits == 0)
+         {
+            return HandleStatus.BUSY;
+         }
+
+         if (!filter.match(reference.getMessage()))
+         {
+            return HandleStatus.NO_MATCH;
+         }
+
+         credits--;
+
+         reference.getQueue().referenceHandled();
+
+         delivered.add(reference);
+
+         return HandleStatus.HANDLED;
+      }
+
+      public Filter getFilter()
+      {
+         return filter;
+      }
+
+      public void getDeliveringMessages(final List<MessageReference> refList)
+      {
+      }
+
+      public String debug()
+      {
+         return toString();
+      }
+
+      public String toManagementString()
+      {
+         return toString();
+      }
+   }
+}
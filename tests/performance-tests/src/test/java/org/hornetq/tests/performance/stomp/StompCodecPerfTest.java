@@ -0,0 +1,221 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.performance.stomp;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import junit.framework.Assert;
+
+import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.HornetQBuffers;
+import org.hornetq.api.core.Message;
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.protocol.stomp.Stomp;
+import org.hornetq.core.protocol.stomp.StompBodyCache;
+import org.hornetq.core.protocol.stomp.StompDecoder;
+import org.hornetq.core.protocol.stomp.StompFrame;
+import org.hornetq.core.protocol.stomp.StompUtils;
+import org.hornetq.core.server.ServerMessage;
+import org.hornetq.core.server.impl.ServerMessageImpl;
+import org.hornetq.tests.util.UnitTestCase;
+
+/**
+ * Measures the time taken and the memory allocated to decode SEND frames, and to encode the MESSAGE
+ * frames of messages delivered to many subscribers with their bodies shared between the frames or
+ * read again from the message for every frame.
+ */
+public class StompCodecPerfTest extends UnitTestCase
+{
+
+   // Constants -----------------------------------------------------
+
+   private static final int NUMBER_OF_FRAMES = 10000;
+
+   private static final int NUMBER_OF_MESSAGES = 1000;
+
+   private static final int SUBSCRIBERS = 50;
+
+   private static final int BODY_SIZE = 1024;
+
+   // Attributes ----------------------------------------------------
+
+   private HornetQBuffer encoded;
+
+   // Public --------------------------------------------------------
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+
+      StringBuilder body = new StringBuilder();
+      for (int i = 0; i < BODY_SIZE; i++)
+      {
+         body.append((char)('a' + i % 26));
+      }
+
+      String frame = Stomp.Commands.SEND + "\n" +
+                     Stomp.Headers.Send.DESTINATION +
+                     ":jms.queue.exampleQueue\n" +
+                     Stomp.Headers.CONTENT_TYPE +
+                     ":text/plain\n" +
+                     Stomp.Headers.RECEIPT_REQUESTED +
+                     ":1234\n" +
+                     "custom-header:value\n" +
+                     "\n" +
+                     body +
+                     Stomp.NULL;
+
+      byte[] bytes = frame.getBytes("UTF-8");
+
+      encoded = HornetQBuffers.fixedBuffer(bytes.length * NUMBER_OF_FRAMES);
+
+      for (int i = 0; i < NUMBER_OF_FRAMES; i++)
+      {
+         encoded.writeBytes(bytes);
+      }
+   }
+
+   public void testDecode() throws Exception
+   {
+      // the first runs warm up the JIT
+      measureDecode();
+      measureDecode();
+      measureDecode();
+   }
+
+   public void testEncode() throws Exception
+   {
+      ServerMessage[] messages = new ServerMessage[NUMBER_OF_MESSAGES];
+
+      for (int i = 0; i < NUMBER_OF_MESSAGES; i++)
+      {
+         ServerMessageImpl message = new ServerMessageImpl(i, 2 * BODY_SIZE);
+         message.setType(Message.TEXT_TYPE);
+         message.setAddress(new SimpleString("jms.topic.exampleTopic"));
+         message.getBodyBuffer().writeNullableSimpleString(new SimpleString(new String(new byte[BODY_SIZE])));
+         messages[i] = message;
+      }
+
+      // the first runs warm up the JIT
+      measureEncode(messages, false);
+      measureEncode(messages, true);
+
+      measureEncode(messages, false);
+      measureEncode(messages, true);
+   }
+
+   // Private -------------------------------------------------------
+
+   private void measureDecode() throws Exception
+   {
+      StompDecoder decoder = new StompDecoder();
+
+      long allocatedBefore = getAllocatedBytes();
+
+      long start = System.currentTimeMillis();
+
+      int frames = 0;
+
+      encoded.readerIndex(0);
+
+      // feed the decoder with packets that don't match the frame boundaries
+      while (encoded.readable())
+      {
+         HornetQBuffer packet = encoded.readSlice(Math.min(1500, encoded.readableBytes()));
+
+         StompFrame frame = decoder.decode(packet);
+
+         while (frame != null)
+         {
+            frames++;
+
+            frame = decoder.hasBytes() ? decoder.decode(HornetQBuffers.fixedBuffer(0)) : null;
+         }
+      }
+
+      long elapsed = System.currentTimeMillis() - start;
+
+      long allocated = getAllocatedBytes() - allocatedBefore;
+
+      Assert.assertEquals(NUMBER_OF_FRAMES, frames);
+
+      System.out.println("Decoded " + frames +
+                         " frames in " +
+                         elapsed +
+                         " ms, " +
+                         (allocatedBefore < 0 ? "allocation not measured" : allocated / frames +
+                                                                            " bytes allocated per frame"));
+   }
+
+   private void measureEncode(final ServerMessage[] messages, final boolean shared) throws Exception
+   {
+      StompBodyCache cache = new StompBodyCache(StompBodyCache.DEFAULT_SIZE);
+
+      long allocatedBefore = getAllocatedBytes();
+
+      long start = System.currentTimeMillis();
+
+      long bytes = 0;
+
+      for (ServerMessage message : messages)
+      {
+         for (int i = 0; i < SUBSCRIBERS; i++)
+         {
+            // a cache holding a single message that never matches reads the body for every frame
+            StompBodyCache.Body body = (shared ? cache : new StompBodyCache(1)).getBody(message);
+
+            StompFrame frame = new StompFrame(Stomp.Responses.MESSAGE);
+            frame.addHeader(Stomp.Headers.Message.SUBSCRIPTION, "subscription" + i);
+            frame.setByteBody(body.getData());
+            StompUtils.copyStandardHeadersFromMessageToFrame(message, frame, 0);
+
+            bytes += frame.toHornetQBuffer().readableBytes();
+         }
+      }
+
+      long elapsed = System.currentTimeMillis() - start;
+
+      long allocated = getAllocatedBytes() - allocatedBefore;
+
+      long frames = (long)NUMBER_OF_MESSAGES * SUBSCRIBERS;
+
+      Assert.assertTrue(bytes > frames * BODY_SIZE);
+
+      System.out.println("Encoded " + frames +
+                         " frames with " +
+                         (shared ? "shared" : "copied") +
+                         " bodies in " +
+                         elapsed +
+                         " ms, " +
+                         (allocatedBefore < 0 ? "allocation not measured" : allocated / frames +
+                                                                            " bytes allocated per frame"));
+   }
+
+   /**
+    * Returns the bytes allocated by the current thread, or -1 if the JVM can't tell.
+    */
+   private static long getAllocatedBytes()
+   {
+      ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+      if (bean instanceof com.sun.management.ThreadMXBean)
+      {
+         return ((com.sun.management.ThreadMXBean)bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+
+      return -1;
+   }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.stress.scheduled;
+
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.server.MessageReference;
+import org.hornetq.core.server.ServerMessage;
+import org.hornetq.core.server.impl.ScheduledDeliveryHandlerImpl;
+import org.hornetq.core.server.impl.ServerMessageImpl;
+import org.hornetq.tests.unit.core.postoffice.impl.FakeQueue;
+import org.hornetq.tests.util.UnitTestCase;
+
+/**
+ * Schedules ten million messages on a single queue from several threads and checks that they are
+ * all delivered, in delivery time order, without one executor task per message.
+ * <p>
+ * It needs a heap of about 4 GB.
+ */
+public class ScheduledDeliveryStressTest extends UnitTestCase
+{
+
+   // Constants -----------------------------------------------------
+
+   private static final int NUMBER_OF_MESSAGES = 10000000;
+
+   private static final int NUMBER_OF_THREADS = 4;
+
+   private static final int NUMBER_OF_DELIVERY_TIMES = 1000;
+
+   private static final long FIRST_DELIVERY_DELAY = 60000;
+
+   private static final long DELIVERY_PERIOD = 10000;
+
+   // Attributes ----------------------------------------------------
+
+   private ScheduledExecutorService scheduledExecutor;
+
+   // Public --------------------------------------------------------
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+      scheduledExecutor = Executors.newSingleThreadScheduledExecutor();
+   }
+
+   @Override
+   protected void tearDown() throws Exception
+   {
+      scheduledExecutor.shutdownNow();
+      super.tearDown();
+   }
+
+   public void testScheduleManyMessages() throws Exception
+   {
+      final ScheduledDeliveryHandlerImpl handler = new ScheduledDeliveryHandlerImpl(scheduledExecutor);
+
+      final long[] deliveryTimes = new long[NUMBER_OF_MESSAGES];
+
+      final DeliveryQueue queue = new DeliveryQueue(deliveryTimes);
+
+      final long firstDelivery = System.currentTimeMillis() + FIRST_DELIVERY_DELAY;
+
+      final CountDownLatch latchStart = new CountDownLatch(1);
+
+      final AtomicInteger errors = new AtomicInteger(0);
+
+      Thread[] threads = new Thread[NUMBER_OF_THREADS];
+
+      for (int t = 0; t < NUMBER_OF_THREADS; t++)
+      {
+         final int threadIndex = t;
+
+         threads[t] = new Thread()
+         {
+            @Override
+            public void run()
+            {
+               try
+               {
+                  Random random = new Random(threadIndex);
+
+                  UnitTestCase.waitForLatch(latchStart);
+
+                  for (int i = threadIndex; i < NUMBER_OF_MESSAGES; i += NUMBER_OF_THREADS)
+                  {
+                     long time = firstDelivery + random.nextInt(NUMBER_OF_DELIVERY_TIMES) *
+                                 (DELIVERY_PERIOD / NUMBER_OF_DELIVERY_TIMES);
+
+                     deliveryTimes[i] = time;
+
+                     ServerMessage message = new ServerMessageImpl();
+                     message.setMessageID(i);
+
+                     MessageReference ref = message.createReference(queue);
+                     ref.setScheduledDeliveryTime(time);
+
+                     if (!handler.checkAndSchedule(ref, true))
+                     {
+                        errors.incrementAndGet();
+                     }
+                  }
+               }
+               catch (Throwable e)
+               {
+                  e.printStackTrace();
+                  errors.incrementAndGet();
+               }
+            }
+         };
+         threads[t].start();
+      }
+
+      long start = System.currentTimeMillis();
+
+      latchStart.countDown();
+
+      for (Thread t : threads)
+      {
+         t.join();
+      }
+
+      long elapsed = Math.max(1, System.currentTimeMillis() - start);
+
+      System.out.println("Scheduled " + NUMBER_OF_MESSAGES +
+                         " messages in " +
+                         elapsed +
+                         " ms (" +
+                         (NUMBER_OF_MESSAGES * 1000l / elapsed) +
+                         " messages/sec)");
+
+      Assert.assertEquals(0, errors.get());
+
+      Assert.assertTrue("scheduling took longer than the first delivery delay",
+                        System.currentTimeMillis() < firstDelivery);
+
+      Assert.assertEquals(NUMBER_OF_MESSAGES, handler.getScheduledCount());
+
+      Assert.assertTrue(queue.latch.await(FIRST_DELIVERY_DELAY + DELIVERY_PERIOD + 60000, TimeUnit.MILLISECONDS));
+
+      Assert.assertEquals(0, queue.errors.get());
+      Assert.assertEquals(0, handler.getScheduledCount());
+
+      System.out.println("Delivered in " + queue.batches.get() +
+                         " batches, maximum delay after the scheduled time " +
+                         queue.maxDelay +
+                         " ms");
+   }
+
+   // Inner classes -------------------------------------------------
+
+   private static final class DeliveryQueue extends FakeQueue
+   {
+      final long[] deliveryTimes;
+
+      final CountDownLatch latch = new CountDownLatch(NUMBER_OF_MESSAGES);
+
+      final AtomicInteger batches = new AtomicInteger(0);
+
+      final AtomicInteger errors = new AtomicInteger(0);
+
+      long lastDeliveryTime;
+
+      long maxDelay;
+
+      DeliveryQueue(final long[] deliveryTimes)
+      {
+         super(new SimpleString("queue"));
+         this.deliveryTimes = deliveryTimes;
+      }
+
+      @Override
+      public synchronized void addHead(final List<MessageReference> refs)
+      {
+         batches.incrementAndGet();
+
+         long now = System.currentTimeMillis();
+
+         // the list is added to the head of the queue, so it is consumed from the last element
+         ListIterator<MessageReference> iter = refs.listIterator(refs.size());
+
+         while (iter.hasPrevious())
+         {
+            MessageReference ref = iter.previous();
+
+            long time = deliveryTimes[(int)ref.getMessage().getMessageID()];
+
+            if (time < lastDeliveryTime || time > now || ref.getScheduledDeliveryTime() != 0)
+            {
+               errors.incrementAndGet();
+            }
+
+            lastDeliveryTime = time;
+
+            maxDelay = Math.max(maxDelay, now - time);
+
+            latch.countDown();
+         }
+      }
+   }
+}
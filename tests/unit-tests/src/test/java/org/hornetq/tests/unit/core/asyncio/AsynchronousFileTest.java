@@ -659,6 +659,92 @@ public class AsynchronousFileTest extends AIOTestBase
          }
          }
 
+   public void testBatchWrite() throws Exception
+   {
+      controller = new AsynchronousFileImpl(executor, pollerExecutor);
+      controller.setBufferCallback(new BufferCallback()
+      {
+
+         public void bufferDone(final ByteBuffer buffer)
+         {
+            AsynchronousFileImpl.destroyBuffer(buffer);
+         }
+
+      });
+
+      final int NUMBER_LINES = 1000;
+      final int BATCH_SIZE = 100;
+      final int SIZE = 512;
+
+      // batches larger than maxIO are split
+      controller.open(FILE_NAME, 30);
+
+      controller.fill(0, 1, NUMBER_LINES * SIZE, (byte)'j');
+
+      CountDownLatch latch = new CountDownLatch(NUMBER_LINES);
+      ArrayList<Integer> result = new ArrayList<Integer>();
+
+      AtomicInteger errors = new AtomicInteger(0);
+
+      for (int i = 0; i < NUMBER_LINES; i += BATCH_SIZE)
+      {
+         long[] positions = new long[BATCH_SIZE];
+         long[] sizes = new long[BATCH_SIZE];
+         ByteBuffer[] buffers = new ByteBuffer[BATCH_SIZE];
+         AIOCallback[] callbacks = new AIOCallback[BATCH_SIZE];
+
+         for (int j = 0; j < BATCH_SIZE; j++)
+         {
+            positions[j] = (i + j) * SIZE;
+            sizes[j] = SIZE;
+            buffers[j] = AsynchronousFileImpl.newBuffer(SIZE);
+            for (int k = 0; k < SIZE; k++)
+            {
+               buffers[j].put(UnitTestCase.getSamplebyte(i + j + k));
+            }
+            callbacks[j] = new CountDownCallback(latch, errors, result, i + j);
+         }
+
+         controller.write(positions, sizes, buffers, callbacks);
+      }
+
+      waitForLatch(latch);
+
+      Assert.assertEquals(0, errors.get());
+
+      CountDownCallback.checkResults(NUMBER_LINES, result);
+
+      controller.close();
+      controller.setBufferCallback(null);
+
+      controller.open(FILE_NAME, 10);
+
+      buffer = AsynchronousFileImpl.newBuffer(SIZE);
+
+      for (int i = 0; i < NUMBER_LINES; i++)
+      {
+         AsynchronousFileImpl.clearBuffer(buffer);
+
+         CountDownLatch readLatch = new CountDownLatch(1);
+         CountDownCallback aio = new CountDownCallback(readLatch, errors, null, 0);
+
+         controller.read(i * SIZE, SIZE, buffer, aio);
+
+         waitForLatch(readLatch);
+         Assert.assertEquals(0, errors.get());
+
+         byte bytesRead[] = new byte[SIZE];
+         buffer.get(bytesRead);
+
+         for (int count = 0; count < SIZE; count++)
+         {
+            Assert.assertEquals("byte position " + count + " differs on line " + i,
+                                UnitTestCase.getSamplebyte(i + count),
+                                bytesRead[count]);
+         }
+      }
+   }
+
    /**
     *  This test will call file.close() when there are still callbacks being processed.
     *  This could cause a crash or callbacks missing and this test is validating both situations.
@@ -133,6 +133,208 @@ public abstract class JournalImplTestUnit extends JournalImplTestBase
       stopJournal();
    }
 
+   public void testParallelLoad() throws Exception
+   {
+      setup(10, 10 * 1024, true);
+      createJournal();
+      startJournal();
+      load();
+
+      for (int i = 0; i < 500; i++)
+      {
+         add(i);
+      }
+      for (int i = 0; i < 500; i += 2)
+      {
+         update(i);
+      }
+      for (int i = 0; i < 500; i += 3)
+      {
+         delete(i);
+      }
+      addTx(1000, 1000, 1001, 1002);
+      deleteTx(1000, 1);
+      commit(1000);
+      addTx(1001, 1003, 1004);
+      prepare(1001, new SimpleEncoding(10, (byte)0));
+      addTx(1002, 1005);
+      rollback(1002);
+
+      Assert.assertTrue(journal.getDataFilesCount() > 10);
+
+      stopJournal();
+      journal.setLoadThreads(4);
+      startJournal();
+      loadAndCheck();
+      stopJournal();
+   }
+
+   public void testIncrementalCompact() throws Exception
+   {
+      setup(2, 10 * 1024, true);
+      createJournal();
+      journal.setIncrementalCompactFiles(4);
+      startJournal();
+      load();
+
+      for (int i = 0; i < 300; i++)
+      {
+         add(i);
+      }
+      for (int i = 0; i < 300; i++)
+      {
+         if (i % 7 != 0)
+         {
+            delete(i);
+         }
+      }
+      update(7, 14);
+
+      int dataFiles = journal.getDataFilesCount();
+
+      journal.testCompact();
+
+      Assert.assertTrue(journal.getDataFilesCount() < dataFiles);
+
+      // the compacted records are still accounted for
+      update(0, 21);
+      delete(28);
+
+      stopJournal();
+      createJournal();
+      startJournal();
+      loadAndCheck();
+      stopJournal();
+   }
+
+   public void testIncrementalCompactTransactions() throws Exception
+   {
+      setup(2, 10 * 1024, true);
+      createJournal();
+      journal.setIncrementalCompactFiles(3);
+      startJournal();
+      load();
+
+      addTx(1000, 1000, 1001);
+      addTx(1001, 1002);
+      add(1003);
+      updateTx(1001, 1003);
+
+      for (int i = 0; i < 100; i++)
+      {
+         add(i);
+      }
+      for (int i = 0; i < 100; i++)
+      {
+         delete(i);
+      }
+
+      // completed on files which are not compacted with the first batch
+      commit(1000);
+      rollback(1001);
+
+      addTx(1002, 1004);
+      prepare(1002, new SimpleEncoding(10, (byte)0));
+
+      journal.testCompact();
+
+      update(1000);
+      delete(1001);
+
+      stopJournal();
+      createJournal();
+      startJournal();
+      loadAndCheck();
+      stopJournal();
+   }
+
+   public void testIncrementalCompactReclaimingCommitFile() throws Exception
+   {
+      setup(2, 10 * 1024, true);
+      createJournal();
+      journal.setIncrementalCompactFiles(4);
+      startJournal();
+      load();
+
+      for (int i = 0; i < 20; i++)
+      {
+         add(i);
+      }
+
+      addTx(1000, 1000, 1001);
+
+      for (int i = 20; i < 50; i++)
+      {
+         add(i);
+      }
+      for (int i = 0; i < 50; i++)
+      {
+         delete(i);
+      }
+
+      // committed on the current file, which is not compacted
+      commit(1000);
+
+      journal.testCompact();
+
+      for (int i = 50; i < 70; i++)
+      {
+         add(i);
+      }
+      for (int i = 50; i < 70; i++)
+      {
+         delete(i);
+      }
+
+      journal.forceMoveNextFile();
+
+      // the file holding the commit has no live record left
+      checkAndReclaimFiles();
+
+      stopJournal();
+      createJournal();
+      startJournal();
+      loadAndCheck();
+      stopJournal();
+   }
+
+   public void testIncrementalCompactConcurrentUpdates() throws Exception
+   {
+      setup(2, 10 * 1024, true);
+      createJournal();
+      journal.setIncrementalCompactFiles(4);
+      startJournal();
+      load();
+
+      for (int i = 0; i < 100; i++)
+      {
+         add(i);
+      }
+      for (int i = 10; i < 100; i++)
+      {
+         delete(i);
+      }
+
+      startCompact();
+
+      update(0, 1);
+      delete(2, 3);
+      add(500);
+      delete(500);
+      add(501);
+
+      finishCompact();
+
+      update(1);
+      delete(4);
+
+      stopJournal();
+      createJournal();
+      startJournal();
+      loadAndCheck();
+      stopJournal();
+   }
+
    public void testParams() throws Exception
    {
       try
@@ -398,12 +398,173 @@ public class TimedBufferTest extends UnitTestCase
 
    }
 
+   public void testAdaptiveTimeoutFlushesSingleSyncs() throws Exception
+   {
+      final AtomicInteger flushTimes = new AtomicInteger(0);
+
+      // the timeout would delay every flush by one second if it was not adaptive
+      TimedBuffer timedBuffer = new TimedBuffer(100, TimedBufferTest.ONE_SECOND_IN_NANOS, false, true);
+
+      timedBuffer.start();
+
+      try
+      {
+         timedBuffer.setObserver(new SyncingObserver(flushTimes, 5));
+
+         for (int i = 0; i < 5; i++)
+         {
+            CountDownLatch latch = addSync(timedBuffer);
+
+            Assert.assertTrue(latch.await(500, TimeUnit.MILLISECONDS));
+
+            Thread.sleep(50);
+         }
+
+         Assert.assertEquals(5, flushTimes.get());
+         Assert.assertTrue(timedBuffer.getAverageSyncTime() >= TimeUnit.MILLISECONDS.toNanos(5));
+         Assert.assertEquals(0, timedBuffer.getCurrentTimeout());
+         Assert.assertEquals(1.0, timedBuffer.getAverageBatchSize(), 0.01);
+      }
+      finally
+      {
+         timedBuffer.stop();
+      }
+   }
+
+   public void testAdaptiveTimeoutGroupsConcurrentSyncs() throws Exception
+   {
+      final int numberOfThreads = 8;
+      final int syncsPerThread = 50;
+      final int timeout = TimedBufferTest.ONE_SECOND_IN_NANOS / 100;
+
+      final AtomicInteger flushTimes = new AtomicInteger(0);
+
+      final TimedBuffer timedBuffer = new TimedBuffer(1000, timeout, false, true);
+
+      timedBuffer.start();
+
+      try
+      {
+         timedBuffer.setObserver(new SyncingObserver(flushTimes, 20));
+
+         final AtomicInteger errors = new AtomicInteger(0);
+
+         Thread[] threads = new Thread[numberOfThreads];
+
+         for (int i = 0; i < numberOfThreads; i++)
+         {
+            threads[i] = new Thread()
+            {
+               @Override
+               public void run()
+               {
+                  try
+                  {
+                     for (int j = 0; j < syncsPerThread; j++)
+                     {
+                        if (!addSync(timedBuffer).await(10, TimeUnit.SECONDS))
+                        {
+                           errors.incrementAndGet();
+                        }
+                     }
+                  }
+                  catch (Throwable e)
+                  {
+                     e.printStackTrace();
+                     errors.incrementAndGet();
+                  }
+               }
+            };
+            threads[i].start();
+         }
+
+         for (Thread t : threads)
+         {
+            t.join();
+         }
+
+         Assert.assertEquals(0, errors.get());
+         Assert.assertTrue(flushTimes.get() < numberOfThreads * syncsPerThread / 2);
+         Assert.assertTrue(timedBuffer.getAverageBatchSize() > 2);
+         Assert.assertEquals(timeout, timedBuffer.getCurrentTimeout());
+      }
+      finally
+      {
+         timedBuffer.stop();
+      }
+   }
+
    // Package protected ---------------------------------------------
 
    // Protected -----------------------------------------------------
 
    // Private -------------------------------------------------------
 
+   private CountDownLatch addSync(final TimedBuffer timedBuffer)
+   {
+      final CountDownLatch latch = new CountDownLatch(1);
+
+      timedBuffer.checkSize(10);
+      timedBuffer.addBytes(HornetQBuffers.wrappedBuffer(new byte[10]), true, new IOAsyncTask()
+      {
+         public void done()
+         {
+            latch.countDown();
+         }
+
+         public void onError(final int errorCode, final String errorMessage)
+         {
+         }
+      });
+
+      return latch;
+   }
+
    // Inner classes -------------------------------------------------
 
+   /**
+    * Takes syncTime milliseconds to sync each flush, as a NIO file would.
+    */
+   private static final class SyncingObserver implements TimedBufferObserver
+   {
+      private final AtomicInteger flushTimes;
+
+      private final long syncTime;
+
+      SyncingObserver(final AtomicInteger flushTimes, final long syncTime)
+      {
+         this.flushTimes = flushTimes;
+         this.syncTime = syncTime;
+      }
+
+      public void flushBuffer(final ByteBuffer buffer, final boolean sync, final List<IOAsyncTask> callbacks)
+      {
+         flushTimes.incrementAndGet();
+
+         try
+         {
+            Thread.sleep(syncTime);
+         }
+         catch (InterruptedException e)
+         {
+            throw new HornetQInterruptedException(e);
+         }
+
+         for (IOAsyncTask callback : callbacks)
+         {
+            callback.done();
+         }
+      }
+
+      public ByteBuffer newBuffer(final int minSize, final int maxSize)
+      {
+         return ByteBuffer.allocate(maxSize);
+      }
+
+      public int getRemainingBytes()
+      {
+         return 1024 * 1024;
+      }
+   }
+
 }
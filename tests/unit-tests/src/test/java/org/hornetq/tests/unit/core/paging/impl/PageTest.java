@@ -25,6 +25,7 @@ import org.hornetq.core.journal.SequentialFile;
 import org.hornetq.core.journal.SequentialFileFactory;
 import org.hornetq.core.journal.impl.NIOSequentialFileFactory;
 import org.hornetq.core.paging.PagedMessage;
+import org.hornetq.core.paging.impl.EncodedPage;
 import org.hornetq.core.paging.impl.Page;
 import org.hornetq.core.paging.impl.PagedMessageImpl;
 import org.hornetq.core.persistence.impl.nullpm.NullStorageManager;
@@ -67,12 +68,76 @@ public class PageTest extends UnitTestCase
       testAdd(new FakeSequentialFileFactory(1, false), 10);
    }
 
+   public void testEncodeMessages() throws Exception
+   {
+      SequentialFileFactory factory = new FakeSequentialFileFactory(1, false);
+
+      SequentialFile file = factory.createSequentialFile("00010.page", 1);
+
+      Page impl = new Page(new SimpleString("something"), new NullStorageManager(), factory, file, 10);
+
+      impl.open();
+
+      SimpleString simpleDestination = new SimpleString("Test");
+
+      ArrayList<HornetQBuffer> buffers = addPageElements(simpleDestination, impl, 10);
+
+      List<PagedMessage> msgs = impl.read(new NullStorageManager());
+
+      EncodedPage encoded = EncodedPage.encode(10, msgs.toArray(new PagedMessage[msgs.size()]));
+
+      Assert.assertEquals(10, encoded.getNumberOfMessages());
+
+      for (int i = 0; i < 10; i++)
+      {
+         PagedMessage msg = encoded.decode(i, new NullStorageManager());
+
+         Assert.assertEquals(i, msg.getMessage().getMessageID());
+
+         Assert.assertEquals(simpleDestination, msg.getMessage().getAddress());
+
+         UnitTestCase.assertEqualsByteArrays(buffers.get(i).toByteBuffer().array(), msg.getMessage()
+                                                                                       .getBodyBuffer()
+                                                                                       .toByteBuffer()
+                                                                                       .array());
+
+         Assert.assertFalse(encoded.isLargeMessage(i));
+      }
+
+      impl.close();
+
+      impl.delete(null);
+   }
+
    /** Validate if everything we add is recovered */
    public void testDamagedPage() throws Exception
    {
       testDamagedPage(new FakeSequentialFileFactory(1, false), 100);
    }
 
+   public void testReadEncodedWithNIO() throws Exception
+   {
+      recreateDirectory(getTestDir());
+      testReadEncoded(new NIOSequentialFileFactory(getTestDir()), 1000, false);
+   }
+
+   public void testReadMappedWithNIO() throws Exception
+   {
+      recreateDirectory(getTestDir());
+      testReadEncoded(new NIOSequentialFileFactory(getTestDir()), 1000, true);
+   }
+
+   public void testReadEncodedFake() throws Exception
+   {
+      testReadEncoded(new FakeSequentialFileFactory(1, false), 10, false);
+   }
+
+   /** Only NIO files are mapped, the others are read */
+   public void testReadMappedFake() throws Exception
+   {
+      testReadEncoded(new FakeSequentialFileFactory(1, false), 10, true);
+   }
+
    /** Validate if everything we add is recovered */
    protected void testAdd(final SequentialFileFactory factory, final int numberOfElements) throws Exception
    {
@@ -121,6 +186,63 @@ public class PageTest extends UnitTestCase
 
    }
 
+   /** Validate the messages can be decoded in any order from the encoded page */
+   protected void testReadEncoded(final SequentialFileFactory factory, final int numberOfElements, final boolean mapped) throws Exception
+   {
+      SequentialFile file = factory.createSequentialFile("00010.page", 1);
+
+      Page impl = new Page(new SimpleString("something"), new NullStorageManager(), factory, file, 10);
+
+      impl.open();
+
+      SimpleString simpleDestination = new SimpleString("Test");
+
+      ArrayList<HornetQBuffer> buffers = addPageElements(simpleDestination, impl, numberOfElements);
+
+      impl.sync();
+      impl.close();
+
+      file = factory.createSequentialFile("00010.page", 1);
+      file.open();
+      impl = new Page(new SimpleString("something"), new NullStorageManager(), factory, file, 10);
+
+      EncodedPage encoded = impl.readEncoded(new NullStorageManager(), mapped);
+
+      Assert.assertEquals(10, encoded.getPageId());
+
+      Assert.assertEquals(mapped && factory instanceof NIOSequentialFileFactory, encoded.isMapped());
+
+      Assert.assertEquals(0, impl.readLargeMessages(new NullStorageManager()).length);
+
+      Assert.assertEquals(numberOfElements, encoded.getNumberOfMessages());
+
+      Assert.assertEquals(numberOfElements, impl.getNumberOfMessages());
+
+      for (int i = numberOfElements - 1; i >= 0; i--)
+      {
+         PagedMessage msg = encoded.decode(i, new NullStorageManager());
+
+         Assert.assertEquals(i, msg.getMessage().getMessageID());
+
+         Assert.assertEquals(simpleDestination, msg.getMessage().getAddress());
+
+         UnitTestCase.assertEqualsByteArrays(buffers.get(i).toByteBuffer().array(), msg.getMessage()
+                                                                                       .getBodyBuffer()
+                                                                                       .toByteBuffer()
+                                                                                       .array());
+
+         Assert.assertNotSame(msg, encoded.decode(i, new NullStorageManager()));
+
+         Assert.assertFalse(encoded.isLargeMessage(i));
+      }
+
+      impl.close();
+
+      impl.delete(null);
+
+      Assert.assertEquals(0, factory.listFiles("page").size());
+   }
+
    protected void testDamagedPage(final SequentialFileFactory factory, final int numberOfElements) throws Exception
    {
 
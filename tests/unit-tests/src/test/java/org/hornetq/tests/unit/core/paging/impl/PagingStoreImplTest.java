@@ -50,6 +50,8 @@ import org.hornetq.core.paging.PagedMessage;
 import org.hornetq.core.paging.PagingManager;
 import org.hornetq.core.paging.PagingStore;
 import org.hornetq.core.paging.PagingStoreFactory;
+import org.hornetq.core.paging.cursor.PageCache;
+import org.hornetq.core.paging.cursor.PageCursorProvider;
 import org.hornetq.core.paging.cursor.PagePosition;
 import org.hornetq.core.paging.impl.Page;
 import org.hornetq.core.paging.impl.PageTransactionInfoImpl;
@@ -408,6 +410,169 @@ public class PagingStoreImplTest extends UnitTestCase
 
    }
 
+   public void testPageCacheBoundedBySize() throws Exception
+   {
+      SequentialFileFactory factory = new FakeSequentialFileFactory();
+      SimpleString destination = new SimpleString("test");
+
+      PagingStoreFactory storeFactory = new FakeStoreFactory(factory);
+
+      AddressSettings addressSettings = new AddressSettings();
+      addressSettings.setAddressFullMessagePolicy(AddressFullMessagePolicy.PAGE);
+      // a single page at a time
+      addressSettings.setPageCacheMaxBytes(1);
+      PagingStoreImpl store =
+               new PagingStoreImpl(PagingStoreImplTest.destinationTestName, null, 100, createMockManager(),
+                                   createStorageManagerMock(), factory, storeFactory,
+                                   PagingStoreImplTest.destinationTestName, addressSettings,
+                                   getExecutorFactory().getExecutor(), true);
+
+      store.start();
+
+      store.startPaging();
+
+      List<HornetQBuffer> buffers = new ArrayList<HornetQBuffer>();
+
+      for (int i = 0; i < 20; i++)
+      {
+         HornetQBuffer buffer = createRandomBuffer(i + 1l, 10);
+
+         buffers.add(buffer);
+
+         if (i > 0 && i % 5 == 0)
+         {
+            store.forceAnotherPage();
+         }
+
+         ServerMessage msg = createMessage(i, store, destination, buffer);
+
+         final RoutingContextImpl ctx = new RoutingContextImpl(null);
+         Assert.assertTrue(store.page(msg, ctx.getTransaction(), ctx.getContextListing(store.getStoreName()), lock));
+      }
+
+      store.sync();
+
+      // the last page is still being written
+      Assert.assertEquals(4, store.getNumberOfPages());
+
+      PageCursorProvider cursorProvider = store.getCursorProvider();
+
+      Assert.assertEquals(1, cursorProvider.getCacheMaxBytes());
+
+      long firstPage = store.getFirstPage();
+
+      // the pages written are evicted as soon as they are not live any longer
+      long evictions = cursorProvider.getCacheEvictions();
+
+      for (int pageNr = 0; pageNr < 3; pageNr++)
+      {
+         PageCache cache = cursorProvider.getPageCache(firstPage + pageNr);
+
+         Assert.assertEquals(5, cache.getNumberOfMessages());
+
+         // the messages are decoded backwards as they don't depend on each other
+         for (int i = 4; i >= 0; i--)
+         {
+            PagedMessage msg = cache.getMessage(i);
+            Assert.assertEquals(pageNr * 5 + i, msg.getMessage().getMessageID());
+            UnitTestCase.assertEqualsBuffers(18, buffers.get(pageNr * 5 + i), msg.getMessage().getBodyBuffer());
+            Assert.assertSame(msg, cache.getMessage(i));
+         }
+      }
+
+      Assert.assertEquals(3, cursorProvider.getCacheMisses());
+      Assert.assertEquals(evictions + 2, cursorProvider.getCacheEvictions());
+
+      // only the last page read is kept besides the one being written
+      Assert.assertEquals(2, cursorProvider.getCacheSize());
+      cursorProvider.getPageCache(firstPage + 2);
+      Assert.assertEquals(1, cursorProvider.getCacheHits());
+
+      cursorProvider.getPageCache(firstPage);
+      Assert.assertEquals(4, cursorProvider.getCacheMisses());
+      Assert.assertEquals(evictions + 3, cursorProvider.getCacheEvictions());
+
+      // back to the soft cache, which keeps the pages already read
+      cursorProvider.setCacheMaxBytes(-1);
+
+      cursorProvider.getPageCache(firstPage + 1);
+      cursorProvider.getPageCache(firstPage);
+      Assert.assertEquals(2, cursorProvider.getCacheHits());
+      Assert.assertEquals(5, cursorProvider.getCacheMisses());
+      Assert.assertEquals(evictions + 3, cursorProvider.getCacheEvictions());
+
+      store.stop();
+   }
+
+   public void testPageCacheReadMapped() throws Exception
+   {
+      UnitTestCase.recreateDirectory(UnitTestCase.getTestDir());
+
+      SequentialFileFactory factory = new NIOSequentialFileFactory(UnitTestCase.getTestDir());
+      SimpleString destination = new SimpleString("test");
+
+      PagingStoreFactory storeFactory = new FakeStoreFactory(factory);
+
+      AddressSettings addressSettings = new AddressSettings();
+      addressSettings.setAddressFullMessagePolicy(AddressFullMessagePolicy.PAGE);
+      addressSettings.setPageReadMapped(true);
+      PagingStoreImpl store =
+               new PagingStoreImpl(PagingStoreImplTest.destinationTestName, null, 100, createMockManager(),
+                                   createStorageManagerMock(), factory, storeFactory,
+                                   PagingStoreImplTest.destinationTestName, addressSettings,
+                                   getExecutorFactory().getExecutor(), true);
+
+      store.start();
+
+      store.startPaging();
+
+      List<HornetQBuffer> buffers = new ArrayList<HornetQBuffer>();
+
+      for (int i = 0; i < 10; i++)
+      {
+         HornetQBuffer buffer = createRandomBuffer(i + 1l, 10);
+
+         buffers.add(buffer);
+
+         if (i == 5)
+         {
+            store.forceAnotherPage();
+         }
+
+         ServerMessage msg = createMessage(i, store, destination, buffer);
+
+         final RoutingContextImpl ctx = new RoutingContextImpl(null);
+         Assert.assertTrue(store.page(msg, ctx.getTransaction(), ctx.getContextListing(store.getStoreName()), lock));
+      }
+
+      store.sync();
+
+      PageCursorProvider cursorProvider = store.getCursorProvider();
+
+      Assert.assertTrue(cursorProvider.isReadMapped());
+
+      // drop the live cache of the first page, so it has to be read
+      cursorProvider.setCacheMaxBytes(1);
+      cursorProvider.setCacheMaxBytes(-1);
+
+      PageCache cache = cursorProvider.getPageCache(store.getFirstPage());
+
+      Assert.assertEquals(1, cursorProvider.getCacheMisses());
+
+      Assert.assertEquals(5, cache.getNumberOfMessages());
+
+      for (int i = 4; i >= 0; i--)
+      {
+         PagedMessage msg = cache.getMessage(i);
+         Assert.assertEquals(i, msg.getMessage().getMessageID());
+         UnitTestCase.assertEqualsBuffers(18, buffers.get(i), msg.getMessage().getBodyBuffer());
+      }
+
+      Assert.assertEquals(5, cache.getMessages().length);
+
+      store.stop();
+   }
+
    public void testConcurrentDepage() throws Exception
    {
       SequentialFileFactory factory = new FakeSequentialFileFactory(1, false);
@@ -1303,6 +1468,21 @@ public class PagingStoreImplTest extends UnitTestCase
          return null;
       }
 
+      public long getJournalBufferCurrentTimeout()
+      {
+         return 0;
+      }
+
+      public long getJournalBufferAverageSyncTime()
+      {
+         return 0;
+      }
+
+      public double getJournalBufferAverageBatchSize()
+      {
+         return 0;
+      }
+
       @Override
       public OperationContext newSingleThreadContext()
       {
@@ -13,7 +13,11 @@
 
 package org.hornetq.tests.unit.core.persistence.impl;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -107,6 +111,70 @@ public class OperationContextUnitTest extends UnitTestCase
       }
    }
 
+   public void testGroupCompletedOnSingleRun() throws Exception
+   {
+      final ExecutorService executor = Executors.newSingleThreadExecutor();
+      try
+      {
+         final AtomicInteger runs = new AtomicInteger(0);
+
+         OperationContextImpl impl = new OperationContextImpl(new Executor()
+         {
+            public void execute(final Runnable command)
+            {
+               runs.incrementAndGet();
+               executor.execute(command);
+            }
+         });
+
+         final List<Integer> executed = Collections.synchronizedList(new ArrayList<Integer>());
+
+         final CountDownLatch latch = new CountDownLatch(10);
+
+         for (int i = 0; i < 10; i++)
+         {
+            impl.storeLineUp();
+         }
+
+         // the tasks all wait for the same stores, as when they are synced together
+         for (int i = 0; i < 10; i++)
+         {
+            final int task = i;
+
+            impl.executeOnCompletion(new IOAsyncTask()
+            {
+               public void onError(int errorCode, String errorMessage)
+               {
+               }
+
+               public void done()
+               {
+                  executed.add(task);
+                  latch.countDown();
+               }
+            });
+         }
+
+         for (int i = 0; i < 10; i++)
+         {
+            impl.done();
+         }
+
+         assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+         for (int i = 0; i < 10; i++)
+         {
+            assertEquals(i, executed.get(i).intValue());
+         }
+
+         assertEquals(1, runs.get());
+      }
+      finally
+      {
+         executor.shutdown();
+      }
+   }
+
    public void testCaptureExceptionOnExecutor() throws Exception
    {
       ExecutorService executor = Executors.newSingleThreadExecutor();
@@ -26,6 +26,7 @@ import org.hornetq.api.core.HornetQException;
 import org.hornetq.api.core.HornetQPropertyConversionException;
 import org.hornetq.api.core.SimpleString;
 import org.hornetq.core.filter.Filter;
+import org.hornetq.core.filter.impl.FilterImpl;
 import org.hornetq.core.message.BodyEncoder;
 import org.hornetq.core.paging.PagingStore;
 import org.hornetq.core.postoffice.Binding;
@@ -83,6 +84,62 @@ public class BindingsImplTest extends UnitTestCase
       }
    }
 
+   public void testRouteWithFilterIndex() throws Exception
+   {
+      final BindingsImpl bind = new BindingsImpl(null, null, null, true);
+
+      FilterBinding eu = new FilterBinding(new SimpleString("eu"), "region = 'EU'");
+      FilterBinding euOrUs = new FilterBinding(new SimpleString("euOrUs"), "region IN ('EU', 'US')");
+      FilterBinding apac = new FilterBinding(new SimpleString("apac"), "region = 'APAC'");
+      FilterBinding complex = new FilterBinding(new SimpleString("complex"), "region = 'EU' AND amount > 10");
+      FilterBinding all = new FilterBinding(new SimpleString("all"), null);
+
+      bind.addBinding(eu);
+      bind.addBinding(euOrUs);
+      bind.addBinding(apac);
+      bind.addBinding(complex);
+      bind.addBinding(all);
+
+      ServerMessage message = new ServerMessageImpl(1, 100);
+      message.putStringProperty(new SimpleString("region"), new SimpleString("EU"));
+      message.putIntProperty(new SimpleString("amount"), 20);
+
+      bind.route(message, new RoutingContextImpl(new FakeTransaction()));
+
+      assertEquals(1, eu.routed);
+      assertEquals(1, euOrUs.routed);
+      assertEquals(0, apac.routed);
+      assertEquals(1, complex.routed);
+      assertEquals(1, all.routed);
+
+      bind.removeBinding(eu);
+
+      message = new ServerMessageImpl(2, 100);
+      message.putStringProperty(new SimpleString("region"), new SimpleString("US"));
+
+      bind.route(message, new RoutingContextImpl(new FakeTransaction()));
+
+      assertEquals(1, eu.routed);
+      assertEquals(2, euOrUs.routed);
+      assertEquals(0, apac.routed);
+      assertEquals(1, complex.routed);
+      assertEquals(2, all.routed);
+
+      // a second binding on the same routing name is load balanced and can't be indexed anymore
+      FilterBinding apac2 = new FilterBinding(new SimpleString("apac"), "region = 'APAC'");
+      bind.addBinding(apac2);
+
+      for (int i = 0; i < 2; i++)
+      {
+         message = new ServerMessageImpl(3 + i, 100);
+         message.putStringProperty(new SimpleString("region"), new SimpleString("APAC"));
+         bind.route(message, new RoutingContextImpl(new FakeTransaction()));
+      }
+
+      assertEquals(2, apac.routed + apac2.routed);
+      assertEquals(4, all.routed);
+   }
+
    private void internalTest(final boolean route) throws Exception
    {
       final FakeBinding fake = new FakeBinding(new SimpleString("a"));
@@ -1141,6 +1198,37 @@ public class BindingsImplTest extends UnitTestCase
 
    }
 
+   class FilterBinding extends FakeBinding
+   {
+      private final Filter filter;
+
+      int routed;
+
+      FilterBinding(final SimpleString name, final String filter) throws Exception
+      {
+         super(name);
+         this.filter = FilterImpl.createFilter(filter);
+      }
+
+      @Override
+      public Filter getFilter()
+      {
+         return filter;
+      }
+
+      @Override
+      public boolean isHighAcceptPriority(final ServerMessage message)
+      {
+         return true;
+      }
+
+      @Override
+      public void route(final ServerMessage message, final RoutingContext context) throws Exception
+      {
+         routed++;
+      }
+   }
+
    // Package protected ---------------------------------------------
 
    // Protected -----------------------------------------------------
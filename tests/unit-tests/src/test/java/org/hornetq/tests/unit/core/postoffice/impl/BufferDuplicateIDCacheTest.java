@@ -0,0 +1,389 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.unit.core.postoffice.impl;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.hornetq.api.core.Pair;
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.persistence.impl.nullpm.NullStorageManager;
+import org.hornetq.core.postoffice.DuplicateIDCache;
+import org.hornetq.core.postoffice.impl.BufferDuplicateIDCacheImpl;
+import org.hornetq.core.transaction.Transaction;
+import org.hornetq.core.transaction.impl.TransactionImpl;
+import org.hornetq.tests.util.UnitTestCase;
+
+/**
+ * A BufferDuplicateIDCacheTest
+ */
+public class BufferDuplicateIDCacheTest extends UnitTestCase
+{
+   private static final SimpleString ADDRESS = new SimpleString("address");
+
+   private RecordingStorageManager storageManager;
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+      storageManager = new RecordingStorageManager();
+   }
+
+   public void testAddAndContains() throws Exception
+   {
+      testAddAndContains(false);
+   }
+
+   public void testAddAndContainsDirect() throws Exception
+   {
+      testAddAndContains(true);
+   }
+
+   public void testRotation() throws Exception
+   {
+      DuplicateIDCache cache = new BufferDuplicateIDCacheImpl(ADDRESS, 10, storageManager, true, false);
+
+      for (int i = 0; i < 25; i++)
+      {
+         cache.addToCache(id(i), null);
+      }
+
+      for (int i = 0; i < 15; i++)
+      {
+         Assert.assertFalse(cache.contains(id(i)));
+      }
+
+      for (int i = 15; i < 25; i++)
+      {
+         Assert.assertTrue(cache.contains(id(i)));
+      }
+
+      // the records of the ids which were overwritten have been deleted
+      Assert.assertEquals(10, storageManager.records.size());
+   }
+
+   public void testDeleteFromCache() throws Exception
+   {
+      DuplicateIDCache cache = new BufferDuplicateIDCacheImpl(ADDRESS, 10, storageManager, true, false);
+
+      for (int i = 0; i < 10; i++)
+      {
+         cache.addToCache(id(i), null);
+      }
+
+      cache.deleteFromCache(id(3));
+      cache.deleteFromCache(id(100));
+
+      Assert.assertFalse(cache.contains(id(3)));
+      Assert.assertEquals(9, storageManager.records.size());
+
+      for (int i = 10; i < 20; i++)
+      {
+         cache.addToCache(id(i), null);
+      }
+
+      for (int i = 0; i < 10; i++)
+      {
+         Assert.assertFalse(cache.contains(id(i)));
+      }
+
+      for (int i = 10; i < 20; i++)
+      {
+         Assert.assertTrue(cache.contains(id(i)));
+      }
+
+      Assert.assertEquals(10, storageManager.records.size());
+   }
+
+   public void testLargeIDs() throws Exception
+   {
+      DuplicateIDCache cache = new BufferDuplicateIDCacheImpl(ADDRESS, 5, storageManager, false, false);
+
+      byte[] large = new byte[BufferDuplicateIDCacheImpl.SLOT_ID_CAPACITY + 1];
+      large[0] = 1;
+
+      byte[] otherLarge = new byte[BufferDuplicateIDCacheImpl.SLOT_ID_CAPACITY + 1];
+      otherLarge[0] = 2;
+
+      cache.addToCache(large, null);
+
+      Assert.assertTrue(cache.contains(large.clone()));
+      Assert.assertFalse(cache.contains(otherLarge));
+
+      cache.deleteFromCache(large);
+
+      Assert.assertFalse(cache.contains(large));
+   }
+
+   public void testTransaction() throws Exception
+   {
+      DuplicateIDCache cache = new BufferDuplicateIDCacheImpl(ADDRESS, 10, storageManager, true, false);
+
+      Transaction tx = new TransactionImpl(storageManager);
+
+      cache.addToCache(id(1), tx);
+
+      Assert.assertFalse(cache.contains(id(1)));
+
+      tx.commit();
+
+      Assert.assertTrue(cache.contains(id(1)));
+
+      tx = new TransactionImpl(storageManager);
+
+      cache.addToCache(id(2), tx);
+
+      tx.rollback();
+
+      Assert.assertFalse(cache.contains(id(2)));
+   }
+
+   public void testLoad() throws Exception
+   {
+      List<Pair<byte[], Long>> ids = new ArrayList<Pair<byte[], Long>>();
+
+      for (int i = 0; i < 15; i++)
+      {
+         long recordID = storageManager.generateUniqueID();
+         ids.add(new Pair<byte[], Long>(id(i), recordID));
+         storageManager.records.add(recordID);
+      }
+
+      DuplicateIDCache cache = new BufferDuplicateIDCacheImpl(ADDRESS, 10, storageManager, true, false);
+
+      cache.load(ids);
+
+      for (int i = 0; i < 10; i++)
+      {
+         Assert.assertTrue(cache.contains(id(i)));
+      }
+
+      for (int i = 10; i < 15; i++)
+      {
+         Assert.assertFalse(cache.contains(id(i)));
+      }
+
+      // the ring continues after the loaded ids
+      cache.addToCache(id(100), null);
+
+      Assert.assertFalse(cache.contains(id(0)));
+      Assert.assertTrue(cache.contains(id(1)));
+      Assert.assertTrue(cache.contains(id(100)));
+
+      Assert.assertEquals(10, storageManager.records.size());
+   }
+
+   /**
+    * Compares the cache with a simple model on random operations, so that deletions from the
+    * table go through long chains of collisions.
+    */
+   public void testRandomOperations() throws Exception
+   {
+      final int size = 100;
+
+      DuplicateIDCache cache = new BufferDuplicateIDCacheImpl(ADDRESS, size, storageManager, false, false);
+
+      Random random = new Random(1);
+
+      // ring of ids, null when deleted
+      LinkedList<Integer> ring = new LinkedList<Integer>();
+
+      Set<Integer> model = new HashSet<Integer>();
+
+      for (int i = 0; i < 50000; i++)
+      {
+         int value = random.nextInt(size * 3);
+
+         if (random.nextInt(4) == 0)
+         {
+            cache.deleteFromCache(id(value));
+
+            if (model.remove(value))
+            {
+               ring.set(ring.indexOf(value), null);
+            }
+         }
+         else if (!model.contains(value))
+         {
+            cache.addToCache(id(value), null);
+
+            ring.addLast(value);
+            model.add(value);
+
+            if (ring.size() > size)
+            {
+               Integer evicted = ring.removeFirst();
+
+               if (evicted != null)
+               {
+                  model.remove(evicted);
+               }
+            }
+         }
+
+         int checked = random.nextInt(size * 3);
+
+         Assert.assertEquals(model.contains(checked), cache.contains(id(checked)));
+      }
+
+      for (int i = 0; i < size * 3; i++)
+      {
+         Assert.assertEquals(model.contains(i), cache.contains(id(i)));
+      }
+   }
+
+   public void testConcurrentContains() throws Exception
+   {
+      final int size = 200000;
+
+      final DuplicateIDCache cache = new BufferDuplicateIDCacheImpl(ADDRESS, size, storageManager, false, false);
+
+      // the ring is large enough for these not to be evicted
+      for (int i = 0; i < 100; i++)
+      {
+         cache.addToCache(id(i), null);
+      }
+
+      final int numberOfReaders = 4;
+
+      final CountDownLatch latch = new CountDownLatch(1);
+
+      final AtomicInteger errors = new AtomicInteger(0);
+
+      final AtomicInteger running = new AtomicInteger(numberOfReaders);
+
+      Thread[] readers = new Thread[numberOfReaders];
+
+      for (int i = 0; i < numberOfReaders; i++)
+      {
+         readers[i] = new Thread()
+         {
+            @Override
+            public void run()
+            {
+               try
+               {
+                  latch.await();
+
+                  for (int j = 0; j < 100000; j++)
+                  {
+                     if (!cache.contains(id(j % 100)))
+                     {
+                        errors.incrementAndGet();
+                     }
+                  }
+               }
+               catch (Throwable e)
+               {
+                  e.printStackTrace();
+                  errors.incrementAndGet();
+               }
+               finally
+               {
+                  running.decrementAndGet();
+               }
+            }
+         };
+         readers[i].start();
+      }
+
+      latch.countDown();
+
+      int value = 1000;
+
+      while (running.get() > 0 && value < size)
+      {
+         cache.addToCache(id(value), null);
+         cache.deleteFromCache(id(value));
+         value++;
+      }
+
+      for (Thread reader : readers)
+      {
+         reader.join();
+      }
+
+      Assert.assertEquals(0, errors.get());
+   }
+
+   // Private -------------------------------------------------------
+
+   private void testAddAndContains(final boolean direct) throws Exception
+   {
+      DuplicateIDCache cache = new BufferDuplicateIDCacheImpl(ADDRESS, 100, storageManager, false, direct);
+
+      for (int i = 0; i < 100; i++)
+      {
+         Assert.assertFalse(cache.contains(id(i)));
+         cache.addToCache(id(i), null);
+         Assert.assertTrue(cache.contains(id(i)));
+      }
+
+      for (int i = 0; i < 100; i++)
+      {
+         Assert.assertTrue(cache.contains(id(i)));
+      }
+
+      Assert.assertFalse(cache.contains(new byte[0]));
+      Assert.assertFalse(cache.contains(id(100)));
+   }
+
+   private static byte[] id(final int i)
+   {
+      return new SimpleString("id-" + i).getData();
+   }
+
+   // Inner classes -------------------------------------------------
+
+   private static final class RecordingStorageManager extends NullStorageManager
+   {
+      final Set<Long> records = new HashSet<Long>();
+
+      @Override
+      public synchronized void storeDuplicateID(final SimpleString address, final byte[] duplID, final long recordID) throws Exception
+      {
+         records.add(recordID);
+      }
+
+      @Override
+      public synchronized void storeDuplicateIDTransactional(final long txID,
+                                                             final SimpleString address,
+                                                             final byte[] duplID,
+                                                             final long recordID) throws Exception
+      {
+         records.add(recordID);
+      }
+
+      @Override
+      public synchronized void deleteDuplicateID(final long recordID) throws Exception
+      {
+         Assert.assertTrue(records.remove(recordID));
+      }
+
+      @Override
+      public synchronized void deleteDuplicateIDTransactional(final long txID, final long recordID) throws Exception
+      {
+         records.remove(recordID);
+      }
+   }
+}
@@ -28,8 +28,11 @@ import org.hornetq.api.core.SimpleString;
 import org.hornetq.core.config.Configuration;
 import org.hornetq.core.persistence.GroupingInfo;
 import org.hornetq.core.persistence.QueueBindingInfo;
+import org.hornetq.core.persistence.StorageManager;
 import org.hornetq.core.persistence.impl.journal.JournalStorageManager;
+import org.hornetq.core.postoffice.DuplicateIDCache;
 import org.hornetq.core.postoffice.PostOffice;
+import org.hornetq.core.postoffice.impl.BufferDuplicateIDCacheImpl;
 import org.hornetq.core.postoffice.impl.DuplicateIDCacheImpl;
 import org.hornetq.core.server.Queue;
 import org.hornetq.core.transaction.impl.ResourceManagerImpl;
@@ -79,6 +82,27 @@ public class DuplicateDetectionUnitTest extends ServiceTestBase
    // Public --------------------------------------------------------
 
    public void testReloadDuplication() throws Exception
+   {
+      doTestReloadDuplication(false);
+   }
+
+   public void testReloadDuplicationBufferCache() throws Exception
+   {
+      doTestReloadDuplication(true);
+   }
+
+   private DuplicateIDCache createCache(final SimpleString address,
+                                        final StorageManager storageManager,
+                                        final boolean buffer)
+   {
+      if (buffer)
+      {
+         return new BufferDuplicateIDCacheImpl(address, 10, storageManager, true, false);
+      }
+      return new DuplicateIDCacheImpl(address, 10, storageManager, true);
+   }
+
+   private void doTestReloadDuplication(final boolean buffer) throws Exception
    {
 
       JournalStorageManager journal = null;
@@ -112,7 +136,7 @@ public class DuplicateDetectionUnitTest extends ServiceTestBase
 
          Assert.assertEquals(0, mapDups.size());
 
-         DuplicateIDCacheImpl cacheID = new DuplicateIDCacheImpl(ADDRESS, 10, journal, true);
+         DuplicateIDCache cacheID = createCache(ADDRESS, journal, buffer);
 
          for (int i = 0; i < 100; i++)
          {
@@ -139,7 +163,7 @@ public class DuplicateDetectionUnitTest extends ServiceTestBase
 
          Assert.assertEquals(10, values.size());
 
-         cacheID = new DuplicateIDCacheImpl(ADDRESS, 10, journal, true);
+         cacheID = createCache(ADDRESS, journal, buffer);
          cacheID.load(values);
 
          for (int i = 0; i < 100; i++)
@@ -461,6 +461,12 @@ public class FakeQueue implements Queue
       return null;
    }
 
+   public LinkedListIterator<MessageReference> browserIterator()
+   {
+      // no-op
+      return null;
+   }
+
    /* (non-Javadoc)
     * @see org.hornetq.core.server.Queue#list(org.hornetq.core.filter.Filter)
     */
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.unit.core.protocol.stomp;
+
+import junit.framework.Assert;
+
+import org.hornetq.api.core.Message;
+import org.hornetq.core.protocol.stomp.StompBodyCache;
+import org.hornetq.core.server.ServerMessage;
+import org.hornetq.core.server.impl.ServerMessageImpl;
+import org.hornetq.tests.util.UnitTestCase;
+
+public class StompBodyCacheTest extends UnitTestCase
+{
+   public void testSharedBody() throws Exception
+   {
+      StompBodyCache cache = new StompBodyCache(4, 1000, 100);
+
+      ServerMessage message = createMessage(1, 50);
+
+      StompBodyCache.Body body = cache.getBody(message);
+
+      Assert.assertEquals(50, body.getData().length);
+      Assert.assertTrue(body.isBytes());
+      Assert.assertSame(body, cache.getBody(message));
+      Assert.assertEquals(50, cache.getCachedBytes());
+
+      // the entry of the message is taken by a later one
+      cache.getBody(createMessage(5, 30));
+
+      Assert.assertEquals(30, cache.getCachedBytes());
+      Assert.assertNotSame(body, cache.getBody(message));
+   }
+
+   public void testLargeBodyNotCached() throws Exception
+   {
+      StompBodyCache cache = new StompBodyCache(4, 1000, 100);
+
+      ServerMessage message = createMessage(1, 101);
+
+      StompBodyCache.Body body = cache.getBody(message);
+
+      Assert.assertEquals(101, body.getData().length);
+      Assert.assertNotSame(body, cache.getBody(message));
+      Assert.assertEquals(0, cache.getCachedBytes());
+   }
+
+   public void testMaxBytes() throws Exception
+   {
+      StompBodyCache cache = new StompBodyCache(4, 100, 100);
+
+      cache.getBody(createMessage(1, 60));
+
+      ServerMessage message = createMessage(2, 60);
+
+      StompBodyCache.Body body = cache.getBody(message);
+
+      Assert.assertNotSame(body, cache.getBody(message));
+      Assert.assertEquals(60, cache.getCachedBytes());
+
+      // replacing an entry frees its bytes
+      cache.getBody(createMessage(5, 80));
+
+      Assert.assertEquals(80, cache.getCachedBytes());
+   }
+
+   private ServerMessage createMessage(final long id, final int bodySize)
+   {
+      ServerMessageImpl message = new ServerMessageImpl(id, 2 * bodySize);
+      message.setType(Message.BYTES_TYPE);
+      message.getBodyBuffer().writeBytes(new byte[bodySize]);
+      return message;
+   }
+}
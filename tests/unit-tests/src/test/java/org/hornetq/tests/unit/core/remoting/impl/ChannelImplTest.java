@@ -0,0 +1,271 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.unit.core.remoting.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.HornetQBuffers;
+import org.hornetq.api.core.HornetQException;
+import org.hornetq.api.core.HornetQExceptionType;
+import org.hornetq.api.core.Interceptor;
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.api.core.TransportConfiguration;
+import org.hornetq.core.protocol.ClientPacketDecoder;
+import org.hornetq.core.protocol.core.Channel;
+import org.hornetq.core.protocol.core.ResponseFuture;
+import org.hornetq.core.protocol.core.impl.RemotingConnectionImpl;
+import org.hornetq.core.protocol.core.impl.wireformat.HornetQExceptionMessage;
+import org.hornetq.core.protocol.core.impl.wireformat.NullResponseMessage;
+import org.hornetq.core.protocol.core.impl.wireformat.SessionQueueQueryMessage;
+import org.hornetq.core.security.HornetQPrincipal;
+import org.hornetq.spi.core.remoting.Connection;
+import org.hornetq.spi.core.remoting.ReadyListener;
+import org.hornetq.tests.util.UnitTestCase;
+
+public class ChannelImplTest extends UnitTestCase
+{
+   private FakeConnection transport;
+
+   private Channel channel;
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+
+      transport = new FakeConnection();
+
+      channel = createChannel(5000);
+   }
+
+   public void testPipelinedCallsAreAnsweredInOrder() throws Exception
+   {
+      ResponseFuture first = channel.sendBlockingAsync(new SessionQueueQueryMessage(new SimpleString("q1")));
+      ResponseFuture second = channel.sendBlockingAsync(new SessionQueueQueryMessage(new SimpleString("q2")));
+      ResponseFuture third = channel.sendBlockingAsync(new SessionQueueQueryMessage(new SimpleString("q3")));
+
+      assertEquals(3, transport.written.size());
+      assertTrue(first.getCorrelationID() < second.getCorrelationID());
+      assertTrue(second.getCorrelationID() < third.getCorrelationID());
+
+      assertFalse(first.isDone());
+
+      NullResponseMessage firstResponse = new NullResponseMessage();
+      channel.handlePacket(firstResponse);
+
+      assertTrue(first.isDone());
+      assertFalse(second.isDone());
+      assertSame(firstResponse, first.getResponse());
+
+      channel.handlePacket(new HornetQExceptionMessage(new HornetQException(HornetQExceptionType.QUEUE_DOES_NOT_EXIST,
+                                                                            "q2")));
+
+      NullResponseMessage thirdResponse = new NullResponseMessage();
+      channel.handlePacket(thirdResponse);
+
+      // the responses are taken in any order once received
+      assertSame(thirdResponse, third.getResponse());
+
+      try
+      {
+         second.getResponse();
+         fail("the server failed the second call");
+      }
+      catch (HornetQException e)
+      {
+         assertEquals(HornetQExceptionType.QUEUE_DOES_NOT_EXIST, e.getType());
+      }
+   }
+
+   public void testBlockingCallAfterPipelinedCalls() throws Exception
+   {
+      final ResponseFuture pipelined = channel.sendBlockingAsync(new SessionQueueQueryMessage(new SimpleString("q1")));
+
+      final NullResponseMessage pipelinedResponse = new NullResponseMessage();
+      final NullResponseMessage blockingResponse = new NullResponseMessage();
+
+      Thread server = new Thread()
+      {
+         @Override
+         public void run()
+         {
+            while (transport.written.size() < 2)
+            {
+               Thread.yield();
+            }
+            channel.handlePacket(pipelinedResponse);
+            channel.handlePacket(blockingResponse);
+         }
+      };
+      server.start();
+
+      assertSame(blockingResponse, channel.sendBlocking(new SessionQueueQueryMessage(new SimpleString("q2"))));
+      assertSame(pipelinedResponse, pipelined.getResponse());
+
+      server.join();
+   }
+
+   public void testReturnBlockingFailsPendingCalls() throws Exception
+   {
+      ResponseFuture first = channel.sendBlockingAsync(new SessionQueueQueryMessage(new SimpleString("q1")));
+      ResponseFuture second = channel.sendBlockingAsync(new SessionQueueQueryMessage(new SimpleString("q2")));
+
+      channel.returnBlocking();
+
+      for (ResponseFuture future : new ResponseFuture[] { first, second })
+      {
+         assertTrue(future.isDone());
+         try
+         {
+            future.getResponse();
+            fail("the call was unblocked");
+         }
+         catch (HornetQException e)
+         {
+            assertEquals(HornetQExceptionType.UNBLOCKED, e.getType());
+         }
+      }
+   }
+
+   public void testTimeoutFailsPendingCalls() throws Exception
+   {
+      channel = createChannel(100);
+
+      ResponseFuture first = channel.sendBlockingAsync(new SessionQueueQueryMessage(new SimpleString("q1")));
+      ResponseFuture second = channel.sendBlockingAsync(new SessionQueueQueryMessage(new SimpleString("q2")));
+
+      // the response to the first call never comes
+      for (ResponseFuture future : new ResponseFuture[] { first, second })
+      {
+         try
+         {
+            future.getResponse();
+            fail("the call timed out");
+         }
+         catch (HornetQException e)
+         {
+            assertEquals(HornetQExceptionType.CONNECTION_TIMEDOUT, e.getType());
+         }
+      }
+
+      assertTrue(second.isDone());
+   }
+
+   public void testBlockingCallAfterTimeout() throws Exception
+   {
+      channel = createChannel(100);
+
+      try
+      {
+         channel.sendBlocking(new SessionQueueQueryMessage(new SimpleString("q1")));
+         fail("the call timed out");
+      }
+      catch (HornetQException e)
+      {
+         assertEquals(HornetQExceptionType.CONNECTION_TIMEDOUT, e.getType());
+      }
+
+      final NullResponseMessage response = new NullResponseMessage();
+
+      Thread server = new Thread()
+      {
+         @Override
+         public void run()
+         {
+            while (transport.written.size() < 2)
+            {
+               Thread.yield();
+            }
+            channel.handlePacket(response);
+         }
+      };
+      server.start();
+
+      // the call that timed out doesn't take the response of the next one
+      assertSame(response, channel.sendBlocking(new SessionQueueQueryMessage(new SimpleString("q2"))));
+
+      server.join();
+   }
+
+   private Channel createChannel(final long blockingCallTimeout)
+   {
+      RemotingConnectionImpl connection = new RemotingConnectionImpl(ClientPacketDecoder.INSTANCE,
+                                                                     transport,
+                                                                     blockingCallTimeout,
+                                                                     5000,
+                                                                     new ArrayList<Interceptor>(),
+                                                                     new ArrayList<Interceptor>());
+
+      return connection.getChannel(10, -1);
+   }
+
+   private static final class FakeConnection implements Connection
+   {
+      final List<HornetQBuffer> written = new CopyOnWriteArrayList<HornetQBuffer>();
+
+      public HornetQBuffer createBuffer(final int size)
+      {
+         return HornetQBuffers.dynamicBuffer(size);
+      }
+
+      public Object getID()
+      {
+         return "fake";
+      }
+
+      public void write(final HornetQBuffer buffer, final boolean flush, final boolean batched)
+      {
+         written.add(buffer);
+      }
+
+      public void write(final HornetQBuffer buffer)
+      {
+         written.add(buffer);
+      }
+
+      public void close()
+      {
+      }
+
+      public String getRemoteAddress()
+      {
+         return "fake";
+      }
+
+      public void checkFlushBatchBuffer()
+      {
+      }
+
+      public void addReadyListener(final ReadyListener listener)
+      {
+      }
+
+      public void removeReadyListener(final ReadyListener listener)
+      {
+      }
+
+      public TransportConfiguration getConnectorConfig()
+      {
+         return null;
+      }
+
+      public HornetQPrincipal getDefaultHornetQPrincipal()
+      {
+         return null;
+      }
+   }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.unit.core.server.impl;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import junit.framework.Assert;
+
+import org.hornetq.core.server.MessageReference;
+import org.hornetq.core.server.impl.ExpiryIndex;
+import org.hornetq.tests.util.UnitTestCase;
+import org.hornetq.utils.LinkedListImpl;
+import org.hornetq.utils.PriorityLinkedListImpl;
+
+public class ExpiryIndexTest extends UnitTestCase
+{
+   private final PriorityLinkedListImpl<MessageReference> queue = new PriorityLinkedListImpl<MessageReference>(10);
+
+   public void testOnlyReferencesWithExpirationAreIndexed() throws Exception
+   {
+      ExpiryIndex index = new ExpiryIndex(100);
+
+      add(index, generateReference(null, 1));
+      add(index, createReference(2, 1000));
+
+      Assert.assertEquals(1, index.size());
+      Assert.assertEquals(1000, index.getNextExpiration());
+   }
+
+   public void testPollExpired() throws Exception
+   {
+      ExpiryIndex index = new ExpiryIndex(100);
+
+      MessageReference ref1 = createReference(1, 1000);
+      MessageReference ref2 = createReference(2, 1050);
+      MessageReference ref3 = createReference(3, 1100);
+      MessageReference ref4 = createReference(4, 2000);
+
+      add(index, ref1);
+      add(index, ref2);
+      add(index, ref3);
+      add(index, ref4);
+
+      // 1050 is rounded up to 1100, it's not taken before every reference of its bucket is expired
+      Map<MessageReference, ExpiryIndex.Entry> expired = toMap(index.pollExpired(1050));
+
+      Assert.assertEquals(1, expired.size());
+      Assert.assertTrue(expired.containsKey(ref1));
+
+      expired = toMap(index.pollExpired(1500));
+
+      Assert.assertEquals(2, expired.size());
+      Assert.assertTrue(expired.containsKey(ref2));
+      Assert.assertTrue(expired.containsKey(ref3));
+
+      // the entries unlink their references from the queue
+      ExpiryIndex.Entry entry = expired.get(ref2);
+      Assert.assertTrue(entry.getNode().isLinked());
+      Assert.assertTrue(queue.removeNode(entry.getNode(), entry.getPriority()));
+      Assert.assertFalse(entry.getNode().isLinked());
+      Assert.assertEquals(3, queue.size());
+
+      Assert.assertEquals(1, index.size());
+      Assert.assertTrue(index.pollExpired(1500).isEmpty());
+      Assert.assertEquals(2000, index.getNextExpiration());
+   }
+
+   public void testRemove() throws Exception
+   {
+      ExpiryIndex index = new ExpiryIndex(100);
+
+      MessageReference ref1 = createReference(1, 1000);
+      MessageReference ref2 = createReference(2, 1000);
+
+      add(index, ref1);
+      add(index, ref2);
+
+      // added twice, as when a cancelled reference goes back to the queue
+      add(index, ref1);
+
+      Assert.assertEquals(2, index.size());
+
+      index.remove(ref1);
+      index.remove(ref1);
+
+      Assert.assertEquals(1, index.size());
+
+      index.remove(ref2);
+
+      Assert.assertTrue(index.isEmpty());
+      Assert.assertEquals(-1, index.getNextExpiration());
+      Assert.assertTrue(index.pollExpired(Long.MAX_VALUE).isEmpty());
+   }
+
+   public void testReaddedReferenceKeepsNewNode() throws Exception
+   {
+      ExpiryIndex index = new ExpiryIndex(100);
+
+      MessageReference ref = createReference(1, 1000);
+
+      LinkedListImpl.Node<MessageReference> node = add(index, ref);
+
+      queue.removeNode(node, 4);
+
+      // cancelled back to the queue
+      LinkedListImpl.Node<MessageReference> newNode = add(index, ref);
+
+      Assert.assertEquals(1, index.size());
+
+      Collection<ExpiryIndex.Entry> expired = index.pollExpired(1000);
+
+      Assert.assertEquals(1, expired.size());
+      Assert.assertSame(newNode, expired.iterator().next().getNode());
+      Assert.assertSame(ref, expired.iterator().next().getReference());
+   }
+
+   private LinkedListImpl.Node<MessageReference> add(final ExpiryIndex index, final MessageReference ref)
+   {
+      LinkedListImpl.Node<MessageReference> node = queue.addTailNode(ref, 4);
+
+      index.add(node, 4);
+
+      return node;
+   }
+
+   private Map<MessageReference, ExpiryIndex.Entry> toMap(final Collection<ExpiryIndex.Entry> entries)
+   {
+      Map<MessageReference, ExpiryIndex.Entry> map = new IdentityHashMap<MessageReference, ExpiryIndex.Entry>();
+
+      for (ExpiryIndex.Entry entry : entries)
+      {
+         map.put(entry.getReference(), entry);
+      }
+
+      return map;
+   }
+
+   private MessageReference createReference(final long id, final long expiration)
+   {
+      MessageReference ref = generateReference(null, id);
+
+      ref.getMessage().setExpiration(expiration);
+
+      return ref;
+   }
+}
@@ -14,9 +14,11 @@
 package org.hornetq.tests.unit.core.server.impl;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -37,6 +39,7 @@ import org.hornetq.tests.unit.core.server.impl.fakes.FakeFilter;
 import org.hornetq.tests.unit.core.server.impl.fakes.FakePostOffice;
 import org.hornetq.tests.util.UnitTestCase;
 import org.hornetq.utils.FutureLatch;
+import org.hornetq.utils.LinkedListIterator;
 
 /**
  * A QueueTest
@@ -838,6 +841,57 @@ public class QueueImplTest extends UnitTestCase
       assertRefListsIdenticalRefs(refs, list);
    }
 
+   public void testBrowserIterator()
+   {
+      QueueImpl queue = new QueueImpl(1,
+                                      QueueImplTest.address1,
+                                      QueueImplTest.queue1,
+                                      null,
+                                      false,
+                                      true,
+                                      scheduledExecutor,
+                                      null,
+                                      null,
+                                      null,
+                                      executor);
+
+      final int numMessages = 20;
+
+      List<MessageReference> refs = new ArrayList<MessageReference>();
+
+      for (int i = 0; i < numMessages; i++)
+      {
+         MessageReference ref = generateReference(queue, i);
+
+         queue.addTail(ref);
+
+         refs.add(ref);
+      }
+
+      awaitExecution();
+
+      LinkedListIterator<MessageReference> iterator = queue.browserIterator();
+      List<MessageReference> list = new ArrayList<MessageReference>();
+      while (iterator.hasNext())
+      {
+         list.add(iterator.next());
+      }
+      assertRefListsIdenticalRefs(refs, list);
+
+      try
+      {
+         iterator.next();
+         Assert.fail("the browser should have no message left");
+      }
+      catch (NoSuchElementException expected)
+      {
+      }
+
+      iterator.close();
+
+      Assert.assertEquals(numMessages, queue.getMessageCount());
+   }
+
    private void awaitExecution()
    {
       FutureLatch future = new FutureLatch();
@@ -1138,6 +1192,76 @@ public class QueueImplTest extends UnitTestCase
       Assert.assertEquals(20, queue.getDeliveringCount());
    }
 
+   public void testIndexedSelectorsWithCancel() throws Exception
+   {
+      QueueImpl queue = new QueueImpl(1,
+                                      QueueImplTest.address1,
+                                      QueueImplTest.queue1,
+                                      null,
+                                      false,
+                                      true,
+                                      scheduledExecutor,
+                                      null,
+                                      null,
+                                      null,
+                                      executor);
+
+      String[] colors = new String[] { "red", "green", "blue" };
+
+      final int numMessages = 30;
+
+      for (int i = 0; i < numMessages; i++)
+      {
+         MessageReference ref = generateReference(queue, i);
+         ref.getMessage().putStringProperty("color", colors[i % colors.length]);
+         queue.addTail(ref);
+      }
+
+      // added once the queue has messages, the groups of the index are built from them
+      FakeConsumer greenConsumer = new FakeConsumer(FilterImpl.createFilter("color = 'green'"));
+      FakeConsumer notRedConsumer = new FakeConsumer(FilterImpl.createFilter("color IN ('green', 'blue')"));
+      queue.addConsumer(greenConsumer);
+      queue.addConsumer(notRedConsumer);
+
+      queue.deliverNow();
+
+      Assert.assertEquals(20, greenConsumer.getReferences().size() + notRedConsumer.getReferences().size());
+      Assert.assertEquals(20, queue.getDeliveringCount());
+
+      for (MessageReference ref : greenConsumer.getReferences())
+      {
+         Assert.assertEquals(new SimpleString("green"), ref.getMessage().getSimpleStringProperty("color"));
+      }
+
+      for (MessageReference ref : notRedConsumer.getReferences())
+      {
+         Assert.assertFalse(new SimpleString("red").equals(ref.getMessage().getSimpleStringProperty("color")));
+      }
+
+      // the references put back go to the head of the queue and of the groups, as on a rollback
+      List<MessageReference> cancelled = new ArrayList<MessageReference>(greenConsumer.getReferences());
+      greenConsumer.clearReferences();
+      queue.removeConsumer(greenConsumer);
+      notRedConsumer.clearReferences();
+
+      List<MessageReference> reversed = new ArrayList<MessageReference>(cancelled);
+      Collections.reverse(reversed);
+      queue.addHead(reversed);
+
+      queue.deliverNow();
+
+      assertRefListsIdenticalRefs(cancelled, notRedConsumer.getReferences());
+
+      // the red ones are left for a consumer without selector
+      FakeConsumer consumer = new FakeConsumer();
+      queue.addConsumer(consumer);
+
+      queue.deliverNow();
+
+      Assert.assertEquals(10, consumer.getReferences().size());
+      Assert.assertEquals(0, queue.getMessageCount() - queue.getDeliveringCount());
+   }
+
    // Private ------------------------------------------------------------------------------
 
    private void testConsumerWithFilters(final boolean direct) throws Exception
@@ -1271,6 +1395,148 @@ public class QueueImplTest extends UnitTestCase
       Assert.assertEquals(messageReference2, consumer.getReferences().get(2));
    }
 
+   public void testBatchedIntake() throws Exception
+   {
+      QueueImpl queue = new QueueImpl(1,
+                                      QueueImplTest.address1,
+                                      QueueImplTest.queue1,
+                                      null,
+                                      null,
+                                      false,
+                                      true,
+                                      scheduledExecutor,
+                                      null,
+                                      null,
+                                      null,
+                                      executor,
+                                      true);
+
+      FakeConsumer consumer = new FakeConsumer();
+
+      queue.addConsumer(consumer);
+
+      final int numMessages = 3 * QueueImpl.MAX_DELIVERIES_IN_LOOP + 10;
+
+      List<MessageReference> refs = new ArrayList<MessageReference>();
+
+      for (int i = 0; i < numMessages; i++)
+      {
+         MessageReference ref = generateReference(queue, i);
+
+         refs.add(ref);
+
+         // producers never deliver directly in this mode
+         queue.addTail(ref, true);
+      }
+
+      Assert.assertFalse(queue.isDirectDeliver());
+
+      waitForReferences(consumer, numMessages);
+
+      assertRefListsIdenticalRefs(refs, consumer.getReferences());
+      Assert.assertEquals(numMessages, queue.getMessagesAdded());
+      Assert.assertEquals(numMessages, queue.getDeliveringCount());
+   }
+
+   public void testBatchedIntakeConcurrentProducers() throws Exception
+   {
+      final QueueImpl queue = new QueueImpl(1,
+                                            QueueImplTest.address1,
+                                            QueueImplTest.queue1,
+                                            null,
+                                            null,
+                                            false,
+                                            true,
+                                            scheduledExecutor,
+                                            null,
+                                            null,
+                                            null,
+                                            executor,
+                                            true);
+
+      FakeConsumer consumer = new FakeConsumer();
+
+      queue.addConsumer(consumer);
+
+      final int numProducers = 4;
+
+      final int numMessages = 5000;
+
+      final CountDownLatch latch = new CountDownLatch(1);
+
+      Thread[] producers = new Thread[numProducers];
+
+      for (int i = 0; i < numProducers; i++)
+      {
+         final int producer = i;
+
+         producers[i] = new Thread()
+         {
+            @Override
+            public void run()
+            {
+               try
+               {
+                  latch.await();
+
+                  for (int j = 0; j < numMessages; j++)
+                  {
+                     queue.addTail(generateReference(queue, producer * numMessages + j), true);
+                  }
+               }
+               catch (InterruptedException e)
+               {
+                  e.printStackTrace();
+               }
+            }
+         };
+         producers[i].start();
+      }
+
+      latch.countDown();
+
+      for (Thread producer : producers)
+      {
+         producer.join();
+      }
+
+      waitForReferences(consumer, numProducers * numMessages);
+
+      List<MessageReference> received = consumer.getReferences();
+
+      Assert.assertEquals(numProducers * numMessages, received.size());
+
+      // the references of each producer are delivered in the order they were added
+      long[] lastIDs = new long[numProducers];
+
+      for (int i = 0; i < numProducers; i++)
+      {
+         lastIDs[i] = -1;
+      }
+
+      for (MessageReference ref : received)
+      {
+         long id = ref.getMessage().getMessageID();
+
+         int producer = (int)(id / numMessages);
+
+         Assert.assertTrue(id > lastIDs[producer]);
+
+         lastIDs[producer] = id;
+      }
+   }
+
+   /** the intake is drained in several executor tasks, so a single flush is not enough */
+   private void waitForReferences(final FakeConsumer consumer, final int numReferences) throws Exception
+   {
+      long timeout = System.currentTimeMillis() + 10000;
+
+      while (consumer.getReferences().size() < numReferences && System.currentTimeMillis() < timeout)
+      {
+         Thread.sleep(10);
+      }
+   }
+
    public void testMessagesAdded() throws Exception
    {
       QueueImpl queue = new QueueImpl(1,
@@ -1500,5 +1766,4 @@ public class QueueImplTest extends UnitTestCase
          countDownLatch.countDown();
       }
    }
-
 }
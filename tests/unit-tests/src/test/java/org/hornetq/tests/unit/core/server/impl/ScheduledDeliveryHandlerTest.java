@@ -0,0 +1,286 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.unit.core.server.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.core.filter.impl.FilterImpl;
+import org.hornetq.core.server.MessageReference;
+import org.hornetq.core.server.ServerMessage;
+import org.hornetq.core.server.impl.ScheduledDeliveryHandlerImpl;
+import org.hornetq.core.server.impl.ServerMessageImpl;
+import org.hornetq.tests.unit.core.postoffice.impl.FakeQueue;
+import org.hornetq.tests.util.UnitTestCase;
+
+/**
+ * A ScheduledDeliveryHandlerTest
+ */
+public class ScheduledDeliveryHandlerTest extends UnitTestCase
+{
+   private CountingScheduledExecutor scheduledExecutor;
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+      scheduledExecutor = new CountingScheduledExecutor();
+   }
+
+   @Override
+   protected void tearDown() throws Exception
+   {
+      scheduledExecutor.shutdownNow();
+      super.tearDown();
+   }
+
+   public void testDeliveryOrder() throws Exception
+   {
+      ScheduledDeliveryHandlerImpl handler = new ScheduledDeliveryHandlerImpl(scheduledExecutor);
+
+      DeliveryQueue queue = new DeliveryQueue(6);
+
+      long now = System.currentTimeMillis();
+
+      // added in a different order than they should be delivered
+      schedule(handler, queue, 3, now + 500, true);
+      schedule(handler, queue, 1, now + 200, true);
+      schedule(handler, queue, 4, now + 500, true);
+      schedule(handler, queue, 2, now + 200, true);
+      // a message scheduled at the head goes before the others of the same time
+      schedule(handler, queue, 0, now + 200, false);
+      schedule(handler, queue, 5, now + 600, true);
+
+      Assert.assertEquals(6, handler.getScheduledCount());
+      // listed in the order they were scheduled: the last one scheduled at the tail first and the
+      // ones scheduled at the head last
+      assertIDs(handler.getScheduledReferences(), 5, 2, 4, 1, 3, 0);
+
+      Assert.assertTrue(queue.await());
+
+      assertIDs(queue.delivered, 0, 1, 2, 3, 4, 5);
+
+      for (MessageReference ref : queue.delivered)
+      {
+         Assert.assertEquals(0, ref.getScheduledDeliveryTime());
+      }
+
+      Assert.assertEquals(0, handler.getScheduledCount());
+      Assert.assertTrue(handler.getScheduledReferences().isEmpty());
+   }
+
+   public void testSingleWakeupForManyMessages() throws Exception
+   {
+      ScheduledDeliveryHandlerImpl handler = new ScheduledDeliveryHandlerImpl(scheduledExecutor);
+
+      final int numberOfMessages = 1000;
+
+      DeliveryQueue queue = new DeliveryQueue(numberOfMessages);
+
+      long time = System.currentTimeMillis() + 200;
+
+      for (int i = 0; i < numberOfMessages; i++)
+      {
+         schedule(handler, queue, i, time, true);
+      }
+
+      Assert.assertTrue(queue.await());
+
+      Assert.assertEquals(1, scheduledExecutor.scheduled.get());
+      Assert.assertEquals(1, queue.batches.get());
+      Assert.assertEquals(numberOfMessages, queue.delivered.size());
+   }
+
+   public void testRemoveReferenceWithID() throws Exception
+   {
+      ScheduledDeliveryHandlerImpl handler = new ScheduledDeliveryHandlerImpl(scheduledExecutor);
+
+      DeliveryQueue queue = new DeliveryQueue(2);
+
+      long now = System.currentTimeMillis();
+
+      schedule(handler, queue, 1, now + 200, true);
+      schedule(handler, queue, 2, now + 200, true);
+      schedule(handler, queue, 3, now + 300, true);
+      schedule(handler, queue, 4, now + 400, true);
+
+      Assert.assertEquals(2, handler.removeReferenceWithID(2).getMessage().getMessageID());
+      Assert.assertNull(handler.removeReferenceWithID(2));
+      Assert.assertNull(handler.removeReferenceWithID(10));
+      // removing the only reference of a delivery time
+      Assert.assertEquals(3, handler.removeReferenceWithID(3).getMessage().getMessageID());
+
+      Assert.assertEquals(2, handler.getScheduledCount());
+      assertIDs(handler.getScheduledReferences(), 4, 1);
+
+      Assert.assertTrue(queue.await());
+
+      assertIDs(queue.delivered, 1, 4);
+      Assert.assertEquals(0, handler.getScheduledCount());
+   }
+
+   public void testCancel() throws Exception
+   {
+      ScheduledDeliveryHandlerImpl handler = new ScheduledDeliveryHandlerImpl(scheduledExecutor);
+
+      DeliveryQueue queue = new DeliveryQueue(2);
+
+      long now = System.currentTimeMillis();
+
+      for (int i = 0; i < 4; i++)
+      {
+         MessageReference ref = schedule(handler, queue, i, now + 300 + i, true);
+         ref.getMessage().putIntProperty(new SimpleString("index"), i);
+      }
+
+      List<MessageReference> cancelled = handler.cancel(FilterImpl.createFilter("index >= 2"));
+
+      assertIDs(cancelled, 3, 2);
+      Assert.assertEquals(2, handler.getScheduledCount());
+      Assert.assertNull(handler.removeReferenceWithID(3));
+
+      Assert.assertTrue(queue.await());
+
+      assertIDs(queue.delivered, 0, 1);
+
+      schedule(handler, queue, 5, System.currentTimeMillis() + 10000, true);
+
+      assertIDs(handler.cancel(null), 5);
+      Assert.assertEquals(0, handler.getScheduledCount());
+   }
+
+   public void testNotScheduled() throws Exception
+   {
+      ScheduledDeliveryHandlerImpl handler = new ScheduledDeliveryHandlerImpl(scheduledExecutor);
+
+      ServerMessage message = new ServerMessageImpl(1, 100);
+
+      MessageReference ref = message.createReference(new DeliveryQueue(0));
+
+      Assert.assertFalse(handler.checkAndSchedule(ref, true));
+
+      ref.setScheduledDeliveryTime(System.currentTimeMillis() + 1000);
+
+      Assert.assertFalse(new ScheduledDeliveryHandlerImpl(null).checkAndSchedule(ref, true));
+
+      Assert.assertEquals(0, handler.getScheduledCount());
+      Assert.assertEquals(0, scheduledExecutor.scheduled.get());
+   }
+
+   // Private -------------------------------------------------------
+
+   private MessageReference schedule(final ScheduledDeliveryHandlerImpl handler,
+                                     final DeliveryQueue queue,
+                                     final long id,
+                                     final long time,
+                                     final boolean tail)
+   {
+      ServerMessage message = new ServerMessageImpl(id, 100);
+
+      MessageReference ref = message.createReference(queue);
+
+      ref.setScheduledDeliveryTime(time);
+
+      Assert.assertTrue(handler.checkAndSchedule(ref, tail));
+
+      return ref;
+   }
+
+   private void assertIDs(final List<MessageReference> refs, final long... ids)
+   {
+      Assert.assertEquals(ids.length, refs.size());
+
+      for (int i = 0; i < ids.length; i++)
+      {
+         Assert.assertEquals(ids[i], refs.get(i).getMessage().getMessageID());
+      }
+   }
+
+   // Inner classes -------------------------------------------------
+
+   private static final class DeliveryQueue extends FakeQueue
+   {
+      final List<MessageReference> delivered = new ArrayList<MessageReference>();
+
+      final AtomicInteger batches = new AtomicInteger(0);
+
+      final CountDownLatch latch;
+
+      DeliveryQueue(final int expected)
+      {
+         super(new SimpleString("queue"));
+         latch = new CountDownLatch(expected);
+      }
+
+      @Override
+      public synchronized void addHead(final List<MessageReference> refs)
+      {
+         batches.incrementAndGet();
+
+         // the references of the list end up at the head of the queue in the reverse order
+         LinkedList<MessageReference> head = new LinkedList<MessageReference>();
+
+         for (MessageReference ref : refs)
+         {
+            head.addFirst(ref);
+         }
+
+         delivered.addAll(head);
+
+         for (int i = 0; i < refs.size(); i++)
+         {
+            latch.countDown();
+         }
+      }
+
+      boolean await() throws InterruptedException
+      {
+         return latch.await(10, TimeUnit.SECONDS);
+      }
+   }
+
+   private static final class CountingScheduledExecutor extends ScheduledThreadPoolExecutor
+   {
+      final AtomicInteger scheduled = new AtomicInteger(0);
+
+      CountingScheduledExecutor()
+      {
+         super(1);
+      }
+
+      @Override
+      public ScheduledFuture<?> schedule(final Runnable command, final long delay, final TimeUnit unit)
+      {
+         scheduled.incrementAndGet();
+         return super.schedule(command, delay, unit);
+      }
+
+      @Override
+      public <V> ScheduledFuture<V> schedule(final Callable<V> callable, final long delay, final TimeUnit unit)
+      {
+         scheduled.incrementAndGet();
+         return super.schedule(callable, delay, unit);
+      }
+   }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2010 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.unit.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.hornetq.tests.util.UnitTestCase;
+import org.hornetq.utils.OrderedExecutorFactory;
+
+public class OrderedExecutorFactoryTest extends UnitTestCase
+{
+   private static final int NUMBER_OF_PRODUCERS = 8;
+
+   private static final int TASKS_PER_PRODUCER = 20000;
+
+   private ExecutorService threadPool;
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+
+      threadPool = Executors.newFixedThreadPool(4);
+   }
+
+   @Override
+   protected void tearDown() throws Exception
+   {
+      threadPool.shutdown();
+
+      super.tearDown();
+   }
+
+   public void testOrderWithConcurrentProducers() throws Exception
+   {
+      final Executor executor = new OrderedExecutorFactory(threadPool).getExecutor();
+
+      final int[] lastTask = new int[NUMBER_OF_PRODUCERS];
+
+      final AtomicInteger errors = new AtomicInteger();
+
+      final AtomicInteger running = new AtomicInteger();
+
+      final CountDownLatch done = new CountDownLatch(NUMBER_OF_PRODUCERS * TASKS_PER_PRODUCER);
+
+      Thread[] producers = new Thread[NUMBER_OF_PRODUCERS];
+
+      for (int i = 0; i < NUMBER_OF_PRODUCERS; i++)
+      {
+         final int producer = i;
+
+         producers[i] = new Thread()
+         {
+            @Override
+            public void run()
+            {
+               for (int task = 1; task <= TASKS_PER_PRODUCER; task++)
+               {
+                  final int current = task;
+
+                  executor.execute(new Runnable()
+                  {
+                     public void run()
+                     {
+                        // the tasks of a producer run in order and never two at the same time
+                        if (running.incrementAndGet() != 1 || lastTask[producer] != current - 1)
+                        {
+                           errors.incrementAndGet();
+                        }
+
+                        lastTask[producer] = current;
+
+                        running.decrementAndGet();
+
+                        done.countDown();
+                     }
+                  });
+               }
+            }
+         };
+         producers[i].start();
+      }
+
+      for (Thread producer : producers)
+      {
+         producer.join();
+      }
+
+      Assert.assertTrue(done.await(30, TimeUnit.SECONDS));
+      Assert.assertEquals(0, errors.get());
+   }
+
+   public void testThreadGivenBackAfterBatch() throws Exception
+   {
+      final AtomicInteger runs = new AtomicInteger();
+
+      Executor countingParent = new Executor()
+      {
+         public void execute(final Runnable command)
+         {
+            runs.incrementAndGet();
+            threadPool.execute(command);
+         }
+      };
+
+      final Executor executor = new OrderedExecutorFactory(countingParent).getExecutor();
+
+      final CountDownLatch blocked = new CountDownLatch(1);
+
+      final CountDownLatch done = new CountDownLatch(1);
+
+      executor.execute(new Runnable()
+      {
+         public void run()
+         {
+            try
+            {
+               blocked.await();
+            }
+            catch (InterruptedException e)
+            {
+            }
+         }
+      });
+
+      for (int i = 0; i < 5000; i++)
+      {
+         executor.execute(new Runnable()
+         {
+            public void run()
+            {
+            }
+         });
+      }
+
+      executor.execute(new Runnable()
+      {
+         public void run()
+         {
+            done.countDown();
+         }
+      });
+
+      blocked.countDown();
+
+      Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+
+      // the runner was resubmitted instead of running the 5002 tasks at once
+      Assert.assertTrue("runs=" + runs.get(), runs.get() > 1);
+   }
+
+   public void testRejectedByParent() throws Exception
+   {
+      ExecutorService parent = Executors.newSingleThreadExecutor();
+
+      Executor executor = new OrderedExecutorFactory(parent).getExecutor();
+
+      parent.shutdown();
+
+      Runnable task = new Runnable()
+      {
+         public void run()
+         {
+         }
+      };
+
+      try
+      {
+         executor.execute(task);
+         Assert.fail("the parent should have rejected the task");
+      }
+      catch (RejectedExecutionException expected)
+      {
+      }
+
+      // the executor is not left running, the next task is given to the parent again
+      try
+      {
+         executor.execute(task);
+         Assert.fail("the parent should have rejected the task");
+      }
+      catch (RejectedExecutionException expected)
+      {
+      }
+   }
+
+   public void testRejectedTaskIsNotRun() throws Exception
+   {
+      final AtomicInteger rejections = new AtomicInteger(1);
+
+      Executor parent = new Executor()
+      {
+         public void execute(final Runnable command)
+         {
+            if (rejections.getAndDecrement() > 0)
+            {
+               throw new RejectedExecutionException();
+            }
+            command.run();
+         }
+      };
+
+      Executor executor = new OrderedExecutorFactory(parent).getExecutor();
+
+      final AtomicInteger rejectedRuns = new AtomicInteger();
+
+      final AtomicInteger runs = new AtomicInteger();
+
+      try
+      {
+         executor.execute(new Runnable()
+         {
+            public void run()
+            {
+               rejectedRuns.incrementAndGet();
+            }
+         });
+         Assert.fail("the parent should have rejected the task");
+      }
+      catch (RejectedExecutionException expected)
+      {
+      }
+
+      executor.execute(new Runnable()
+      {
+         public void run()
+         {
+            runs.incrementAndGet();
+         }
+      });
+
+      Assert.assertEquals(0, rejectedRuns.get());
+      Assert.assertEquals(1, runs.get());
+   }
+}
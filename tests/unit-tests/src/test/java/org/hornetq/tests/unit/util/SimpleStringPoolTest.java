@@ -0,0 +1,131 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.unit.util;
+
+import java.util.Iterator;
+
+import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.HornetQBuffers;
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.tests.util.UnitTestCase;
+import org.hornetq.utils.SimpleStringPool;
+import org.hornetq.utils.TypedProperties;
+
+public class SimpleStringPoolTest extends UnitTestCase
+{
+   public void testReadSharesInstances() throws Exception
+   {
+      SimpleStringPool pool = new SimpleStringPool(16, 100);
+
+      HornetQBuffer buffer = HornetQBuffers.dynamicBuffer(100);
+      buffer.writeSimpleString(new SimpleString("address"));
+      buffer.writeSimpleString(new SimpleString("address"));
+      buffer.writeSimpleString(new SimpleString("other"));
+      buffer.writeInt(12345);
+
+      SimpleString first = pool.read(buffer, buffer.readInt());
+      SimpleString second = pool.read(buffer, buffer.readInt());
+      SimpleString other = pool.read(buffer, buffer.readInt());
+
+      assertEquals(new SimpleString("address"), first);
+      assertSame(first, second);
+      assertEquals(new SimpleString("other"), other);
+
+      // the reads leave the buffer where the strings end
+      assertEquals(12345, buffer.readInt());
+   }
+
+   public void testLongStringsAreNotPooled() throws Exception
+   {
+      SimpleStringPool pool = new SimpleStringPool(16, 10);
+
+      SimpleString longString = new SimpleString("a string longer than the pool takes");
+
+      HornetQBuffer buffer = HornetQBuffers.dynamicBuffer(100);
+      buffer.writeSimpleString(longString);
+      buffer.writeSimpleString(longString);
+
+      SimpleString first = pool.read(buffer, buffer.readInt());
+      SimpleString second = pool.read(buffer, buffer.readInt());
+
+      assertEquals(longString, first);
+      assertEquals(longString, second);
+      assertNotSame(first, second);
+   }
+
+   public void testCollisionsReplaceEntries() throws Exception
+   {
+      // a single entry, every string collides
+      SimpleStringPool pool = new SimpleStringPool(1, 100);
+
+      assertEquals(1, pool.getSize());
+
+      HornetQBuffer buffer = HornetQBuffers.dynamicBuffer(100);
+      for (String s : new String[] { "a", "b", "b", "a" })
+      {
+         buffer.writeSimpleString(new SimpleString(s));
+      }
+
+      SimpleString a = pool.read(buffer, buffer.readInt());
+      SimpleString b = pool.read(buffer, buffer.readInt());
+      SimpleString b2 = pool.read(buffer, buffer.readInt());
+      SimpleString a2 = pool.read(buffer, buffer.readInt());
+
+      assertSame(b, b2);
+      assertEquals(a, a2);
+      assertNotSame(a, a2);
+      assertEquals(new SimpleString("a"), a2);
+   }
+
+   public void testDecodePropertiesWithPool() throws Exception
+   {
+      TypedProperties props = new TypedProperties();
+      props.putIntProperty(new SimpleString("key"), 1);
+
+      HornetQBuffer buffer = HornetQBuffers.dynamicBuffer(100);
+      props.encode(buffer);
+      props.encode(buffer);
+
+      SimpleStringPool previous = SimpleStringPool.getDecodePool();
+      SimpleStringPool.setDecodePool(new SimpleStringPool(64, SimpleStringPool.DEFAULT_MAX_LENGTH));
+      try
+      {
+         TypedProperties first = new TypedProperties();
+         first.decode(buffer);
+         TypedProperties second = new TypedProperties();
+         second.decode(buffer);
+
+         assertEquals(1, first.getIntProperty(new SimpleString("key")).intValue());
+         assertEquals(1, second.getIntProperty(new SimpleString("key")).intValue());
+
+         Iterator<SimpleString> firstKeys = first.getPropertyNames().iterator();
+         Iterator<SimpleString> secondKeys = second.getPropertyNames().iterator();
+         assertSame(firstKeys.next(), secondKeys.next());
+      }
+      finally
+      {
+         SimpleStringPool.setDecodePool(previous);
+      }
+   }
+
+   public void testReadNullableSimpleString() throws Exception
+   {
+      HornetQBuffer buffer = HornetQBuffers.dynamicBuffer(100);
+      buffer.writeNullableSimpleString(null);
+      buffer.writeNullableSimpleString(new SimpleString("address"));
+
+      assertNull(SimpleStringPool.readNullableSimpleString(buffer));
+      assertEquals(new SimpleString("address"), SimpleStringPool.readNullableSimpleString(buffer));
+   }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.unit.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hornetq.tests.util.UnitTestCase;
+import org.hornetq.utils.StripedReadWriteLock;
+
+public class StripedReadWriteLockTest extends UnitTestCase
+{
+   public void testReentrantRead() throws Exception
+   {
+      StripedReadWriteLock lock = new StripedReadWriteLock();
+
+      lock.readLock().lock();
+      lock.readLock().lock();
+
+      assertEquals(1, lock.getReadLockCount());
+
+      lock.readLock().unlock();
+      assertEquals(1, lock.getReadLockCount());
+
+      lock.readLock().unlock();
+      assertEquals(0, lock.getReadLockCount());
+
+      try
+      {
+         lock.readLock().unlock();
+         fail("the read lock is not held");
+      }
+      catch (IllegalMonitorStateException expected)
+      {
+      }
+   }
+
+   public void testWriterWaitsForReaders() throws Exception
+   {
+      final StripedReadWriteLock lock = new StripedReadWriteLock();
+
+      lock.readLock().lock();
+
+      final CountDownLatch locked = new CountDownLatch(1);
+
+      Thread writer = new Thread()
+      {
+         @Override
+         public void run()
+         {
+            lock.writeLock().lock();
+            locked.countDown();
+            lock.writeLock().unlock();
+         }
+      };
+      writer.start();
+
+      assertFalse(locked.await(100, TimeUnit.MILLISECONDS));
+
+      // the reader already holding the lock may take it again while the writer waits
+      lock.readLock().lock();
+      lock.readLock().unlock();
+
+      lock.readLock().unlock();
+
+      assertTrue(locked.await(10, TimeUnit.SECONDS));
+      writer.join();
+
+      assertFalse(lock.isWriteLocked());
+   }
+
+   public void testWaitingWriterBlocksNewReaders() throws Exception
+   {
+      final StripedReadWriteLock lock = new StripedReadWriteLock();
+
+      lock.readLock().lock();
+
+      Thread writer = new Thread()
+      {
+         @Override
+         public void run()
+         {
+            lock.writeLock().lock();
+            lock.writeLock().unlock();
+         }
+      };
+      writer.start();
+
+      long timeout = System.currentTimeMillis() + 10000;
+      while (!lock.isWriteLocked() && System.currentTimeMillis() < timeout)
+      {
+         Thread.sleep(10);
+      }
+      assertTrue(lock.isWriteLocked());
+
+      final AtomicInteger readerResult = new AtomicInteger(-1);
+
+      Thread reader = new Thread()
+      {
+         @Override
+         public void run()
+         {
+            readerResult.set(lock.readLock().tryLock() ? 1 : 0);
+         }
+      };
+      reader.start();
+      reader.join();
+
+      assertEquals(0, readerResult.get());
+
+      lock.readLock().unlock();
+      writer.join();
+
+      assertTrue(lock.readLock().tryLock());
+      lock.readLock().unlock();
+   }
+
+   public void testWriterTakesReadLock() throws Exception
+   {
+      StripedReadWriteLock lock = new StripedReadWriteLock();
+
+      lock.writeLock().lock();
+      lock.writeLock().lock();
+      lock.readLock().lock();
+
+      assertEquals(0, lock.getReadLockCount());
+
+      lock.writeLock().unlock();
+      assertTrue(lock.isWriteLocked());
+
+      // once the write lock is released the thread is a reader like any other
+      lock.writeLock().unlock();
+      assertFalse(lock.isWriteLocked());
+      assertEquals(1, lock.getReadLockCount());
+
+      assertFalse(lock.writeLock().tryLock());
+      assertFalse(lock.isWriteLocked());
+
+      lock.readLock().unlock();
+      assertEquals(0, lock.getReadLockCount());
+
+      assertTrue(lock.writeLock().tryLock());
+      lock.writeLock().unlock();
+   }
+
+   public void testReadersSeeWritesAtomically() throws Exception
+   {
+      final StripedReadWriteLock lock = new StripedReadWriteLock(4);
+
+      final int[] values = new int[2];
+
+      final AtomicInteger errors = new AtomicInteger();
+
+      final CountDownLatch done = new CountDownLatch(1);
+
+      Thread[] readers = new Thread[4];
+
+      for (int i = 0; i < readers.length; i++)
+      {
+         readers[i] = new Thread()
+         {
+            @Override
+            public void run()
+            {
+               while (done.getCount() != 0)
+               {
+                  lock.readLock().lock();
+                  try
+                  {
+                     if (values[0] != values[1])
+                     {
+                        errors.incrementAndGet();
+                     }
+                  }
+                  finally
+                  {
+                     lock.readLock().unlock();
+                  }
+               }
+            }
+         };
+         readers[i].start();
+      }
+
+      for (int i = 0; i < 200; i++)
+      {
+         lock.writeLock().lock();
+         try
+         {
+            values[0]++;
+            Thread.yield();
+            values[1]++;
+         }
+         finally
+         {
+            lock.writeLock().unlock();
+         }
+      }
+
+      done.countDown();
+
+      for (Thread reader : readers)
+      {
+         reader.join();
+      }
+
+      assertEquals(0, errors.get());
+      assertEquals(0, lock.getReadLockCount());
+   }
+}
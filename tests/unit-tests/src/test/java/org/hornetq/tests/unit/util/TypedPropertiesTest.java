@@ -0,0 +1,188 @@
+/*
+ * Copyright 2009 Red Hat, Inc.
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.hornetq.tests.unit.util;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.hornetq.api.core.HornetQBuffer;
+import org.hornetq.api.core.HornetQBuffers;
+import org.hornetq.api.core.SimpleString;
+import org.hornetq.tests.util.UnitTestCase;
+import org.hornetq.utils.TypedProperties;
+
+public class TypedPropertiesTest extends UnitTestCase
+{
+   private static final SimpleString BOOLEAN_KEY = new SimpleString("boolean");
+
+   private static final SimpleString BYTES_KEY = new SimpleString("bytes");
+
+   private static final SimpleString CHAR_KEY = new SimpleString("char");
+
+   private static final SimpleString DOUBLE_KEY = new SimpleString("double");
+
+   private static final SimpleString INT_KEY = new SimpleString("int");
+
+   private static final SimpleString LONG_KEY = new SimpleString("long");
+
+   private static final SimpleString NULL_KEY = new SimpleString("null");
+
+   private static final SimpleString STRING_KEY = new SimpleString("string");
+
+   private TypedProperties props;
+
+   public void testLazyDecode() throws Exception
+   {
+      TypedProperties lazy = decodeLazily(props);
+
+      assertTrue(lazy.containsProperty(INT_KEY));
+      assertFalse(lazy.containsProperty(new SimpleString("missing")));
+      assertNull(lazy.getProperty(new SimpleString("missing")));
+
+      assertEquals(Boolean.TRUE, lazy.getBooleanProperty(BOOLEAN_KEY));
+      assertEqualsByteArrays(new byte[] { 1, 2, 3 }, lazy.getBytesProperty(BYTES_KEY));
+      assertEquals(Character.valueOf('c'), lazy.getCharProperty(CHAR_KEY));
+      assertEquals(1.5d, lazy.getDoubleProperty(DOUBLE_KEY), 0);
+      assertEquals(Integer.valueOf(10), lazy.getIntProperty(INT_KEY));
+      assertEquals(Long.valueOf(20), lazy.getLongProperty(LONG_KEY));
+      assertNull(lazy.getProperty(NULL_KEY));
+      assertTrue(lazy.containsProperty(NULL_KEY));
+      assertEquals(new SimpleString("value"), lazy.getSimpleStringProperty(STRING_KEY));
+
+      assertEquals(props.getEncodeSize(), lazy.getEncodeSize());
+      assertEquals(props.getPropertyNames(), lazy.getPropertyNames());
+   }
+
+   public void testEncodeUnmodifiedCopiesBytes() throws Exception
+   {
+      TypedProperties lazy = decodeLazily(props);
+
+      lazy.getIntProperty(INT_KEY);
+      lazy.removeProperty(new SimpleString("missing"));
+
+      HornetQBuffer original = HornetQBuffers.dynamicBuffer(props.getEncodeSize());
+      props.encode(original);
+
+      HornetQBuffer buffer = HornetQBuffers.dynamicBuffer(lazy.getEncodeSize());
+      lazy.encode(buffer);
+
+      assertEquals(original.writerIndex(), buffer.writerIndex());
+      assertEqualsByteArrays(original.writerIndex(), original.toByteBuffer().array(), buffer.toByteBuffer().array());
+   }
+
+   public void testModifyLazilyDecoded() throws Exception
+   {
+      TypedProperties lazy = decodeLazily(props);
+
+      lazy.putIntProperty(INT_KEY, 11);
+      lazy.removeProperty(LONG_KEY);
+      lazy.putLongProperty(new SimpleString("other"), 30);
+
+      HornetQBuffer buffer = HornetQBuffers.dynamicBuffer(lazy.getEncodeSize());
+      lazy.encode(buffer);
+      assertEquals(lazy.getEncodeSize(), buffer.writerIndex());
+
+      TypedProperties decoded = new TypedProperties();
+      decoded.decode(buffer);
+
+      assertEquals(Integer.valueOf(11), decoded.getIntProperty(INT_KEY));
+      assertFalse(decoded.containsProperty(LONG_KEY));
+      assertEquals(Long.valueOf(30), decoded.getLongProperty(new SimpleString("other")));
+      assertEquals(new SimpleString("value"), decoded.getSimpleStringProperty(STRING_KEY));
+
+      Set<SimpleString> expected = new HashSet<SimpleString>(props.getPropertyNames());
+      expected.remove(LONG_KEY);
+      expected.add(new SimpleString("other"));
+      assertEquals(expected, decoded.getPropertyNames());
+   }
+
+   public void testCopyOfLazilyDecoded() throws Exception
+   {
+      TypedProperties lazy = decodeLazily(props);
+
+      TypedProperties copy = new TypedProperties(lazy);
+      copy.putIntProperty(INT_KEY, 12);
+
+      assertEquals(Integer.valueOf(10), lazy.getIntProperty(INT_KEY));
+      assertEquals(Integer.valueOf(12), copy.getIntProperty(INT_KEY));
+      assertEquals(new SimpleString("value"), copy.getSimpleStringProperty(STRING_KEY));
+   }
+
+   public void testInternalPropertiesLazilyDecoded() throws Exception
+   {
+      assertFalse(decodeLazily(props).hasInternalProperties());
+
+      props.putIntProperty(new SimpleString("_HQ_internal"), 1);
+
+      assertTrue(decodeLazily(props).hasInternalProperties());
+   }
+
+   public void testLazyDecodeNullAndEmpty() throws Exception
+   {
+      TypedProperties lazy = decodeLazily(new TypedProperties());
+      assertEquals(1, lazy.getEncodeSize());
+      assertTrue(lazy.getPropertyNames().isEmpty());
+
+      TypedProperties empty = new TypedProperties();
+      empty.putIntProperty(INT_KEY, 1);
+      empty.removeProperty(INT_KEY);
+
+      lazy = decodeLazily(empty);
+      assertEquals(empty.getEncodeSize(), lazy.getEncodeSize());
+      assertFalse(lazy.containsProperty(INT_KEY));
+      assertNull(lazy.getProperty(INT_KEY));
+   }
+
+   // Package protected ---------------------------------------------
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      super.setUp();
+
+      props = new TypedProperties();
+      props.putBooleanProperty(BOOLEAN_KEY, true);
+      props.putBytesProperty(BYTES_KEY, new byte[] { 1, 2, 3 });
+      props.putCharProperty(CHAR_KEY, 'c');
+      props.putDoubleProperty(DOUBLE_KEY, 1.5d);
+      props.putIntProperty(INT_KEY, 10);
+      props.putLongProperty(LONG_KEY, 20);
+      props.putNullValue(NULL_KEY);
+      props.putSimpleStringProperty(STRING_KEY, new SimpleString("value"));
+   }
+
+   @Override
+   protected void tearDown() throws Exception
+   {
+      props = null;
+
+      super.tearDown();
+   }
+
+   // Private -------------------------------------------------------
+
+   private static TypedProperties decodeLazily(final TypedProperties properties)
+   {
+      HornetQBuffer buffer = HornetQBuffers.dynamicBuffer(properties.getEncodeSize());
+      properties.encode(buffer);
+
+      TypedProperties lazy = new TypedProperties();
+      lazy.setLazyDecode(true);
+      lazy.decode(buffer);
+
+      assertEquals(0, buffer.readableBytes());
+
+      return lazy;
+   }
+}